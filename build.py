@@ -401,6 +401,15 @@ CTX.INPUT['graph'] = """
  GraphView.cpp
  GraphViewFactory.cpp
  GraphViewCatalogDelegate.cpp
+ CSRAdjacency.cpp
+ PathTraversalContext.cpp
+ GraphViewStats.cpp
+ GraphTraversalStats.cpp
+ TraversalCache.cpp
+ LandmarkIndex.cpp
+ ReachabilityIndex.cpp
+ GraphKeyMap.cpp
+ GraphAnalytics.cpp
 """
 
 # specify the third party input
@@ -502,6 +511,13 @@ if whichtests in ("${eetestsuite}", "expressions"):
      function_test
     """
 
+if whichtests in ("${eetestsuite}", "graph"):
+    CTX.TESTS['graph'] = """
+     GraphViewMaintenanceTest
+     PathTraversalTest
+     GraphKeyMapTest
+    """
+
 if whichtests in ("${eetestsuite}", "indexes"):
     CTX.TESTS['indexes'] = """
      index_key_test
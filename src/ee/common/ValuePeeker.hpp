@@ -111,6 +111,15 @@ public:
         return value.createStringFromDecimal();
     }
 
+    // cast as double and peek at value. this is used by the
+    // graph views to read numeric edge properties as path costs.
+    static double peekAsDouble(const NValue& value) {
+        if (value.isNull()) {
+            return DOUBLE_NULL;
+        }
+        return value.castAsDoubleAndGetValue();
+    }
+
     // cast as big int and peek at value. this is used by
     // index code that need a real number from a tuple.
     static int64_t peekAsBigInt(const NValue& value) {
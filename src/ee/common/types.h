@@ -458,7 +458,9 @@ inline bool tableStreamTypeAppliesToPreTruncateTable(TableStreamType streamType)
 // ------------------------------------------------------------------
 enum StatisticsSelectorType {
     STATISTICS_SELECTOR_TYPE_TABLE,
-    STATISTICS_SELECTOR_TYPE_INDEX
+    STATISTICS_SELECTOR_TYPE_INDEX,
+    STATISTICS_SELECTOR_TYPE_GRAPHVIEW,
+    STATISTICS_SELECTOR_TYPE_GRAPHTRAVERSAL
 };
 
 // ------------------------------------------------------------------
@@ -499,7 +501,11 @@ enum TaskType {
     TASK_TYPE_SP_JAVA_GET_DRID_TRACKER = 4,      // not supported in EE
     TASK_TYPE_SET_DRID_TRACKER = 5,              // not supported in EE
     TASK_TYPE_GENERATE_DR_EVENT = 6,
-    TASK_TYPE_RESET_DR_APPLIED_TRACKER = 7       // not supported in EE
+    TASK_TYPE_RESET_DR_APPLIED_TRACKER = 7,      // not supported in EE
+    TASK_TYPE_GRAPH_ANALYTICS = 8,
+    TASK_TYPE_GRAPH_BULK_LOAD = 9,
+    TASK_TYPE_GRAPH_TOPOLOGY_IMAGE = 10,
+    TASK_TYPE_GRAPH_TOPOLOGY_RESTORE = 11
 };
 
 // ------------------------------------------------------------------
@@ -360,9 +360,7 @@ catalog::GraphView* VoltDBEngine::getCatalogGraphView(const std::string& name) c
 
 void VoltDBEngine::serializeTable(int32_t tableId, SerializeOutput& out) const
 {
-	std::stringstream params;
-	params << "tableId = " << tableId;
-	LogManager::GLog("VoltDBEngine", "serializeTable", 340, params.str());
+	GLOG("VoltDBEngine", "serializeTable", 340, "tableId = " << tableId);
     // Just look in our list of tables
     Table* table = getTable(tableId);
     if ( ! table) {
@@ -415,10 +413,7 @@ int VoltDBEngine::executePlanFragments(int32_t numFragments,
                                        int64_t uniqueId,
                                        int64_t undoToken)
 {
-	std::stringstream params;
-	params << "numFragments = " << numFragments;
-
-	LogManager::GLog("VoltDBEngine", "executePlanFragment(s)!", 410, params.str());
+	GLOG("VoltDBEngine", "executePlanFragment(s)!", 410, "numFragments = " << numFragments);
     // count failures
     int failures = 0;
 
@@ -499,9 +494,7 @@ int VoltDBEngine::executePlanFragment(int64_t planfragmentId,
                                       bool last)
 {
 	//LogManager::getThreadLogger(LOGGERID_HOST)->log(voltdb::LOGLEVEL_WARN, "This is my Testing, Warn!");
-	std::stringstream params;
-	params << "planFragmentId = " << planfragmentId;
-	LogManager::GLog("VoltDBEngine", "executePlanFragment", 477, params.str());
+	GLOG("VoltDBEngine", "executePlanFragment", 477, "planFragmentId = " << planfragmentId);
     assert(planfragmentId != 0);
 
     m_currentInputDepId = static_cast<int32_t>(inputDependencyId);
@@ -1391,9 +1384,9 @@ void VoltDBEngine::rebuildGraphViewCollections()
 	m_graphViewsByName.clear();
     //m_tablesBySignatureHash.clear();
 
-    // need to re-map all the table ids / indexes
-    //getStatsManager().unregisterStatsSource(STATISTICS_SELECTOR_TYPE_TABLE);
-    //getStatsManager().unregisterStatsSource(STATISTICS_SELECTOR_TYPE_INDEX);
+    // need to re-map all the graph view ids
+    getStatsManager().unregisterStatsSource(STATISTICS_SELECTOR_TYPE_GRAPHVIEW);
+    getStatsManager().unregisterStatsSource(STATISTICS_SELECTOR_TYPE_GRAPHTRAVERSAL);
 
     // walk the table delegates and update local table collections
     BOOST_FOREACH (LabeledGVCD cd, m_graphViewCatalogDelegates) {
@@ -1422,7 +1415,16 @@ void VoltDBEngine::rebuildGraphViewCollections()
         m_graphViews[relativeIndexOfGraphView] = localGraphView;
         m_graphViewsByName[gcd->getGraphView()->name()] = localGraphView;
 
-       //stats should be handled here later
+        getStatsManager().registerStatsSource(STATISTICS_SELECTOR_TYPE_GRAPHVIEW,
+                                              relativeIndexOfGraphView,
+                                              localGraphView->getGraphViewStats());
+        // one source per tracked query type, each adding a row for the graph view
+        const std::vector<GraphTraversalStats*>& traversalStats = localGraphView->getGraphTraversalStats();
+        for (int ii = 0; ii < traversalStats.size(); ii++) {
+            getStatsManager().registerStatsSource(STATISTICS_SELECTOR_TYPE_GRAPHTRAVERSAL,
+                                                  relativeIndexOfGraphView,
+                                                  traversalStats[ii]);
+        }
     }
     resetDRConflictStreamedTables();
 }
@@ -1451,9 +1453,7 @@ void VoltDBEngine::resetDRConflictStreamedTables()
 
 void VoltDBEngine::setExecutorVectorForFragmentId(int64_t fragId)
 {
-	std::stringstream params;
-	params << "fragId = " << fragId;
-	LogManager::GLog("VoltDBEngine", "setExecutorVectorForFragmentId", 1403, params.str());
+	GLOG("VoltDBEngine", "setExecutorVectorForFragmentId", 1403, "fragId = " << fragId);
     if (m_plans) {
         PlanSet& existing_plans = *m_plans;
         PlanSet::nth_index<1>::type::iterator iter = existing_plans.get<1>().find(fragId);
@@ -1765,6 +1765,24 @@ int VoltDBEngine::getStats(int selector, int locators[], int numLocators,
                 }
             }
 
+            resultTable = m_statsManager.getStats(
+                (StatisticsSelectorType) selector,
+                locatorIds, interval, now);
+            break;
+        case STATISTICS_SELECTOR_TYPE_GRAPHVIEW:
+        case STATISTICS_SELECTOR_TYPE_GRAPHTRAVERSAL:
+            for (int ii = 0; ii < numLocators; ii++) {
+                CatalogId locator = static_cast<CatalogId>(locators[ii]);
+                if (m_graphViews.find(locator) == m_graphViews.end()) {
+                    char message[256];
+                    snprintf(message, 256,  "getStats() called with selector %d, and"
+                            " an invalid locator %d that does not correspond to"
+                            " a graph view", selector, locator);
+                    throw SerializableEEException(VOLT_EE_EXCEPTION_TYPE_EEEXCEPTION,
+                                                  message);
+                }
+            }
+
             resultTable = m_statsManager.getStats(
                 (StatisticsSelectorType) selector,
                 locatorIds, interval, now);
@@ -2121,6 +2139,143 @@ void VoltDBEngine::dispatchValidatePartitioningTask(ReferenceSerializeInputBE &t
     }
 }
 
+void VoltDBEngine::dispatchGraphAnalyticsTask(ReferenceSerializeInputBE &taskInfo) {
+    const std::string graphViewName = taskInfo.readTextString();
+    const std::string algorithmName = taskInfo.readTextString();
+    const int32_t maxIterations = taskInfo.readInt();
+    const bool finish = taskInfo.readBool();
+
+    GraphViewCatalogDelegate* delegate = getGraphViewDelegate(graphViewName);
+    GraphView* graphView = (delegate != NULL) ? delegate->getGraphView() : NULL;
+    if (graphView == NULL) {
+        throwDynamicSQLException("Graph view %s does not exist", graphViewName.c_str());
+    }
+    GraphAnalytics::Algorithm algorithm = GraphAnalytics::algorithmOf(algorithmName);
+    if (algorithm == GraphAnalytics::NO_ALGORITHM) {
+        throwDynamicSQLException("Unknown graph algorithm %s, expected PAGERANK, COMPONENTS or TRIANGLES",
+                                 algorithmName.c_str());
+    }
+    if (finish) {
+        // the caller inserts the results into the result table, which has to be empty
+        const std::string resultTableName = taskInfo.readTextString();
+        Table* resultTable = getTable(resultTableName);
+        if (resultTable == NULL) {
+            throwDynamicSQLException("Table %s does not exist", resultTableName.c_str());
+        }
+        if (resultTable->activeTupleCount() > 0) {
+            throwDynamicSQLException("Result table %s must be empty", resultTableName.c_str());
+        }
+    }
+
+    // the size of the result is known once the graph view wrote it
+    size_t sizePosition = m_resultOutput.reserveBytes(sizeof(int32_t));
+    graphView->runAnalytics(algorithm, maxIterations, finish, m_resultOutput);
+    m_resultOutput.writeIntAt(sizePosition,
+            static_cast<int32_t>(m_resultOutput.position() - sizePosition - sizeof(int32_t)));
+}
+
+void VoltDBEngine::dispatchGraphBulkLoadTask(ReferenceSerializeInputBE &taskInfo) {
+    const std::string tableName = taskInfo.readTextString();
+    const bool begin = taskInfo.readBool();
+
+    PersistentTable* table = dynamic_cast<PersistentTable*>(getTable(tableName));
+    if (table == NULL) {
+        throwDynamicSQLException("Table %s does not exist", tableName.c_str());
+    }
+    // every graph view over the table, as its vertexes or its edges table
+    BOOST_FOREACH (GraphView* graphView, table->graphViews()) {
+        if (begin) {
+            graphView->beginBulkLoad();
+        }
+        else {
+            graphView->endBulkLoad();
+        }
+    }
+
+    m_resultOutput.writeInt(static_cast<int32_t>(sizeof(int32_t)));
+    m_resultOutput.writeInt(static_cast<int32_t>(table->graphViews().size()));
+}
+
+// largest piece of a topology image handed over by one task
+static const size_t GRAPH_TOPOLOGY_CHUNK_SIZE = 1024 * 1024;
+
+// actions of the graph topology restore tasks, see GraphTopologyRestore.java
+enum GraphTopologyRestoreAction {
+    GRAPH_TOPOLOGY_RESTORE_BEGIN = 0,
+    GRAPH_TOPOLOGY_RESTORE_APPEND = 1,
+    GRAPH_TOPOLOGY_RESTORE_END = 2,
+    GRAPH_TOPOLOGY_RESTORE_DISCARD = 3
+};
+
+void VoltDBEngine::dispatchGraphTopologyImageTask(ReferenceSerializeInputBE &taskInfo) {
+    const std::string graphViewName = taskInfo.readTextString();
+    const int64_t offset = taskInfo.readLong();
+
+    GraphViewCatalogDelegate* delegate = getGraphViewDelegate(graphViewName);
+    GraphView* graphView = (delegate != NULL) ? delegate->getGraphView() : NULL;
+    if (graphView == NULL) {
+        throwDynamicSQLException("Graph view %s does not exist", graphViewName.c_str());
+    }
+    // the image is taken by the first task, in the snapshot transaction, and held
+    // by the graph view until its last chunk is handed over
+    std::string& image = graphView->getTopologyImage();
+    if (offset == 0) {
+        image.clear();
+        CopySerializeOutput out;
+        if (graphView->saveTopology(out)) {
+            image.assign(out.data(), out.size());
+        }
+    }
+    size_t start = std::min(static_cast<size_t>(offset), image.size());
+    size_t chunk = std::min(GRAPH_TOPOLOGY_CHUNK_SIZE, image.size() - start);
+
+    m_resultOutput.writeInt(static_cast<int32_t>(sizeof(int64_t) + chunk));
+    m_resultOutput.writeLong(static_cast<int64_t>(image.size()));
+    m_resultOutput.writeBytes(image.data() + start, chunk);
+    if (start + chunk == image.size()) {
+        std::string().swap(image);
+    }
+}
+
+void VoltDBEngine::dispatchGraphTopologyRestoreTask(ReferenceSerializeInputBE &taskInfo) {
+    const int8_t action = taskInfo.readByte();
+
+    int32_t imagesLoaded = 0;
+    if (action == GRAPH_TOPOLOGY_RESTORE_APPEND || action == GRAPH_TOPOLOGY_RESTORE_DISCARD) {
+        // a chunk of the image a graph view loads when the restore ends,
+        // or the chunks of an image found corrupt part way through its file
+        const std::string graphViewName = taskInfo.readTextString();
+        GraphViewCatalogDelegate* delegate = getGraphViewDelegate(graphViewName);
+        GraphView* graphView = (delegate != NULL) ? delegate->getGraphView() : NULL;
+        if (graphView == NULL) {
+            throwDynamicSQLException("Graph view %s does not exist", graphViewName.c_str());
+        }
+        if (action == GRAPH_TOPOLOGY_RESTORE_APPEND) {
+            const int32_t length = taskInfo.readInt();
+            graphView->getTopologyImage().append(taskInfo.getRawPointer(length), length);
+        }
+        else {
+            std::string().swap(graphView->getTopologyImage());
+        }
+    }
+    else {
+        // the maintenance of every graph view is suspended while the tables are restored
+        typedef std::pair<std::string, GraphView*> GraphViewPair;
+        BOOST_FOREACH (GraphViewPair entry, m_graphViewsByName) {
+            if (action == GRAPH_TOPOLOGY_RESTORE_BEGIN) {
+                entry.second->beginBulkLoad();
+            }
+            else if (entry.second->endBulkLoad()) {
+                imagesLoaded++;
+            }
+        }
+    }
+
+    m_resultOutput.writeInt(static_cast<int32_t>(2 * sizeof(int32_t)));
+    m_resultOutput.writeInt(static_cast<int32_t>(m_graphViewsByName.size()));
+    m_resultOutput.writeInt(imagesLoaded);
+}
+
 void VoltDBEngine::collectDRTupleStreamStateInfo() {
     std::size_t size = 3 * sizeof(int64_t) + 4 /*drVersion*/ + 1 /*hasReplicatedStream*/;
     if (m_executorContext->drReplicatedStream()) {
@@ -2174,6 +2329,18 @@ void VoltDBEngine::executeTask(TaskType taskType, ReferenceSerializeInputBE &tas
     case TASK_TYPE_GET_DR_TUPLESTREAM_STATE:
         collectDRTupleStreamStateInfo();
         break;
+    case TASK_TYPE_GRAPH_ANALYTICS:
+        dispatchGraphAnalyticsTask(taskInfo);
+        break;
+    case TASK_TYPE_GRAPH_BULK_LOAD:
+        dispatchGraphBulkLoadTask(taskInfo);
+        break;
+    case TASK_TYPE_GRAPH_TOPOLOGY_IMAGE:
+        dispatchGraphTopologyImageTask(taskInfo);
+        break;
+    case TASK_TYPE_GRAPH_TOPOLOGY_RESTORE:
+        dispatchGraphTopologyRestoreTask(taskInfo);
+        break;
     case TASK_TYPE_SET_DR_SEQUENCE_NUMBERS: {
         int64_t partitionSequenceNumber = taskInfo.readLong();
         int64_t mpSequenceNumber = taskInfo.readLong();
@@ -440,6 +440,14 @@ class __attribute__((visibility("default"))) VoltDBEngine {
          */
         void dispatchValidatePartitioningTask(ReferenceSerializeInputBE &taskInfo);
 
+        void dispatchGraphAnalyticsTask(ReferenceSerializeInputBE &taskInfo);
+
+        void dispatchGraphBulkLoadTask(ReferenceSerializeInputBE &taskInfo);
+
+        void dispatchGraphTopologyImageTask(ReferenceSerializeInputBE &taskInfo);
+
+        void dispatchGraphTopologyRestoreTask(ReferenceSerializeInputBE &taskInfo);
+
         void collectDRTupleStreamStateInfo();
 
         void setCurrentUndoQuantum(voltdb::UndoQuantum* undoQuantum);
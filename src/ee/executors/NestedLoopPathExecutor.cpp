@@ -72,6 +72,7 @@ bool NestedLoopPathExecutor::p_init(AbstractPlanNode* abstractNode,
     pathScanNode = NULL;
     startVertexColumnId = UNDEFINED;
     endVertexColumnId = UNDEFINED;
+    m_batchPending = false;
 
     vector<AbstractPlanNode*> children = abstractNode->getChildren();
     if (children.size() == 2)
@@ -81,6 +82,7 @@ bool NestedLoopPathExecutor::p_init(AbstractPlanNode* abstractNode,
     	if (pathScanNode != NULL)
     	{
     		graphView = pathScanNode->getTargetGraphView();
+    		m_traversal.reset(new PathTraversalContext(graphView));
     	}
     }
 
@@ -89,14 +91,7 @@ bool NestedLoopPathExecutor::p_init(AbstractPlanNode* abstractNode,
 
 bool NestedLoopPathExecutor::p_execute(const NValueArray &params) {
 
-	if (graphView != NULL)
-	{
-		LogManager::GLog("NestedLoopPathExecutor", "p_execute", 67, graphView->name());
-	}
-	else
-	{
-		LogManager::GLog("NestedLoopPathExecutor", "p_execute", 67, "no graph view...");
-	}
+	GLOG("NestedLoopPathExecutor", "p_execute", 67, (graphView != NULL ? graphView->name() : "no graph view..."));
 
     VOLT_DEBUG("executing NestLoop...");
 
@@ -113,8 +108,8 @@ bool NestedLoopPathExecutor::p_execute(const NValueArray &params) {
     Table* inner_table = node->getInputTable(1);
     assert(inner_table);
 
-    LogManager::GLog("NestedLoopPathExecutor", "p_execute (Outer table)", 117, outer_table->name());
-    LogManager::GLog("NestedLoopPathExecutor", "p_execute (Inner table)", 118, inner_table->name());
+    GLOG("NestedLoopPathExecutor", "p_execute (Outer table)", 117, outer_table->name());
+    GLOG("NestedLoopPathExecutor", "p_execute (Inner table)", 118, inner_table->name());
 
     VOLT_TRACE ("input table left:\n %s", outer_table->debug().c_str());
     VOLT_TRACE ("input table right:\n %s", inner_table->debug().c_str());
@@ -185,21 +180,43 @@ bool NestedLoopPathExecutor::p_execute(const NValueArray &params) {
     	setStartAndEndVertexes(joinPredicate, inner_table, outer_table);
     	startVertexId = UNDEFINED;
     	endVertexId = UNDEFINED;
-    	graphView->pathLength = pathScanNode->getPathLength();
-    	graphView->spColumnIndexInEdgesTable = pathScanNode->getSPColumnIdInEdgesTable();
-    	graphView->topK = 1;
-    	graphView->queryType = getQueryType();
-
-
-    	std::stringstream debugParams;
-    	debugParams << "startVertexColumnId = " << startVertexColumnId << ", endVertexColumnId = " << endVertexColumnId << ", length = " << graphView->pathLength
-    			<< ", spColumnIndexInEdgesTable = " << graphView->spColumnIndexInEdgesTable << ", queryType = " << graphView->queryType;
-    	LogManager::GLog("NestedLoopPathExecutor", "p_execute", 224, debugParams.str());
+    	m_traversal->pathLength = pathScanNode->getPathLength();
+    	m_traversal->spColumnIndexInEdgesTable = pathScanNode->getSPColumnIdInEdgesTable();
+    	m_traversal->vertexPredicate = pathScanNode->getVertexPredicate();
+    	m_traversal->edgePredicate = pathScanNode->getEdgePredicate();
+    	m_traversal->pathColumns = pathScanNode->getPathColumns();
+    	//the traversals of all the outer tuples share the budget of the scan
+    	m_traversal->setExpansionBudget(pathScanNode->getMaxExpansions());
+    	//the traversals run as the paths are read, and report their expansions here
+    	m_traversal->progress = &pmp;
+    	m_traversal->topK = 1;
+    	m_traversal->queryType = getQueryType();
+    	m_traversal->clearBatch();
+    	m_batchPending = false;
+
+
+    	GLOG("NestedLoopPathExecutor", "p_execute", 224,
+    			"startVertexColumnId = " << startVertexColumnId << ", endVertexColumnId = " << endVertexColumnId << ", length = " << m_traversal->pathLength
+    			<< ", spColumnIndexInEdgesTable = " << m_traversal->spColumnIndexInEdgesTable << ", queryType = " << m_traversal->queryType);
     }
 
+    //the start vertexes of a window of outer tuples are traversed at once, read ahead by a second iterator,
+    //which stays ahead of the outer iterator, so the blocks it reads are not freed yet
+    bool batching = graphView != NULL && graphView->canBatchTraversals(*m_traversal);
+    TableIterator batchIterator = outer_table->iterator();
+    TableTuple batch_tuple(outer_table->schema());
+    int batchRowsLeft = 0;
+
     while (postfilter.isUnderLimit() && iterator0.next(outer_tuple)) {
         pmp.countdownProgress();
 
+        if (batching) {
+            if (batchRowsLeft <= 0) {
+                batchRowsLeft = batchTraversals(batchIterator, batch_tuple, preJoinPredicate);
+            }
+            batchRowsLeft--;
+        }
+
         // populate output table's temp tuple with outer table's values
         // probably have to do this at least once - avoid doing it many
         // times per outer tuple
@@ -242,18 +259,18 @@ bool NestedLoopPathExecutor::p_execute(const NValueArray &params) {
 
         		if (startVertexColumnId != UNDEFINED)
         		{
-        			startVertexId = ValuePeeker::peekAsInteger(outer_tuple.getNValue(startVertexColumnId));
+        			startVertexId = vertexIdOfColumn(outer_tuple, startVertexColumnId);
         		}
 
         		if (endVertexColumnId != UNDEFINED)
         		{
-        			endVertexId = ValuePeeker::peekAsInteger(outer_tuple.getNValue(endVertexColumnId));
+        			endVertexId = vertexIdOfColumn(outer_tuple, endVertexColumnId);
         		}
 
-        		graphView->fromVertexId = startVertexId;
-        		graphView->toVertexId = endVertexId;
+        		m_traversal->fromVertexId = startVertexId;
+        		m_traversal->toVertexId = endVertexId;
 
-        		PathIterator pathIterator = graphView->iteratorDeletingAsWeGo();
+        		PathIterator pathIterator = graphView->iteratorDeletingAsWeGo(*m_traversal);
 
         		while (postfilter.isUnderLimit() && pathIterator.next(inner_tuple)) {
 					pmp.countdownProgress();
@@ -271,6 +288,8 @@ bool NestedLoopPathExecutor::p_execute(const NValueArray &params) {
 						if (postfilter.eval(&outer_tuple, &inner_tuple)) {
 							// Matched! Complete the joined tuple with the inner column values.
 							join_tuple.setNValues(outer_cols, inner_tuple, 0, inner_cols);
+							// the PATH and VARCHAR key values of the paths are purged with their batch
+							PathTraversalContext::keepStagedValues(join_tuple, outer_cols, outer_cols + inner_cols);
 							outputTuple(postfilter, join_tuple, pmp);
 						}
 					}
@@ -292,6 +311,10 @@ bool NestedLoopPathExecutor::p_execute(const NValueArray &params) {
             }
         } // END IF LEFT OUTER JOIN
     } // END OUTER WHILE LOOP
+    if (graphView != NULL)
+    {
+    	m_traversal->progress = NULL;
+    }
 
     //
     // FULL Outer Join. Iterate over the unmatched inner tuples
@@ -368,6 +391,40 @@ void NestedLoopPathExecutor::setStartAndEndVertexes(const AbstractExpression* jo
 	}
 }
 
+int NestedLoopPathExecutor::vertexIdOfColumn(const TableTuple& tuple, int columnId)
+{
+	//a null key joins no vertex rather than leaving the vertex unbound
+	NValue key = tuple.getNValue(columnId);
+	return key.isNull() ? GraphKeyMap::UNKNOWN_ID : graphView->vertexIdOf(key);
+}
+
+int NestedLoopPathExecutor::batchTraversals(TableIterator& iterator, TableTuple& tuple, AbstractExpression* preJoinPredicate)
+{
+	m_traversal->clearBatch();
+	int rows = 0;
+	while (rows < PathTraversalContext::MS_BFS_MAX_ROWS && (m_batchPending || iterator.next(tuple)))
+	{
+		m_batchPending = false;
+		if (preJoinPredicate == NULL || preJoinPredicate->eval(&tuple, NULL).isTrue())
+		{
+			int fromVertexId = vertexIdOfColumn(tuple, startVertexColumnId);
+			int toVertexId = (endVertexColumnId != UNDEFINED) ? vertexIdOfColumn(tuple, endVertexColumnId) : UNDEFINED;
+			//the unknown vertexes and the loops back to the start vertex are left to their own traversals
+			bool batchable = fromVertexId != GraphKeyMap::UNKNOWN_ID && (endVertexColumnId == UNDEFINED ||
+					(toVertexId != GraphKeyMap::UNKNOWN_ID && toVertexId != fromVertexId));
+			if (batchable && !m_traversal->addToBatch(fromVertexId, toVertexId))
+			{
+				//the batch is full, the tuple opens the next window
+				m_batchPending = true;
+				break;
+			}
+		}
+		rows++;
+	}
+	graphView->MultiSourceBFS(*m_traversal);
+	return rows;
+}
+
 int NestedLoopPathExecutor::getQueryType()
 {
 	int queryType = UNDEFINED;
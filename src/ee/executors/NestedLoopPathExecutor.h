@@ -12,6 +12,8 @@
 #include "common/valuevector.h"
 #include "executors/abstractjoinexecutor.h"
 #include "expressions/comparisonexpression.h"
+#include "graph/PathTraversalContext.h"
+#include "boost/scoped_ptr.hpp"
 
 namespace voltdb {
 
@@ -30,12 +32,21 @@ public:
         bool p_execute(const NValueArray &params);
         void setStartAndEndVertexes(const AbstractExpression* joinExpression, const Table* inner, const Table* outer);
         int getQueryType();
+        //id of the vertex keyed by the column of the outer tuple, a null key joins no vertex
+        int vertexIdOfColumn(const TableTuple& tuple, int columnId);
+        //reads ahead the outer tuples of the next window, runs the multi-source BFS of their
+        //start vertexes, and returns the number of outer tuples in the window
+        int batchTraversals(TableIterator& iterator, TableTuple& tuple, AbstractExpression* preJoinPredicate);
 
         GraphView* graphView;
         PathScanPlanNode* pathScanNode;
+        //arguments and state of the traversals run for the outer tuples
+        boost::scoped_ptr<PathTraversalContext> m_traversal;
         const int UNDEFINED = -1;
         int startVertexColumnId = UNDEFINED, endVertexColumnId = UNDEFINED;
         int startVertexId, endVertexId;
+        //the outer tuple read ahead that did not fit in the last window
+        bool m_batchPending;
         const string StartVertexLiteral = "STARTVERTEXID";
         const string EndVertexLiteral = "ENDVERTEXID";
 };
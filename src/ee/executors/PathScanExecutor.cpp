@@ -49,13 +49,10 @@ bool PathScanExecutor::p_init(AbstractPlanNode *abstractNode,
 	assert(isSubquery || node->getTargetGraphView());
 	assert((! isSubquery) || (node->getChildren().size() == 1));
 	graphView = node->getTargetGraphView();
-	graphView->fromVertexId = node->getStartVertexId();
-	graphView->toVertexId = node->getEndVertexId();
-	graphView->queryType = node->getQType();
-	graphView->pathLength = node->getPathLength();
-	graphView->topK = node->getTopK();
-	graphView->vSelectivity = node->getVertexSelectivity();
-	graphView->eSelectivity = node->getEdgeSelectivity();
+	if (graphView != NULL)
+	{
+		m_traversal.reset(new PathTraversalContext(graphView));
+	}
 
 	//
 	// OPTIMIZATION: If there is no predicate for this SeqScan,
@@ -109,6 +106,19 @@ bool PathScanExecutor::p_execute(const NValueArray &params)
 	*/
 
 	GraphView* graphView = node->getTargetGraphView();
+	//the traversal arguments may be parameters, bind them for this execution
+	m_traversal->fromVertexId = graphView->vertexIdOf(node->getStartVertexKey());
+	m_traversal->toVertexId = graphView->vertexIdOf(node->getEndVertexKey());
+	m_traversal->queryType = node->getQType();
+	m_traversal->pathLength = node->getPathLength();
+	m_traversal->topK = node->getTopK();
+	m_traversal->vSelectivity = node->getVertexSelectivity();
+	m_traversal->eSelectivity = node->getEdgeSelectivity();
+	m_traversal->spColumnIndexInEdgesTable = node->getSPColumnIdInEdgesTable();
+	m_traversal->vertexPredicate = node->getVertexPredicate();
+	m_traversal->edgePredicate = node->getEdgePredicate();
+	m_traversal->pathColumns = node->getPathColumns();
+	m_traversal->setExpansionBudget(node->getMaxExpansions());
 	Table* input_table = (node->isSubQuery()) ?
 			node->getChildren()[0]->getOutputTable():
 			graphView->getPathTable();
@@ -160,7 +170,7 @@ bool PathScanExecutor::p_execute(const NValueArray &params)
 		//
 		TableTuple tuple(input_table->schema());
 		//TableIterator iterator =  input_table->iteratorDeletingAsWeGo();
-		PathIterator iterator =  graphView->iteratorDeletingAsWeGo(GraphOperationType::ShortestPath);
+		PathIterator iterator =  graphView->iteratorDeletingAsWeGo(*m_traversal);
 		AbstractExpression *predicate = node->getPredicate();
 
 		if (predicate)
@@ -177,6 +187,8 @@ bool PathScanExecutor::p_execute(const NValueArray &params)
 		CountingPostfilter postfilter(m_tmpOutputTable, predicate, limit, offset);
 
 		ProgressMonitorProxy pmp(m_engine, this);
+		//the traversal runs as the paths are read, and reports its expansions here
+		m_traversal->progress = &pmp;
 		TableTuple temp_tuple;
 		assert(m_tmpOutputTable);
 		if (m_aggExec != NULL) {
@@ -231,6 +243,7 @@ bool PathScanExecutor::p_execute(const NValueArray &params)
 		if (m_aggExec != NULL) {
 			m_aggExec->p_execute_finish();
 		}
+		m_traversal->progress = NULL;
 	}
 	//* for debug */std::cout << "SeqScanExecutor: node id " << node->getPlanNodeId() <<
 	//* for debug */    " output table " << (void*)output_table <<
@@ -243,6 +256,8 @@ bool PathScanExecutor::p_execute(const NValueArray &params)
 
 void PathScanExecutor::outputTuple(CountingPostfilter& postfilter, TableTuple& tuple)
 {
+    // the PATH and VARCHAR key values of the paths are purged with their batch
+    PathTraversalContext::keepStagedValues(tuple, 0, tuple.sizeInValues());
     if (m_aggExec != NULL) {
         m_aggExec->p_execute_tuple(tuple);
         return;
@@ -10,10 +10,12 @@
 
 #include <vector>
 #include "boost/shared_array.hpp"
+#include "boost/scoped_ptr.hpp"
 #include "common/common.h"
 #include "common/valuevector.h"
 #include "common/tabletuple.h"
 #include "executors/abstractexecutor.h"
+#include "graph/PathTraversalContext.h"
 
 namespace voltdb {
 
@@ -41,6 +43,8 @@ public:
         void outputTuple(CountingPostfilter& postfilter, TableTuple& tuple);
         AggregateExecutorBase* m_aggExec;
         GraphView* graphView;
+        //arguments and state of the traversal run by this executor
+        boost::scoped_ptr<PathTraversalContext> m_traversal;
 };
 
 }
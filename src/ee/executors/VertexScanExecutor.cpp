@@ -211,7 +211,7 @@ bool VertexScanExecutor::p_execute(const NValueArray &params) {
                 {
                     VOLT_TRACE("inline projection...");
                     //get the vertex id
-                    vertexId = ValuePeeker::peekInteger(tuple.getNValue(0));
+                    vertexId = graphView->vertexIdOf(tuple.getNValue(graphView->getVertexIdColumnIndex()));
                     fanOut = graphView->getVertex(vertexId)->fanOut();
                     fanIn = graphView->getVertex(vertexId)->fanIn();
                     for (int ctr = 0; ctr < num_of_columns - 2; ctr++) {
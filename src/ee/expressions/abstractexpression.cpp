@@ -149,7 +149,7 @@ AbstractExpression::buildExpressionTree(PlannerDomValue obj)
     if (exp)
         exp->initParamShortCircuits();
 
-    LogManager::GLog("AbstractExpression", "buildExpressionTree", 152, exp->debug(true));
+    GLOG("AbstractExpression", "buildExpressionTree", 152, (exp ? exp->debug(true) : "NULL"));
     return exp;
 }
 
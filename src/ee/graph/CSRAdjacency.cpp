@@ -0,0 +1,493 @@
+#include "CSRAdjacency.h"
+#include "GraphView.h"
+#include "Vertex.h"
+#include "Edge.h"
+#include <algorithm>
+
+namespace voltdb {
+
+//orders the vertex ids by their keys
+struct VertexKeyLess
+{
+	const GraphKeyMap& keys;
+	VertexKeyLess(const GraphKeyMap& keys) : keys(keys) {}
+	bool operator()(int a, int b) const { return keys.keyLess(a, b); }
+};
+
+//orders the out edges of a vertex by the dense id of their neighbor, then by their keys
+struct SlotLess
+{
+	const GraphKeyMap& keys;
+	SlotLess(const GraphKeyMap& keys) : keys(keys) {}
+	bool operator()(const std::pair<int, Edge*>& a, const std::pair<int, Edge*>& b) const
+	{
+		if (a.first != b.first)
+		{
+			return a.first < b.first;
+		}
+		return a.second != b.second && keys.keyLess(a.second->getId(), b.second->getId());
+	}
+};
+
+CSRAdjacency::CSRAdjacency() : m_directed(true), m_patched(false), m_usedSlots(0), m_removedVertexes(0)
+{
+}
+
+void CSRAdjacency::clear()
+{
+	m_denseIds.clear();
+	m_vertexIds.clear();
+	m_vProps.clear();
+	m_vertexTuples.clear();
+	m_offsets.clear();
+	m_degrees.clear();
+	m_capacities.clear();
+	m_targets.clear();
+	m_edgeIds.clear();
+	m_edgeTuples.clear();
+	m_eProps.clear();
+	m_weights.clear();
+	m_inOffsets.clear();
+	m_inDegrees.clear();
+	m_inCapacities.clear();
+	m_inSources.clear();
+	m_inEdgeSlots.clear();
+	m_patched = false;
+	m_usedSlots = 0;
+	m_removedVertexes = 0;
+}
+
+int64_t CSRAdjacency::memoryUsage() const
+{
+	int64_t bytes = 0;
+	//an entry of the dense id map takes a node with a next pointer and a bucket pointer
+	bytes += m_denseIds.size() * (sizeof(std::pair<const int, int>) + 2 * sizeof(void*));
+	bytes += (m_vertexIds.capacity() + m_vProps.capacity()) * sizeof(int);
+	bytes += (m_offsets.capacity() + m_degrees.capacity() + m_capacities.capacity()) * sizeof(int);
+	bytes += m_vertexTuples.capacity() * sizeof(char*);
+	bytes += (m_targets.capacity() + m_edgeIds.capacity() + m_eProps.capacity()) * sizeof(int);
+	bytes += m_edgeTuples.capacity() * sizeof(char*);
+	for (size_t w = 0; w < m_weights.size(); w++)
+	{
+		bytes += m_weights[w].capacity() * sizeof(double);
+	}
+	bytes += (m_inOffsets.capacity() + m_inDegrees.capacity() + m_inCapacities.capacity()) * sizeof(int);
+	bytes += (m_inSources.capacity() + m_inEdgeSlots.capacity()) * sizeof(int);
+	return bytes;
+}
+
+void CSRAdjacency::build(GraphView* graphView)
+{
+	clear();
+	int n = graphView->m_vertexes.size();
+	m_denseIds.reserve(n);
+	m_vertexIds.reserve(n);
+	m_vProps.reserve(n);
+	m_vertexTuples.reserve(n);
+	m_offsets.reserve(n);
+	m_degrees.reserve(n);
+
+	//first pass: assign the dense ids in vertex key order, the ids mapped to BIGINT and VARCHAR
+	//keys depend on the order the keys showed up in, the keys only depend on the tables
+	for (std::map<int, Vertex*>::iterator it = graphView->m_vertexes.begin(); it != graphView->m_vertexes.end(); ++it)
+	{
+		m_vertexIds.push_back(it->first);
+	}
+	if (!graphView->m_vertexKeys.isIdentity())
+	{
+		std::sort(m_vertexIds.begin(), m_vertexIds.end(), VertexKeyLess(graphView->m_vertexKeys));
+	}
+	std::vector<Vertex*> vertexes(n);
+	for (int i = 0; i < n; i++)
+	{
+		vertexes[i] = graphView->m_vertexes[m_vertexIds[i]];
+		m_denseIds[m_vertexIds[i]] = i;
+		m_vProps.push_back(vertexes[i]->vProp);
+		m_vertexTuples.push_back(vertexes[i]->getTupleData());
+	}
+
+	//second pass: lay the out edges of each vertex contiguously, without room to spare, in
+	//neighbor order and then edge key order, so a build only depends on the tables
+	int numOfEdges = graphView->isDirected() ? graphView->numOfEdges() : 2 * graphView->numOfEdges();
+	m_targets.reserve(numOfEdges);
+	m_edgeIds.reserve(numOfEdges);
+	m_edgeTuples.reserve(numOfEdges);
+	m_eProps.reserve(numOfEdges);
+	int numOfWeights = graphView->m_weightColumns.size();
+	m_weights.resize(numOfWeights);
+	for (int w = 0; w < numOfWeights; w++)
+	{
+		m_weights[w].reserve(numOfEdges);
+	}
+	Vertex* v = NULL;
+	Edge* e = NULL;
+	int neighborId, neighborDenseId;
+	std::vector<std::pair<int, Edge*> > outEdges;
+	SlotLess slotLess(graphView->m_edgeKeys);
+	for (int i = 0; i < n; i++)
+	{
+		m_offsets.push_back((int)m_targets.size());
+		m_degrees.push_back(0);
+		v = vertexes[i];
+		outEdges.clear();
+		for (int j = 0; j < v->fanOut(); j++)
+		{
+			e = v->getOutEdge(j);
+			//undirected edges are listed as out edges of both endpoints
+			neighborId = (e->getStartVertexId() == m_vertexIds[i]) ? e->getEndVertexId() : e->getStartVertexId();
+			neighborDenseId = denseId(neighborId);
+			if (neighborDenseId < 0)
+			{
+				//dangling edge, its end vertex is not in the vertexes table
+				continue;
+			}
+			outEdges.push_back(std::make_pair(neighborDenseId, e));
+		}
+		std::sort(outEdges.begin(), outEdges.end(), slotLess);
+		for (size_t j = 0; j < outEdges.size(); j++)
+		{
+			neighborDenseId = outEdges[j].first;
+			e = outEdges[j].second;
+			m_degrees[i]++;
+			m_targets.push_back(neighborDenseId);
+			m_edgeIds.push_back(e->getId());
+			m_edgeTuples.push_back(e->getTupleData());
+			m_eProps.push_back(e->eProp);
+			for (int w = 0; w < numOfWeights; w++)
+			{
+				m_weights[w].push_back(e->getWeight(w));
+			}
+		}
+	}
+	m_capacities = m_degrees;
+	m_usedSlots = m_targets.size();
+
+	//third pass: the reverse layout, undirected graphs have the same in and out slots
+	m_directed = graphView->isDirected();
+	if (m_directed)
+	{
+		int numOfSlots = (int)m_targets.size();
+		m_inDegrees.assign(n, 0);
+		for (int slot = 0; slot < numOfSlots; slot++)
+		{
+			m_inDegrees[m_targets[slot]]++;
+		}
+		m_inOffsets.assign(n, 0);
+		for (int i = 1; i < n; i++)
+		{
+			m_inOffsets[i] = m_inOffsets[i - 1] + m_inDegrees[i - 1];
+		}
+		m_inCapacities = m_inDegrees;
+		m_inSources.resize(numOfSlots);
+		m_inEdgeSlots.resize(numOfSlots);
+		std::vector<int> cursor(m_inOffsets);
+		for (int i = 0; i < n; i++)
+		{
+			for (int slot = begin(i); slot < end(i); slot++)
+			{
+				int inSlot = cursor[m_targets[slot]]++;
+				m_inSources[inSlot] = i;
+				m_inEdgeSlots[inSlot] = slot;
+			}
+		}
+	}
+}
+
+bool CSRAdjacency::needsRebuild() const
+{
+	int64_t unusedSlots = (int64_t)m_targets.size() - m_usedSlots;
+	if (unusedSlots > MIN_UNUSED_SLOTS && unusedSlots > m_usedSlots)
+	{
+		return true;
+	}
+	return m_removedVertexes > MIN_UNUSED_VERTEXES && m_removedVertexes > numOfVertexes() / 4;
+}
+
+void CSRAdjacency::addVertex(Vertex* vertex)
+{
+	int id = vertex->getId();
+	if (denseId(id) >= 0)
+	{
+		updateVertex(id, vertex->getTupleData(), vertex->vProp);
+		return;
+	}
+	m_patched = true;
+	int v = numOfVertexes();
+	m_denseIds[id] = v;
+	m_vertexIds.push_back(id);
+	m_vProps.push_back(vertex->vProp);
+	m_vertexTuples.push_back(vertex->getTupleData());
+	m_offsets.push_back((int)m_targets.size());
+	m_degrees.push_back(0);
+	m_capacities.push_back(0);
+	if (m_directed)
+	{
+		m_inOffsets.push_back((int)m_inSources.size());
+		m_inDegrees.push_back(0);
+		m_inCapacities.push_back(0);
+	}
+	//the edges the vertex kept while it was detached, or collected before it was inserted
+	Edge* e = NULL;
+	for (int j = 0; j < vertex->fanOut(); j++)
+	{
+		e = vertex->getOutEdge(j);
+		int neighborId = (e->getStartVertexId() == id) ? e->getEndVertexId() : e->getStartVertexId();
+		int u = denseId(neighborId);
+		if (u < 0)
+		{
+			continue;
+		}
+		int slot = appendSlot(v, u, e);
+		if (m_directed)
+		{
+			appendInSlot(u, v, slot);
+		}
+		else if (u != v)
+		{
+			//an undirected self-loop is listed twice in the adjacency, as the build lists it
+			appendSlot(u, v, e);
+		}
+	}
+	if (m_directed)
+	{
+		for (int j = 0; j < vertex->fanIn(); j++)
+		{
+			e = vertex->getInEdge(j);
+			int u = denseId(e->getStartVertexId());
+			if (u < 0 || u == v)
+			{
+				//the self-loops were added with the out edges
+				continue;
+			}
+			appendInSlot(v, u, appendSlot(u, v, e));
+		}
+	}
+}
+
+void CSRAdjacency::removeVertex(int vertexId)
+{
+	int v = denseId(vertexId);
+	if (v < 0)
+	{
+		return;
+	}
+	m_patched = true;
+	while (m_degrees[v] > 0)
+	{
+		int slot = end(v) - 1;
+		int u = m_targets[slot];
+		if (!m_directed && u != v)
+		{
+			removeSlot(u, findSlot(u, m_edgeIds[slot]));
+		}
+		removeSlot(v, slot);
+	}
+	if (m_directed)
+	{
+		while (m_inDegrees[v] > 0)
+		{
+			int inSlot = inEnd(v) - 1;
+			removeSlot(m_inSources[inSlot], m_inEdgeSlots[inSlot]);
+		}
+	}
+	//the dense id is left unused, with no edges leading to it
+	m_denseIds.erase(vertexId);
+	m_vertexTuples[v] = NULL;
+	m_removedVertexes++;
+}
+
+void CSRAdjacency::updateVertex(int vertexId, char* tupleData, int vProp)
+{
+	int v = denseId(vertexId);
+	if (v >= 0)
+	{
+		m_vertexTuples[v] = tupleData;
+		m_vProps[v] = vProp;
+	}
+}
+
+void CSRAdjacency::addEdge(Edge* edge)
+{
+	int from = denseId(edge->getStartVertexId());
+	int to = denseId(edge->getEndVertexId());
+	if (from < 0 || to < 0)
+	{
+		//dangling edge, it is added with the vertex it is missing
+		return;
+	}
+	m_patched = true;
+	int slot = appendSlot(from, to, edge);
+	if (m_directed)
+	{
+		appendInSlot(to, from, slot);
+	}
+	else
+	{
+		appendSlot(to, from, edge);
+	}
+}
+
+void CSRAdjacency::removeEdge(int edgeId, int from, int to)
+{
+	int f = denseId(from);
+	int t = denseId(to);
+	if (f < 0 || t < 0)
+	{
+		return;
+	}
+	int slot = findSlot(f, edgeId);
+	if (slot < 0)
+	{
+		return;
+	}
+	m_patched = true;
+	removeSlot(f, slot);
+	if (!m_directed)
+	{
+		removeSlot(t, findSlot(t, edgeId));
+	}
+}
+
+void CSRAdjacency::moveEdgeTuple(int edgeId, int from, int to, char* tupleData)
+{
+	int ends[2] = { denseId(from), m_directed ? -1 : denseId(to) };
+	for (int i = 0; i < 2; i++)
+	{
+		if (ends[i] < 0 || (i == 1 && ends[1] == ends[0]))
+		{
+			continue;
+		}
+		for (int slot = begin(ends[i]); slot < end(ends[i]); slot++)
+		{
+			if (m_edgeIds[slot] == edgeId)
+			{
+				m_edgeTuples[slot] = tupleData;
+			}
+		}
+	}
+}
+
+int CSRAdjacency::appendSlot(int v, int target, Edge* edge)
+{
+	int numOfWeights = (int)m_weights.size();
+	if (m_degrees[v] == m_capacities[v])
+	{
+		//move the range to the end of the arrays with twice the room
+		int capacity = std::max(4, 2 * m_capacities[v]);
+		int first = (int)m_targets.size();
+		m_targets.resize(first + capacity);
+		m_edgeIds.resize(first + capacity);
+		m_edgeTuples.resize(first + capacity);
+		m_eProps.resize(first + capacity);
+		for (int w = 0; w < numOfWeights; w++)
+		{
+			m_weights[w].resize(first + capacity);
+		}
+		for (int i = 0; i < m_degrees[v]; i++)
+		{
+			int slot = m_offsets[v] + i;
+			copySlot(slot, first + i);
+			if (m_directed)
+			{
+				m_inEdgeSlots[findInSlot(m_targets[slot], slot)] = first + i;
+			}
+		}
+		m_offsets[v] = first;
+		m_capacities[v] = capacity;
+	}
+	int slot = end(v);
+	m_targets[slot] = target;
+	m_edgeIds[slot] = edge->getId();
+	m_edgeTuples[slot] = edge->getTupleData();
+	m_eProps[slot] = edge->eProp;
+	for (int w = 0; w < numOfWeights; w++)
+	{
+		m_weights[w][slot] = edge->getWeight(w);
+	}
+	m_degrees[v]++;
+	m_usedSlots++;
+	return slot;
+}
+
+void CSRAdjacency::appendInSlot(int v, int source, int slot)
+{
+	if (m_inDegrees[v] == m_inCapacities[v])
+	{
+		int capacity = std::max(4, 2 * m_inCapacities[v]);
+		int first = (int)m_inSources.size();
+		m_inSources.resize(first + capacity);
+		m_inEdgeSlots.resize(first + capacity);
+		std::copy(m_inSources.begin() + m_inOffsets[v], m_inSources.begin() + inEnd(v), m_inSources.begin() + first);
+		std::copy(m_inEdgeSlots.begin() + m_inOffsets[v], m_inEdgeSlots.begin() + inEnd(v), m_inEdgeSlots.begin() + first);
+		m_inOffsets[v] = first;
+		m_inCapacities[v] = capacity;
+	}
+	int inSlot = inEnd(v);
+	m_inSources[inSlot] = source;
+	m_inEdgeSlots[inSlot] = slot;
+	m_inDegrees[v]++;
+}
+
+void CSRAdjacency::removeSlot(int v, int slot)
+{
+	if (m_directed)
+	{
+		removeInSlot(m_targets[slot], findInSlot(m_targets[slot], slot));
+	}
+	//the last edge of the range fills the hole
+	int last = end(v) - 1;
+	if (last != slot)
+	{
+		copySlot(last, slot);
+		if (m_directed)
+		{
+			m_inEdgeSlots[findInSlot(m_targets[slot], last)] = slot;
+		}
+	}
+	m_degrees[v]--;
+	m_usedSlots--;
+}
+
+void CSRAdjacency::removeInSlot(int v, int inSlot)
+{
+	int last = inEnd(v) - 1;
+	m_inSources[inSlot] = m_inSources[last];
+	m_inEdgeSlots[inSlot] = m_inEdgeSlots[last];
+	m_inDegrees[v]--;
+}
+
+int CSRAdjacency::findSlot(int v, int edgeId) const
+{
+	for (int slot = begin(v); slot < end(v); slot++)
+	{
+		if (m_edgeIds[slot] == edgeId)
+		{
+			return slot;
+		}
+	}
+	return -1;
+}
+
+int CSRAdjacency::findInSlot(int v, int slot) const
+{
+	int inSlot = m_inOffsets[v];
+	while (m_inEdgeSlots[inSlot] != slot)
+	{
+		inSlot++;
+	}
+	return inSlot;
+}
+
+void CSRAdjacency::copySlot(int from, int to)
+{
+	m_targets[to] = m_targets[from];
+	m_edgeIds[to] = m_edgeIds[from];
+	m_edgeTuples[to] = m_edgeTuples[from];
+	m_eProps[to] = m_eProps[from];
+	for (size_t w = 0; w < m_weights.size(); w++)
+	{
+		m_weights[w][to] = m_weights[w][from];
+	}
+}
+
+}
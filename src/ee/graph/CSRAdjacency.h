@@ -0,0 +1,147 @@
+/*
+ * CSRAdjacency.h
+ *
+ * Compressed sparse row (CSR) layout of the adjacency of a graph view.
+ * Vertexes are renumbered into dense ids [0, n), the out-neighbors of the
+ * dense vertex v are stored in the slots [begin(v), end(v)) of the
+ * contiguous neighbor array, and the id, tuple and properties of the edge
+ * leading to each neighbor are kept in parallel arrays at the same slot.
+ * Directed graphs also get the reverse layout, listing for each dense vertex
+ * the out slots of its in edges, for the backward half of bidirectional searches.
+ *
+ * The layout is built from the vertex/edge maps of the graph view, numbering
+ * the vertexes in key order and listing the edges of each vertex in neighbor
+ * and then edge key order, so that a build only depends on the tables, and
+ * then patched in place by the maintenance of the graph view rather than rebuilt:
+ * - compaction moving a tuple only updates its pointer;
+ * - an edge is appended to the range of its vertex, which moves to the end of
+ *   the arrays with twice the room once it is full, leaving its old slots unused;
+ * - an edge is removed by moving the last edge of its range into its slot;
+ * - a new vertex gets the next dense id, a deleted vertex loses its edges and
+ *   its dense id is left unused.
+ * The patches cost the degree of the vertexes they touch. Once the unused
+ * slots outnumber the used ones, or a quarter of the dense ids are unused,
+ * the graph view rebuilds the layout, compacting it again.
+ * A patched layout numbers the vertexes in the order they showed up, the
+ * indexes and the analytics depending on the numbering rebuild it first.
+ */
+
+#ifndef CSRADJACENCY_H_
+#define CSRADJACENCY_H_
+
+#include <vector>
+#include <unordered_map>
+#include <stdint.h>
+
+namespace voltdb {
+
+class GraphView;
+class Vertex;
+class Edge;
+
+class CSRAdjacency
+{
+public:
+	CSRAdjacency();
+
+	void build(GraphView* graphView);
+	void clear();
+
+	int numOfVertexes() const { return (int)m_vertexIds.size(); }
+	bool isDirected() const { return m_directed; }
+	//estimated bytes held by the arrays of the layout
+	int64_t memoryUsage() const;
+
+	//dense id of a vertex, -1 if the vertex is not in the graph
+	int denseId(int vertexId) const
+	{
+		std::unordered_map<int, int>::const_iterator it = m_denseIds.find(vertexId);
+		return (it == m_denseIds.end()) ? -1 : it->second;
+	}
+	int vertexId(int denseId) const { return m_vertexIds[denseId]; }
+	int vProp(int denseId) const { return m_vProps[denseId]; }
+	char* vertexTuple(int denseId) const { return m_vertexTuples[denseId]; }
+
+	//range of the out slots of a dense vertex
+	int begin(int denseId) const { return m_offsets[denseId]; }
+	int end(int denseId) const { return m_offsets[denseId] + m_degrees[denseId]; }
+
+	//range of the in slots of a dense vertex, undirected graphs reuse the out slots
+	int inBegin(int denseId) const { return m_directed ? m_inOffsets[denseId] : begin(denseId); }
+	int inEnd(int denseId) const { return m_directed ? m_inOffsets[denseId] + m_inDegrees[denseId] : end(denseId); }
+	//per in slot: the dense id of the source vertex and the out slot of the edge
+	int inSource(int inSlot) const { return m_directed ? m_inSources[inSlot] : m_targets[inSlot]; }
+	int inEdgeSlot(int inSlot) const { return m_directed ? m_inEdgeSlots[inSlot] : inSlot; }
+
+	//per slot: the dense id of the neighbor and the edge leading to it
+	int target(int slot) const { return m_targets[slot]; }
+	int edgeId(int slot) const { return m_edgeIds[slot]; }
+	char* edgeTuple(int slot) const { return m_edgeTuples[slot]; }
+	int eProp(int slot) const { return m_eProps[slot]; }
+
+	//per slot cost, the value of an edge weight copied from the edges when the layout is built
+	const double* costs(int weightIndex) const { return m_weights[weightIndex].data(); }
+
+	//Patches applied by the maintenance of the graph view, see the header comment
+	//a vertex attached to the graph view, with the edges linking it to the vertexes of the layout
+	void addVertex(Vertex* vertex);
+	//a vertex detached from the graph view, with its edges
+	void removeVertex(int vertexId);
+	//the tuple or the property of a vertex of the layout changed
+	void updateVertex(int vertexId, char* tupleData, int vProp);
+	void addEdge(Edge* edge);
+	void removeEdge(int edgeId, int from, int to);
+	//compaction moved the tuple of an edge
+	void moveEdgeTuple(int edgeId, int from, int to, char* tupleData);
+	//whether the layout was patched since it was built, numbering the vertexes in another order
+	bool isPatched() const { return m_patched; }
+	//whether the unused slots or dense ids are worth compacting by a rebuild
+	bool needsRebuild() const;
+
+	//dense ids and slots of a patched layout left unused before it is rebuilt
+	static const int MIN_UNUSED_SLOTS = 4096;
+	static const int MIN_UNUSED_VERTEXES = 256;
+
+private:
+	//appends an edge to the out range of v, moving the range when it is full, returns its slot
+	int appendSlot(int v, int target, Edge* edge);
+	void appendInSlot(int v, int source, int slot);
+	//removes the out slot of v, and its in slot for directed graphs
+	void removeSlot(int v, int slot);
+	void removeInSlot(int v, int inSlot);
+	//the first out slot of v holding the edge edgeId, -1 if there is none
+	int findSlot(int v, int edgeId) const;
+	//the in slot of v pointing at the out slot slot
+	int findInSlot(int v, int slot) const;
+	//copies the per slot values of slot from into slot to
+	void copySlot(int from, int to);
+
+	std::unordered_map<int, int> m_denseIds;
+	std::vector<int> m_vertexIds;
+	std::vector<int> m_vProps;
+	std::vector<char*> m_vertexTuples;
+	//per dense vertex: the first out slot, the number of its out edges, and the slots its range holds
+	std::vector<int> m_offsets;
+	std::vector<int> m_degrees;
+	std::vector<int> m_capacities;
+	std::vector<int> m_targets;
+	std::vector<int> m_edgeIds;
+	std::vector<char*> m_edgeTuples;
+	std::vector<int> m_eProps;
+	std::vector<std::vector<double> > m_weights;
+	bool m_directed;
+	std::vector<int> m_inOffsets;
+	std::vector<int> m_inDegrees;
+	std::vector<int> m_inCapacities;
+	std::vector<int> m_inSources;
+	std::vector<int> m_inEdgeSlots;
+	bool m_patched;
+	//out slots holding an edge, the others were left unused by the patches
+	int64_t m_usedSlots;
+	//dense ids of the vertexes removed by the patches
+	int m_removedVertexes;
+};
+
+}
+
+#endif /* CSRADJACENCY_H_ */
@@ -2,6 +2,7 @@
 #define EDGE_H
 
 #include "GraphElement.h"
+#include <vector>
 namespace voltdb {
 
 class Edge 
@@ -12,6 +13,8 @@ class Edge
 protected:
 	int m_startVertexId;
 	int m_endVertexId;
+	//values of the numeric edge attributes usable as path costs, see GraphView::getWeightIndex
+	std::vector<double> m_weights;
 
 public:
 	Edge(void);
@@ -24,6 +27,9 @@ public:
 	Vertex* getStartVertex();
 	Vertex* getEndVertex();
 	string toString();
+	double getWeight(int weightIndex) const { return m_weights[weightIndex]; }
+	void setNumOfWeights(int n) { m_weights.resize(n); }
+	void setWeight(int weightIndex, double weight) { m_weights[weightIndex] = weight; }
 
 	int eProp; //temporary, used for selectivity testing
 };
@@ -0,0 +1,245 @@
+#include "GraphAnalytics.h"
+#include "CSRAdjacency.h"
+#include <algorithm>
+#include <cmath>
+
+namespace voltdb {
+
+//probability of following an edge rather than jumping to any vertex
+static const double DAMPING = 0.85;
+static const double TOLERANCE = 1e-6;
+
+GraphAnalytics::Algorithm GraphAnalytics::algorithmOf(const std::string& name)
+{
+	if (name == "PAGERANK")
+	{
+		return PAGERANK;
+	}
+	if (name == "COMPONENTS")
+	{
+		return CONNECTED_COMPONENTS;
+	}
+	if (name == "TRIANGLES")
+	{
+		return TRIANGLE_COUNT;
+	}
+	return NO_ALGORITHM;
+}
+
+GraphAnalytics::GraphAnalytics()
+	: m_algorithm(NO_ALGORITHM), m_epoch(-1), m_iterations(0), m_done(false), m_nextVertex(0)
+{
+}
+
+void GraphAnalytics::clear()
+{
+	m_algorithm = NO_ALGORITHM;
+	m_epoch = -1;
+	m_iterations = 0;
+	m_done = false;
+	m_rank.clear();
+	m_nextRank.clear();
+	m_contribution.clear();
+	m_component.clear();
+	m_neighborOffsets.clear();
+	m_neighbors.clear();
+	m_triangles.clear();
+	m_nextVertex = 0;
+}
+
+void GraphAnalytics::start(Algorithm algorithm, const CSRAdjacency& csr, int64_t epoch)
+{
+	clear();
+	m_algorithm = algorithm;
+	m_epoch = epoch;
+	int numOfVertexes = csr.numOfVertexes();
+	switch (algorithm)
+	{
+	case PAGERANK:
+		m_rank.assign(numOfVertexes, numOfVertexes > 0 ? 1.0 / numOfVertexes : 0);
+		m_nextRank.assign(numOfVertexes, 0);
+		m_contribution.assign(numOfVertexes, 0);
+		break;
+	case CONNECTED_COMPONENTS:
+		m_component.resize(numOfVertexes);
+		for (int v = 0; v < numOfVertexes; v++)
+		{
+			m_component[v] = v;
+		}
+		break;
+	case TRIANGLE_COUNT:
+		collectNeighbors(csr);
+		m_triangles.assign(numOfVertexes, 0);
+		break;
+	default:
+		break;
+	}
+}
+
+bool GraphAnalytics::iterate(const CSRAdjacency& csr)
+{
+	bool done = true;
+	switch (m_algorithm)
+	{
+	case PAGERANK:
+		done = pageRankIteration(csr);
+		break;
+	case CONNECTED_COMPONENTS:
+		done = componentsIteration(csr);
+		break;
+	case TRIANGLE_COUNT:
+		done = trianglesIteration(csr);
+		break;
+	default:
+		break;
+	}
+	m_iterations++;
+	m_done = done;
+	return done;
+}
+
+bool GraphAnalytics::pageRankIteration(const CSRAdjacency& csr)
+{
+	int numOfVertexes = csr.numOfVertexes();
+	if (numOfVertexes == 0)
+	{
+		return true;
+	}
+	//the rank of the vertexes without out edges is spread over all the vertexes
+	double dangling = 0;
+	for (int u = 0; u < numOfVertexes; u++)
+	{
+		int degree = csr.end(u) - csr.begin(u);
+		if (degree == 0)
+		{
+			dangling += m_rank[u];
+		}
+		m_contribution[u] = (degree > 0) ? m_rank[u] / degree : 0;
+	}
+	double base = (1 - DAMPING + DAMPING * dangling) / numOfVertexes;
+	double delta = 0;
+	//each vertex pulls the contributions of its in edges, in the same order on every run
+	for (int v = 0; v < numOfVertexes; v++)
+	{
+		double sum = 0;
+		for (int slot = csr.inBegin(v); slot < csr.inEnd(v); slot++)
+		{
+			sum += m_contribution[csr.inSource(slot)];
+		}
+		m_nextRank[v] = base + DAMPING * sum;
+		delta += std::fabs(m_nextRank[v] - m_rank[v]);
+	}
+	m_rank.swap(m_nextRank);
+	return delta < TOLERANCE || m_iterations + 1 >= PAGERANK_MAX_ITERATIONS;
+}
+
+bool GraphAnalytics::componentsIteration(const CSRAdjacency& csr)
+{
+	//min label propagation along the edges in both directions, the labels updated
+	//in place are seen by the vertexes after them within the same iteration
+	bool changed = false;
+	for (int v = 0; v < csr.numOfVertexes(); v++)
+	{
+		int label = m_component[v];
+		for (int slot = csr.begin(v); slot < csr.end(v); slot++)
+		{
+			label = std::min(label, m_component[csr.target(slot)]);
+		}
+		for (int slot = csr.inBegin(v); slot < csr.inEnd(v); slot++)
+		{
+			label = std::min(label, m_component[csr.inSource(slot)]);
+		}
+		//jump to the label of the label
+		label = m_component[label];
+		if (label < m_component[v])
+		{
+			m_component[v] = label;
+			changed = true;
+		}
+	}
+	return !changed;
+}
+
+void GraphAnalytics::collectNeighbors(const CSRAdjacency& csr)
+{
+	int numOfVertexes = csr.numOfVertexes();
+	m_neighborOffsets.assign(numOfVertexes + 1, 0);
+	m_neighbors.clear();
+	std::vector<int> neighbors;
+	for (int v = 0; v < numOfVertexes; v++)
+	{
+		neighbors.clear();
+		for (int slot = csr.begin(v); slot < csr.end(v); slot++)
+		{
+			neighbors.push_back(csr.target(slot));
+		}
+		if (csr.isDirected())
+		{
+			for (int slot = csr.inBegin(v); slot < csr.inEnd(v); slot++)
+			{
+				neighbors.push_back(csr.inSource(slot));
+			}
+		}
+		std::sort(neighbors.begin(), neighbors.end());
+		neighbors.erase(std::unique(neighbors.begin(), neighbors.end()), neighbors.end());
+		for (size_t i = 0; i < neighbors.size(); i++)
+		{
+			if (neighbors[i] != v)
+			{
+				m_neighbors.push_back(neighbors[i]);
+			}
+		}
+		m_neighborOffsets[v + 1] = (int)m_neighbors.size();
+	}
+}
+
+bool GraphAnalytics::trianglesIteration(const CSRAdjacency& csr)
+{
+	//each triangle v < u < w is found once, from its smallest vertex, by intersecting
+	//the neighbors of v and u greater than u
+	int numOfVertexes = csr.numOfVertexes();
+	int last = std::min(numOfVertexes, m_nextVertex + TRIANGLE_VERTEXES_PER_ITERATION);
+	const int* neighbors = m_neighbors.data();
+	for (int v = m_nextVertex; v < last; v++)
+	{
+		const int* vBegin = neighbors + m_neighborOffsets[v];
+		const int* vEnd = neighbors + m_neighborOffsets[v + 1];
+		for (const int* uIt = std::upper_bound(vBegin, vEnd, v); uIt != vEnd; ++uIt)
+		{
+			int u = *uIt;
+			const int* i = uIt + 1;
+			const int* uEnd = neighbors + m_neighborOffsets[u + 1];
+			const int* j = std::upper_bound(neighbors + m_neighborOffsets[u], uEnd, u);
+			while (i != vEnd && j != uEnd)
+			{
+				if (*i < *j)
+				{
+					++i;
+				}
+				else if (*j < *i)
+				{
+					++j;
+				}
+				else
+				{
+					m_triangles[v]++;
+					m_triangles[u]++;
+					m_triangles[*i]++;
+					++i;
+					++j;
+				}
+			}
+		}
+	}
+	m_nextVertex = last;
+	return m_nextVertex == numOfVertexes;
+}
+
+int64_t GraphAnalytics::memoryUsage() const
+{
+	return (m_rank.capacity() + m_nextRank.capacity() + m_contribution.capacity()) * sizeof(double)
+			+ (m_component.capacity() + m_neighborOffsets.capacity() + m_neighbors.capacity()) * sizeof(int)
+			+ m_triangles.capacity() * sizeof(int64_t);
+}
+
+}
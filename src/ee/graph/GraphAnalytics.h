@@ -0,0 +1,95 @@
+/*
+ * GraphAnalytics.h
+ *
+ * Whole graph algorithms run over the CSR layout of a graph view for the
+ * @GraphAnalyticsRound and @GraphAnalytics system procedures: PageRank,
+ * (weakly) connected components and the number of triangles each vertex
+ * belongs to.
+ * The state of the algorithm is kept in flat arrays indexed by dense id, and
+ * it advances by iterations, so the read-only rounds run a bounded number of
+ * them per transaction and the other transactions of the site get to run
+ * between them. The state is stamped with the epoch of the graph view, and
+ * the algorithm starts over when the graph changed since it started.
+ * The iterations visit the vertexes and the edges in the order of the
+ * layout, so the results only depend on the layout, and not on how the
+ * iterations were spread over the rounds.
+ */
+
+#ifndef GRAPHANALYTICS_H_
+#define GRAPHANALYTICS_H_
+
+#include <string>
+#include <vector>
+#include <stdint.h>
+
+namespace voltdb {
+
+class CSRAdjacency;
+
+class GraphAnalytics
+{
+public:
+	enum Algorithm
+	{
+		NO_ALGORITHM = 0,
+		PAGERANK = 1,
+		CONNECTED_COMPONENTS = 2,
+		TRIANGLE_COUNT = 3
+	};
+	//the algorithm named PAGERANK, COMPONENTS or TRIANGLES, NO_ALGORITHM for other names
+	static Algorithm algorithmOf(const std::string& name);
+
+	GraphAnalytics();
+
+	void clear();
+	//starts the algorithm over csr, the layout of the graph view at epoch
+	void start(Algorithm algorithm, const CSRAdjacency& csr, int64_t epoch);
+	bool isRunning(Algorithm algorithm, int64_t epoch) const { return m_algorithm == algorithm && m_epoch == epoch; }
+	//runs the next iteration, returns true once the algorithm is done
+	bool iterate(const CSRAdjacency& csr);
+	bool isDone() const { return m_done; }
+	int iterations() const { return m_iterations; }
+	Algorithm algorithm() const { return m_algorithm; }
+
+	//results per dense vertex: the rank, the dense vertex representing its component
+	//(the smallest dense id of the component), and the triangles it belongs to
+	double rank(int denseId) const { return m_rank[denseId]; }
+	int component(int denseId) const { return m_component[denseId]; }
+	int64_t triangles(int denseId) const { return m_triangles[denseId]; }
+
+	//estimated bytes held by the state of the algorithm
+	int64_t memoryUsage() const;
+
+	//PageRank stops once the ranks move by less than the tolerance in total, or after the maximum iterations
+	static const int PAGERANK_MAX_ITERATIONS = 100;
+	//vertexes whose triangles are counted per iteration
+	static const int TRIANGLE_VERTEXES_PER_ITERATION = 4096;
+
+private:
+	bool pageRankIteration(const CSRAdjacency& csr);
+	bool componentsIteration(const CSRAdjacency& csr);
+	bool trianglesIteration(const CSRAdjacency& csr);
+	//the sorted neighbors of each dense vertex, ignoring the direction of the edges and the self loops
+	void collectNeighbors(const CSRAdjacency& csr);
+
+	Algorithm m_algorithm;
+	int64_t m_epoch;
+	int m_iterations;
+	bool m_done;
+
+	//PageRank: the ranks, the next ranks, and the rank each vertex sends along each of its out edges
+	std::vector<double> m_rank;
+	std::vector<double> m_nextRank;
+	std::vector<double> m_contribution;
+	//connected components: the smallest dense id known to share the component of each vertex
+	std::vector<int> m_component;
+	//triangles: the undirected neighbors, the counts, and the next vertex to count from
+	std::vector<int> m_neighborOffsets;
+	std::vector<int> m_neighbors;
+	std::vector<int64_t> m_triangles;
+	int m_nextVertex;
+};
+
+}
+
+#endif /* GRAPHANALYTICS_H_ */
@@ -0,0 +1,301 @@
+#include "GraphKeyMap.h"
+#include "common/ValuePeeker.hpp"
+#include "common/ValueFactory.hpp"
+#include "common/SQLException.h"
+
+namespace voltdb {
+
+GraphKeyMap::GraphKeyMap()
+	: m_keyType(VALUE_TYPE_INTEGER), m_identity(true), m_numOfIds(0)
+{
+}
+
+void GraphKeyMap::configure(ValueType keyType)
+{
+	clear();
+	m_keyType = keyType;
+	m_identity = (keyType != VALUE_TYPE_BIGINT && keyType != VALUE_TYPE_VARCHAR);
+}
+
+void GraphKeyMap::clear()
+{
+	m_numOfIds = 0;
+	m_releasedIds.clear();
+	m_bigIntIds.clear();
+	m_bigIntKeys.clear();
+	m_stringIds.clear();
+	m_stringKeys.clear();
+}
+
+//the string of a VARCHAR key, keys of other types (parameters) are cast first
+static std::string stringKey(const NValue& key)
+{
+	NValue value = (ValuePeeker::peekValueType(key) == VALUE_TYPE_VARCHAR) ? key : key.castAs(VALUE_TYPE_VARCHAR);
+	int32_t length;
+	const char* data = ValuePeeker::peekObject_withoutNull(value, &length);
+	return std::string(data, length);
+}
+
+int GraphKeyMap::acquire(const NValue& key, bool* added)
+{
+	if (m_identity)
+	{
+		return ValuePeeker::peekAsInteger(key);
+	}
+	if (key.isNull())
+	{
+		return UNKNOWN_ID;
+	}
+	if (m_keyType == VALUE_TYPE_BIGINT)
+	{
+		int64_t bigIntKey = ValuePeeker::peekAsRawInt64(key);
+		std::unordered_map<int64_t, int>::iterator it = m_bigIntIds.find(bigIntKey);
+		if (it != m_bigIntIds.end())
+		{
+			return it->second;
+		}
+		int id = nextId();
+		if (id == m_numOfIds)
+		{
+			m_bigIntKeys.push_back(bigIntKey);
+			m_numOfIds++;
+		}
+		else
+		{
+			m_bigIntKeys[id] = bigIntKey;
+		}
+		m_bigIntIds[bigIntKey] = id;
+		if (added != NULL)
+		{
+			*added = true;
+		}
+		return id;
+	}
+	std::string stringValue = stringKey(key);
+	std::unordered_map<std::string, int>::iterator it = m_stringIds.find(stringValue);
+	if (it != m_stringIds.end())
+	{
+		return it->second;
+	}
+	int id = nextId();
+	if (id == m_numOfIds)
+	{
+		m_stringKeys.push_back(stringValue);
+		m_numOfIds++;
+	}
+	else
+	{
+		m_stringKeys[id] = stringValue;
+	}
+	m_stringIds[stringValue] = id;
+	if (added != NULL)
+	{
+		*added = true;
+	}
+	return id;
+}
+
+int GraphKeyMap::nextId()
+{
+	if (!m_releasedIds.empty())
+	{
+		int id = m_releasedIds.back();
+		m_releasedIds.pop_back();
+		return id;
+	}
+	if (m_numOfIds == INT_MAX)
+	{
+		throwDynamicSQLException("A graph view maps more than %d distinct keys, it has to be rebuilt", INT_MAX);
+	}
+	return m_numOfIds;
+}
+
+void GraphKeyMap::release(int id)
+{
+	if (m_identity || !isMapped(id))
+	{
+		return;
+	}
+	if (m_keyType == VALUE_TYPE_BIGINT)
+	{
+		m_bigIntIds.erase(m_bigIntKeys[id]);
+	}
+	else
+	{
+		m_stringIds.erase(m_stringKeys[id]);
+		std::string().swap(m_stringKeys[id]);
+	}
+	m_releasedIds.push_back(id);
+}
+
+bool GraphKeyMap::isMapped(int id) const
+{
+	if (id < 0 || id >= m_numOfIds)
+	{
+		return false;
+	}
+	if (m_keyType == VALUE_TYPE_BIGINT)
+	{
+		std::unordered_map<int64_t, int>::const_iterator it = m_bigIntIds.find(m_bigIntKeys[id]);
+		return it != m_bigIntIds.end() && it->second == id;
+	}
+	std::unordered_map<std::string, int>::const_iterator it = m_stringIds.find(m_stringKeys[id]);
+	return it != m_stringIds.end() && it->second == id;
+}
+
+int GraphKeyMap::find(const NValue& key) const
+{
+	if (m_identity)
+	{
+		return ValuePeeker::peekAsInteger(key);
+	}
+	if (key.isNull())
+	{
+		return UNKNOWN_ID;
+	}
+	if (m_keyType == VALUE_TYPE_BIGINT)
+	{
+		std::unordered_map<int64_t, int>::const_iterator it = m_bigIntIds.find(ValuePeeker::peekAsRawInt64(key));
+		return (it != m_bigIntIds.end()) ? it->second : UNKNOWN_ID;
+	}
+	std::unordered_map<std::string, int>::const_iterator it = m_stringIds.find(stringKey(key));
+	return (it != m_stringIds.end()) ? it->second : UNKNOWN_ID;
+}
+
+bool GraphKeyMap::keyLess(int a, int b) const
+{
+	if (m_identity)
+	{
+		return a < b;
+	}
+	if (m_keyType == VALUE_TYPE_BIGINT)
+	{
+		return m_bigIntKeys[a] < m_bigIntKeys[b];
+	}
+	return m_stringKeys[a] < m_stringKeys[b];
+}
+
+NValue GraphKeyMap::keyOf(int id, Pool* pool) const
+{
+	if (m_identity)
+	{
+		return ValueFactory::getIntegerValue(id);
+	}
+	if (id < 0 || id >= m_numOfIds)
+	{
+		return NValue::getNullValue(m_keyType);
+	}
+	if (m_keyType == VALUE_TYPE_BIGINT)
+	{
+		return ValueFactory::getBigIntValue(m_bigIntKeys[id]);
+	}
+	return ValueFactory::getStringValue(m_stringKeys[id].c_str(), pool);
+}
+
+//appends the bytes of value, most significant first
+static void appendBigEndian(uint64_t value, int bytes, std::string& out)
+{
+	for (int shift = 8 * (bytes - 1); shift >= 0; shift -= 8)
+	{
+		out.push_back((char)((value >> shift) & 0xFF));
+	}
+}
+
+void GraphKeyMap::serializeKey(int id, std::string& out) const
+{
+	if (m_identity)
+	{
+		appendBigEndian((uint32_t)id, 4, out);
+	}
+	else if (m_keyType == VALUE_TYPE_BIGINT)
+	{
+		appendBigEndian((uint64_t)m_bigIntKeys[id], 8, out);
+	}
+	else
+	{
+		const std::string& key = m_stringKeys[id];
+		appendBigEndian((uint32_t)key.size(), 4, out);
+		out.append(key);
+	}
+}
+
+void GraphKeyMap::writeKeys(SerializeOutput& out) const
+{
+	out.writeByte(static_cast<int8_t>(m_keyType));
+	int numOfIds = m_identity ? 0 : m_numOfIds;
+	out.writeInt(numOfIds);
+	for (int id = 0; id < numOfIds; id++)
+	{
+		//the released ids are written as holes, mapped again to the next new keys
+		bool mapped = isMapped(id);
+		out.writeBool(mapped);
+		if (!mapped)
+		{
+			continue;
+		}
+		if (m_keyType == VALUE_TYPE_BIGINT)
+		{
+			out.writeLong(m_bigIntKeys[id]);
+		}
+		else
+		{
+			out.writeTextString(m_stringKeys[id]);
+		}
+	}
+}
+
+bool GraphKeyMap::readKeys(SerializeInputBE& in)
+{
+	clear();
+	if (in.readByte() != static_cast<int8_t>(m_keyType))
+	{
+		return false;
+	}
+	int numOfIds = in.readInt();
+	for (int id = 0; id < numOfIds; id++)
+	{
+		if (!in.readBool())
+		{
+			if (m_keyType == VALUE_TYPE_BIGINT)
+			{
+				m_bigIntKeys.push_back(0);
+			}
+			else
+			{
+				m_stringKeys.push_back(std::string());
+			}
+			m_releasedIds.push_back(id);
+		}
+		else if (m_keyType == VALUE_TYPE_BIGINT)
+		{
+			int64_t key = in.readLong();
+			m_bigIntIds[key] = id;
+			m_bigIntKeys.push_back(key);
+		}
+		else
+		{
+			std::string key = in.readTextString();
+			m_stringIds[key] = id;
+			m_stringKeys.push_back(key);
+		}
+	}
+	m_numOfIds = numOfIds;
+	return true;
+}
+
+int64_t GraphKeyMap::memoryUsage() const
+{
+	//the hash tables hold a node per key besides the bucket array
+	int64_t bytes = m_bigIntKeys.capacity() * sizeof(int64_t) + m_releasedIds.capacity() * sizeof(int)
+			+ m_bigIntIds.bucket_count() * sizeof(void*)
+			+ m_bigIntIds.size() * (sizeof(int64_t) + sizeof(int) + sizeof(void*));
+	bytes += m_stringIds.bucket_count() * sizeof(void*);
+	for (size_t i = 0; i < m_stringKeys.size(); i++)
+	{
+		//the key is held by the reverse vector and by the hash table
+		bytes += 2 * (sizeof(std::string) + m_stringKeys[i].capacity()) + sizeof(int) + sizeof(void*);
+	}
+	return bytes;
+}
+
+}
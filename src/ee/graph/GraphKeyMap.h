@@ -0,0 +1,92 @@
+/*
+ * GraphKeyMap.h
+ *
+ * Mapping between the keys of the vertexes (edges) of a graph view, the values
+ * of their ID column, and the int ids the graph elements, the adjacency lists
+ * and the traversals work with.
+ * TINYINT, SMALLINT and INTEGER keys are their own ids, as before. BIGINT and
+ * VARCHAR keys get the next id the first time they show up, so the ids stay
+ * dense whatever the keys look like, and the paths translate the ids back to
+ * keys when they are produced.
+ * The ids of the keys deleted from the tables are released once the undo
+ * quantum of the deleting transaction is, as its undo actions refer to them
+ * until then, and are handed out again to the next new keys. The mapping
+ * starts over, dense again, when the graph view is rebuilt from its tables,
+ * or is read back from the topology image of a snapshot, keeping the ids the
+ * image refers to.
+ */
+
+#ifndef GRAPHKEYMAP_H_
+#define GRAPHKEYMAP_H_
+
+#include <climits>
+#include <string>
+#include <unordered_map>
+#include <vector>
+#include <stdint.h>
+#include "common/NValue.hpp"
+#include "common/serializeio.h"
+
+namespace voltdb {
+
+class GraphKeyMap
+{
+public:
+	GraphKeyMap();
+
+	//keys of keyType, the type of the ID column
+	void configure(ValueType keyType);
+	void clear();
+	//whether the keys are their own ids
+	bool isIdentity() const { return m_identity; }
+	ValueType keyType() const { return m_keyType; }
+
+	//the id of key, mapping it to a released id or the next id if it has none yet,
+	//and then setting *added if given, throws once the next id would overflow
+	int acquire(const NValue& key, bool* added = NULL);
+	//unmaps the key of the id, no graph element refers to it any more
+	void release(int id);
+	//the id of key, UNKNOWN_ID if it has none
+	int find(const NValue& key) const;
+	//the key of the id, of the key type for the mapped keys and INTEGER otherwise
+	NValue keyOf(int id, Pool* pool) const;
+	//appends the key of the id to out as VoltDB serializes it: a big-endian INTEGER or BIGINT,
+	//or the big-endian length of a VARCHAR followed by its bytes
+	void serializeKey(int id, std::string& out) const;
+	//whether the key of the id a sorts before the key of the id b, VARCHAR keys compare their bytes
+	bool keyLess(int a, int b) const;
+
+	//writes the mapped keys in id order, readKeys maps them to the same ids again and returns
+	//false if they were written for another key type
+	void writeKeys(SerializeOutput& out) const;
+	bool readKeys(SerializeInputBE& in);
+
+	int numOfKeys() const { return m_identity ? 0 : m_numOfIds - (int)m_releasedIds.size(); }
+	//estimated bytes held by the mapping
+	int64_t memoryUsage() const;
+
+	//id of the keys not mapped, no vertex or edge has it
+	static const int UNKNOWN_ID = INT_MIN;
+
+private:
+	//a released id, or the next id
+	int nextId();
+	//whether a key is mapped to the id, rather than the id being released or never handed out
+	bool isMapped(int id) const;
+
+	ValueType m_keyType;
+	bool m_identity;
+	int m_numOfIds;
+	//ids below m_numOfIds whose keys were released
+	std::vector<int> m_releasedIds;
+	//BIGINT keys
+	std::unordered_map<int64_t, int> m_bigIntIds;
+	std::vector<int64_t> m_bigIntKeys;
+	//VARCHAR keys
+	std::unordered_map<std::string, int> m_stringIds;
+	std::vector<std::string> m_stringKeys;
+};
+
+}
+
+#endif /* GRAPHKEYMAP_H_ */
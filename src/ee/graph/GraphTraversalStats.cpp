@@ -0,0 +1,117 @@
+#include "GraphTraversalStats.h"
+#include "GraphView.h"
+#include "common/TupleSchema.h"
+#include "common/ValueFactory.hpp"
+#include "common/tabletuple.h"
+#include "storage/tablefactory.h"
+#include "storage/temptable.h"
+
+using namespace std;
+
+namespace voltdb {
+
+vector<string> GraphTraversalStats::generateGraphTraversalStatsColumnNames()
+{
+	vector<string> columnNames = StatsSource::generateBaseStatsColumnNames();
+	columnNames.push_back("GRAPH_VIEW_NAME");
+	columnNames.push_back("QUERY_TYPE");
+	columnNames.push_back("TRAVERSALS");
+	columnNames.push_back("VERTEXES_EXPANDED");
+	columnNames.push_back("EDGES_RELAXED");
+	columnNames.push_back("ROWS_EMITTED");
+	columnNames.push_back("TOTAL_TIME");
+	columnNames.push_back("AVG_TIME");
+	columnNames.push_back("MAX_TIME");
+	return columnNames;
+}
+
+void GraphTraversalStats::populateGraphTraversalStatsSchema(
+		vector<ValueType>& types,
+		vector<int32_t>& columnLengths,
+		vector<bool>& allowNull,
+		vector<bool>& inBytes)
+{
+	StatsSource::populateBaseSchema(types, columnLengths, allowNull, inBytes);
+	types.push_back(VALUE_TYPE_VARCHAR); columnLengths.push_back(4096); allowNull.push_back(false); inBytes.push_back(false);
+	types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false); inBytes.push_back(false);
+	for (int i = 0; i < 7; i++)
+	{
+		types.push_back(VALUE_TYPE_BIGINT);
+		columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+		allowNull.push_back(false);
+		inBytes.push_back(false);
+	}
+}
+
+TempTable* GraphTraversalStats::generateEmptyGraphTraversalStatsTable()
+{
+	string name = "Graph traversal stats temp table";
+	vector<string> columnNames = GraphTraversalStats::generateGraphTraversalStatsColumnNames();
+	vector<ValueType> columnTypes;
+	vector<int32_t> columnLengths;
+	vector<bool> columnAllowNull;
+	vector<bool> columnInBytes;
+	GraphTraversalStats::populateGraphTraversalStatsSchema(columnTypes, columnLengths, columnAllowNull, columnInBytes);
+	TupleSchema* schema = TupleSchema::createTupleSchema(columnTypes, columnLengths, columnAllowNull, columnInBytes);
+	return TableFactory::buildTempTable(name, schema, columnNames, NULL);
+}
+
+GraphTraversalStats::GraphTraversalStats(GraphView* graphView, int queryType)
+	: StatsSource(), m_graphView(graphView), m_queryType(queryType)
+{
+}
+
+GraphTraversalStats::~GraphTraversalStats()
+{
+	m_graphViewName.free();
+}
+
+void GraphTraversalStats::configure(string name)
+{
+	StatsSource::configure(name);
+	m_graphViewName.free();
+	m_graphViewName = ValueFactory::getStringValue(m_graphView->name());
+}
+
+vector<string> GraphTraversalStats::generateStatsColumnNames()
+{
+	return GraphTraversalStats::generateGraphTraversalStatsColumnNames();
+}
+
+void GraphTraversalStats::populateSchema(
+		vector<ValueType>& types,
+		vector<int32_t>& columnLengths,
+		vector<bool>& allowNull,
+		vector<bool>& inBytes)
+{
+	GraphTraversalStats::populateGraphTraversalStatsSchema(types, columnLengths, allowNull, inBytes);
+}
+
+void GraphTraversalStats::updateStatsTuple(TableTuple* tuple)
+{
+	const TraversalCounters& totals = m_graphView->getTraversalCounters(m_queryType);
+	TraversalCounters counters = totals;
+	if (interval())
+	{
+		counters.traversals -= m_lastCounters.traversals;
+		counters.vertexesExpanded -= m_lastCounters.vertexesExpanded;
+		counters.edgesRelaxed -= m_lastCounters.edgesRelaxed;
+		counters.rowsEmitted -= m_lastCounters.rowsEmitted;
+		counters.traversalMicros -= m_lastCounters.traversalMicros;
+		m_lastCounters = totals;
+	}
+
+	//the times are in microseconds
+	tuple->setNValue(m_columnName2Index["GRAPH_VIEW_NAME"], m_graphViewName);
+	tuple->setNValue(m_columnName2Index["QUERY_TYPE"], ValueFactory::getIntegerValue(m_queryType));
+	tuple->setNValue(m_columnName2Index["TRAVERSALS"], ValueFactory::getBigIntValue(counters.traversals));
+	tuple->setNValue(m_columnName2Index["VERTEXES_EXPANDED"], ValueFactory::getBigIntValue(counters.vertexesExpanded));
+	tuple->setNValue(m_columnName2Index["EDGES_RELAXED"], ValueFactory::getBigIntValue(counters.edgesRelaxed));
+	tuple->setNValue(m_columnName2Index["ROWS_EMITTED"], ValueFactory::getBigIntValue(counters.rowsEmitted));
+	tuple->setNValue(m_columnName2Index["TOTAL_TIME"], ValueFactory::getBigIntValue(counters.traversalMicros));
+	tuple->setNValue(m_columnName2Index["AVG_TIME"], ValueFactory::getBigIntValue(
+			counters.traversals > 0 ? counters.traversalMicros / counters.traversals : 0));
+	tuple->setNValue(m_columnName2Index["MAX_TIME"], ValueFactory::getBigIntValue(counters.maxTraversalMicros));
+}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * GraphTraversalStats.h
+ *
+ * StatsSource of the traversals of one query type over a graph view for
+ * @Statistics GRAPHTRAVERSAL: how many traversals ran, the vertexes they
+ * expanded, the edges they relaxed, the paths they returned and their
+ * latencies, from the TraversalCounters the graph view accumulates.
+ * Interval requests report the work done since the previous request,
+ * except for the maximum latency, which is since the graph view was created.
+ */
+
+#ifndef GRAPHTRAVERSALSTATS_H_
+#define GRAPHTRAVERSALSTATS_H_
+
+#include "stats/StatsSource.h"
+#include "graph/PathTraversalContext.h"
+
+namespace voltdb {
+
+class GraphView;
+class TableTuple;
+class TempTable;
+
+class GraphTraversalStats : public StatsSource
+{
+public:
+	//make sure to update the schema in GraphTraversalStats.java when updating the columns
+	static std::vector<std::string> generateGraphTraversalStatsColumnNames();
+	static void populateGraphTraversalStatsSchema(std::vector<ValueType>& types,
+			std::vector<int32_t>& columnLengths,
+			std::vector<bool>& allowNull,
+			std::vector<bool>& inBytes);
+	static TempTable* generateEmptyGraphTraversalStatsTable();
+
+	GraphTraversalStats(GraphView* graphView, int queryType);
+	~GraphTraversalStats();
+
+	void configure(std::string name);
+
+protected:
+	virtual void updateStatsTuple(TableTuple* tuple);
+	virtual std::vector<std::string> generateStatsColumnNames();
+	virtual void populateSchema(std::vector<ValueType>& types, std::vector<int32_t>& columnLengths,
+			std::vector<bool>& allowNull, std::vector<bool>& inBytes);
+
+private:
+	GraphView* m_graphView;
+	int m_queryType;
+	NValue m_graphViewName;
+	//counters reported by the previous interval request
+	TraversalCounters m_lastCounters;
+};
+
+}
+
+#endif /* GRAPHTRAVERSALSTATS_H_ */
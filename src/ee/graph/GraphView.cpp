@@ -8,11 +8,19 @@
 #include "common/TupleSchemaBuilder.h"
 #include "logging/LogManager.h"
 #include "PathIterator.h"
+#include "GraphViewUndoAction.h"
+#include "common/executorcontext.hpp"
+#include "common/UndoQuantum.h"
+#include "common/SQLException.h"
+#include "common/serializeio.h"
+#include "expressions/abstractexpression.h"
 #include "Vertex.h"
 #include "Edge.h"
 #include <string>
 #include <map>
 #include <unordered_set>
+#include <limits>
+#include <algorithm>
 
 #include <queue>
 using namespace std;
@@ -20,9 +28,138 @@ using namespace std;
 namespace voltdb
 {
 
-GraphView::GraphView(void) //: m_pathIterator(this)
+//cost of the vertexes not reached yet, and of the edges having no cost
+static const double NO_PATH = std::numeric_limits<double>::infinity();
+
+//the query types tracked by @Statistics GRAPHTRAVERSAL, see PathTraversalContext
+static const int TRACKED_QUERY_TYPES[] = {1, 2, 3, 11, 12, 13, 14, 21, 22, 23};
+
+//a map entry takes a tree node holding the pair, three links and the color
+static const size_t MAP_NODE_OVERHEAD = 4 * sizeof(void*);
+
+//an edge tuple read by the build, linked once all of them are sorted by their start vertex
+struct ScannedEdge
+{
+	int from;
+	int to;
+	int id;
+	int eProp;
+	char* tupleData;
+	bool operator<(const ScannedEdge& other) const
+	{
+		return from != other.from ? from < other.from : to < other.to;
+	}
+};
+
+GraphView::GraphView(void)
+	: m_stats(this), m_traversalCache(TRAVERSAL_CACHE_ENTRIES, (size_t)DEFAULT_TRAVERSAL_CACHE_MB * 1024 * 1024)
+{
+	m_isCSR = false;
+	m_csrStale = true;
+	m_numOfLandmarks = 0;
+	m_hasReachabilityIndex = false;
+	m_buildMicros = 0;
+	m_epoch = 0;
+	m_bulkLoading = false;
+	m_bulkLoadedTuples = 0;
+	int numOfQueryTypes = sizeof(TRACKED_QUERY_TYPES) / sizeof(TRACKED_QUERY_TYPES[0]);
+	for (int i = 0; i < numOfQueryTypes; i++)
+	{
+		m_traversalStats.push_back(new GraphTraversalStats(this, TRACKED_QUERY_TYPES[i]));
+	}
+}
+
+void GraphView::configureStats()
+{
+	m_stats.configure(m_name + " graph view stats");
+	for (int i = 0; i < m_traversalStats.size(); i++)
+	{
+		m_traversalStats[i]->configure(m_name + " graph traversal stats");
+	}
+}
+
+const TraversalCounters& GraphView::getTraversalCounters(int queryType)
+{
+	static const TraversalCounters noTraversals;
+	std::map<int, TraversalCounters>::iterator it = m_traversalCounters.find(queryType);
+	if (it == m_traversalCounters.end())
+	{
+		return noTraversals;
+	}
+	return it->second;
+}
+
+int64_t GraphView::vertexMemory()
+{
+	return (int64_t)(m_vertexes.size() + m_detachedVertexes.size()) * (sizeof(Vertex) + sizeof(std::pair<const int, Vertex*>) + MAP_NODE_OVERHEAD)
+			+ m_vertexKeys.memoryUsage();
+}
+
+int64_t GraphView::edgeMemory()
+{
+	//each edge holds a copy of the edge weights
+	int64_t edgeSize = sizeof(Edge) + m_weightColumns.size() * sizeof(double) + sizeof(std::pair<const int, Edge*>) + MAP_NODE_OVERHEAD;
+	return (int64_t)m_edges.size() * edgeSize + m_edgeKeys.memoryUsage();
+}
+
+int64_t GraphView::adjacencyMemory()
+{
+	int64_t bytes = 0;
+	for (std::map<int, Vertex*>::iterator it = m_vertexes.begin(); it != m_vertexes.end(); ++it)
+	{
+		bytes += it->second->adjacencyCapacity() * sizeof(int);
+	}
+	return bytes;
+}
+
+int64_t GraphView::csrMemory()
+{
+	//the CSR arrays are only built for the CSR graph views
+	return m_csr.memoryUsage();
+}
+
+CSRAdjacency& GraphView::getCSRAdjacency()
+{
+	if (m_csrStale)
+	{
+		//the indexes are of the dense ids of the previous layout
+		m_csr.build(this);
+		m_landmarkIndex.clear();
+		m_reachabilityIndex.clear();
+		m_csrStale = false;
+	}
+	return m_csr;
+}
+
+CSRAdjacency& GraphView::getCompactCSRAdjacency()
+{
+	if (m_csr.isPatched())
+	{
+		m_csrStale = true;
+	}
+	return this->getCSRAdjacency();
+}
+
+void GraphView::csrPatched()
+{
+	if (m_csr.needsRebuild())
+	{
+		m_csrStale = true;
+	}
+}
+
+const LandmarkDistances* GraphView::getLandmarkDistances(int weightIndex)
 {
-	m_pathIterator = new PathIterator(this);
+	if (!m_landmarkIndex.isBuiltFor(m_epoch))
+	{
+		//rebuild once the graph has been stable for a few queries, search bidirectionally meanwhile
+		if (!m_landmarkIndex.shouldRebuild(m_epoch))
+		{
+			return NULL;
+		}
+		m_landmarkIndex.build(this->getCompactCSRAdjacency(), m_numOfLandmarks, m_epoch);
+	}
+	return &m_landmarkIndex.getDistances(this->getCSRAdjacency(), weightIndex);
 }
 
 float GraphView::shortestPath(int source, int destination, int costColumnId)
@@ -33,7 +170,12 @@ float GraphView::shortestPath(int source, int destination, int costColumnId)
 
 Vertex* GraphView::getVertex(int id)
 {
-	return this->m_vertexes[id];
+	std::map<int, Vertex*>::iterator it = this->m_vertexes.find(id);
+	if (it == this->m_vertexes.end())
+	{
+		return NULL;
+	}
+	return it->second;
 }
 
 TableTuple* GraphView::getVertexTuple(int id)
@@ -44,7 +186,12 @@ TableTuple* GraphView::getVertexTuple(int id)
 
 Edge* GraphView::getEdge(int id)
 {
-	return this->m_edges[id];
+	std::map<int, Edge*>::iterator it = this->m_edges.find(id);
+	if (it == this->m_edges.end())
+	{
+		return NULL;
+	}
+	return it->second;
 }
 
 TableTuple* GraphView::getEdgeTuple(int id)
@@ -133,6 +280,21 @@ bool GraphView::isDirected()
 	return m_isDirected;
 }
 
+int GraphView::vertexIdOf(const NValue& key)
+{
+	if (key.isNull())
+	{
+		return -1;
+	}
+	return m_vertexKeys.find(key);
+}
+
+void GraphView::configureKeys()
+{
+	m_vertexKeys.configure(m_vertexTable->schema()->columnType(m_vertexIdColumnIndex));
+	m_edgeKeys.configure(m_edgeTable->schema()->columnType(m_edgeIdColumnIndex));
+}
+
 int GraphView::getVertexIdColumnIndex()
 {
 	return m_vertexIdColumnIndex;
@@ -179,15 +341,121 @@ string GraphView::getEdgeAttributeName(int edgeAttributeId)
 	return m_edgeColumnNames[edgeAttributeId];
 }
 
+int GraphView::getWeightIndex(int edgeTableColumnIndex)
+{
+	for (int i = 0; i < m_weightColumns.size(); i++)
+	{
+		if (m_weightColumns[i] == edgeTableColumnIndex)
+		{
+			return i;
+		}
+	}
+	return -1;
+}
+
+void GraphView::collectWeightColumns()
+{
+	m_weightColumns.clear();
+	const TupleSchema* schema = this->m_edgeTable->schema();
+	for (int i = 0; i < m_columnIDsInEdgeTable.size(); i++)
+	{
+		int columnIndex = m_columnIDsInEdgeTable[i];
+		if (columnIndex < 0 || this->getWeightIndex(columnIndex) >= 0)
+		{
+			continue;
+		}
+		switch (schema->columnType(columnIndex))
+		{
+		case VALUE_TYPE_TINYINT:
+		case VALUE_TYPE_SMALLINT:
+		case VALUE_TYPE_INTEGER:
+		case VALUE_TYPE_BIGINT:
+		case VALUE_TYPE_DOUBLE:
+		case VALUE_TYPE_DECIMAL:
+			m_weightColumns.push_back(columnIndex);
+			break;
+		default:
+			break;
+		}
+	}
+}
+
+void GraphView::extractEdgeWeights(Edge* edge)
+{
+	TableTuple edgeTuple(edge->getTupleData(), this->m_edgeTable->schema());
+	edge->setNumOfWeights(m_weightColumns.size());
+	for (int i = 0; i < m_weightColumns.size(); i++)
+	{
+		NValue weight = edgeTuple.getNValue(m_weightColumns[i]);
+		//an edge without a cost can not be crossed
+		edge->setWeight(i, weight.isNull() ? NO_PATH : ValuePeeker::peekAsDouble(weight));
+	}
+}
+
+double GraphView::edgeCost(Edge* edge, int weightIndex)
+{
+	return (weightIndex < 0) ? 1 : edge->getWeight(weightIndex);
+}
+
+bool GraphView::vertexQualifies(PathTraversalContext& ctx, Vertex* vertex)
+{
+	if (ctx.vertexPredicate == NULL)
+	{
+		return true;
+	}
+	if (vertex == NULL)
+	{
+		return false;
+	}
+	TableTuple vertexTuple(vertex->getTupleData(), this->m_vertexTable->schema());
+	return ctx.vertexPredicate->eval(&vertexTuple, NULL).isTrue();
+}
+
+bool GraphView::vertexQualifies(PathTraversalContext& ctx, CSRAdjacency& csr, int denseId)
+{
+	if (ctx.vertexPredicate == NULL)
+	{
+		return true;
+	}
+	TableTuple vertexTuple(csr.vertexTuple(denseId), this->m_vertexTable->schema());
+	return ctx.vertexPredicate->eval(&vertexTuple, NULL).isTrue();
+}
+
+bool GraphView::canCross(PathTraversalContext& ctx, Edge* edge, int toVertexId)
+{
+	if (ctx.edgePredicate != NULL)
+	{
+		TableTuple edgeTuple(edge->getTupleData(), this->m_edgeTable->schema());
+		if (!ctx.edgePredicate->eval(&edgeTuple, NULL).isTrue())
+		{
+			return false;
+		}
+	}
+	return (ctx.vertexPredicate == NULL) || this->vertexQualifies(ctx, this->getVertex(toVertexId));
+}
+
+bool GraphView::canCross(PathTraversalContext& ctx, CSRAdjacency& csr, int edgeSlot, int toDenseId)
+{
+	if (ctx.edgePredicate != NULL)
+	{
+		TableTuple edgeTuple(csr.edgeTuple(edgeSlot), this->m_edgeTable->schema());
+		if (!ctx.edgePredicate->eval(&edgeTuple, NULL).isTrue())
+		{
+			return false;
+		}
+	}
+	return this->vertexQualifies(ctx, csr, toDenseId);
+}
+
 void GraphView::constructPathSchema()
 {
 	//
 	//Path tuple will contain 5 attributes
-	//0: StartVertex, Integer
-	//1: EndVertex, Integer
+	//0: StartVertex, vertex key
+	//1: EndVertex, vertex key
 	//2: Length, Integer
 	//3: Cost, Float
-	//4: Path: Varchar(256)
+	//4: Path: Varbinary, the serialized keys of the vertexes, see encodePath()
 	//add the column names
 	m_pathColumnNames.clear();
 	m_pathColumnNames.push_back("STARTVERTEXID");
@@ -201,11 +469,21 @@ void GraphView::constructPathSchema()
 	TupleSchemaBuilder schemaBuilder(numOfPathColumns,
 									 needsDRTimestamp ? 1 : 0); // number of hidden columns
 
-	schemaBuilder.setColumnAtIndex (0, ValueType::VALUE_TYPE_INTEGER, 4, false, false); //StartVertex
-	schemaBuilder.setColumnAtIndex(1, ValueType::VALUE_TYPE_INTEGER, 4, false, false); //EndVertex
+	//the start and end vertexes are the keys of the vertexes, INTEGER unless they are mapped
+	if (m_vertexKeys.isIdentity())
+	{
+		schemaBuilder.setColumnAtIndex(0, ValueType::VALUE_TYPE_INTEGER, 4, false, false); //StartVertex
+		schemaBuilder.setColumnAtIndex(1, ValueType::VALUE_TYPE_INTEGER, 4, false, false); //EndVertex
+	}
+	else
+	{
+		const TupleSchema::ColumnInfo* idColumn = m_vertexTable->schema()->getColumnInfo(m_vertexIdColumnIndex);
+		schemaBuilder.setColumnAtIndex(0, m_vertexKeys.keyType(), idColumn->length, true, idColumn->inBytes); //StartVertex
+		schemaBuilder.setColumnAtIndex(1, m_vertexKeys.keyType(), idColumn->length, true, idColumn->inBytes); //EndVertex
+	}
 	schemaBuilder.setColumnAtIndex(2, ValueType::VALUE_TYPE_INTEGER, 4, false, false); //Length
 	schemaBuilder.setColumnAtIndex(3, ValueType::VALUE_TYPE_DOUBLE, 8, true, false); //Cost
-	schemaBuilder.setColumnAtIndex(4, ValueType::VALUE_TYPE_VARCHAR, 1024, true, false); //Path
+	schemaBuilder.setColumnAtIndex(4, ValueType::VALUE_TYPE_VARBINARY, MAX_PATH_BYTES, true, false); //Path
 
 	m_pathSchema = schemaBuilder.build();
 }
@@ -215,39 +493,213 @@ void GraphView::constructPathTempTable()
 	m_pathTable = TableFactory::buildTempTable(m_pathTableName, m_pathSchema, m_pathColumnNames, NULL);
 }
 
-PathIterator& GraphView::iteratorDeletingAsWeGo(GraphOperationType opType)
+void GraphView::insertPathTuple(PathTraversalContext& ctx, int startVertexId, int endVertexId, int length, double cost)
+{
+	TableTuple temp_tuple = ctx.pathTable->tempTuple();
+	//start vertex, end vertex, length, cost, path
+	if (ctx.reads(PathTraversalContext::PATH_START_VERTEX))
+	{
+		temp_tuple.setNValue(0, this->vertexKeyOf(startVertexId, &ctx.pathPool));
+	}
+	if (ctx.reads(PathTraversalContext::PATH_END_VERTEX))
+	{
+		temp_tuple.setNValue(1, this->vertexKeyOf(endVertexId, &ctx.pathPool));
+	}
+	if (ctx.reads(PathTraversalContext::PATH_LENGTH))
+	{
+		temp_tuple.setNValue(2, ValueFactory::getIntegerValue(length));
+	}
+	if (ctx.reads(PathTraversalContext::PATH_COST))
+	{
+		temp_tuple.setNValue(3, ValueFactory::getDoubleValue(cost));
+	}
+	if (ctx.reads(PathTraversalContext::PATH_VERTEXES))
+	{
+		//the traversals not tracing their paths leave the PATH null
+		temp_tuple.setNValue(4, ctx.pathVertexes.empty() ? ValueFactory::getNullBinaryValue() : this->encodePath(ctx));
+		ctx.pathVertexes.clear();
+	}
+	ctx.pathTable->insertTempTuple(temp_tuple);
+}
+
+void GraphView::tracePath(PathTraversalContext& ctx, int meetDense)
+{
+	std::vector<int>& path = ctx.pathVertexes;
+	path.clear();
+	for (int v = meetDense; v >= 0; v = ctx.predecessors[v])
+	{
+		path.push_back(v);
+	}
+	std::reverse(path.begin(), path.end());
+	if (!ctx.successors.empty())
+	{
+		for (int v = ctx.successors[meetDense]; v >= 0; v = ctx.successors[v])
+		{
+			path.push_back(v);
+		}
+	}
+}
+
+NValue GraphView::encodePath(PathTraversalContext& ctx)
+{
+	std::string bytes;
+	for (size_t i = 0; i < ctx.pathVertexes.size(); i++)
+	{
+		m_vertexKeys.serializeKey(m_csr.vertexId(ctx.pathVertexes[i]), bytes);
+	}
+	if (bytes.size() > MAX_PATH_BYTES)
+	{
+		throwDynamicSQLException("A path of graph view %s has %d vertexes, more than the PATH column holds",
+				m_name.c_str(), (int)ctx.pathVertexes.size());
+	}
+	return ValueFactory::getBinaryValue(reinterpret_cast<const unsigned char*>(bytes.data()), (int32_t)bytes.size(), &ctx.pathPool);
+}
+
+PathIterator GraphView::iteratorDeletingAsWeGo(PathTraversalContext& ctx)
+{
+	if (m_bulkLoading)
+	{
+		throwDynamicSQLException("Graph view %s is being bulk loaded, its topology is built when the load ends",
+				m_name.c_str());
+	}
+	//empty the paths table of the context, which is the staging memory for the paths to be explored
+	ctx.reset();
+	ctx.counters.traversals++;
+	ctx.weightIndex = this->getWeightIndex(ctx.spColumnIndexInEdgesTable);
+	if (ctx.spColumnIndexInEdgesTable >= 0 && ctx.weightIndex < 0)
+	{
+		throwDynamicSQLException("The shortest path cost column %s is not a numeric edge attribute of graph view %s",
+				this->m_edgeTable->getColumnNames()[ctx.spColumnIndexInEdgesTable].c_str(), m_name.c_str());
+	}
+	//the paths of a nested loop path join traversal may have been found by its batch
+	ctx.batchSource = ctx.batchIndexOf(ctx.fromVertexId, ctx.toVertexId);
+	if (ctx.batchSource >= 0)
+	{
+		return PathIterator(&ctx);
+	}
+	//the predicates may depend on parameters or on the outer tuple, so filtered traversals are not cached
+	if (m_traversalCache.isEnabled() && ctx.vertexPredicate == NULL && ctx.edgePredicate == NULL)
+	{
+		ctx.replaying = m_traversalCache.lookup(ctx.cacheKey(), m_epoch);
+		if (!ctx.replaying)
+		{
+			ctx.recording.reset(new CachedTraversal(m_epoch));
+		}
+	}
+	return PathIterator(&ctx);
+}
+
+void GraphView::replayCachedPaths(PathTraversalContext& ctx)
+{
+	const std::vector<CachedPath>& paths = ctx.replaying->paths;
+	size_t end = std::min(paths.size(), ctx.replayPosition + PATH_BATCH_SIZE);
+	TableTuple temp_tuple = ctx.pathTable->tempTuple();
+	for (; ctx.replayPosition < end; ctx.replayPosition++)
+	{
+		const CachedPath& path = paths[ctx.replayPosition];
+		//the entry was recorded for the same path columns, only these are replayed
+		if (ctx.reads(PathTraversalContext::PATH_START_VERTEX))
+		{
+			temp_tuple.setNValue(0, this->vertexKeyOf(path.startVertexId, &ctx.pathPool));
+		}
+		if (ctx.reads(PathTraversalContext::PATH_END_VERTEX))
+		{
+			temp_tuple.setNValue(1, this->vertexKeyOf(path.endVertexId, &ctx.pathPool));
+		}
+		if (ctx.reads(PathTraversalContext::PATH_LENGTH))
+		{
+			temp_tuple.setNValue(2, ValueFactory::getIntegerValue(path.length));
+		}
+		if (ctx.reads(PathTraversalContext::PATH_COST))
+		{
+			temp_tuple.setNValue(3, path.costIsNull ? NValue::getNullValue(VALUE_TYPE_DOUBLE) : ValueFactory::getDoubleValue(path.cost));
+		}
+		if (ctx.reads(PathTraversalContext::PATH_VERTEXES))
+		{
+			temp_tuple.setNValue(4, path.pathIsNull ? ValueFactory::getNullBinaryValue() :
+					ValueFactory::getBinaryValue(reinterpret_cast<const unsigned char*>(path.path.data()),
+							(int32_t)path.path.size(), &ctx.pathPool));
+		}
+		ctx.pathTable->insertTempTuple(temp_tuple);
+	}
+	ctx.executeTraversal = ctx.replayPosition < paths.size();
+}
+
+void GraphView::stageBatchedPaths(PathTraversalContext& ctx)
 {
-	//empty the paths table, which is the staging memory for the paths to be explored
-	dummyPathExapansionState = 0;
-	executeTraversal = true;
-	m_pathTable->deleteAllTempTupleDeepCopies();
-	//set the iterator for the temp table
-	//create new tuple in the paths temp table
-	//m_pathTableIterator = &(m_pathTable->iteratorDeletingAsWeGo());
-	m_pathTableIterator = NULL;
-	return *m_pathIterator;
+	if (ctx.queryType == 3)
+	{
+		std::unordered_map<int64_t, int>::const_iterator found =
+				ctx.batchLengths.find(PathTraversalContext::batchKey(ctx.batchSource, ctx.toVertexId));
+		if (found != ctx.batchLengths.end() && found->second >= 0)
+		{
+			this->insertPathTuple(ctx, ctx.fromVertexId, ctx.toVertexId, found->second, (double)found->second);
+		}
+		ctx.executeTraversal = false;
+		return;
+	}
+	const std::vector<pair<int, int> >& paths = ctx.batchPaths[ctx.batchSource];
+	size_t end = std::min(paths.size(), ctx.batchPosition + PATH_BATCH_SIZE);
+	for (; ctx.batchPosition < end; ctx.batchPosition++)
+	{
+		const pair<int, int>& path = paths[ctx.batchPosition];
+		this->insertPathTuple(ctx, ctx.fromVertexId, path.first, path.second, (double)path.second);
+	}
+	ctx.executeTraversal = ctx.batchPosition < paths.size();
 }
 
-PathIterator& GraphView::iteratorDeletingAsWeGo()
+void GraphView::recordStagedPaths(PathTraversalContext& ctx)
 {
-	//empty the paths table, which is the staging memory for the paths to be explored
-	dummyPathExapansionState = 0;
-	executeTraversal = true;
-	m_pathTable->deleteAllTempTupleDeepCopies();
-	//set the iterator for the temp table
-	//create new tuple in the paths temp table
-	//m_pathTableIterator = &(m_pathTable->iteratorDeletingAsWeGo());
-	m_pathTableIterator = NULL;
-	return *m_pathIterator;
+	CachedTraversal& recording = *ctx.recording;
+	TableIterator iter = ctx.pathTable->iterator();
+	TableTuple tuple(ctx.pathTable->schema());
+	while (iter.next(tuple))
+	{
+		CachedPath path;
+		//the columns not read by the plan were not staged
+		//the cache keeps the vertex ids, the keys are looked up again on replay
+		path.startVertexId = ctx.reads(PathTraversalContext::PATH_START_VERTEX) ? m_vertexKeys.find(tuple.getNValue(0)) : -1;
+		path.endVertexId = ctx.reads(PathTraversalContext::PATH_END_VERTEX) ? m_vertexKeys.find(tuple.getNValue(1)) : -1;
+		path.length = ctx.reads(PathTraversalContext::PATH_LENGTH) ? ValuePeeker::peekInteger(tuple.getNValue(2)) : 0;
+		NValue cost = ctx.reads(PathTraversalContext::PATH_COST) ? tuple.getNValue(3) : NValue::getNullValue(VALUE_TYPE_DOUBLE);
+		path.costIsNull = cost.isNull();
+		path.cost = path.costIsNull ? 0 : ValuePeeker::peekDouble(cost);
+		NValue pathValue = ctx.reads(PathTraversalContext::PATH_VERTEXES) ? tuple.getNValue(4) : ValueFactory::getNullBinaryValue();
+		path.pathIsNull = pathValue.isNull();
+		if (!path.pathIsNull)
+		{
+			int32_t length;
+			const char* data = ValuePeeker::peekObject_withoutNull(pathValue, &length);
+			path.path.assign(data, length);
+		}
+		recording.add(path);
+	}
+	if (recording.bytes > m_traversalCache.maxBytesPerEntry())
+	{
+		//too large to be cached, stop recording
+		ctx.recording.reset();
+		return;
+	}
+	//cache the paths once the traversal is complete, unless the graph changed meanwhile
+	if (!ctx.executeTraversal)
+	{
+		if (ctx.recording->epoch == m_epoch)
+		{
+			m_traversalCache.insert(ctx.cacheKey(), ctx.recording);
+		}
+		ctx.recording.reset();
+	}
 }
 
-void GraphView::expandCurrentPathOperation()
+void GraphView::expandCurrentPathOperation(PathTraversalContext& ctx)
 {
 	//Check the current path operation type, and
 	//advance the paths exploration accordingly
 	//new entries should be added to the paths temp table
 	//adding no new entries means that the exploration is completely done
 	//and the iterator will have hasNext evaluated to false
+	//the streaming traversals add a batch of entries per call and keep
+	//executeTraversal set until they are exhausted, the others run to completion
 	//std::stringstream paramsToPrint;
 	/*
 	if(dummyPathExapansionState < 6)
@@ -268,386 +720,721 @@ void GraphView::expandCurrentPathOperation()
 		dummyPathExapansionState++;
 	}
 	*/
-	if(executeTraversal)
+	if(ctx.executeTraversal && ctx.batchSource >= 0)
+	{
+		//the paths were found by the multi-source BFS of the batch
+		this->stageBatchedPaths(ctx);
+	}
+	else if(ctx.executeTraversal && ctx.replaying)
 	{
-		switch(this->queryType)
+		//the paths of the same traversal are cached for the current epoch
+		this->replayCachedPaths(ctx);
+	}
+	else if(ctx.executeTraversal)
+	{
+		struct timeval begin, end;
+		gettimeofday(&begin, NULL);
+		bool hasMore = false;
+		switch(ctx.queryType)
 		{
 		//reachability, BFS,...
+		//the paths are only traced over the CSR layout, a plan reading them runs the CSR traversals
 		case 1: //reachability BFS without selectivity
-			this->BFS_Reachability_ByDepth(this->fromVertexId, this->pathLength);
+			if (m_isCSR || ctx.reads(PathTraversalContext::PATH_VERTEXES))
+				hasMore = this->BFS_Reachability_ByDepth_CSR(ctx, ctx.fromVertexId, ctx.pathLength, INT_MAX);
+			else
+				hasMore = this->BFS_Reachability_ByDepth(ctx, ctx.fromVertexId, ctx.pathLength, INT_MAX);
 			break;
 		case 2: //reachaility BFS with edge selectivity
-			this->BFS_Reachability_ByDepth_eSelectivity(this->fromVertexId, this->pathLength, this->eSelectivity);
+			if (m_isCSR || ctx.reads(PathTraversalContext::PATH_VERTEXES))
+				hasMore = this->BFS_Reachability_ByDepth_CSR(ctx, ctx.fromVertexId, ctx.pathLength, ctx.eSelectivity);
+			else
+				hasMore = this->BFS_Reachability_ByDepth(ctx, ctx.fromVertexId, ctx.pathLength, ctx.eSelectivity);
 			break;
-		case 3: //reachability BFS with start and end
-			this->BFS_Reachability_ByDestination(this->fromVertexId, this->toVertexId);
+		case 3: //reachability BFS with start and end, searching from both ends, or looked up in the reachability index
+			if (this->Reachability_ByIndex(ctx, ctx.fromVertexId, ctx.toVertexId))
+				break;
+			if (ctx.fromVertexId == ctx.toVertexId)
+			{
+				//a loop back to the start vertex, only the forward traversal reports it
+				if (m_isCSR || ctx.reads(PathTraversalContext::PATH_VERTEXES))
+					this->BFS_Reachability_ByDestination_CSR(ctx, ctx.fromVertexId, ctx.toVertexId);
+				else
+					this->BFS_Reachability_ByDestination(ctx, ctx.fromVertexId, ctx.toVertexId);
+			}
+			else if (m_isCSR || ctx.reads(PathTraversalContext::PATH_VERTEXES))
+				this->BFS_Reachability_Bidirectional_CSR(ctx, ctx.fromVertexId, ctx.toVertexId);
+			else
+				this->BFS_Reachability_Bidirectional(ctx, ctx.fromVertexId, ctx.toVertexId);
 			break;
 		//topological queries
 		case 11: //vOnly selectivity
-			this->SubGraphLoop(this->pathLength, this->vSelectivity, 100);
+			hasMore = this->SubGraphLoop(ctx, ctx.pathLength, ctx.vSelectivity, 100);
 			break;
 		case 12: //eOnly selectivity
-			this->SubGraphLoop(this->pathLength, 100, this->eSelectivity);
-					break;
+			hasMore = this->SubGraphLoop(ctx, ctx.pathLength, 100, ctx.eSelectivity);
+			break;
 		case 13: //vertex and edge selectivity
-			this->SubGraphLoop(this->pathLength, this->vSelectivity, this->eSelectivity);
+			hasMore = this->SubGraphLoop(ctx, ctx.pathLength, ctx.vSelectivity, ctx.eSelectivity);
 			break;
 		case 14: //start from a specific vertex and allow vertex and edge selectivity
-			this->SubGraphLoopFromStartVertex(this->fromVertexId, this->pathLength, this->vSelectivity, this->eSelectivity);
+			hasMore = this->SubGraphLoopFromStartVertex(ctx, ctx.fromVertexId, ctx.pathLength, ctx.vSelectivity, ctx.eSelectivity);
 			break;
 		//shortest paths
-		case 21: //top k shortest paths
-			this->SP_TopK(this->fromVertexId, this->toVertexId, this->topK);
+		case 21: //top k loopless shortest paths
+			hasMore = this->SP_TopK(ctx, ctx.fromVertexId, ctx.toVertexId, ctx.topK);
 			break;
-		case 22: //top 1 shortest path with edge selectivity
-			this->SP_EdgeSelectivity(this->fromVertexId, this->toVertexId, this->eSelectivity);
+		case 22: //top 1 shortest path with edge selectivity, searching from both ends, or guided by the landmarks
+			if (this->hasLandmarks() && this->getLandmarkDistances(ctx.weightIndex) != NULL)
+				this->SP_EdgeSelectivity_ALT(ctx, ctx.fromVertexId, ctx.toVertexId, ctx.eSelectivity);
+			else if (m_isCSR || ctx.reads(PathTraversalContext::PATH_VERTEXES))
+				this->SP_EdgeSelectivity_Bidirectional_CSR(ctx, ctx.fromVertexId, ctx.toVertexId, ctx.eSelectivity);
+			else
+				this->SP_EdgeSelectivity_Bidirectional(ctx, ctx.fromVertexId, ctx.toVertexId, ctx.eSelectivity);
 			break;
 		case 23: //Single source to all vertexes shortest paths
-			this->SP_ToAllVertexes_EdgeSelectivity(this->fromVertexId, this->eSelectivity);
+			hasMore = this->SP_ToAllVertexes_EdgeSelectivity(ctx, ctx.fromVertexId, ctx.eSelectivity);
 			break;
 		}
-		executeTraversal = false;
+		ctx.executeTraversal = hasMore;
+		if (ctx.recording)
+		{
+			this->recordStagedPaths(ctx);
+		}
+		gettimeofday(&end, NULL);
+		ctx.counters.traversalMicros += (end.tv_sec - begin.tv_sec) * 1000000L + (end.tv_usec - begin.tv_usec);
 	}
 }
 
-void GraphView::SP_TopK(int src, int dest, int k)
+bool GraphView::Reachability_ByIndex(PathTraversalContext& ctx, int startVertexId, int endVertex)
 {
-	double minCost = DBL_MAX;
-	int foundPathsSoFar = 0;
-	//PQEntryWithLength.first is the cost, PQEntryWithLength.second.first is the vertexId, PQEntryWithLength.second.second is the path length
-	priority_queue<PQEntryWithLength, vector<PQEntryWithLength>, std::greater<PQEntryWithLength>> pq;
-	//map<int, int> costMap;
-	//costMap[src] = 0;
-	pq.push(make_pair(0, make_pair(src, 0))); //zero cost to reach Vertex from
-	Vertex* v = NULL;
-	Edge* e = NULL;
-	int currVId, fanOut = -1, candVertexId = -1;
-	
-	//upper-bound to avoid loops (considering an average fan-out of 10
-	int maxPQOperations = this->numOfVertexes() * 10;
-	int iterationNum = 0;
-	TableTuple* edgeTuple;
-	int length;
-
-	while(!pq.empty())
+	//the index only tells whether a path exists, it does not cover the filtered traversals,
+	//the loops back to the start vertex, or the queries reading the length or the path
+	if (!m_hasReachabilityIndex || !ctx.endpointsOnly() || startVertexId == endVertex ||
+			ctx.vertexPredicate != NULL || ctx.edgePredicate != NULL)
 	{
-		//select next vertex to explore
-		currVId = ((pair<int, int >)( pq.top().second)).first;
-		length = ((pair<int, int >)( pq.top().second)).second;
-		minCost = pq.top().first;
-		if(currVId == dest)
-		{
-			foundPathsSoFar++;
-
-			//add a tuple here
-			TableTuple temp_tuple = m_pathTable->tempTuple();
-			//start vertex, end vertex, length, cost, path
-			temp_tuple.setNValue(0, ValueFactory::getIntegerValue(src));
-			temp_tuple.setNValue(1, ValueFactory::getIntegerValue(dest));
-			temp_tuple.setNValue(2, ValueFactory::getIntegerValue(length));
-			temp_tuple.setNValue(3, ValueFactory::getDoubleValue(minCost));
-			//temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-			if(m_pathTable->activeTupleCount() <= 1000)
-			m_pathTable->insertTempTuple(temp_tuple);
-		}
-		iterationNum++;
-
-		if(foundPathsSoFar == k || iterationNum == maxPQOperations)
-		{
-			break;
-		} 
-		pq.pop();
-
-		//explore the outgoing vertexes
-		v = this->getVertex(currVId);
-		fanOut = v->fanOut();
-		double edgeCost = 1;
-		for(int i = 0; i < fanOut; i++)
+		return false;
+	}
+	if (!m_reachabilityIndex.isBuiltFor(m_epoch))
+	{
+		//rebuild once the graph has been stable for a few queries, traverse meanwhile
+		if (!m_reachabilityIndex.shouldRebuild(m_epoch))
 		{
-			e = v->getOutEdge(i);
-			candVertexId = e->getEndVertex()->getId();
-
-			if (spColumnIndexInEdgesTable >= 0)
-			{
-				edgeTuple = this->getEdgeTuple(e->getTupleData());
-				edgeCost = ValuePeeker::peekDouble(edgeTuple->getNValue(spColumnIndexInEdgesTable));
-			}
-
-
-			//these lines are commented to allow top k search
-			//if ( (costMap.find(candVertexId) == costMap.end()) ||
-			//	 (costMap[candVertexId] > minCost + 1) )
-			{
-				//costMap[candVertexId] = minCost + 1;
-				pq.push(make_pair(minCost + edgeCost, make_pair(candVertexId, length+1)));
-			}
-
+			return false;
 		}
+		m_reachabilityIndex.build(this->getCompactCSRAdjacency(), m_epoch);
+		GLOG("GraphView", "Reachability_ByIndex", 650,
+				"Reachability index of " << m_name << " rebuilt, numOfComponents = " << m_reachabilityIndex.numOfComponents());
 	}
-
-	std::stringstream paramsToPrint;
-	paramsToPrint << "TopK SP: from = " << src << ", to = " << dest
-			<< ", k = " << k
-			<< ", foundPaths = " << foundPathsSoFar
-			<< ", numOfRowsAdded = " << m_pathTable->activeTupleCount();
-	LogManager::GLog("GraphView", "TopK_SP", 334, paramsToPrint.str());
+	CSRAdjacency& csr = this->getCSRAdjacency();
+	int src = csr.denseId(startVertexId);
+	int dest = csr.denseId(endVertex);
+	if (src >= 0 && dest >= 0 && m_reachabilityIndex.reaches(src, dest))
+	{
+		//the length and cost are not computed, the plan does not read them
+		this->insertPathTuple(ctx, startVertexId, endVertex, 0, 0);
+	}
+	//the answer is cheaper to look up again than to cache, and lacks the columns other plans read
+	ctx.recording.reset();
+	return true;
 }
 
-void GraphView::SP_ToAllVertexes_EdgeSelectivity(int src, int edgeSelectivity)
+bool GraphView::canBatchTraversals(PathTraversalContext& ctx)
 {
-	int minCost = INT_MAX;
-	priority_queue<PQEntry, vector<PQEntry>, std::greater<PQEntry>> pq;
-	map<int, int> costMap;
-	costMap[src] = 0;
-	pq.push(make_pair(0, src)); //zero cost to reach Vertex from
-	Vertex* v = NULL;
-	Edge* e = NULL;
-	int currVId, fanOut = -1, candVertexId = -1;
+	//the batch does not trace the paths, and would spend the expansion budget of a single traversal
+	if (ctx.reads(PathTraversalContext::PATH_VERTEXES) || ctx.maxExpansions > 0)
+	{
+		return false;
+	}
+	switch (ctx.queryType)
+	{
+	case 1:
+		//the map based and CSR traversals report the same paths as the batch
+		return true;
+	case 3:
+		//the reachability index is cheaper to look up
+		return !(m_hasReachabilityIndex && ctx.endpointsOnly() && ctx.vertexPredicate == NULL && ctx.edgePredicate == NULL);
+	default:
+		return false;
+	}
+}
 
-	while(!pq.empty())
+void GraphView::runAnalytics(GraphAnalytics::Algorithm algorithm, int maxIterations, bool finish, ReferenceSerializeOutput& out)
+{
+	if (m_bulkLoading)
 	{
-		//select next vertex to explore
-		currVId = pq.top().second;
-		minCost = pq.top().first;
-		/*
-		if(currVId == dest)
-		{
-			//add a tuple here
-			TableTuple temp_tuple = m_pathTable->tempTuple();
-			//start vertex, end vertex, length, cost, path
-			temp_tuple.setNValue(0, ValueFactory::getIntegerValue(src));
-			temp_tuple.setNValue(1, ValueFactory::getIntegerValue(dest));
-			temp_tuple.setNValue(2, ValueFactory::getIntegerValue(minCost));
-			temp_tuple.setNValue(3, ValueFactory::getDoubleValue(minCost));
-			//temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-			if(m_pathTable->activeTupleCount() <= 100)
-			m_pathTable->insertTempTuple(temp_tuple);
+		throwDynamicSQLException("Graph view %s is being bulk loaded, its topology is built when the load ends",
+				m_name.c_str());
+	}
+	if (!m_analytics.isRunning(algorithm, m_epoch))
+	{
+		m_analytics.start(algorithm, this->getCompactCSRAdjacency(), m_epoch);
+	}
+	CSRAdjacency& csr = this->getCSRAdjacency();
+	bool done = m_analytics.isDone();
+	for (int i = 0; (finish || i < maxIterations) && !done; i++)
+	{
+		done = m_analytics.iterate(csr);
+	}
+	out.writeBool(done);
+	out.writeInt(m_analytics.iterations());
+	if (!finish)
+	{
+		//the state waits for the next round, or for the call writing the results
+		return;
+	}
+	//the vertex keys are serialized as the PATH column serializes them
+	out.writeInt(csr.numOfVertexes());
+	std::string key;
+	for (int v = 0; v < csr.numOfVertexes(); v++)
+	{
+		key.clear();
+		m_vertexKeys.serializeKey(csr.vertexId(v), key);
+		switch (algorithm)
+		{
+		case GraphAnalytics::PAGERANK:
+			out.writeBytes(key.data(), key.size());
+			out.writeDouble(m_analytics.rank(v));
+			break;
+		case GraphAnalytics::CONNECTED_COMPONENTS:
+			//the component is named by the key of one of its vertexes
+			m_vertexKeys.serializeKey(csr.vertexId(m_analytics.component(v)), key);
+			out.writeBytes(key.data(), key.size());
+			break;
+		default:
+			out.writeBytes(key.data(), key.size());
+			out.writeLong(m_analytics.triangles(v));
 			break;
 		}
-		*/
-		pq.pop();
+	}
+	GLOG("GraphView", "runAnalytics", 860,
+			"runAnalytics: graph view = " << m_name << ", algorithm = " << algorithm << ", iterations = " << m_analytics.iterations());
+	//the results are handed over, the next round starts over
+	m_analytics.clear();
+}
 
-		//explore the outgoing vertexes
-		v = this->getVertex(currVId);
-		fanOut = v->fanOut();
-		for(int i = 0; i < fanOut; i++)
+void GraphView::MultiSourceBFS(PathTraversalContext& ctx)
+{
+	//the work of the previous traversal is accounted for, the batch is accounted
+	//with the first traversal staging its paths from it
+	ctx.flushCounters();
+	struct timeval begin, end;
+	gettimeofday(&begin, NULL);
+	CSRAdjacency& csr = this->getCSRAdjacency();
+	int numOfVertexes = csr.numOfVertexes();
+	vector<uint64_t>& seen = ctx.seenSources;
+	vector<uint64_t>& visit = ctx.visitSources;
+	vector<uint64_t>& next = ctx.nextSources;
+	vector<uint64_t>& target = ctx.targetSources;
+	seen.assign(numOfVertexes, 0);
+	visit.assign(numOfVertexes, 0);
+	next.assign(numOfVertexes, 0);
+	vector<int> frontier, nextFrontier;
+	for (size_t i = 0; i < ctx.batchSources.size(); i++)
+	{
+		int src = csr.denseId(ctx.batchSources[i]);
+		if (src < 0 || !this->vertexQualifies(ctx, csr, src))
 		{
-			e = v->getOutEdge(i);
-			candVertexId = e->getEndVertex()->getId();
+			continue;
+		}
+		if (visit[src] == 0)
+		{
+			frontier.push_back(src);
+		}
+		seen[src] |= (uint64_t)1 << i;
+		visit[src] |= (uint64_t)1 << i;
+	}
+	//reachability: the end vertexes looked up, the traversal stops once all are found
+	bool reachability = (ctx.queryType == 3);
+	int notFound = 0;
+	if (reachability)
+	{
+		target.assign(numOfVertexes, 0);
+		for (std::unordered_map<int64_t, int>::const_iterator it = ctx.batchLengths.begin(); it != ctx.batchLengths.end(); ++it)
+		{
+			int dest = csr.denseId((int)(uint32_t)it->first);
+			if (dest >= 0)
+			{
+				target[dest] |= (uint64_t)1 << (it->first >> 32);
+				notFound++;
+			}
+		}
+	}
+	int depth = reachability ? INT_MAX : ctx.pathLength;
+	int level = 0;
+	while (!frontier.empty() && level < depth && (!reachability || notFound > 0))
+	{
+		//expand each vertex of the frontier once for all the start vertexes reaching it at this level
+		nextFrontier.clear();
+		for (size_t f = 0; f < frontier.size(); f++)
+		{
+			int v = frontier[f];
+			uint64_t sources = visit[v];
+			visit[v] = 0;
+			ctx.expandVertex(csr.end(v) - csr.begin(v));
+			for (int slot = csr.begin(v); slot < csr.end(v); slot++)
+			{
+				int u = csr.target(slot);
+				uint64_t reached = sources & ~seen[u];
+				if (reached == 0 || !this->canCross(ctx, csr, slot, u))
+				{
+					continue;
+				}
+				if (next[u] == 0)
+				{
+					nextFrontier.push_back(u);
+				}
+				next[u] |= reached;
+			}
+		}
+		level++;
+		for (size_t f = 0; f < nextFrontier.size(); f++)
+		{
+			int u = nextFrontier[f];
+			uint64_t reached = next[u];
+			next[u] = 0;
+			seen[u] |= reached;
+			visit[u] = reached;
+			uint64_t found = reachability ? (reached & target[u]) : (level == depth ? reached : 0);
+			while (found != 0)
+			{
+				int i = __builtin_ctzll(found);
+				found &= found - 1;
+				if (reachability)
+				{
+					//the same length as the traversal of a single start vertex
+					ctx.batchLengths[PathTraversalContext::batchKey(i, csr.vertexId(u))] = level + 1;
+					notFound--;
+				}
+				else
+				{
+					ctx.batchPaths[i].push_back(make_pair(csr.vertexId(u), level));
+				}
+			}
+		}
+		frontier.swap(nextFrontier);
+	}
+	gettimeofday(&end, NULL);
+	ctx.counters.traversalMicros += (end.tv_sec - begin.tv_sec) * 1000000L + (end.tv_usec - begin.tv_usec);
 
-			if(e->eProp > eSelectivity)
+	GLOG("GraphView", "MultiSourceBFS", 860,
+			"MultiSourceBFS: numOfSources = " << ctx.batchSources.size() << ", queryType = " << ctx.queryType
+			<< ", levels = " << level << ", vertexesExpanded = " << ctx.counters.vertexesExpanded);
+}
+
+bool GraphView::SP_TopK(PathTraversalContext& ctx, int src, int dest, int k)
+{
+	CSRAdjacency& csr = this->getCSRAdjacency();
+	const double* costs = (ctx.weightIndex >= 0) ? csr.costs(ctx.weightIndex) : NULL;
+	int srcDense = csr.denseId(src);
+	int destDense = csr.denseId(dest);
+	if (!ctx.started)
+	{
+		ctx.started = true;
+		if (k > 0 && srcDense >= 0 && destDense >= 0 &&
+				this->vertexQualifies(ctx, csr, srcDense) && this->vertexQualifies(ctx, csr, destDense))
+		{
+			this->buildReverseTree(ctx, csr, costs, destDense);
+			if (ctx.backwardDenseCosts[srcDense] < NO_PATH)
 			{
-				continue;
+				//the shortest path is the one of the tree
+				KPathCandidate first;
+				first.cost = ctx.backwardDenseCosts[srcDense];
+				first.deviation = 0;
+				for (int v = srcDense; v != destDense; v = ctx.treeNext[v])
+				{
+					first.slots.push_back(this->treeSlot(ctx, csr, costs, v));
+				}
+				ctx.kCandidates.insert(first);
+			}
+		}
+	}
+
+	while (!ctx.kCandidates.empty() && ctx.foundPaths < k && ctx.pathTable->activeTupleCount() < PATH_BATCH_SIZE)
+	{
+		KPathCandidate path = *ctx.kCandidates.begin();
+		ctx.kCandidates.erase(ctx.kCandidates.begin());
+		ctx.foundPaths++;
+		if (ctx.reads(PathTraversalContext::PATH_VERTEXES))
+		{
+			ctx.pathVertexes.assign(1, srcDense);
+			for (size_t i = 0; i < path.slots.size(); i++)
+			{
+				ctx.pathVertexes.push_back(csr.target(path.slots[i]));
 			}
+		}
+		this->insertPathTuple(ctx, src, dest, (int)path.slots.size(), path.cost);
+		ctx.kPaths.push_back(path.slots);
+		if (ctx.foundPaths < k)
+		{
+			this->addSpurCandidates(ctx, csr, costs, srcDense, destDense, path, k);
+		}
+	}
+
+	GLOG("GraphView", "TopK_SP", 334,
+			"TopK SP: from = " << src << ", to = " << dest
+			<< ", k = " << k
+			<< ", foundPaths = " << ctx.foundPaths
+			<< ", numOfCandidates = " << ctx.kCandidates.size()
+			<< ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+	return ctx.foundPaths < k && !ctx.kCandidates.empty();
+}
 
-			if ( (costMap.find(candVertexId) == costMap.end()) ||
-				 (costMap[candVertexId] > minCost + 1) )
+void GraphView::buildReverseTree(PathTraversalContext& ctx, CSRAdjacency& csr, const double* costs, int destDense)
+{
+	//Dijkstra backward from the end vertex over the qualifying edges and vertexes
+	vector<double>& treeCosts = ctx.backwardDenseCosts;
+	treeCosts.assign(csr.numOfVertexes(), NO_PATH);
+	ctx.treeNext.assign(csr.numOfVertexes(), -1);
+	PathTraversalContext::PathPriorityQueue& pq = ctx.pq;
+	treeCosts[destDense] = 0;
+	pq.push(make_pair(0, make_pair(destDense, 0)));
+	while (!pq.empty())
+	{
+		double minCost = pq.top().first;
+		int v = pq.top().second.first;
+		int length = pq.top().second.second;
+		pq.pop();
+		if (minCost > treeCosts[v])
+		{
+			//stale queue entry
+			continue;
+		}
+		ctx.expandVertex(csr.inEnd(v) - csr.inBegin(v));
+		for (int i = csr.inBegin(v); i < csr.inEnd(v); i++)
+		{
+			int slot = csr.inEdgeSlot(i);
+			int u = csr.inSource(i);
+			double edgeCost = costs ? costs[slot] : 1;
+			if (edgeCost >= NO_PATH || minCost + edgeCost >= treeCosts[u] || !this->canCross(ctx, csr, slot, u))
 			{
-				costMap[candVertexId] = minCost + 1;
-				pq.push(make_pair(minCost + 1, candVertexId));
+				continue;
 			}
+			treeCosts[u] = minCost + edgeCost;
+			ctx.treeNext[u] = v;
+			pq.push(make_pair(treeCosts[u], make_pair(u, length + 1)));
+		}
+	}
+}
 
+int GraphView::treeSlot(PathTraversalContext& ctx, CSRAdjacency& csr, const double* costs, int denseId)
+{
+	//the cheapest qualifying edge to the next vertex, the in slots of the undirected
+	//graphs are the out slots of the other endpoint, so the slot is looked up here
+	int next = ctx.treeNext[denseId];
+	int bestSlot = -1;
+	double bestCost = NO_PATH;
+	for (int slot = csr.begin(denseId); slot < csr.end(denseId); slot++)
+	{
+		double edgeCost = costs ? costs[slot] : 1;
+		if (csr.target(slot) == next && edgeCost < bestCost && this->canCross(ctx, csr, slot, next))
+		{
+			bestSlot = slot;
+			bestCost = edgeCost;
 		}
 	}
+	return bestSlot;
+}
 
-	std::stringstream paramsToPrint;
-	paramsToPrint << "SSSP with eSelectivity: from = "
-			<< ", eSelectivity = " << edgeSelectivity
-			<< ", numOfRowsAdded = " << m_pathTable->activeTupleCount();
-	LogManager::GLog("GraphView", "SP_eSelectivity", 398, paramsToPrint.str());
+bool GraphView::findSpurPath(PathTraversalContext& ctx, CSRAdjacency& csr, const double* costs, int spur, int destDense,
+		const vector<int>& blockedSlots, vector<int>& spurSlots)
+{
+	spurSlots.clear();
+	//the tree path is the shortest one when it avoids the root and the blocked slots,
+	//the blocked slots all leave the spur vertex
+	const vector<double>& treeCosts = ctx.backwardDenseCosts;
+	bool treePathFree = treeCosts[spur] < NO_PATH;
+	for (int v = spur; treePathFree && v != destDense; v = ctx.treeNext[v])
+	{
+		int slot = this->treeSlot(ctx, csr, costs, v);
+		if (ctx.rootStamps[csr.target(slot)] == ctx.rootStamp ||
+				(v == spur && std::find(blockedSlots.begin(), blockedSlots.end(), slot) != blockedSlots.end()))
+		{
+			treePathFree = false;
+		}
+		spurSlots.push_back(slot);
+	}
+	if (treePathFree)
+	{
+		return true;
+	}
+	spurSlots.clear();
+
+	//A* search, the tree costs are exact for the unrestricted graph, so they bound the remaining cost
+	ctx.spurStamp++;
+	vector<double>& spurCosts = ctx.denseCosts;
+	PathTraversalContext::GuidedPriorityQueue& pq = ctx.guidedPq;
+	pq = PathTraversalContext::GuidedPriorityQueue();
+	ctx.spurStamps[spur] = ctx.spurStamp;
+	spurCosts[spur] = 0;
+	ctx.spurParents[spur] = make_pair(-1, -1);
+	pq.push(make_pair(treeCosts[spur], make_pair(0.0, make_pair(spur, 0))));
+	while (!pq.empty())
+	{
+		double minCost = pq.top().second.first;
+		int v = pq.top().second.second.first;
+		int length = pq.top().second.second.second;
+		pq.pop();
+		if (minCost > spurCosts[v])
+		{
+			continue;
+		}
+		if (v == destDense)
+		{
+			for (int w = destDense; w != spur; w = ctx.spurParents[w].first)
+			{
+				spurSlots.push_back(ctx.spurParents[w].second);
+			}
+			std::reverse(spurSlots.begin(), spurSlots.end());
+			return true;
+		}
+		ctx.expandVertex(csr.end(v) - csr.begin(v));
+		for (int slot = csr.begin(v); slot < csr.end(v); slot++)
+		{
+			int u = csr.target(slot);
+			double edgeCost = costs ? costs[slot] : 1;
+			if (edgeCost >= NO_PATH || u == spur || treeCosts[u] >= NO_PATH || ctx.rootStamps[u] == ctx.rootStamp)
+			{
+				continue;
+			}
+			if (v == spur && std::find(blockedSlots.begin(), blockedSlots.end(), slot) != blockedSlots.end())
+			{
+				continue;
+			}
+			double candCost = minCost + edgeCost;
+			if ((ctx.spurStamps[u] == ctx.spurStamp && candCost >= spurCosts[u]) || !this->canCross(ctx, csr, slot, u))
+			{
+				continue;
+			}
+			ctx.spurStamps[u] = ctx.spurStamp;
+			spurCosts[u] = candCost;
+			ctx.spurParents[u] = make_pair(v, slot);
+			pq.push(make_pair(candCost + treeCosts[u], make_pair(candCost, make_pair(u, length + 1))));
+		}
+	}
+	return false;
 }
 
+void GraphView::addSpurCandidates(PathTraversalContext& ctx, CSRAdjacency& csr, const double* costs, int srcDense, int destDense,
+		const KPathCandidate& path, int k)
+{
+	int n = csr.numOfVertexes();
+	if ((int)ctx.rootStamps.size() != n)
+	{
+		ctx.rootStamps.assign(n, 0);
+		ctx.spurStamps.assign(n, 0);
+		ctx.spurParents.resize(n);
+		ctx.denseCosts.resize(n);
+	}
+	ctx.rootStamp++;
+	//the found paths sharing the root of the current spur vertex, their next slots are blocked
+	vector<int> sharingRoot(ctx.kPaths.size());
+	for (size_t q = 0; q < sharingRoot.size(); q++)
+	{
+		sharingRoot[q] = (int)q;
+	}
+	vector<int> blockedSlots;
+	vector<int> spurSlots;
+	int spur = srcDense;
+	for (int i = 0; i < (int)path.slots.size(); i++)
+	{
+		if (i >= path.deviation)
+		{
+			blockedSlots.clear();
+			for (size_t q = 0; q < sharingRoot.size(); q++)
+			{
+				blockedSlots.push_back(ctx.kPaths[sharingRoot[q]][i]);
+			}
+			if (this->findSpurPath(ctx, csr, costs, spur, destDense, blockedSlots, spurSlots))
+			{
+				KPathCandidate candidate;
+				candidate.deviation = i;
+				candidate.slots.assign(path.slots.begin(), path.slots.begin() + i);
+				candidate.slots.insert(candidate.slots.end(), spurSlots.begin(), spurSlots.end());
+				//summed from the start vertex, so the same path always gets the same cost
+				candidate.cost = 0;
+				for (size_t s = 0; s < candidate.slots.size(); s++)
+				{
+					candidate.cost += costs ? costs[candidate.slots[s]] : 1;
+				}
+				ctx.kCandidates.insert(candidate);
+				//only the best candidates for the paths still to find are kept
+				while ((int)ctx.kCandidates.size() > k - ctx.foundPaths)
+				{
+					ctx.kCandidates.erase(--ctx.kCandidates.end());
+				}
+			}
+		}
+		//extend the root by the slot of the path
+		ctx.rootStamps[spur] = ctx.rootStamp;
+		int next = 0;
+		for (size_t q = 0; q < sharingRoot.size(); q++)
+		{
+			const vector<int>& other = ctx.kPaths[sharingRoot[q]];
+			if ((int)other.size() > i + 1 && other[i] == path.slots[i])
+			{
+				sharingRoot[next++] = sharingRoot[q];
+			}
+		}
+		sharingRoot.resize(next);
+		spur = csr.target(path.slots[i]);
+	}
+}
 
-void GraphView::SP_EdgeSelectivity(int src, int dest, int edgeSelectivity)
+bool GraphView::SP_ToAllVertexes_EdgeSelectivity(PathTraversalContext& ctx, int src, int edgeSelectivity)
 {
-	int minCost = INT_MAX;
-	priority_queue<PQEntry, vector<PQEntry>, std::greater<PQEntry>> pq;
-	map<int, int> costMap;
-	costMap[src] = 0;
-	pq.push(make_pair(0, src)); //zero cost to reach Vertex from
+	//the queue and the best known costs are kept in the context, so that the
+	//traversal stops once it staged a batch of paths and resumes from there
+	PathTraversalContext::PathPriorityQueue& pq = ctx.pq;
+	std::unordered_map<int, PathTraversalContext::CostAndLength>& costMap = ctx.costs;
+	if (!ctx.started)
+	{
+		if (this->vertexQualifies(ctx, this->getVertex(src)))
+		{
+			costMap[src] = make_pair(0, 0);
+			pq.push(make_pair(0, make_pair(src, 0))); //zero cost to reach Vertex from
+		}
+		ctx.started = true;
+	}
 	Vertex* v = NULL;
 	Edge* e = NULL;
-	int currVId, fanOut = -1, candVertexId = -1;
+	int currVId, fanOut = -1, candVertexId = -1, length;
+	double minCost, candCost;
 
-	while(!pq.empty())
+	while(!pq.empty() && ctx.pathTable->activeTupleCount() < PATH_BATCH_SIZE)
 	{
 		//select next vertex to explore
-		currVId = pq.top().second;
+		currVId = pq.top().second.first;
+		length = pq.top().second.second;
 		minCost = pq.top().first;
-		if(currVId == dest)
-		{
-			//add a tuple here
-			TableTuple temp_tuple = m_pathTable->tempTuple();
-			//start vertex, end vertex, length, cost, path
-			temp_tuple.setNValue(0, ValueFactory::getIntegerValue(src));
-			temp_tuple.setNValue(1, ValueFactory::getIntegerValue(dest));
-			temp_tuple.setNValue(2, ValueFactory::getIntegerValue(minCost));
-			temp_tuple.setNValue(3, ValueFactory::getDoubleValue(minCost));
-			//temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-			if(m_pathTable->activeTupleCount() <= 100)
-				m_pathTable->insertTempTuple(temp_tuple);
-			break;
-		}
 		pq.pop();
+		if (minCost > costMap[currVId].first)
+		{
+			//stale queue entry
+			continue;
+		}
+		//the cost of the vertex is final once it leaves the queue
+		if (currVId != src)
+		{
+			this->insertPathTuple(ctx, src, currVId, length, minCost);
+		}
 
 		//explore the outgoing vertexes
 		v = this->getVertex(currVId);
+		if (v == NULL)
+		{
+			continue;
+		}
 		fanOut = v->fanOut();
+		ctx.expandVertex(fanOut);
 		for(int i = 0; i < fanOut; i++)
 		{
 			e = v->getOutEdge(i);
-			candVertexId = e->getEndVertex()->getId();
+			candVertexId = e->getEndVertexId();
 
-			if(e->eProp > eSelectivity)
+			if(e->eProp > edgeSelectivity || !this->canCross(ctx, e, candVertexId))
 			{
 				continue;
 			}
 
-			if ( (costMap.find(candVertexId) == costMap.end()) ||
-				 (costMap[candVertexId] > minCost + 1) )
+			candCost = minCost + this->edgeCost(e, ctx.weightIndex);
+			std::unordered_map<int, PathTraversalContext::CostAndLength>::iterator it = costMap.find(candVertexId);
+			if ( candCost < NO_PATH &&
+				 (it == costMap.end() || it->second.first > candCost) )
 			{
-				costMap[candVertexId] = minCost + 1;
-				pq.push(make_pair(minCost + 1, candVertexId));
+				costMap[candVertexId] = make_pair(candCost, length + 1);
+				pq.push(make_pair(candCost, make_pair(candVertexId, length + 1)));
 			}
 
 		}
 	}
 
-	std::stringstream paramsToPrint;
-	paramsToPrint << "SP with eSelectivity: from = " << src << ", to = " << dest
+	GLOG("GraphView", "SP_eSelectivity", 398,
+			"SSSP with eSelectivity: from = " << src
 			<< ", eSelectivity = " << edgeSelectivity
-			<< ", numOfRowsAdded = " << m_pathTable->activeTupleCount();
-	LogManager::GLog("GraphView", "SP_eSelectivity", 398, paramsToPrint.str());
+			<< ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+	return !pq.empty();
 }
 
-void GraphView::BFS_Reachability_ByDepth_eSelectivity(int startVertexId, int depth, int eSelectivity)
+
+bool GraphView::BFS_Reachability_ByDepth(PathTraversalContext& ctx, int startVertexId, int depth, int eSelectivity)
 {
-	queue<Vertex*> q;
-	Vertex* currentVertex = this->m_vertexes[startVertexId];
-	if(NULL != currentVertex)
+	//no path has a length of zero or less
+	if (depth <= 0)
 	{
-		currentVertex->Level = 0;
-		q.push(currentVertex);
-		int fanOut;
-		Edge* outEdge = NULL;
-		Vertex* outVertex = NULL;
-		while(!q.empty() && currentVertex->Level < depth)
+		return false;
+	}
+	//(vertex id, level) entries, the level is kept in the queue rather than
+	//in the vertex so that a suspended traversal is not affected by others
+	std::deque<pair<int, int> >& q = ctx.queue;
+	//level of each discovered vertex, a vertex is reported once, at its shortest level,
+	//as the CSR traversal does
+	std::unordered_map<int, int>& level = ctx.distances;
+	if (!ctx.started)
+	{
+		if (this->vertexQualifies(ctx, this->getVertex(startVertexId)))
 		{
-			currentVertex = q.front();
-			q.pop();
-			fanOut = currentVertex->fanOut();
-			for(int i = 0; i < fanOut; i++)
-			{
-				outEdge = currentVertex->getOutEdge(i);
-				if(outEdge->eProp > eSelectivity)
-				{
-					continue;
-				}
-				outVertex = outEdge->getEndVertex();
-				outVertex->Level = currentVertex->Level + 1;
-				if( (depth > 0 && outVertex->Level == depth))
-				{
-					//Now, we reached the destination vertexes, where we should add tuples into the output table
-					TableTuple temp_tuple = m_pathTable->tempTuple();
-					//start vertex, end vertex, length, cost, path
-					temp_tuple.setNValue(0, ValueFactory::getIntegerValue(startVertexId));
-					temp_tuple.setNValue(1, ValueFactory::getIntegerValue(outVertex->getId()));
-					temp_tuple.setNValue(2, ValueFactory::getIntegerValue(outVertex->Level));
-					temp_tuple.setNValue(3, ValueFactory::getDoubleValue((double)(outVertex->Level + 1)));
-					//temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-					if(m_pathTable->activeTupleCount() <= 100)
-					m_pathTable->insertTempTuple(temp_tuple);
-				}
-				else
-				{
-					//add to the queue, as currentDepth is less than depth
-					q.push(outVertex);
-				}
-			}
+			level[startVertexId] = 0;
+			q.push_back(make_pair(startVertexId, 0));
 		}
+		ctx.started = true;
 	}
+	int fanOut, nextLevel;
+	Vertex* currentVertex = NULL;
+	Edge* outEdge = NULL;
+	Vertex* outVertex = NULL;
 
-	std::stringstream paramsToPrint;
-	paramsToPrint << "BFS_ByDepth: from = " << startVertexId << ", depth = " << depth << ", numOfRowsAdded = " << m_pathTable->activeTupleCount();
-	LogManager::GLog("GraphView", "BFS_ByDepth", 463, paramsToPrint.str());
-}
-
-void GraphView::BFS_Reachability_ByDepth(int startVertexId, int depth)
-{
-	queue<Vertex*> q;
-	Vertex* currentVertex = this->m_vertexes[startVertexId];
-	std::map<int, int> vertexToLevel;
-	std::unordered_set<int> visited;
-	if(NULL != currentVertex)
+	while(!q.empty() && ctx.pathTable->activeTupleCount() < PATH_BATCH_SIZE)
 	{
-		vertexToLevel[currentVertex->getId()] = 0;
-		q.push(currentVertex);
-		int fanOut;
-		Edge* outEdge = NULL;
-		Vertex* outVertex = NULL;
-
-		while(!q.empty() && vertexToLevel[currentVertex->getId()] < depth)
+		currentVertex = this->getVertex(q.front().first);
+		nextLevel = q.front().second + 1;
+		q.pop_front();
+		if (currentVertex == NULL)
 		{
-			currentVertex = q.front();
-			q.pop();
-
-			if (visited.find(currentVertex->getId()) == visited.end())
+			continue;
+		}
+		fanOut = currentVertex->fanOut();
+		ctx.expandVertex(fanOut);
+		for(int i = 0; i < fanOut; i++)
+		{
+			outEdge = currentVertex->getOutEdge(i);
+			if(outEdge->eProp > eSelectivity)
 			{
-				visited.insert(currentVertex->getId());
+				continue;
 			}
-			else
+			outVertex = outEdge->getEndVertex();
+			if (outVertex == NULL || level.find(outVertex->getId()) != level.end() ||
+					!this->canCross(ctx, outEdge, outVertex->getId()))
 			{
 				continue;
 			}
-
-			fanOut = currentVertex->fanOut();
-			for(int i = 0; i < fanOut; i++)
+			level[outVertex->getId()] = nextLevel;
+			if(nextLevel == depth)
 			{
-				outEdge = currentVertex->getOutEdge(i);
-				outVertex = outEdge->getEndVertex();
-
-				if (visited.find(outVertex->getId()) != visited.end())
-				{
-					continue;
-				}
-
-				//outVertex->Level = currentVertex->Level + 1;
-				vertexToLevel[outVertex->getId()] = vertexToLevel[currentVertex->getId()] + 1;
-				if( (depth > 0 && vertexToLevel[outVertex->getId()] == depth))
-				{
-					//Now, we reached the destination vertexes, where we should add tuples into the output table
-					TableTuple temp_tuple = m_pathTable->tempTuple();
-					//start vertex, end vertex, length, cost, path
-					temp_tuple.setNValue(0, ValueFactory::getIntegerValue(startVertexId));
-					temp_tuple.setNValue(1, ValueFactory::getIntegerValue(outVertex->getId()));
-					temp_tuple.setNValue(2, ValueFactory::getIntegerValue(vertexToLevel[outVertex->getId()]));
-					temp_tuple.setNValue(3, ValueFactory::getDoubleValue((double)(vertexToLevel[outVertex->getId()])));
-					//temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-					if(m_pathTable->activeTupleCount() <= 1000)
-					m_pathTable->insertTempTuple(temp_tuple);
-				}
-				else
-				{
-					//add to the queue, as currentDepth is less than depth
-					q.push(outVertex);
-				}
+				//Now, we reached the destination vertexes, where we should add tuples into the output table
+				this->insertPathTuple(ctx, startVertexId, outVertex->getId(), nextLevel, (double)nextLevel);
+			}
+			else
+			{
+				//add to the queue, as currentDepth is less than depth
+				q.push_back(make_pair(outVertex->getId(), nextLevel));
 			}
 		}
 	}
 
-	std::stringstream paramsToPrint;
-	paramsToPrint << "BFS_ByDepth: from = " << startVertexId << ", depth = " << depth << ", numOfRowsAdded = " << m_pathTable->activeTupleCount();
-	LogManager::GLog("GraphView", "BFS_ByDepth", 463, paramsToPrint.str());
+	GLOG("GraphView", "BFS_ByDepth", 463,
+			"BFS_ByDepth: from = " << startVertexId << ", depth = " << depth << ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+	return !q.empty();
 }
 
-void GraphView::BFS_Reachability_ByDestination(int startVertexId, int destVerexId)
+void GraphView::BFS_Reachability_ByDestination(PathTraversalContext& ctx, int startVertexId, int destVerexId)
 {
 	queue<Vertex*> q;
-	Vertex* currentVertex = this->m_vertexes[startVertexId];
-	std::map<int, int> vertexToLevel;
-	std::unordered_set<int> visited;
+	Vertex* currentVertex = this->getVertex(startVertexId);
+	std::unordered_map<int, int>& vertexToLevel = ctx.distances;
+	std::unordered_set<int>& visited = ctx.visited;
 
-	if(NULL != currentVertex)
+	if(NULL != currentVertex && this->vertexQualifies(ctx, currentVertex))
 	{
 		vertexToLevel[currentVertex->getId()] = 0;
 		q.push(currentVertex);
@@ -671,10 +1458,15 @@ void GraphView::BFS_Reachability_ByDestination(int startVertexId, int destVerexI
 			}
 
 			fanOut = currentVertex->fanOut();
+			ctx.expandVertex(fanOut);
 			for(int i = 0; i < fanOut; i++)
 			{
 				outEdge = currentVertex->getOutEdge(i);
 				outVertex = outEdge->getEndVertex();
+				if (outVertex == NULL || !this->canCross(ctx, outEdge, outVertex->getId()))
+				{
+					continue;
+				}
 
 				if (visited.find(outVertex->getId()) != visited.end())
 				{
@@ -686,15 +1478,7 @@ void GraphView::BFS_Reachability_ByDestination(int startVertexId, int destVerexI
 				{
 					level = vertexToLevel[outVertex->getId()] + 1;
 					//Now, we reached the destination vertexes, where we should add tuples into the output table
-					TableTuple temp_tuple = m_pathTable->tempTuple();
-					//start vertex, end vertex, length, cost, path
-					temp_tuple.setNValue(0, ValueFactory::getIntegerValue(startVertexId));
-					temp_tuple.setNValue(1, ValueFactory::getIntegerValue(outVertex->getId()));
-					temp_tuple.setNValue(2, ValueFactory::getIntegerValue(level));
-					temp_tuple.setNValue(3, ValueFactory::getDoubleValue((double)level));
-					temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-					if(m_pathTable->activeTupleCount() <= 1000)
-					m_pathTable->insertTempTuple(temp_tuple);
+					this->insertPathTuple(ctx, startVertexId, outVertex->getId(), level, (double)level);
 
 					//outVertex->Level = outVertex->Level + 1;
 					vertexToLevel[outVertex->getId()] = level;
@@ -709,315 +1493,694 @@ void GraphView::BFS_Reachability_ByDestination(int startVertexId, int destVerexI
 			}
 		}
 	}
-	executeTraversal = false;
+	ctx.executeTraversal = false;
 
-	std::stringstream paramsToPrint;
-	paramsToPrint << "BFS_Reachability_ByDestination: from = " << startVertexId << ", to = " << destVerexId << ", numOfRowsAdded = " << m_pathTable->activeTupleCount();
-	LogManager::GLog("GraphView", "BFS_Reachability", 513, paramsToPrint.str());
+	GLOG("GraphView", "BFS_Reachability", 513,
+			"BFS_Reachability_ByDestination: from = " << startVertexId << ", to = " << destVerexId << ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
 }
 
-void GraphView::SubGraphLoopFromStartVertex(int startVertexId, int length, int vSelectivity, int eSelectivity)
+bool GraphView::BFS_Reachability_ByDepth_CSR(PathTraversalContext& ctx, int startVertexId, int depth, int eSelectivity)
 {
-	queue<Vertex*> q;
-	Vertex* currentVertex = NULL;
-	//for(std::map<int, Vertex*>::iterator it = m_vertexes.begin(); it != m_vertexes.end(); ++it)
+	//no path has a length of zero or less
+	if (depth <= 0)
 	{
-		currentVertex = this->getVertex(startVertexId);
-
-		currentVertex->Level = 0;
-		q.push(currentVertex);
-		int fanOut;
-		Edge* outEdge = NULL;
-		Vertex* outVertex = NULL;
-		while(!q.empty() && currentVertex->Level < length)
+		return false;
+	}
+	CSRAdjacency& csr = this->getCSRAdjacency();
+	//(dense id, level) entries
+	std::deque<pair<int, int> >& q = ctx.queue;
+	vector<int>& level = ctx.levels;
+	if (!ctx.started)
+	{
+		int src = csr.denseId(startVertexId);
+		if (src >= 0 && this->vertexQualifies(ctx, csr, src))
 		{
-			currentVertex = q.front();
-			q.pop();
-			fanOut = currentVertex->fanOut();
-			for(int i = 0; i < fanOut; i++)
+			level.assign(csr.numOfVertexes(), -1);
+			level[src] = 0;
+			q.push_back(make_pair(src, 0));
+			if (ctx.reads(PathTraversalContext::PATH_VERTEXES))
 			{
-				outEdge = currentVertex->getOutEdge(i);
-
-				if(outEdge->eProp > eSelectivity)
+				ctx.predecessors.assign(csr.numOfVertexes(), -1);
+			}
+		}
+		ctx.started = true;
+	}
+	while (!q.empty() && ctx.pathTable->activeTupleCount() < PATH_BATCH_SIZE)
+	{
+		int v = q.front().first;
+		int nextLevel = q.front().second + 1;
+		q.pop_front();
+		ctx.expandVertex(csr.end(v) - csr.begin(v));
+		for (int slot = csr.begin(v); slot < csr.end(v); slot++)
+		{
+			int u = csr.target(slot);
+			if (level[u] >= 0 || csr.eProp(slot) > eSelectivity || !this->canCross(ctx, csr, slot, u))
+			{
+				continue;
+			}
+			level[u] = nextLevel;
+			if (!ctx.predecessors.empty())
+			{
+				ctx.predecessors[u] = v;
+			}
+			if (nextLevel == depth)
+			{
+				//Now, we reached the destination vertexes, where we should add tuples into the output table
+				if (!ctx.predecessors.empty())
 				{
-					continue;
+					this->tracePath(ctx, u);
 				}
+				this->insertPathTuple(ctx, startVertexId, csr.vertexId(u), nextLevel, (double)nextLevel);
+			}
+			else
+			{
+				q.push_back(make_pair(u, nextLevel));
+			}
+		}
+	}
 
-				outVertex = outEdge->getEndVertex();
+	GLOG("GraphView", "BFS_ByDepth_CSR", 744,
+			"BFS_ByDepth_CSR: from = " << startVertexId << ", depth = " << depth << ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+	return !q.empty();
+}
 
-				if(outVertex->vProp > vSelectivity)
+void GraphView::BFS_Reachability_ByDestination_CSR(PathTraversalContext& ctx, int startVertexId, int destVerexId)
+{
+	CSRAdjacency& csr = this->getCSRAdjacency();
+	int src = csr.denseId(startVertexId);
+	int dest = csr.denseId(destVerexId);
+	if (src >= 0 && dest >= 0 && this->vertexQualifies(ctx, csr, src))
+	{
+		vector<int>& level = ctx.levels;
+		level.assign(csr.numOfVertexes(), -1);
+		vector<int> q;
+		q.reserve(csr.numOfVertexes());
+		level[src] = 0;
+		q.push_back(src);
+		if (ctx.reads(PathTraversalContext::PATH_VERTEXES))
+		{
+			ctx.predecessors.assign(csr.numOfVertexes(), -1);
+		}
+		bool found = false;
+		for (size_t head = 0; head < q.size() && !found; head++)
+		{
+			int v = q[head];
+			ctx.expandVertex(csr.end(v) - csr.begin(v));
+			for (int slot = csr.begin(v); slot < csr.end(v); slot++)
+			{
+				int u = csr.target(slot);
+				if (level[u] >= 0 || !this->canCross(ctx, csr, slot, u))
 				{
 					continue;
 				}
-
-				outVertex->Level = currentVertex->Level + 1;
-				if(outVertex->Level == length)
+				level[u] = level[v] + 1;
+				if (!ctx.predecessors.empty())
+				{
+					ctx.predecessors[u] = v;
+				}
+				if (u == dest)
 				{
-					//we found a loop of the desired length
-					if(outVertex->getId() == startVertexId)
+					//report the same length as the map based traversal
+					int length = level[u] + 1;
+					if (!ctx.predecessors.empty())
 					{
-						//Now, we reached the destination vertexes, where we should add tuples into the output table
-						TableTuple temp_tuple = m_pathTable->tempTuple();
-						//start vertex, end vertex, length, cost, path
-						//set the start vertex to the vertex having an edge that closes the loop (for debugging purposes)
-						temp_tuple.setNValue(0, ValueFactory::getIntegerValue(outEdge->getStartVertex()->getId()));
-						temp_tuple.setNValue(1, ValueFactory::getIntegerValue(startVertexId));
-						temp_tuple.setNValue(2, ValueFactory::getIntegerValue(outVertex->Level));
-						temp_tuple.setNValue(3, ValueFactory::getDoubleValue((double)outVertex->Level));
-						//temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-						if(m_pathTable->activeTupleCount() <= 1000)
-						m_pathTable->insertTempTuple(temp_tuple);
+						this->tracePath(ctx, u);
 					}
+					this->insertPathTuple(ctx, startVertexId, destVerexId, length, (double)length);
+					found = true;
+					break;
 				}
-				else
+				q.push_back(u);
+			}
+		}
+	}
+	ctx.executeTraversal = false;
+
+	GLOG("GraphView", "BFS_Reachability_CSR", 794,
+			"BFS_Reachability_ByDestination_CSR: from = " << startVertexId << ", to = " << destVerexId << ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+}
+
+void GraphView::BFS_Reachability_Bidirectional(PathTraversalContext& ctx, int startVertexId, int destVerexId)
+{
+	std::unordered_map<int, int>& forwardLevel = ctx.distances;
+	std::unordered_map<int, int>& backwardLevel = ctx.backwardDistances;
+	vector<int> forwardFrontier, backwardFrontier, nextFrontier;
+	int hops = -1;
+	if (this->vertexQualifies(ctx, this->getVertex(startVertexId)) && this->vertexQualifies(ctx, this->getVertex(destVerexId)))
+	{
+		forwardLevel[startVertexId] = 0;
+		forwardFrontier.push_back(startVertexId);
+		backwardLevel[destVerexId] = 0;
+		backwardFrontier.push_back(destVerexId);
+		while (hops < 0 && !forwardFrontier.empty() && !backwardFrontier.empty())
+		{
+			//expand a whole level of the smaller frontier, forward along the out edges
+			//or backward along the in edges, until the two searches meet
+			bool forward = forwardFrontier.size() <= backwardFrontier.size();
+			vector<int>& frontier = forward ? forwardFrontier : backwardFrontier;
+			std::unordered_map<int, int>& level = forward ? forwardLevel : backwardLevel;
+			std::unordered_map<int, int>& otherLevel = forward ? backwardLevel : forwardLevel;
+			nextFrontier.clear();
+			for (size_t f = 0; f < frontier.size(); f++)
+			{
+				int vId = frontier[f];
+				Vertex* v = this->getVertex(vId);
+				int nextLevel = level[vId] + 1;
+				int degree = forward ? v->fanOut() : v->fanIn();
+				ctx.expandVertex(degree);
+				for (int i = 0; i < degree; i++)
 				{
-					//add to the queue, as currentDepth is less than depth
-					q.push(outVertex);
+					Edge* e = forward ? v->getOutEdge(i) : v->getInEdge(i);
+					int uId = (e->getStartVertexId() == vId) ? e->getEndVertexId() : e->getStartVertexId();
+					if (level.find(uId) != level.end() || NULL == this->getVertex(uId) || !this->canCross(ctx, e, uId))
+					{
+						continue;
+					}
+					level[uId] = nextLevel;
+					std::unordered_map<int, int>::iterator other = otherLevel.find(uId);
+					if (other != otherLevel.end() && (hops < 0 || nextLevel + other->second < hops))
+					{
+						hops = nextLevel + other->second;
+					}
+					nextFrontier.push_back(uId);
 				}
 			}
+			//a meeting found while expanding a level is the shortest one
+			frontier.swap(nextFrontier);
 		}
+	}
+	if (hops >= 0)
+	{
+		//report the same length as the forward traversal
+		int length = hops + 1;
+		this->insertPathTuple(ctx, startVertexId, destVerexId, length, (double)length);
+	}
 
-		//empty the queue
-		while(!q.empty())
+	GLOG("GraphView", "BFS_Reachability_Bidirectional", 990,
+			"BFS_Reachability_Bidirectional: from = " << startVertexId << ", to = " << destVerexId
+			<< ", exploredVertexes = " << forwardLevel.size() + backwardLevel.size()
+			<< ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+}
+
+void GraphView::BFS_Reachability_Bidirectional_CSR(PathTraversalContext& ctx, int startVertexId, int destVerexId)
+{
+	CSRAdjacency& csr = this->getCSRAdjacency();
+	int src = csr.denseId(startVertexId);
+	int dest = csr.denseId(destVerexId);
+	int hops = -1;
+	//the vertex the shortest path found goes through
+	int meet = -1;
+	if (src >= 0 && dest >= 0 && this->vertexQualifies(ctx, csr, src) && this->vertexQualifies(ctx, csr, dest))
+	{
+		vector<int>& forwardLevel = ctx.levels;
+		vector<int>& backwardLevel = ctx.backwardLevels;
+		forwardLevel.assign(csr.numOfVertexes(), -1);
+		backwardLevel.assign(csr.numOfVertexes(), -1);
+		if (ctx.reads(PathTraversalContext::PATH_VERTEXES))
 		{
-			q.pop();
+			ctx.predecessors.assign(csr.numOfVertexes(), -1);
+			ctx.successors.assign(csr.numOfVertexes(), -1);
+		}
+		vector<int> forwardFrontier, backwardFrontier, nextFrontier;
+		forwardLevel[src] = 0;
+		forwardFrontier.push_back(src);
+		backwardLevel[dest] = 0;
+		backwardFrontier.push_back(dest);
+		while (hops < 0 && !forwardFrontier.empty() && !backwardFrontier.empty())
+		{
+			bool forward = forwardFrontier.size() <= backwardFrontier.size();
+			vector<int>& frontier = forward ? forwardFrontier : backwardFrontier;
+			vector<int>& level = forward ? forwardLevel : backwardLevel;
+			vector<int>& otherLevel = forward ? backwardLevel : forwardLevel;
+			nextFrontier.clear();
+			for (size_t f = 0; f < frontier.size(); f++)
+			{
+				int v = frontier[f];
+				int first = forward ? csr.begin(v) : csr.inBegin(v);
+				int last = forward ? csr.end(v) : csr.inEnd(v);
+				ctx.expandVertex(last - first);
+				for (int slot = first; slot < last; slot++)
+				{
+					int u = forward ? csr.target(slot) : csr.inSource(slot);
+					if (level[u] >= 0 || !this->canCross(ctx, csr, forward ? slot : csr.inEdgeSlot(slot), u))
+					{
+						continue;
+					}
+					level[u] = level[v] + 1;
+					if (!ctx.predecessors.empty())
+					{
+						(forward ? ctx.predecessors : ctx.successors)[u] = v;
+					}
+					if (otherLevel[u] >= 0 && (hops < 0 || level[u] + otherLevel[u] < hops))
+					{
+						hops = level[u] + otherLevel[u];
+						meet = u;
+					}
+					nextFrontier.push_back(u);
+				}
+			}
+			frontier.swap(nextFrontier);
 		}
 	}
+	if (hops >= 0)
+	{
+		//report the same length as the forward traversal
+		int length = hops + 1;
+		if (!ctx.predecessors.empty())
+		{
+			this->tracePath(ctx, meet);
+		}
+		this->insertPathTuple(ctx, startVertexId, destVerexId, length, (double)length);
+	}
 
-	std::stringstream paramsToPrint;
-	paramsToPrint << "SubGraphLoop from a specific vertex: length = " << length << ", vSelectivity = " << vSelectivity
-			<< ", eSelectivity = " << eSelectivity
-			<< ", numOfRowsAdded = " << m_pathTable->activeTupleCount();
-	LogManager::GLog("GraphView", "SubGraphLoop", 703, paramsToPrint.str());
+	GLOG("GraphView", "BFS_Reachability_Bidirectional_CSR", 1065,
+			"BFS_Reachability_Bidirectional_CSR: from = " << startVertexId << ", to = " << destVerexId << ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
 }
 
-
-void GraphView::SubGraphLoop(int length, int vSelectivity, int eSelectivity)
+void GraphView::SP_EdgeSelectivity_Bidirectional(PathTraversalContext& ctx, int src, int dest, int edgeSelectivity)
 {
-	queue<Vertex*> q;
-	Vertex* currentVertex = NULL;
-	int startVertexId = -1;
-	for(std::map<int, Vertex*>::iterator it = m_vertexes.begin(); it != m_vertexes.end(); ++it)
+	typedef std::unordered_map<int, PathTraversalContext::CostAndLength> CostMap;
+	CostMap& forwardCost = ctx.costs;
+	CostMap& backwardCost = ctx.backwardCosts;
+	PathTraversalContext::PathPriorityQueue forwardPQ, backwardPQ;
+	//cost and length of the best path found so far through a vertex reached by both searches
+	double bestCost = (src == dest) ? 0 : NO_PATH;
+	int bestLength = 0;
+	if (this->vertexQualifies(ctx, this->getVertex(src)) && this->vertexQualifies(ctx, this->getVertex(dest)))
 	{
-		currentVertex = it->second;
-		if(currentVertex->vProp > vSelectivity)
+		forwardCost[src] = make_pair(0, 0);
+		forwardPQ.push(make_pair(0, make_pair(src, 0)));
+		backwardCost[dest] = make_pair(0, 0);
+		backwardPQ.push(make_pair(0, make_pair(dest, 0)));
+	}
+	else
+	{
+		bestCost = NO_PATH;
+	}
+	while (!forwardPQ.empty() && !backwardPQ.empty())
+	{
+		//no shorter path remains once the two searches together reach beyond the best path
+		if (forwardPQ.top().first + backwardPQ.top().first >= bestCost)
 		{
+			break;
+		}
+		bool forward = forwardPQ.size() <= backwardPQ.size();
+		PathTraversalContext::PathPriorityQueue& pq = forward ? forwardPQ : backwardPQ;
+		CostMap& cost = forward ? forwardCost : backwardCost;
+		CostMap& otherCost = forward ? backwardCost : forwardCost;
+		double minCost = pq.top().first;
+		int vId = pq.top().second.first;
+		int length = pq.top().second.second;
+		pq.pop();
+		if (minCost > cost[vId].first)
+		{
+			//stale queue entry
 			continue;
 		}
-		startVertexId = currentVertex->getId();
-		currentVertex->Level = 0;
-		q.push(currentVertex);
-		int fanOut;
-		Edge* outEdge = NULL;
-		Vertex* outVertex = NULL;
-		while(!q.empty() && currentVertex->Level < length)
+		Vertex* v = this->getVertex(vId);
+		if (v == NULL)
 		{
-			currentVertex = q.front();
-			q.pop();
-			fanOut = currentVertex->fanOut();
-			for(int i = 0; i < fanOut; i++)
+			continue;
+		}
+		int degree = forward ? v->fanOut() : v->fanIn();
+		ctx.expandVertex(degree);
+		for (int i = 0; i < degree; i++)
+		{
+			Edge* e = forward ? v->getOutEdge(i) : v->getInEdge(i);
+			if (e->eProp > edgeSelectivity)
 			{
-				outEdge = currentVertex->getOutEdge(i);
+				continue;
+			}
+			int uId = (e->getStartVertexId() == vId) ? e->getEndVertexId() : e->getStartVertexId();
+			double candCost = minCost + this->edgeCost(e, ctx.weightIndex);
+			CostMap::iterator it = cost.find(uId);
+			if (candCost >= NO_PATH || (it != cost.end() && it->second.first <= candCost) || NULL == this->getVertex(uId)
+					|| !this->canCross(ctx, e, uId))
+			{
+				continue;
+			}
+			cost[uId] = make_pair(candCost, length + 1);
+			pq.push(make_pair(candCost, make_pair(uId, length + 1)));
+			CostMap::iterator other = otherCost.find(uId);
+			if (other != otherCost.end() && candCost + other->second.first < bestCost)
+			{
+				bestCost = candCost + other->second.first;
+				bestLength = length + 1 + other->second.second;
+			}
+		}
+	}
+	if (bestCost < NO_PATH)
+	{
+		this->insertPathTuple(ctx, src, dest, bestLength, bestCost);
+	}
+
+	GLOG("GraphView", "SP_eSelectivity_Bidirectional", 1150,
+			"SP bidirectional with eSelectivity: from = " << src << ", to = " << dest
+			<< ", eSelectivity = " << edgeSelectivity
+			<< ", exploredVertexes = " << forwardCost.size() + backwardCost.size()
+			<< ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+}
 
-				if(outEdge->eProp > eSelectivity)
+void GraphView::SP_EdgeSelectivity_Bidirectional_CSR(PathTraversalContext& ctx, int src, int dest, int edgeSelectivity)
+{
+	CSRAdjacency& csr = this->getCSRAdjacency();
+	int srcDense = csr.denseId(src);
+	int destDense = csr.denseId(dest);
+	double bestCost = NO_PATH;
+	int bestLength = 0;
+	//the vertex the best path found goes through
+	int bestMeet = -1;
+	if (srcDense >= 0 && destDense >= 0 && this->vertexQualifies(ctx, csr, srcDense) && this->vertexQualifies(ctx, csr, destDense))
+	{
+		vector<double>& forwardCost = ctx.denseCosts;
+		vector<double>& backwardCost = ctx.backwardDenseCosts;
+		vector<int>& forwardLength = ctx.levels;
+		vector<int>& backwardLength = ctx.backwardLevels;
+		forwardCost.assign(csr.numOfVertexes(), NO_PATH);
+		backwardCost.assign(csr.numOfVertexes(), NO_PATH);
+		forwardLength.assign(csr.numOfVertexes(), 0);
+		backwardLength.assign(csr.numOfVertexes(), 0);
+		const double* costs = (ctx.weightIndex >= 0) ? csr.costs(ctx.weightIndex) : NULL;
+		PathTraversalContext::PathPriorityQueue forwardPQ, backwardPQ;
+		if (ctx.reads(PathTraversalContext::PATH_VERTEXES))
+		{
+			ctx.predecessors.assign(csr.numOfVertexes(), -1);
+			ctx.successors.assign(csr.numOfVertexes(), -1);
+		}
+		if (srcDense == destDense)
+		{
+			bestCost = 0;
+			bestMeet = srcDense;
+		}
+		forwardCost[srcDense] = 0;
+		forwardPQ.push(make_pair(0, make_pair(srcDense, 0)));
+		backwardCost[destDense] = 0;
+		backwardPQ.push(make_pair(0, make_pair(destDense, 0)));
+		while (!forwardPQ.empty() && !backwardPQ.empty())
+		{
+			if (forwardPQ.top().first + backwardPQ.top().first >= bestCost)
+			{
+				break;
+			}
+			bool forward = forwardPQ.size() <= backwardPQ.size();
+			PathTraversalContext::PathPriorityQueue& pq = forward ? forwardPQ : backwardPQ;
+			vector<double>& cost = forward ? forwardCost : backwardCost;
+			vector<double>& otherCost = forward ? backwardCost : forwardCost;
+			vector<int>& length = forward ? forwardLength : backwardLength;
+			vector<int>& otherLength = forward ? backwardLength : forwardLength;
+			double minCost = pq.top().first;
+			int v = pq.top().second.first;
+			pq.pop();
+			if (minCost > cost[v])
+			{
+				//stale queue entry
+				continue;
+			}
+			int first = forward ? csr.begin(v) : csr.inBegin(v);
+			int last = forward ? csr.end(v) : csr.inEnd(v);
+			ctx.expandVertex(last - first);
+			for (int slot = first; slot < last; slot++)
+			{
+				int edgeSlot = forward ? slot : csr.inEdgeSlot(slot);
+				int u = forward ? csr.target(slot) : csr.inSource(slot);
+				if (csr.eProp(edgeSlot) > edgeSelectivity || !this->canCross(ctx, csr, edgeSlot, u))
 				{
 					continue;
 				}
-
-				outVertex = outEdge->getEndVertex();
-				outVertex->Level = currentVertex->Level + 1;
-				if(outVertex->Level == length)
+				double candCost = minCost + (costs ? costs[edgeSlot] : 1);
+				if (cost[u] <= candCost)
 				{
-					//we found a loop of the desired length
-					if(outVertex->getId() == startVertexId)
-					{
-						//Now, we reached the destination vertexes, where we should add tuples into the output table
-						TableTuple temp_tuple = m_pathTable->tempTuple();
-						//start vertex, end vertex, length, cost, path
-						//set the start vertex to the vertex having an edge that closes the loop (for debugging purposes)
-						temp_tuple.setNValue(0, ValueFactory::getIntegerValue(outEdge->getStartVertex()->getId()));
-						temp_tuple.setNValue(1, ValueFactory::getIntegerValue(startVertexId));
-						temp_tuple.setNValue(2, ValueFactory::getIntegerValue(outVertex->Level));
-						temp_tuple.setNValue(3, ValueFactory::getDoubleValue((double)outVertex->Level));
-						//temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-						if(m_pathTable->activeTupleCount() <= 100)
-						m_pathTable->insertTempTuple(temp_tuple);
-					}
+					continue;
 				}
-				else
+				cost[u] = candCost;
+				length[u] = length[v] + 1;
+				if (!ctx.predecessors.empty())
 				{
-					//add to the queue, as currentDepth is less than depth
-					q.push(outVertex);
+					(forward ? ctx.predecessors : ctx.successors)[u] = v;
+				}
+				pq.push(make_pair(cost[u], make_pair(u, length[u])));
+				if (cost[u] + otherCost[u] < bestCost)
+				{
+					bestCost = cost[u] + otherCost[u];
+					bestLength = length[u] + otherLength[u];
+					bestMeet = u;
 				}
 			}
 		}
-
-		//empty the queue
-		while(!q.empty())
+	}
+	if (bestCost < NO_PATH)
+	{
+		if (!ctx.predecessors.empty())
 		{
-			q.pop();
+			this->tracePath(ctx, bestMeet);
 		}
+		this->insertPathTuple(ctx, src, dest, bestLength, bestCost);
 	}
 
-	std::stringstream paramsToPrint;
-	paramsToPrint << "SubGraphLoop: length = " << length << ", vSelectivity = " << vSelectivity
-			<< ", eSelectivity = " << eSelectivity
-			<< ", numOfRowsAdded = " << m_pathTable->activeTupleCount();
-	LogManager::GLog("GraphView", "SubGraphLoop", 625, paramsToPrint.str());
+	GLOG("GraphView", "SP_eSelectivity_Bidirectional_CSR", 1230,
+			"SP bidirectional with eSelectivity CSR: from = " << src << ", to = " << dest
+			<< ", eSelectivity = " << edgeSelectivity
+			<< ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
 }
 
-void GraphView::SubGraphLoop(int startVertexId, int length)
+void GraphView::SP_EdgeSelectivity_ALT(PathTraversalContext& ctx, int src, int dest, int edgeSelectivity)
 {
-	queue<Vertex*> q;
-	Vertex* currentVertex = NULL;
-	if(startVertexId >= 0)
-	{
-		currentVertex = this->m_vertexes[startVertexId];
-	}
-	if(NULL != currentVertex)
+	const LandmarkDistances& landmarks = *this->getLandmarkDistances(ctx.weightIndex);
+	CSRAdjacency& csr = this->getCSRAdjacency();
+	int srcDense = csr.denseId(src);
+	int destDense = csr.denseId(dest);
+	if (srcDense >= 0 && destDense >= 0 && this->vertexQualifies(ctx, csr, srcDense)
+			&& landmarks.lowerBound(srcDense, destDense) < NO_PATH)
 	{
-		currentVertex->Level = 0;
-		q.push(currentVertex);
-		int fanOut;
-		Edge* outEdge = NULL;
-		Vertex* outVertex = NULL;
-		while(!q.empty() && currentVertex->Level < length)
+		vector<double>& costMap = ctx.denseCosts;
+		vector<int>& lengths = ctx.levels;
+		costMap.assign(csr.numOfVertexes(), NO_PATH);
+		lengths.assign(csr.numOfVertexes(), 0);
+		const double* costs = (ctx.weightIndex >= 0) ? csr.costs(ctx.weightIndex) : NULL;
+		//the landmark bounds are consistent, so a vertex is settled the first time
+		//it leaves the queue, as in Dijkstra's algorithm
+		PathTraversalContext::GuidedPriorityQueue pq;
+		costMap[srcDense] = 0;
+		pq.push(make_pair(landmarks.lowerBound(srcDense, destDense), make_pair(0.0, make_pair(srcDense, 0))));
+		if (ctx.reads(PathTraversalContext::PATH_VERTEXES))
 		{
-			currentVertex = q.front();
-			q.pop();
-			fanOut = currentVertex->fanOut();
-			for(int i = 0; i < fanOut; i++)
+			ctx.predecessors.assign(csr.numOfVertexes(), -1);
+		}
+		while(!pq.empty())
+		{
+			double minCost = pq.top().second.first;
+			int v = pq.top().second.second.first;
+			if (v == destDense)
 			{
-				outEdge = currentVertex->getOutEdge(i);
-				outVertex = outEdge->getEndVertex();
-				outVertex->Level = currentVertex->Level + 1;
-				if(outVertex->Level == length)
+				if (!ctx.predecessors.empty())
 				{
-					//we found a loop of the desired length
-					if(outVertex->getId() == startVertexId)
-					{
-						//Now, we reached the destination vertexes, where we should add tuples into the output table
-						TableTuple temp_tuple = m_pathTable->tempTuple();
-						//start vertex, end vertex, length, cost, path
-						temp_tuple.setNValue(0, ValueFactory::getIntegerValue(startVertexId));
-						temp_tuple.setNValue(1, ValueFactory::getIntegerValue(outVertex->getId()));
-						temp_tuple.setNValue(2, ValueFactory::getIntegerValue(outVertex->Level));
-						temp_tuple.setNValue(3, ValueFactory::getDoubleValue((double)outVertex->Level));
-						//temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-						if(m_pathTable->activeTupleCount() <= 100)
-						m_pathTable->insertTempTuple(temp_tuple);
-					}
+					this->tracePath(ctx, v);
 				}
-				else
+				this->insertPathTuple(ctx, src, dest, pq.top().second.second.second, minCost);
+				break;
+			}
+			pq.pop();
+			if (minCost > costMap[v])
+			{
+				//stale queue entry
+				continue;
+			}
+			ctx.expandVertex(csr.end(v) - csr.begin(v));
+			for (int slot = csr.begin(v); slot < csr.end(v); slot++)
+			{
+				int u = csr.target(slot);
+				if (csr.eProp(slot) > edgeSelectivity || (costs && costs[slot] >= NO_PATH)
+						|| !this->canCross(ctx, csr, slot, u))
 				{
-					//add to the queue, as currentDepth is less than depth
-					q.push(outVertex);
+					continue;
+				}
+				double candCost = minCost + (costs ? costs[slot] : 1);
+				if (costMap[u] > candCost)
+				{
+					double bound = landmarks.lowerBound(u, destDense);
+					if (bound >= NO_PATH)
+					{
+						//the end vertex is not reachable from u
+						continue;
+					}
+					costMap[u] = candCost;
+					lengths[u] = lengths[v] + 1;
+					if (!ctx.predecessors.empty())
+					{
+						ctx.predecessors[u] = v;
+					}
+					pq.push(make_pair(candCost + bound, make_pair(candCost, make_pair(u, lengths[u]))));
 				}
 			}
 		}
 	}
+
+	GLOG("GraphView", "SP_eSelectivity_ALT", 1680,
+			"SP with eSelectivity ALT: from = " << src << ", to = " << dest
+			<< ", eSelectivity = " << edgeSelectivity
+			<< ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+}
+
+bool GraphView::SubGraphLoopFromStartVertex(PathTraversalContext& ctx, int startVertexId, int length, int vSelectivity, int eSelectivity)
+{
+	bool hasMore = this->Loops(ctx, false, startVertexId, length, vSelectivity, eSelectivity);
+
+	GLOG("GraphView", "SubGraphLoop", 703,
+			"SubGraphLoop from a specific vertex: length = " << length << ", vSelectivity = " << vSelectivity
+			<< ", eSelectivity = " << eSelectivity
+			<< ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+	return hasMore;
+}
+
+
+bool GraphView::SubGraphLoop(PathTraversalContext& ctx, int length, int vSelectivity, int eSelectivity)
+{
+	bool hasMore = this->Loops(ctx, true, -1, length, vSelectivity, eSelectivity);
+
+	GLOG("GraphView", "SubGraphLoop", 625,
+			"SubGraphLoop: length = " << length << ", vSelectivity = " << vSelectivity
+			<< ", eSelectivity = " << eSelectivity
+			<< ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+	return hasMore;
+}
+
+bool GraphView::SubGraphLoop(PathTraversalContext& ctx, int startVertexId, int length)
+{
+	bool hasMore = this->Loops(ctx, startVertexId < 0, startVertexId, length, INT_MAX, INT_MAX);
+
+	GLOG("GraphView", "BFS", 302,
+			"SubGraphLoop: from = " << startVertexId << ", length = " << length << ", numOfRowsAdded = " << ctx.pathTable->activeTupleCount());
+	return hasMore;
+}
+
+bool GraphView::Loops(PathTraversalContext& ctx, bool allStarts, int startVertexId, int length,
+		int vSelectivity, int eSelectivity)
+{
+	//(vertex id, level) entries of the walks from the start vertex of the loops,
+	//the level is kept in the queue rather than in the vertexes, which other
+	//traversals of the graph view walk at the same time
+	std::deque<pair<int, int> >& q = ctx.queue;
+	//the start vertexes are tried in key order, a resumed traversal carries on
+	//with the walks of ctx.loopStart and then the start vertexes past it
+	std::map<int, Vertex*>::iterator start;
+	if (!ctx.started)
+	{
+		ctx.started = true;
+		start = allStarts ? m_vertexes.begin() : m_vertexes.find(startVertexId);
+	}
 	else
 	{
-		for (std::map<int, Vertex*>::iterator it = m_vertexes.begin(); it != m_vertexes.end(); ++it)
+		start = allStarts ? m_vertexes.upper_bound(ctx.loopStart) : m_vertexes.end();
+	}
+	while (ctx.pathTable->activeTupleCount() < PATH_BATCH_SIZE)
+	{
+		if (q.empty())
 		{
-			currentVertex = it->second;
-			currentVertex->Level = 0;
-			q.push(currentVertex);
-			int fanOut;
-			Edge* outEdge = NULL;
-			Vertex* outVertex = NULL;
-			while(!q.empty() && currentVertex->Level < length)
+			//the walks of the last start vertex are done
+			if (start == m_vertexes.end())
 			{
-				currentVertex = q.front();
-				q.pop();
-				fanOut = currentVertex->fanOut();
-				for(int i = 0; i < fanOut; i++)
+				return false;
+			}
+			Vertex* startVertex = start->second;
+			ctx.loopStart = start->first;
+			if (allStarts)
+			{
+				++start;
+			}
+			else
+			{
+				start = m_vertexes.end();
+			}
+			if (startVertex->vProp <= vSelectivity && this->vertexQualifies(ctx, startVertex))
+			{
+				q.push_back(make_pair(ctx.loopStart, 0));
+			}
+			continue;
+		}
+		Vertex* currentVertex = this->getVertex(q.front().first);
+		int nextLevel = q.front().second + 1;
+		q.pop_front();
+		if (currentVertex == NULL || nextLevel > length)
+		{
+			continue;
+		}
+		int fanOut = currentVertex->fanOut();
+		ctx.expandVertex(fanOut);
+		for (int i = 0; i < fanOut; i++)
+		{
+			Edge* outEdge = currentVertex->getOutEdge(i);
+			if (outEdge->eProp > eSelectivity)
+			{
+				continue;
+			}
+			Vertex* outVertex = outEdge->getEndVertex();
+			if (outVertex == NULL || outVertex->vProp > vSelectivity || !this->canCross(ctx, outEdge, outVertex->getId()))
+			{
+				continue;
+			}
+			if (nextLevel == length)
+			{
+				//we found a loop of the desired length
+				if (outVertex->getId() == ctx.loopStart)
 				{
-					outEdge = currentVertex->getOutEdge(i);
-					outVertex = outEdge->getEndVertex();
-					outVertex->Level = currentVertex->Level + 1;
-					if(outVertex->Level == length)
-					{
-						//we found a loop of the desired length
-						if(outVertex->getId() == startVertexId)
-						{
-							//Now, we reached the destination vertexes, where we should add tuples into the output table
-							TableTuple temp_tuple = m_pathTable->tempTuple();
-							//start vertex, end vertex, length, cost, path
-							temp_tuple.setNValue(0, ValueFactory::getIntegerValue(startVertexId));
-							temp_tuple.setNValue(1, ValueFactory::getIntegerValue(outVertex->getId()));
-							temp_tuple.setNValue(2, ValueFactory::getIntegerValue(outVertex->Level));
-							temp_tuple.setNValue(3, ValueFactory::getDoubleValue((double)outVertex->Level));
-							//temp_tuple.setNValue(4, ValueFactory::getStringValue("Test", NULL) );
-							if(m_pathTable->activeTupleCount() <= 100)
-							m_pathTable->insertTempTuple(temp_tuple);
-						}
-					}
-					else
-					{
-						//add to the queue, as currentDepth is less than depth
-						q.push(outVertex);
-					}
+					this->insertPathTuple(ctx, ctx.loopStart, ctx.loopStart, length, (double)length);
 				}
 			}
-			//empty the queue
-			while(!q.empty())
+			else
 			{
-				q.pop();
+				//add to the queue, as currentDepth is less than depth
+				q.push_back(make_pair(outVertex->getId(), nextLevel));
 			}
 		}
 	}
-	executeTraversal = false;
-
-	std::stringstream paramsToPrint;
-	paramsToPrint << "SubGraphLoop: from = " << startVertexId << ", length = " << length << ", numOfRowsAdded = " << m_pathTable->activeTupleCount();
-	LogManager::GLog("GraphView", "BFS", 302, paramsToPrint.str());
+	return !q.empty() || start != m_vertexes.end();
 }
 
 void GraphView::fillGraphFromRelationalTables()
 {
+	timeval buildStart, buildEnd;
+	gettimeofday(&buildStart, NULL);
 
-	this->m_vertexes.clear();
-	this->m_edges.clear();
+	this->clearTopology();
+	this->collectWeightColumns();
 	//fill the vertex collection
 	TableIterator iter = this->m_vertexTable->iterator();
 	const TupleSchema* schema = this->m_vertexTable->schema();
 	TableTuple tuple(schema);
-	int id, from, to;
-	from = -1;
-	to = -1;
-	Vertex* vertex = NULL;
-	Edge* edge = NULL;
+	int id;
 
 
-	std::stringstream paramsToPrint;
-	paramsToPrint << " vertex column names = ";
-	for(int i = 0; i < m_vertexColumnNames.size(); i++)
-	{
-		paramsToPrint << m_vertexColumnNames[i] << ", ";
-	}
-	paramsToPrint << " ### vertexTable ColIDs= ";
-	for(int i = 0; i < m_columnIDsInVertexTable.size(); i++)
+	if (LogManager::GDebug)
 	{
-		paramsToPrint << m_columnIDsInVertexTable[i] << ", ";
-	}
+		std::stringstream paramsToPrint;
+		paramsToPrint << " vertex column names = ";
+		for(int i = 0; i < m_vertexColumnNames.size(); i++)
+		{
+			paramsToPrint << m_vertexColumnNames[i] << ", ";
+		}
+		paramsToPrint << " ### vertexTable ColIDs= ";
+		for(int i = 0; i < m_columnIDsInVertexTable.size(); i++)
+		{
+			paramsToPrint << m_columnIDsInVertexTable[i] << ", ";
+		}
 
-	paramsToPrint << " ### edge column names = ";
-	for(int i = 0; i < m_edgeColumnNames.size(); i++)
-	{
-		paramsToPrint << m_edgeColumnNames[i] << ", ";
-	}
-	paramsToPrint << " ### edgeTable ColIDs= ";
-	for(int i = 0; i < m_columnIDsInEdgeTable.size(); i++)
-	{
-		paramsToPrint << m_columnIDsInEdgeTable[i] << ", ";
-	}
+		paramsToPrint << " ### edge column names = ";
+		for(int i = 0; i < m_edgeColumnNames.size(); i++)
+		{
+			paramsToPrint << m_edgeColumnNames[i] << ", ";
+		}
+		paramsToPrint << " ### edgeTable ColIDs= ";
+		for(int i = 0; i < m_columnIDsInEdgeTable.size(); i++)
+		{
+			paramsToPrint << m_columnIDsInEdgeTable[i] << ", ";
+		}
 
-	paramsToPrint << " ##### vertexId= " << m_vertexIdColumnIndex << ", edgeId= " << m_edgeIdColumnIndex
-			<< "from = " << m_edgeFromColumnIndex << ", to = " << m_edgeToColumnIndex
-			<< "vPropColIndex = " << m_vPropColumnIndex << ", ePropColIndex = " << m_ePropColumnIndex;
+		paramsToPrint << " ##### vertexId= " << m_vertexIdColumnIndex << ", edgeId= " << m_edgeIdColumnIndex
+				<< "from = " << m_edgeFromColumnIndex << ", to = " << m_edgeToColumnIndex
+				<< "vPropColIndex = " << m_vPropColumnIndex << ", ePropColIndex = " << m_ePropColumnIndex;
 
-	LogManager::GLog("GraphView", "fill", 785, paramsToPrint.str());
+		LogManager::GLog("GraphView", "fill", 785, paramsToPrint.str());
+	}
 
 	assert(m_vertexIdColumnIndex >= 0 && m_edgeIdColumnIndex >= 0 && m_edgeFromColumnIndex >= 0 && m_edgeToColumnIndex >=0);
 
@@ -1030,65 +2193,633 @@ void GraphView::fillGraphFromRelationalTables()
 		{
 			if (tuple.isActive())
 			{
-				id = ValuePeeker::peekInteger(tuple.getNValue(m_vertexIdColumnIndex));
-				vertex = new Vertex();
-				vertex->setGraphView(this);
-				vertex->setId(id);
-				vertex->setTupleData(tuple.address());
-				if(vPropExists)
-				{
-					vertex->vProp = ValuePeeker::peekInteger(tuple.getNValue(m_vPropColumnIndex));
-				}
-				this->addVertex(id, vertex);
+				id = m_vertexKeys.acquire(tuple.getNValue(m_vertexIdColumnIndex));
+				this->attachVertex(id, tuple.address(),
+						vPropExists ? ValuePeeker::peekInteger(tuple.getNValue(m_vPropColumnIndex)) : 0);
 				//LogManager::GLog("GraphView", "fillGraphFromRelationalTables", 77, "vertex: " + vertex->toString());
 			}
 		}
 	}
-	//fill the edge collection
+	//fill the edge collection, linking the edges sorted by their start vertex so that
+	//the adjacency lists of each vertex are appended to one after the other
 	iter = this->m_edgeTable->iterator();
 	schema = this->m_edgeTable->schema();
 	TableTuple edgeTuple(schema);
-	Vertex* vFrom = NULL;
-	Vertex* vTo = NULL;
+	std::vector<ScannedEdge> scannedEdges;
+	scannedEdges.reserve(this->m_edgeTable->activeTupleCount());
 	if (this->m_edgeTable->activeTupleCount() != 0)
 	{
 		while (iter.next(edgeTuple))
 		{
 			if (edgeTuple.isActive())
 			{
-				id = ValuePeeker::peekInteger(edgeTuple.getNValue(m_edgeIdColumnIndex));
-				from = ValuePeeker::peekInteger(edgeTuple.getNValue(m_edgeFromColumnIndex));
-				to = ValuePeeker::peekInteger(edgeTuple.getNValue(m_edgeToColumnIndex));
-				edge = new Edge();
-				edge->setGraphView(this);
-				edge->setId(id);
-				edge->setTupleData(edgeTuple.address());
-				edge->setStartVertexId(from);
-				edge->setEndVertexId(to);
-				if(ePropExists)
-				{
-					edge->eProp = ValuePeeker::peekInteger(edgeTuple.getNValue(m_ePropColumnIndex));
-				}
-				//update the endpoint vertexes in and out lists
-				vFrom = edge->getStartVertex();
-				vTo = edge->getEndVertex();
-				vFrom->addOutEdge(edge);
-				vTo->addInEdge(edge);
-				if(!this->isDirected())
-				{
-					vTo->addOutEdge(edge);
-					vFrom->addInEdge(edge);
-				}
-				this->addEdge(id, edge);
+				ScannedEdge scanned;
+				scanned.id = m_edgeKeys.acquire(edgeTuple.getNValue(m_edgeIdColumnIndex));
+				scanned.from = m_vertexKeys.acquire(edgeTuple.getNValue(m_edgeFromColumnIndex));
+				scanned.to = m_vertexKeys.acquire(edgeTuple.getNValue(m_edgeToColumnIndex));
+				scanned.eProp = ePropExists ? ValuePeeker::peekInteger(edgeTuple.getNValue(m_ePropColumnIndex)) : 0;
+				scanned.tupleData = edgeTuple.address();
+				scannedEdges.push_back(scanned);
 			}
 		}
 	}
-	LogManager::GLog("GraphView", "fillGraphFromRelationalTables", 159, "graph: " + this->debug());
+	std::sort(scannedEdges.begin(), scannedEdges.end());
+	for (size_t i = 0; i < scannedEdges.size(); i++)
+	{
+		const ScannedEdge& scanned = scannedEdges[i];
+		this->linkEdge(scanned.id, scanned.tupleData, scanned.from, scanned.to, scanned.eProp);
+	}
+	gettimeofday(&buildEnd, NULL);
+	m_buildMicros = (buildEnd.tv_sec - buildStart.tv_sec) * 1000000L + (buildEnd.tv_usec - buildStart.tv_usec);
+	//debug() prints every vertex and edge, only build it when tracing
+	GLOG("GraphView", "fillGraphFromRelationalTables", 159, "graph: " << this->debug());
 	//LogManager::GLog("GraphView", "fillGraphFromRelationalTables", 73, "vTable: " + this->m_vertexTable->debug());
 	//LogManager::GLog("GraphView", "fillGraphFromRelationalTables", 73, "eTable: " + this->m_edgeTable->debug());
 
 }
 
+void GraphView::clearTopology()
+{
+	for (std::map<int, Edge*>::iterator it = this->m_edges.begin(); it != this->m_edges.end(); ++it)
+	{
+		delete it->second;
+	}
+	for (std::map<int, Vertex*>::iterator it = this->m_vertexes.begin(); it != this->m_vertexes.end(); ++it)
+	{
+		delete it->second;
+	}
+	for (std::map<int, Vertex*>::iterator it = this->m_detachedVertexes.begin(); it != this->m_detachedVertexes.end(); ++it)
+	{
+		delete it->second;
+	}
+	this->m_vertexes.clear();
+	this->m_detachedVertexes.clear();
+	this->m_edges.clear();
+	this->m_vertexKeys.clear();
+	this->m_edgeKeys.clear();
+	this->graphChanged();
+	m_csr.clear();
+	m_csrStale = true;
+}
+
+void GraphView::beginBulkLoad()
+{
+	if (m_bulkLoading)
+	{
+		return;
+	}
+	//the graph elements would point at tuples the load may move or delete,
+	//so they are released rather than left stale until the rebuild
+	this->clearTopology();
+	m_analytics.clear();
+	m_bulkLoading = true;
+	m_bulkLoadedTuples = 0;
+	GLOG("GraphView", "beginBulkLoad", 2560, "Bulk load of graph view " << m_name << " began");
+}
+
+bool GraphView::endBulkLoad()
+{
+	if (!m_bulkLoading)
+	{
+		std::string().swap(m_topologyImage);
+		return false;
+	}
+	m_bulkLoading = false;
+	//a restore stages the image of the topology saved with the snapshot, the tables it was
+	//saved from are rebuilt from scratch when the restored tables do not match it
+	bool loaded = false;
+	if (!m_topologyImage.empty())
+	{
+		ReferenceSerializeInputBE image(m_topologyImage.data(), m_topologyImage.size());
+		try
+		{
+			loaded = this->loadTopology(image);
+		}
+		catch (const SerializableEEException& e)
+		{
+			//an image the graph view cannot take back is as good as no image
+			GLOG("GraphView", "endBulkLoad", 2570, "Topology image of graph view " << m_name
+					<< " could not be loaded, building it from its tables: " << e.message());
+			this->clearTopology();
+			loaded = false;
+		}
+		std::string().swap(m_topologyImage);
+	}
+	if (!loaded)
+	{
+		this->fillGraphFromRelationalTables();
+	}
+	//build the CSR arrays now rather than in the first query after the load
+	if (m_isCSR)
+	{
+		this->getCSRAdjacency();
+	}
+	GLOG("GraphView", "endBulkLoad", 2575, "Bulk load of graph view " << m_name << " ended, "
+			<< m_bulkLoadedTuples << " tuples loaded, " << (loaded ? "loaded from its image" : "built")
+			<< " in " << m_buildMicros << " us");
+	return loaded;
+}
+
+int64_t GraphView::vertexTupleHash(TableTuple& tuple)
+{
+	std::size_t seed = 0;
+	tuple.getNValue(m_vertexIdColumnIndex).hashCombine(seed);
+	return (int64_t)seed;
+}
+
+int64_t GraphView::edgeTupleHash(TableTuple& tuple)
+{
+	std::size_t seed = 0;
+	tuple.getNValue(m_edgeIdColumnIndex).hashCombine(seed);
+	tuple.getNValue(m_edgeFromColumnIndex).hashCombine(seed);
+	tuple.getNValue(m_edgeToColumnIndex).hashCombine(seed);
+	return (int64_t)seed;
+}
+
+bool GraphView::saveTopology(SerializeOutput& out)
+{
+	if (m_bulkLoading)
+	{
+		return false;
+	}
+	//the checksums add the hashes up, so they do not depend on the order the restore inserts the tuples in
+	uint64_t vertexChecksum = 0, edgeChecksum = 0;
+	TableIterator iter = this->m_vertexTable->iterator();
+	TableTuple tuple(this->m_vertexTable->schema());
+	while (iter.next(tuple))
+	{
+		if (tuple.isActive())
+		{
+			vertexChecksum += this->vertexTupleHash(tuple);
+		}
+	}
+	iter = this->m_edgeTable->iterator();
+	TableTuple edgeTuple(this->m_edgeTable->schema());
+	while (iter.next(edgeTuple))
+	{
+		if (edgeTuple.isActive())
+		{
+			edgeChecksum += this->edgeTupleHash(edgeTuple);
+		}
+	}
+	out.writeInt(TOPOLOGY_IMAGE_VERSION);
+	out.writeLong(this->m_vertexTable->activeTupleCount());
+	out.writeLong(this->m_edgeTable->activeTupleCount());
+	out.writeLong((int64_t)vertexChecksum);
+	out.writeLong((int64_t)edgeChecksum);
+	m_vertexKeys.writeKeys(out);
+	m_edgeKeys.writeKeys(out);
+	//the edges in the order the build links them, the vertexes come back from the keys of their tuples
+	std::vector<ScannedEdge> edges;
+	edges.reserve(m_edges.size());
+	for (std::map<int, Edge*>::iterator it = m_edges.begin(); it != m_edges.end(); ++it)
+	{
+		ScannedEdge edge;
+		edge.id = it->first;
+		edge.from = it->second->getStartVertexId();
+		edge.to = it->second->getEndVertexId();
+		edges.push_back(edge);
+	}
+	std::sort(edges.begin(), edges.end());
+	out.writeInt((int32_t)edges.size());
+	for (size_t i = 0; i < edges.size(); i++)
+	{
+		out.writeInt(edges[i].id);
+		out.writeInt(edges[i].from);
+		out.writeInt(edges[i].to);
+	}
+	bool hasLabels = m_hasReachabilityIndex && m_reachabilityIndex.isBuiltFor(m_epoch);
+	out.writeBool(hasLabels);
+	if (hasLabels)
+	{
+		m_reachabilityIndex.writeLabels(out);
+	}
+	return true;
+}
+
+bool GraphView::loadTopology(SerializeInputBE& in)
+{
+	timeval buildStart, buildEnd;
+	gettimeofday(&buildStart, NULL);
+
+	this->clearTopology();
+	if (in.readInt() != TOPOLOGY_IMAGE_VERSION)
+	{
+		return false;
+	}
+	int64_t numOfVertexTuples = in.readLong();
+	int64_t numOfEdgeTuples = in.readLong();
+	uint64_t vertexChecksum = (uint64_t)in.readLong();
+	uint64_t edgeChecksum = (uint64_t)in.readLong();
+	if (numOfVertexTuples != this->m_vertexTable->activeTupleCount() ||
+			numOfEdgeTuples != this->m_edgeTable->activeTupleCount() ||
+			!m_vertexKeys.readKeys(in) || !m_edgeKeys.readKeys(in))
+	{
+		this->clearTopology();
+		return false;
+	}
+	this->collectWeightColumns();
+	bool vPropExists = (m_vPropColumnIndex >= 0);
+	bool ePropExists = (m_ePropColumnIndex >= 0);
+
+	//the vertexes take back the ids the image gave their keys
+	uint64_t checksum = 0;
+	TableIterator iter = this->m_vertexTable->iterator();
+	TableTuple tuple(this->m_vertexTable->schema());
+	while (iter.next(tuple))
+	{
+		if (!tuple.isActive())
+		{
+			continue;
+		}
+		int id = m_vertexKeys.find(tuple.getNValue(m_vertexIdColumnIndex));
+		if (id == GraphKeyMap::UNKNOWN_ID)
+		{
+			this->clearTopology();
+			return false;
+		}
+		checksum += this->vertexTupleHash(tuple);
+		this->attachVertex(id, tuple.address(),
+				vPropExists ? ValuePeeker::peekInteger(tuple.getNValue(m_vPropColumnIndex)) : 0);
+	}
+	if (checksum != vertexChecksum)
+	{
+		this->clearTopology();
+		return false;
+	}
+	//the edge tuples are looked up by id to link them in the order of the image
+	std::unordered_map<int, std::pair<char*, int> > edgeTuples;
+	edgeTuples.reserve(numOfEdgeTuples);
+	checksum = 0;
+	iter = this->m_edgeTable->iterator();
+	TableTuple edgeTuple(this->m_edgeTable->schema());
+	while (iter.next(edgeTuple))
+	{
+		if (!edgeTuple.isActive())
+		{
+			continue;
+		}
+		int id = m_edgeKeys.find(edgeTuple.getNValue(m_edgeIdColumnIndex));
+		if (id == GraphKeyMap::UNKNOWN_ID)
+		{
+			this->clearTopology();
+			return false;
+		}
+		checksum += this->edgeTupleHash(edgeTuple);
+		edgeTuples[id] = std::make_pair(edgeTuple.address(),
+				ePropExists ? ValuePeeker::peekInteger(edgeTuple.getNValue(m_ePropColumnIndex)) : 0);
+	}
+	int numOfEdges = in.readInt();
+	if (checksum != edgeChecksum || numOfEdges != (int)edgeTuples.size())
+	{
+		this->clearTopology();
+		return false;
+	}
+	for (int i = 0; i < numOfEdges; i++)
+	{
+		int id = in.readInt();
+		int from = in.readInt();
+		int to = in.readInt();
+		std::unordered_map<int, std::pair<char*, int> >::iterator it = edgeTuples.find(id);
+		if (it == edgeTuples.end())
+		{
+			this->clearTopology();
+			return false;
+		}
+		this->linkEdge(id, it->second.first, from, to, it->second.second);
+	}
+	//the labels are of the dense ids the CSR layout gives the same vertex ids again
+	if (in.readBool() && m_hasReachabilityIndex)
+	{
+		m_reachabilityIndex.readLabels(in, this->getCSRAdjacency(), m_epoch);
+	}
+	gettimeofday(&buildEnd, NULL);
+	m_buildMicros = (buildEnd.tv_sec - buildStart.tv_sec) * 1000000L + (buildEnd.tv_usec - buildStart.tv_usec);
+	GLOG("GraphView", "loadTopology", 2700, "Topology of graph view " << m_name << " loaded from its image, "
+			<< numOfEdges << " edges in " << m_buildMicros << " us");
+	return true;
+}
+
+Vertex* GraphView::getEndpointVertex(int id)
+{
+	std::map<int, Vertex*>::iterator it = this->m_vertexes.find(id);
+	if (it != this->m_vertexes.end())
+	{
+		return it->second;
+	}
+	it = this->m_detachedVertexes.find(id);
+	if (it != this->m_detachedVertexes.end())
+	{
+		return it->second;
+	}
+	//the edge references a vertex that is not (yet) in the vertexes table,
+	//keep its adjacency aside until the vertex tuple shows up
+	Vertex* vertex = new Vertex();
+	vertex->setGraphView(this);
+	vertex->setId(id);
+	this->m_detachedVertexes[id] = vertex;
+	return vertex;
+}
+
+void GraphView::releaseDetachedVertex(Vertex* vertex)
+{
+	if (vertex->fanOut() != 0 || vertex->fanIn() != 0)
+	{
+		return;
+	}
+	std::map<int, Vertex*>::iterator it = this->m_detachedVertexes.find(vertex->getId());
+	if (it != this->m_detachedVertexes.end() && it->second == vertex)
+	{
+		this->m_detachedVertexes.erase(it);
+		delete vertex;
+	}
+}
+
+void GraphView::attachVertex(int id, char* tupleData, int vProp)
+{
+	Vertex* vertex = this->getVertex(id);
+	if (vertex == NULL)
+	{
+		//reuse the adjacency collected by edges inserted before this vertex
+		std::map<int, Vertex*>::iterator it = this->m_detachedVertexes.find(id);
+		if (it != this->m_detachedVertexes.end())
+		{
+			vertex = it->second;
+			this->m_detachedVertexes.erase(it);
+		}
+		else
+		{
+			vertex = new Vertex();
+			vertex->setGraphView(this);
+			vertex->setId(id);
+		}
+		vertex->setTupleData(tupleData);
+		vertex->vProp = vProp;
+		this->addVertex(id, vertex);
+		graphChanged();
+		if (!m_csrStale)
+		{
+			m_csr.addVertex(vertex);
+			this->csrPatched();
+		}
+		return;
+	}
+	vertex->setTupleData(tupleData);
+	graphChanged();
+	vertex->vProp = vProp;
+	if (!m_csrStale)
+	{
+		m_csr.updateVertex(id, tupleData, vProp);
+	}
+}
+
+void GraphView::detachVertex(int id, char* tupleData)
+{
+	std::map<int, Vertex*>::iterator it = this->m_vertexes.find(id);
+	if (it == this->m_vertexes.end() || it->second->getTupleData() != tupleData)
+	{
+		return;
+	}
+	Vertex* vertex = it->second;
+	this->m_vertexes.erase(it);
+	graphChanged();
+	if (!m_csrStale)
+	{
+		m_csr.removeVertex(id);
+		this->csrPatched();
+	}
+	//the edges of the deleted vertex remain in the edges table,
+	//hence, its adjacency is kept until they are deleted as well
+	vertex->setTupleData(NULL);
+	this->m_detachedVertexes[id] = vertex;
+	this->releaseDetachedVertex(vertex);
+}
+
+void GraphView::linkEdge(int id, char* tupleData, int from, int to, int eProp)
+{
+	Edge* edge = this->getEdge(id);
+	if (edge != NULL)
+	{
+		this->unlinkEdge(id, edge->getTupleData());
+	}
+	edge = new Edge();
+	edge->setGraphView(this);
+	edge->setId(id);
+	edge->setTupleData(tupleData);
+	edge->setStartVertexId(from);
+	edge->setEndVertexId(to);
+	edge->eProp = eProp;
+	this->extractEdgeWeights(edge);
+	this->addEdge(id, edge);
+	graphChanged();
+	//update the endpoint vertexes in and out lists
+	Vertex* vFrom = this->getEndpointVertex(from);
+	Vertex* vTo = this->getEndpointVertex(to);
+	vFrom->addOutEdge(edge);
+	vTo->addInEdge(edge);
+	if(!this->isDirected())
+	{
+		vTo->addOutEdge(edge);
+		vFrom->addInEdge(edge);
+	}
+	if (!m_csrStale)
+	{
+		m_csr.addEdge(edge);
+		this->csrPatched();
+	}
+}
+
+void GraphView::unlinkEdge(int id, char* tupleData)
+{
+	std::map<int, Edge*>::iterator it = this->m_edges.find(id);
+	if (it == this->m_edges.end() || it->second->getTupleData() != tupleData)
+	{
+		return;
+	}
+	Edge* edge = it->second;
+	this->m_edges.erase(it);
+	graphChanged();
+	if (!m_csrStale)
+	{
+		m_csr.removeEdge(id, edge->getStartVertexId(), edge->getEndVertexId());
+		this->csrPatched();
+	}
+	Vertex* vFrom = this->getEndpointVertex(edge->getStartVertexId());
+	Vertex* vTo = this->getEndpointVertex(edge->getEndVertexId());
+	vFrom->removeOutEdge(id);
+	vTo->removeInEdge(id);
+	if(!this->isDirected())
+	{
+		vTo->removeOutEdge(id);
+		vFrom->removeInEdge(id);
+	}
+	this->releaseDetachedVertex(vFrom);
+	if (vTo != vFrom)
+	{
+		this->releaseDetachedVertex(vTo);
+	}
+	delete edge;
+}
+
+void GraphView::releaseVertexKey(int id)
+{
+	if (this->m_vertexes.find(id) == this->m_vertexes.end() &&
+			this->m_detachedVertexes.find(id) == this->m_detachedVertexes.end())
+	{
+		m_vertexKeys.release(id);
+	}
+}
+
+void GraphView::releaseEdgeKey(int id)
+{
+	if (this->m_edges.find(id) == this->m_edges.end())
+	{
+		m_edgeKeys.release(id);
+	}
+}
+
+void GraphView::handleTupleInsert(Table* table, TableTuple& tuple, bool fallible)
+{
+	if (m_bulkLoading)
+	{
+		m_bulkLoadedTuples++;
+		return;
+	}
+	UndoQuantum* uq = fallible ? ExecutorContext::currentUndoQuantum() : NULL;
+	if (table == this->m_vertexTable)
+	{
+		bool added = false;
+		int id = m_vertexKeys.acquire(tuple.getNValue(m_vertexIdColumnIndex), &added);
+		int vProp = (m_vPropColumnIndex >= 0) ? ValuePeeker::peekInteger(tuple.getNValue(m_vPropColumnIndex)) : 0;
+		//a tuple repeating the id of a vertex replaces it, the undo of the insert
+		//(registered after, hence undone first) is followed by re-attaching it
+		Vertex* replaced = this->getVertex(id);
+		if (uq && replaced != NULL)
+		{
+			uq->registerUndoAction(new (*uq) GraphViewUndoAction(this, GraphViewUndoAction::VERTEX_DELETE,
+					id, replaced->getTupleData(), -1, -1, replaced->vProp));
+		}
+		this->attachVertex(id, tuple.address(), vProp);
+		if (uq)
+		{
+			//the undo of the insert releases the key it mapped to a new id
+			uq->registerUndoAction(new (*uq) GraphViewUndoAction(this, GraphViewUndoAction::VERTEX_INSERT,
+					id, tuple.address(), -1, -1, vProp, added ? GraphViewUndoAction::ID_KEY : 0));
+		}
+	}
+	if (table == this->m_edgeTable)
+	{
+		bool addedId = false, addedFrom = false, addedTo = false;
+		int id = m_edgeKeys.acquire(tuple.getNValue(m_edgeIdColumnIndex), &addedId);
+		int from = m_vertexKeys.acquire(tuple.getNValue(m_edgeFromColumnIndex), &addedFrom);
+		int to = m_vertexKeys.acquire(tuple.getNValue(m_edgeToColumnIndex), &addedTo);
+		int eProp = (m_ePropColumnIndex >= 0) ? ValuePeeker::peekInteger(tuple.getNValue(m_ePropColumnIndex)) : 0;
+		//likewise, linkEdge unlinks the edge having the same id, which is linked back after the undo of the insert
+		Edge* replaced = this->getEdge(id);
+		if (uq && replaced != NULL)
+		{
+			uq->registerUndoAction(new (*uq) GraphViewUndoAction(this, GraphViewUndoAction::EDGE_DELETE,
+					id, replaced->getTupleData(), replaced->getStartVertexId(), replaced->getEndVertexId(), replaced->eProp));
+		}
+		this->linkEdge(id, tuple.address(), from, to, eProp);
+		if (uq)
+		{
+			//the undo of the insert releases the keys it mapped to new ids
+			int addedKeys = (addedId ? GraphViewUndoAction::ID_KEY : 0) |
+					(addedFrom ? GraphViewUndoAction::FROM_KEY : 0) | (addedTo ? GraphViewUndoAction::TO_KEY : 0);
+			uq->registerUndoAction(new (*uq) GraphViewUndoAction(this, GraphViewUndoAction::EDGE_INSERT,
+					id, tuple.address(), from, to, eProp, addedKeys));
+		}
+	}
+}
+
+void GraphView::handleTupleDelete(Table* table, TableTuple& tuple, bool fallible)
+{
+	if (m_bulkLoading)
+	{
+		return;
+	}
+	UndoQuantum* uq = fallible ? ExecutorContext::currentUndoQuantum() : NULL;
+	if (table == this->m_vertexTable)
+	{
+		int id = m_vertexKeys.find(tuple.getNValue(m_vertexIdColumnIndex));
+		Vertex* vertex = this->getVertex(id);
+		if (vertex != NULL && vertex->getTupleData() == tuple.address())
+		{
+			int vProp = vertex->vProp;
+			this->detachVertex(id, tuple.address());
+			if (uq)
+			{
+				uq->registerUndoAction(new (*uq) GraphViewUndoAction(this, GraphViewUndoAction::VERTEX_DELETE,
+						id, tuple.address(), -1, -1, vProp));
+			}
+			else
+			{
+				this->releaseVertexKey(id);
+			}
+		}
+	}
+	if (table == this->m_edgeTable)
+	{
+		int id = m_edgeKeys.find(tuple.getNValue(m_edgeIdColumnIndex));
+		Edge* edge = this->getEdge(id);
+		if (edge != NULL && edge->getTupleData() == tuple.address())
+		{
+			int from = edge->getStartVertexId();
+			int to = edge->getEndVertexId();
+			int eProp = edge->eProp;
+			this->unlinkEdge(id, tuple.address());
+			if (uq)
+			{
+				uq->registerUndoAction(new (*uq) GraphViewUndoAction(this, GraphViewUndoAction::EDGE_DELETE,
+						id, tuple.address(), from, to, eProp));
+			}
+			else
+			{
+				this->releaseEdgeKey(id);
+				this->releaseVertexKey(from);
+				this->releaseVertexKey(to);
+			}
+		}
+	}
+}
+
+void GraphView::handleTupleMove(Table* table, TableTuple& originalTuple, TableTuple& destinationTuple)
+{
+	if (m_bulkLoading)
+	{
+		return;
+	}
+	//compaction relocates the tuple storage without changing its values,
+	//so only the tuple data pointer of the graph element needs to follow it
+	if (table == this->m_vertexTable)
+	{
+		Vertex* vertex = this->getVertex(m_vertexKeys.find(destinationTuple.getNValue(m_vertexIdColumnIndex)));
+		if (vertex != NULL && vertex->getTupleData() == originalTuple.address())
+		{
+			vertex->setTupleData(destinationTuple.address());
+			//the CSR arrays keep a copy of the vertex tuple pointers
+			if (!m_csrStale)
+			{
+				m_csr.updateVertex(vertex->getId(), vertex->getTupleData(), vertex->vProp);
+			}
+		}
+	}
+	if (table == this->m_edgeTable)
+	{
+		Edge* edge = this->getEdge(m_edgeKeys.find(destinationTuple.getNValue(m_edgeIdColumnIndex)));
+		if (edge != NULL && edge->getTupleData() == originalTuple.address())
+		{
+			edge->setTupleData(destinationTuple.address());
+			//the CSR arrays keep a copy of the edge tuple pointers
+			if (!m_csrStale)
+			{
+				m_csr.moveEdgeTuple(edge->getId(), edge->getStartVertexId(), edge->getEndVertexId(), edge->getTupleData());
+			}
+		}
+	}
+}
+
 string GraphView::debug()
 {
 	std::stringstream output;
@@ -1121,6 +2852,10 @@ string GraphView::debug()
 
 GraphView::~GraphView(void)
 {
+	for (int i = 0; i < m_traversalStats.size(); i++)
+	{
+		delete m_traversalStats[i];
+	}
 }
 
 }
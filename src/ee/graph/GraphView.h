@@ -9,6 +9,15 @@
 #include "storage/table.h"
 #include "storage/temptable.h"
 #include "graph/GraphTypes.h"
+#include "graph/CSRAdjacency.h"
+#include "graph/GraphAnalytics.h"
+#include "graph/GraphKeyMap.h"
+#include "graph/LandmarkIndex.h"
+#include "graph/PathTraversalContext.h"
+#include "graph/ReachabilityIndex.h"
+#include "graph/TraversalCache.h"
+#include "graph/GraphViewStats.h"
+#include "graph/GraphTraversalStats.h"
 
 #include "common/NValue.hpp"
 #include "common/ValuePeeker.hpp"
@@ -22,6 +31,7 @@ namespace voltdb {
 class Vertex;
 class Edge;
 class PathIterator;
+class ReferenceSerializeOutput;
 
 class GraphView
 {
@@ -30,11 +40,14 @@ class GraphView
 	friend class GraphViewFactory;
 	friend class Vertex;
 	friend class Edge;
+	friend class CSRAdjacency;
 
 public:
 	//PQEntryWithLength.first is the cost, PQEntryWithLength.second.first is the vertexId, PQEntryWithLength.second.second is the path length
 	typedef pair<double, pair<int, int> > PQEntryWithLength;
 	typedef pair<int, int > PQEntry;
+	//megabytes of paths the traversal cache holds unless the graph view sets its CACHE option
+	static const int DEFAULT_TRAVERSAL_CACHE_MB = 64;
 	~GraphView(void);
 
 	/*
@@ -82,6 +95,31 @@ public:
 	void setEdgeSchema(TupleSchema* s);
 	void setPathSchema(TupleSchema* s);
 
+	bool isCSR() { return m_isCSR; }
+	//the point to point shortest path queries run A* guided by the
+	//landmark distances when the graph view declares landmarks
+	bool hasLandmarks() { return m_numOfLandmarks > 0; }
+	//the landmark distances, NULL while the index is stale and not yet worth rebuilding
+	const LandmarkDistances* getLandmarkDistances(int weightIndex);
+	//the start/end reachability queries projecting only the endpoints are answered
+	//by the reachability index when the graph view declares it
+	bool hasReachabilityIndex() { return m_hasReachabilityIndex; }
+	//the CSR adjacency, patched by the maintenance once it is built, see CSRAdjacency.h
+	CSRAdjacency& getCSRAdjacency();
+	//the CSR adjacency numbering the vertexes as a build does, rebuilt if it was patched,
+	//for the indexes and the analytics iterating over the dense ids
+	CSRAdjacency& getCompactCSRAdjacency();
+
+	//the vertexes (edges) are keyed by their ID column, BIGINT and VARCHAR keys are mapped
+	//to dense int ids the traversals work with, and the paths translate them back
+	//the id of the vertex keyed by key, -1 (no vertex given) for a null key
+	int vertexIdOf(const NValue& key);
+	//the key of the vertex, a VARCHAR key is copied into pool
+	NValue vertexKeyOf(int id, Pool* pool) { return m_vertexKeys.keyOf(id, pool); }
+	//the BIGINT and VARCHAR keys mapped, 0 for the keys that are their own ids
+	int numOfVertexKeys() { return m_vertexKeys.numOfKeys(); }
+	int numOfEdgeKeys() { return m_edgeKeys.numOfKeys(); }
+
 	int getVertexIdColumnIndex();
 	int getEdgeIdColumnIndex();
 	int getEdgeFromColumnIndex();
@@ -90,43 +128,192 @@ public:
 	int getColumnIdInEdgeTable(int edgeAttributeId);
 	string getVertexAttributeName(int vertexAttributeId);
 	string getEdgeAttributeName(int edgeAttributeId);
+	//the numeric (integer, float or decimal) edge attributes are the edge weights,
+	//their values are copied into the edges when they are linked, so the shortest path
+	//traversals read the costs from the graph rather than from the edge tuples
+	//returns the index of the weight stored in the edgeTableColumnIndex column, -1 if there is none
+	int getWeightIndex(int edgeTableColumnIndex);
 
 	//path related members
-	//Notice that VoltDB allows one operation or query / one thread per time
-	//Hence, we assume that a single path traversal query is active at any point in time
-	PathIterator& iteratorDeletingAsWeGo(GraphOperationType opType);
-	PathIterator& iteratorDeletingAsWeGo();
+	//each traversal runs in the PathTraversalContext of the executor reading the paths,
+	//so several traversals of the same graph view can be active at the same time
+	PathIterator iteratorDeletingAsWeGo(PathTraversalContext& ctx);
+
+	void expandCurrentPathOperation(PathTraversalContext& ctx);
 
-	void expandCurrentPathOperation();
+	//work of the traversals run over this graph view per query type, added by each context when its traversal ends
+	const TraversalCounters& getTraversalCounters(int queryType);
+	void addTraversalCounters(int queryType, const TraversalCounters& counters) { m_traversalCounters[queryType].add(counters); }
+
+	//statistics sources, registered by the engine for @Statistics GRAPHVIEW and GRAPHTRAVERSAL
+	void configureStats();
+	GraphViewStats* getGraphViewStats() { return &m_stats; }
+	const std::vector<GraphTraversalStats*>& getGraphTraversalStats() { return m_traversalStats; }
+	//estimated bytes held by the vertex and edge objects, their adjacency lists and the CSR arrays
+	int64_t vertexMemory();
+	int64_t edgeMemory();
+	int64_t adjacencyMemory();
+	int64_t csrMemory();
+	int64_t landmarkMemory() { return m_landmarkIndex.memoryUsage(); }
+	int64_t reachabilityMemory() { return m_reachabilityIndex.memoryUsage(); }
+	//duration of the last build from the vertexes and edges tables
+	int64_t getBuildMicros() { return m_buildMicros; }
+
+	//bumped whenever a vertex or an edge is added or removed, dating the traversal cache entries
+	int64_t getEpoch() { return m_epoch; }
+	TraversalCache& getTraversalCache() { return m_traversalCache; }
 
 	//Queries
-	void BFS_Reachability_ByDepth(int startVertexId, int depth);
-	void BFS_Reachability_ByDestination(int startVertexId, int endVertex);
-	void BFS_Reachability_ByDepth_eSelectivity(int startVertexId, int depth, int eSelectivity);
-	void SP_TopK(int src, int dest, int k);
-	void SP_EdgeSelectivity(int src, int dest, int edgeSelectivity);
-	void SP_ToAllVertexes_EdgeSelectivity(int src, int edgeSelectivity);
-	int fromVertexId, toVertexId, queryType, pathLength, topK, vSelectivity, eSelectivity, spColumnIndexInEdgesTable;
+	//the streaming queries (returning bool) stage at most PATH_BATCH_SIZE paths per call,
+	//and return true while the traversal has more paths to produce
+	//the vertexes at exactly depth hops from the start vertex, each once, with a length and a cost of depth,
+	//crossing the edges of eSelectivity or less, INT_MAX for all of them
+	bool BFS_Reachability_ByDepth(PathTraversalContext& ctx, int startVertexId, int depth, int eSelectivity);
+	void BFS_Reachability_ByDestination(PathTraversalContext& ctx, int startVertexId, int endVertex);
+	//top k loopless shortest paths (Yen, spurring only past the deviation of each path),
+	//over the CSR adjacency of any graph view
+	bool SP_TopK(PathTraversalContext& ctx, int src, int dest, int k);
+	//the vertexes reachable from src, in the order of their shortest path costs, each with its cost and length
+	bool SP_ToAllVertexes_EdgeSelectivity(PathTraversalContext& ctx, int src, int edgeSelectivity);
+	//same queries walking the CSR adjacency arrays
+	bool BFS_Reachability_ByDepth_CSR(PathTraversalContext& ctx, int startVertexId, int depth, int eSelectivity);
+	void BFS_Reachability_ByDestination_CSR(PathTraversalContext& ctx, int startVertexId, int endVertex);
+	//point to point queries searching forward from the start and backward from the end vertex
+	void BFS_Reachability_Bidirectional(PathTraversalContext& ctx, int startVertexId, int endVertex);
+	void BFS_Reachability_Bidirectional_CSR(PathTraversalContext& ctx, int startVertexId, int endVertex);
+	void SP_EdgeSelectivity_Bidirectional(PathTraversalContext& ctx, int src, int dest, int edgeSelectivity);
+	void SP_EdgeSelectivity_Bidirectional_CSR(PathTraversalContext& ctx, int src, int dest, int edgeSelectivity);
+	//shortest path queries as A* searches over the CSR adjacency, guided by the landmark distances
+	void SP_EdgeSelectivity_ALT(PathTraversalContext& ctx, int src, int dest, int edgeSelectivity);
+	//answers a start/end reachability query from the reachability index,
+	//returns false if the index cannot answer it and the query has to traverse the graph
+	bool Reachability_ByIndex(PathTraversalContext& ctx, int startVertexId, int endVertex);
+	//whether the traversals of a nested loop path join can run as multi-source BFS batches, which
+	//stage the paths of the by depth and reachability traversals of every layout, without the PATH
+	bool canBatchTraversals(PathTraversalContext& ctx);
+
+	//Analytics, run by the @GraphAnalyticsRound and @GraphAnalytics system procedures
+	//runs at most maxIterations more iterations of the algorithm over the CSR adjacency, starting it over
+	//when another algorithm ran last or the graph changed since it started, and writes to out whether it
+	//is done and the iterations run so far. finish runs the iterations left instead, and then writes the
+	//key and the result of each vertex, which only depend on the tables: the algorithm runs over a built
+	//layout, in the same order whether the rounds before ran some of its iterations or not
+	void runAnalytics(GraphAnalytics::Algorithm algorithm, int maxIterations, bool finish, ReferenceSerializeOutput& out);
+
+	//Bulk loading, requested through @GraphBulkLoad for the graph views of the table being loaded
+	//beginBulkLoad suspends the maintenance and releases the topology, the traversals are refused until
+	//endBulkLoad rebuilds the topology from the vertexes and edges tables in one pass, or loads the
+	//topology image staged by a restore, returning true when the image matched the tables
+	void beginBulkLoad();
+	bool endBulkLoad();
+	bool isBulkLoading() { return m_bulkLoading; }
+	//tuples inserted into the vertexes and edges tables since the bulk load began
+	int64_t getBulkLoadedTuples() { return m_bulkLoadedTuples; }
+
+	//Topology images, written by the native snapshots taken with the graph topology, and loaded back
+	//by endBulkLoad when the snapshot is restored instead of building the topology from scratch
+	//writes the keys of the vertexes and the edges in id order, the edges sorted by their start vertex
+	//and the reachability labels when they are current, behind the tuple counts and the checksums of
+	//the vertexes and edges tables, returns false while a bulk load leaves no topology to write
+	bool saveTopology(SerializeOutput& out);
+	//links the tuples of the vertexes and edges tables as the image describes them, returns false,
+	//leaving the topology empty, when the tables do not match the counts and checksums of the image
+	bool loadTopology(SerializeInputBE& in);
+	//the image being handed over to or from the snapshot files by chunks
+	std::string& getTopologyImage() { return m_topologyImage; }
+	//traverses the start vertexes of the batch of ctx at once over the CSR adjacency (MS-BFS), finding
+	//the vertexes at the path length of each one, or the lengths to the end vertexes they look up
+	void MultiSourceBFS(PathTraversalContext& ctx);
 
 	//Topology query, i.e., connected sub-graph of
 
 	//to select all vertexes, set vSelectivty to 100, same for the edges
-	void SubGraphLoop(int length, int vSelectivity, int eSelectivity);
-	void SubGraphLoopFromStartVertex(int startVertexId, int length, int vSelectivity, int eSelectivity); //14
-	void SubGraphLoop(int startVertexId, int length); //startVertexId of -1 means to try all the vertexes as the start of the loop
+	//the loop queries stream their paths like the streaming queries above
+	bool SubGraphLoop(PathTraversalContext& ctx, int length, int vSelectivity, int eSelectivity);
+	bool SubGraphLoopFromStartVertex(PathTraversalContext& ctx, int startVertexId, int length, int vSelectivity, int eSelectivity); //14
+	bool SubGraphLoop(PathTraversalContext& ctx, int startVertexId, int length); //startVertexId of -1 means to try all the vertexes as the start of the loop
+	//stages a path from the start vertex back to itself for every walk of length edges closing a loop, from the
+	//vertex startVertexId, or from every vertex when allStarts is set, crossing the vertexes of vSelectivity or
+	//less and the edges of eSelectivity or less, the walks are kept in the context rather than in the vertexes,
+	//where a traversal staging PATH_BATCH_SIZE paths resumes them on its next call
+	bool Loops(PathTraversalContext& ctx, bool allStarts, int startVertexId, int length,
+			int vSelectivity, int eSelectivity);
+
+	//Incremental maintenance, invoked by the vertexes / edges PersistentTable
+	//after a tuple is inserted, before it is deleted, and when compaction moves it
+	void handleTupleInsert(Table* table, TableTuple& tuple, bool fallible);
+	void handleTupleDelete(Table* table, TableTuple& tuple, bool fallible);
+	void handleTupleMove(Table* table, TableTuple& originalTuple, TableTuple& destinationTuple);
+
+	//Topology mutators used by the maintenance and to apply the undo actions
+	//detachVertex and unlinkEdge only affect the element backed by tupleData
+	void attachVertex(int id, char* tupleData, int vProp);
+	void detachVertex(int id, char* tupleData);
+	void linkEdge(int id, char* tupleData, int from, int to, int eProp);
+	void unlinkEdge(int id, char* tupleData);
+	//release the key of a deleted vertex (edge), once the deletion is committed, unless a vertex,
+	//an adjacency or an edge refers to its id again, so the next new key is handed out the id
+	void releaseVertexKey(int id);
+	void releaseEdgeKey(int id);
 
 
 protected:
 	void fillGraphFromRelationalTables();
+	//deletes the vertexes and the edges, and forgets their keys
+	void clearTopology();
 	void constructPathSchema(); //constucts m_pathColumnNames and m_pathSchema
 	void constructPathTempTable();
+	//stages a path, only setting the columns the plan reads, the PATH is the one traced in ctx.pathVertexes, if any
+	void insertPathTuple(PathTraversalContext& ctx, int startVertexId, int endVertexId, int length, double cost);
+	//traces into ctx.pathVertexes the path through the dense vertex meetDense, following the predecessors
+	//back to the start vertex, and the successors (when the backward search recorded them) on to the end vertex
+	void tracePath(PathTraversalContext& ctx, int meetDense);
+	//the PATH column of the traced path: the keys of its vertexes, serialized one after the other,
+	//in the pool of the staged paths
+	NValue encodePath(PathTraversalContext& ctx);
+	//invalidates the indexes and purges the traversal cache after a change of the graph,
+	//the CSR layout is patched by the caller
+	void graphChanged() { m_epoch++; m_traversalCache.clear(); }
+	//marks the CSR layout for a rebuild once its patches left enough room unused
+	void csrPatched();
+	//traversal cache: stages the next batch of cached paths, or records the batch just staged
+	void replayCachedPaths(PathTraversalContext& ctx);
+	void recordStagedPaths(PathTraversalContext& ctx);
+	//stages the paths the multi-source BFS of the batch found from the start vertex of the traversal
+	void stageBatchedPaths(PathTraversalContext& ctx);
+	Vertex* getEndpointVertex(int id); //finds or creates the (possibly detached) vertex holding the adjacency of id
+	void releaseDetachedVertex(Vertex* vertex);
+	void collectWeightColumns();
+	void extractEdgeWeights(Edge* edge);
+	//cost of crossing an edge, one per hop when the traversal has no weight
+	double edgeCost(Edge* edge, int weightIndex);
+	//the vertex and edge predicates pushed into the traversal: a path may only
+	//start at a qualifying vertex and cross a qualifying edge to a qualifying vertex
+	bool vertexQualifies(PathTraversalContext& ctx, Vertex* vertex);
+	bool vertexQualifies(PathTraversalContext& ctx, CSRAdjacency& csr, int denseId);
+	bool canCross(PathTraversalContext& ctx, Edge* edge, int toVertexId);
+	bool canCross(PathTraversalContext& ctx, CSRAdjacency& csr, int edgeSlot, int toDenseId);
+	//top k loopless shortest paths: the shortest path tree of the qualifying edges to the end vertex,
+	//the slot of the tree edge leaving a dense vertex, and the spur paths deviating from a found path
+	void buildReverseTree(PathTraversalContext& ctx, CSRAdjacency& csr, const double* costs, int destDense);
+	int treeSlot(PathTraversalContext& ctx, CSRAdjacency& csr, const double* costs, int denseId);
+	bool findSpurPath(PathTraversalContext& ctx, CSRAdjacency& csr, const double* costs, int spur, int destDense,
+			const std::vector<int>& blockedSlots, std::vector<int>& spurSlots);
+	void addSpurCandidates(PathTraversalContext& ctx, CSRAdjacency& csr, const double* costs, int srcDense, int destDense,
+			const KPathCandidate& path, int k);
+	//maps the ID columns of the vertexes and edges tables, the path columns take the vertex key type
+	void configureKeys();
+	//hash of the columns the topology is built from, the checksums of the tables sum them over the tuples
+	int64_t vertexTupleHash(TableTuple& tuple);
+	int64_t edgeTupleHash(TableTuple& tuple);
 	std::map<int, Vertex* > m_vertexes;
+	//vertexes referenced by edges but having no tuple in the vertexes table
+	std::map<int, Vertex* > m_detachedVertexes;
 	std::map<int, Edge* > m_edges;
 	Table* m_vertexTable;
 	Table* m_edgeTable;
+	//template of the paths temp tables, the traversals stage their paths in the table of their context
 	TempTable* m_pathTable;
-	TableIterator* m_pathTableIterator;
-	PathIterator* m_pathIterator;
 	TupleSchema* m_vertexSchema; //will contain fanIn and fanOut as additional attributes
 	TupleSchema* m_edgeSchema; //will contain startVertexId and endVertexId as additional attributes
 	TupleSchema* m_pathSchema; //will contain startVertexId, endVertexId, and cost for now
@@ -141,12 +328,21 @@ protected:
 	int m_edgeFromColumnIndex;
 	int m_edgeToColumnIndex;
 	int m_vPropColumnIndex, m_ePropColumnIndex;
+	GraphKeyMap m_vertexKeys;
+	GraphKeyMap m_edgeKeys;
+	//edges table columns of the edge weights, in weight index order
+	std::vector<int> m_weightColumns;
 	string m_pathTableName = "PATHS_TEMP_TABLE";
 	GraphOperationType currentPathOperationType;
 	//TODO: this should be removed
 	int dummyPathExapansionState = 0;
 	//bool traverseBFS = false;
-	bool executeTraversal = false;
+	//number of paths a streaming traversal stages before yielding to the path iterator
+	static const int PATH_BATCH_SIZE = 64;
+	//largest PATH value, the largest VARBINARY VoltDB stores
+	static const int MAX_PATH_BYTES = 1048576;
+	//bound of the traversal cache of each graph view in entries, the bytes of paths are set by the CACHE option
+	static const int TRAVERSAL_CACHE_ENTRIES = 1024;
 	// identity information
 	CatalogId m_databaseId;
 	std::string m_name;
@@ -173,6 +369,32 @@ protected:
 
 	bool m_isDirected;
 
+	//compressed sparse row adjacency, used by the traversals when m_isCSR is set
+	bool m_isCSR;
+	bool m_csrStale;
+	CSRAdjacency m_csr;
+	//landmark distances, built for an epoch and rebuilt lazily when stale
+	int m_numOfLandmarks;
+	LandmarkIndex m_landmarkIndex;
+	//reachability labels, built for an epoch and rebuilt lazily when stale
+	bool m_hasReachabilityIndex;
+	ReachabilityIndex m_reachabilityIndex;
+	//state of the analytics algorithm in progress, kept between the rounds of @GraphAnalyticsRound
+	GraphAnalytics m_analytics;
+	//set while a bulk load suspends the maintenance
+	bool m_bulkLoading;
+	int64_t m_bulkLoadedTuples;
+	std::string m_topologyImage;
+	//version of the topology images, the images of other versions are not loaded
+	static const int TOPOLOGY_IMAGE_VERSION = 1;
+
+	std::map<int, TraversalCounters> m_traversalCounters;
+	GraphViewStats m_stats;
+	std::vector<GraphTraversalStats*> m_traversalStats;
+	int64_t m_buildMicros;
+	int64_t m_epoch;
+	TraversalCache m_traversalCache;
+
 	GraphView(void);
 
 private:
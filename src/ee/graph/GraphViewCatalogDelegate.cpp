@@ -17,6 +17,7 @@
 #include "sha1/sha1.h"
 #include "logging/LogManager.h"
 #include "common/TupleSchemaBuilder.h"
+#include "storage/persistenttable.h"
 
 #include "catalog/table.h"
 #include "catalog/column.h"
@@ -38,6 +39,17 @@ GraphViewCatalogDelegate::~GraphViewCatalogDelegate()
 {
 	if (m_graphView)
 	{
+		//stop feeding the graph view from its vertexes and edges tables
+		PersistentTable* vTable = dynamic_cast<PersistentTable*>(m_graphView->getVertexTable());
+		if (vTable)
+		{
+			vTable->dropGraphView(m_graphView);
+		}
+		PersistentTable* eTable = dynamic_cast<PersistentTable*>(m_graphView->getEdgeTable());
+		if (eTable && eTable != vTable)
+		{
+			eTable->dropGraphView(m_graphView);
+		}
 		m_graphView->decrementRefcount();
 	}
 }
@@ -65,6 +77,18 @@ void GraphViewCatalogDelegate::init(catalog::Database const &catalogDatabase,
 	}
 	*/
 	m_graphView->incrementRefcount();
+
+	//keep the graph topology up to date with the DML on the vertexes and edges tables
+	PersistentTable* persistentVTable = dynamic_cast<PersistentTable*>(vTable);
+	if (persistentVTable)
+	{
+		persistentVTable->addGraphView(m_graphView);
+	}
+	PersistentTable* persistentETable = dynamic_cast<PersistentTable*>(eTable);
+	if (persistentETable && persistentETable != persistentVTable)
+	{
+		persistentETable->addGraphView(m_graphView);
+	}
 }
 
 GraphView *GraphViewCatalogDelegate::constructGraphViewFromCatalog(catalog::Database const &catalogDatabase,
@@ -159,7 +183,15 @@ GraphView *GraphViewCatalogDelegate::constructGraphViewFromCatalog(catalog::Data
 
 	GraphView *graphView = GraphViewFactory::createGraphView(catalogGraphView.name(), catalogGraphView.isDirected(),
 			vTable, eTable, pTable, vSchema, eSchema, columnNamesVertex, columnNamesEdge, columnIdsInVertexTable,
-			columnIdsInEdgeTable, databaseId, m_signatureHash);
+			columnIdsInEdgeTable, databaseId, m_signatureHash,
+			catalogGraphView.vertexidcolumn() ? catalogGraphView.vertexidcolumn()->index() : -1,
+			catalogGraphView.edgeidcolumn() ? catalogGraphView.edgeidcolumn()->index() : -1,
+			catalogGraphView.edgefromcolumn() ? catalogGraphView.edgefromcolumn()->index() : -1,
+			catalogGraphView.edgetocolumn() ? catalogGraphView.edgetocolumn()->index() : -1,
+			catalogGraphView.isCSR(),
+			catalogGraphView.landmarks(),
+			catalogGraphView.hasReachabilityIndex(),
+			catalogGraphView.traversalCacheMB());
 
 	return graphView;
 }
@@ -13,6 +13,7 @@ GraphView* GraphViewFactory::createGraphView(string graphViewName, bool isDirect
 	GraphView* vw = new GraphView();
 	vw->m_name = graphViewName;
 	vw->m_isDirected = isDirected;
+	vw->configureStats();
 	//vw->constructPathSchema();
 	return vw;
 }
@@ -21,17 +22,21 @@ GraphView* GraphViewFactory::createGraphView(const std::string &graphViewName, c
 		   Table* vTable, Table* eTable, Table* pTable, TupleSchema* vSchema, TupleSchema* eSchema,
 		   vector<std::string> vertexColumnNames, vector<std::string> edgeColumnNames,
 		   vector<int> columnIdsInVertexTable, vector<int> columnIdsInEdgeTable,
-           voltdb::CatalogId databaseId, char *signature)
+           voltdb::CatalogId databaseId, char *signature,
+           int vertexIdColumnIndex, int edgeIdColumnIndex,
+           int edgeFromColumnIndex, int edgeToColumnIndex,
+           bool isCSR, int numOfLandmarks, bool hasReachabilityIndex, int traversalCacheMB)
 {
 	GraphView* vw = new GraphView();
 	vw->m_name = graphViewName;
 	vw->m_isDirected = isDirected;
 	vw->m_vertexTable = vTable;
 	vw->m_edgeTable = eTable;
-	//construct the path schema
-	vw->constructPathSchema();
-	//construct the path temp table
-	vw->constructPathTempTable();
+	vw->m_isCSR = isCSR;
+	vw->m_numOfLandmarks = numOfLandmarks;
+	vw->m_hasReachabilityIndex = hasReachabilityIndex;
+	vw->m_traversalCache.setMaxBytes((size_t)traversalCacheMB * 1024 * 1024);
+	vw->configureStats();
 
 	//set the vertex column names
 	//int vColumnCount = vSchema->columnCount();
@@ -71,6 +76,10 @@ GraphView* GraphViewFactory::createGraphView(const std::string &graphViewName, c
 
 	vw->m_vPropColumnIndex = -1;
 	vw->m_ePropColumnIndex = -1;
+	vw->m_vertexIdColumnIndex = -1;
+	vw->m_edgeIdColumnIndex = -1;
+	vw->m_edgeFromColumnIndex = -1;
+	vw->m_edgeToColumnIndex = -1;
 
 	for(int i = 0; i < vw->m_vertexColumnNames.size(); i++)
 	{
@@ -107,6 +116,32 @@ GraphView* GraphViewFactory::createGraphView(const std::string &graphViewName, c
 		}
 	}
 
+	//the maintenance source columns recorded in the catalog take precedence
+	//over the ones resolved from the property names
+	if (vertexIdColumnIndex >= 0)
+	{
+		vw->m_vertexIdColumnIndex = vertexIdColumnIndex;
+	}
+	if (edgeIdColumnIndex >= 0)
+	{
+		vw->m_edgeIdColumnIndex = edgeIdColumnIndex;
+	}
+	if (edgeFromColumnIndex >= 0)
+	{
+		vw->m_edgeFromColumnIndex = edgeFromColumnIndex;
+	}
+	if (edgeToColumnIndex >= 0)
+	{
+		vw->m_edgeToColumnIndex = edgeToColumnIndex;
+	}
+
+	//the path schema takes the type of the vertex keys
+	vw->configureKeys();
+	//construct the path schema
+	vw->constructPathSchema();
+	//construct the path temp table
+	vw->constructPathTempTable();
+
 	vw->m_databaseId = databaseId;
 	::memcpy(&(vw->m_signature), signature, 20);
 
@@ -126,6 +161,13 @@ GraphView* GraphViewFactory::createGraphView(const catalog::GraphView &catalogGr
 	//vw->m_isDirected = true;
 	vw->m_vertexTable = vTable;
 	vw->m_edgeTable = eTable;
+	//the path schema takes the type of the vertex keys
+	vw->configureKeys();
+	//construct the path schema
+	vw->constructPathSchema();
+	//construct the path temp table
+	vw->constructPathTempTable();
+
 	vw->m_databaseId = databaseId;
 	::memcpy(&(vw->m_signature), signature, 20);
 
@@ -28,7 +28,11 @@ public:
 			  Table* vTable, Table* eTable, Table* pTable, TupleSchema* vSchema, TupleSchema* eSchema,
 			  vector<std::string> vertexColumnNames, vector<std::string> edgeColumnNames,
 			  vector<int> columnIdsInVertexTable, vector<int> columnIdsInEdgeTable,
-	          voltdb::CatalogId databaseId, char *signature);
+	          voltdb::CatalogId databaseId, char *signature,
+	          int vertexIdColumnIndex = -1, int edgeIdColumnIndex = -1,
+	          int edgeFromColumnIndex = -1, int edgeToColumnIndex = -1,
+	          bool isCSR = false, int numOfLandmarks = 0, bool hasReachabilityIndex = false,
+	          int traversalCacheMB = GraphView::DEFAULT_TRAVERSAL_CACHE_MB);
 	static void loadGraph(GraphView* vw, vector<Vertex* > vertexes, vector<Edge* > edges);
 	static void printGraphView(GraphView* gview);
 };
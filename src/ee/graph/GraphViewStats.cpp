@@ -0,0 +1,133 @@
+#include "GraphViewStats.h"
+#include "GraphView.h"
+#include "common/TupleSchema.h"
+#include "common/ValueFactory.hpp"
+#include "common/tabletuple.h"
+#include "storage/tablefactory.h"
+#include "storage/temptable.h"
+
+using namespace std;
+
+namespace voltdb {
+
+vector<string> GraphViewStats::generateGraphViewStatsColumnNames()
+{
+	vector<string> columnNames = StatsSource::generateBaseStatsColumnNames();
+	columnNames.push_back("GRAPH_VIEW_NAME");
+	columnNames.push_back("VERTEX_COUNT");
+	columnNames.push_back("EDGE_COUNT");
+	columnNames.push_back("VERTEX_MEMORY");
+	columnNames.push_back("EDGE_MEMORY");
+	columnNames.push_back("ADJACENCY_MEMORY");
+	columnNames.push_back("CSR_MEMORY");
+	columnNames.push_back("LANDMARK_MEMORY");
+	columnNames.push_back("REACHABILITY_MEMORY");
+	columnNames.push_back("BUILD_TIME");
+	columnNames.push_back("CACHE_ENTRIES");
+	columnNames.push_back("CACHE_MEMORY");
+	columnNames.push_back("CACHE_HITS");
+	columnNames.push_back("CACHE_MISSES");
+	columnNames.push_back("CACHE_EVICTIONS");
+	columnNames.push_back("BULK_LOADING");
+	columnNames.push_back("BULK_LOADED_TUPLES");
+	return columnNames;
+}
+
+void GraphViewStats::populateGraphViewStatsSchema(
+		vector<ValueType>& types,
+		vector<int32_t>& columnLengths,
+		vector<bool>& allowNull,
+		vector<bool>& inBytes)
+{
+	StatsSource::populateBaseSchema(types, columnLengths, allowNull, inBytes);
+	types.push_back(VALUE_TYPE_VARCHAR); columnLengths.push_back(4096); allowNull.push_back(false); inBytes.push_back(false);
+	for (int i = 0; i < 16; i++)
+	{
+		types.push_back(VALUE_TYPE_BIGINT);
+		columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+		allowNull.push_back(false);
+		inBytes.push_back(false);
+	}
+}
+
+TempTable* GraphViewStats::generateEmptyGraphViewStatsTable()
+{
+	string name = "Graph view stats temp table";
+	vector<string> columnNames = GraphViewStats::generateGraphViewStatsColumnNames();
+	vector<ValueType> columnTypes;
+	vector<int32_t> columnLengths;
+	vector<bool> columnAllowNull;
+	vector<bool> columnInBytes;
+	GraphViewStats::populateGraphViewStatsSchema(columnTypes, columnLengths, columnAllowNull, columnInBytes);
+	TupleSchema* schema = TupleSchema::createTupleSchema(columnTypes, columnLengths, columnAllowNull, columnInBytes);
+	return TableFactory::buildTempTable(name, schema, columnNames, NULL);
+}
+
+GraphViewStats::GraphViewStats(GraphView* graphView)
+	: StatsSource(), m_graphView(graphView)
+{
+}
+
+GraphViewStats::~GraphViewStats()
+{
+	m_graphViewName.free();
+}
+
+void GraphViewStats::configure(string name)
+{
+	StatsSource::configure(name);
+	m_graphViewName.free();
+	m_graphViewName = ValueFactory::getStringValue(m_graphView->name());
+}
+
+vector<string> GraphViewStats::generateStatsColumnNames()
+{
+	return GraphViewStats::generateGraphViewStatsColumnNames();
+}
+
+void GraphViewStats::populateSchema(
+		vector<ValueType>& types,
+		vector<int32_t>& columnLengths,
+		vector<bool>& allowNull,
+		vector<bool>& inBytes)
+{
+	GraphViewStats::populateGraphViewStatsSchema(types, columnLengths, allowNull, inBytes);
+}
+
+//the graph view is sized rather than counted, so interval requests report the same values
+void GraphViewStats::updateStatsTuple(TableTuple* tuple)
+{
+	tuple->setNValue(m_columnName2Index["GRAPH_VIEW_NAME"], m_graphViewName);
+	tuple->setNValue(m_columnName2Index["VERTEX_COUNT"],
+			ValueFactory::getBigIntValue(m_graphView->numOfVertexes()));
+	tuple->setNValue(m_columnName2Index["EDGE_COUNT"],
+			ValueFactory::getBigIntValue(m_graphView->numOfEdges()));
+	//the memory columns are in KB like the table stats, the build time in microseconds
+	tuple->setNValue(m_columnName2Index["VERTEX_MEMORY"],
+			ValueFactory::getBigIntValue(m_graphView->vertexMemory() / 1024));
+	tuple->setNValue(m_columnName2Index["EDGE_MEMORY"],
+			ValueFactory::getBigIntValue(m_graphView->edgeMemory() / 1024));
+	tuple->setNValue(m_columnName2Index["ADJACENCY_MEMORY"],
+			ValueFactory::getBigIntValue(m_graphView->adjacencyMemory() / 1024));
+	tuple->setNValue(m_columnName2Index["CSR_MEMORY"],
+			ValueFactory::getBigIntValue(m_graphView->csrMemory() / 1024));
+	tuple->setNValue(m_columnName2Index["LANDMARK_MEMORY"],
+			ValueFactory::getBigIntValue(m_graphView->landmarkMemory() / 1024));
+	tuple->setNValue(m_columnName2Index["REACHABILITY_MEMORY"],
+			ValueFactory::getBigIntValue(m_graphView->reachabilityMemory() / 1024));
+	tuple->setNValue(m_columnName2Index["BUILD_TIME"],
+			ValueFactory::getBigIntValue(m_graphView->getBuildMicros()));
+	//the traversal cache counters are since the graph view was created
+	TraversalCache& cache = m_graphView->getTraversalCache();
+	tuple->setNValue(m_columnName2Index["CACHE_ENTRIES"], ValueFactory::getBigIntValue(cache.numOfEntries()));
+	tuple->setNValue(m_columnName2Index["CACHE_MEMORY"], ValueFactory::getBigIntValue(cache.bytes() / 1024));
+	tuple->setNValue(m_columnName2Index["CACHE_HITS"], ValueFactory::getBigIntValue(cache.hits()));
+	tuple->setNValue(m_columnName2Index["CACHE_MISSES"], ValueFactory::getBigIntValue(cache.misses()));
+	tuple->setNValue(m_columnName2Index["CACHE_EVICTIONS"], ValueFactory::getBigIntValue(cache.evictions()));
+	//the progress of a bulk load, which is 0 tuples outside of one
+	tuple->setNValue(m_columnName2Index["BULK_LOADING"], ValueFactory::getBigIntValue(m_graphView->isBulkLoading() ? 1 : 0));
+	tuple->setNValue(m_columnName2Index["BULK_LOADED_TUPLES"],
+			ValueFactory::getBigIntValue(m_graphView->isBulkLoading() ? m_graphView->getBulkLoadedTuples() : 0));
+}
+
+}
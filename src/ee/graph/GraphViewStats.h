@@ -0,0 +1,54 @@
+/*
+ * GraphViewStats.h
+ *
+ * StatsSource of a graph view for @Statistics GRAPHVIEW: the number of
+ * vertexes and edges, the memory held by the vertex and edge objects, by
+ * their adjacency lists, by the CSR arrays, by the landmark distances and by the reachability labels,
+ * the time of the last build from the vertexes and edges tables, the
+ * entries, memory and hit/miss counters of its traversal cache, and the progress of a
+ * bulk load suspending its maintenance.
+ * The memory is an estimate from the sizes and capacities of the graph
+ * containers, as the graph elements are not allocated from pools.
+ */
+
+#ifndef GRAPHVIEWSTATS_H_
+#define GRAPHVIEWSTATS_H_
+
+#include "stats/StatsSource.h"
+
+namespace voltdb {
+
+class GraphView;
+class TableTuple;
+class TempTable;
+
+class GraphViewStats : public StatsSource
+{
+public:
+	//make sure to update the schema in GraphViewStats.java when updating the columns
+	static std::vector<std::string> generateGraphViewStatsColumnNames();
+	static void populateGraphViewStatsSchema(std::vector<ValueType>& types,
+			std::vector<int32_t>& columnLengths,
+			std::vector<bool>& allowNull,
+			std::vector<bool>& inBytes);
+	static TempTable* generateEmptyGraphViewStatsTable();
+
+	GraphViewStats(GraphView* graphView);
+	~GraphViewStats();
+
+	void configure(std::string name);
+
+protected:
+	virtual void updateStatsTuple(TableTuple* tuple);
+	virtual std::vector<std::string> generateStatsColumnNames();
+	virtual void populateSchema(std::vector<ValueType>& types, std::vector<int32_t>& columnLengths,
+			std::vector<bool>& allowNull, std::vector<bool>& inBytes);
+
+private:
+	GraphView* m_graphView;
+	NValue m_graphViewName;
+};
+
+}
+
+#endif /* GRAPHVIEWSTATS_H_ */
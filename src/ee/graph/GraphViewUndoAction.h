@@ -0,0 +1,109 @@
+#ifndef GRAPHVIEWUNDOACTION_H
+#define GRAPHVIEWUNDOACTION_H
+
+#include "common/UndoAction.h"
+#include "graph/GraphView.h"
+
+namespace voltdb {
+
+/*
+ * Reverts a single topology change that was applied to a graph view
+ * while maintaining it incrementally from its vertexes / edges tables.
+ * The tuple storage itself is reverted by the PersistentTable undo actions,
+ * this action only re-links (or unlinks) the corresponding graph element.
+ * Once a deletion is committed, the keys of the ids it left unused are released,
+ * and so are the keys an insertion mapped to new ids once it is undone.
+ */
+class GraphViewUndoAction : public voltdb::UndoAction
+{
+public:
+	enum Operation
+	{
+		VERTEX_INSERT,
+		VERTEX_DELETE,
+		EDGE_INSERT,
+		EDGE_DELETE
+	};
+
+	//the keys an insertion mapped to new ids, of the vertex or edge itself and of the edge endpoints
+	enum AddedKey
+	{
+		ID_KEY = 1,
+		FROM_KEY = 2,
+		TO_KEY = 4
+	};
+
+	GraphViewUndoAction(GraphView* graphView, Operation op, int id, char* tupleData,
+			int from, int to, int prop, int addedKeys = 0)
+		: m_graphView(graphView), m_op(op), m_id(id), m_tupleData(tupleData),
+		  m_from(from), m_to(to), m_prop(prop), m_addedKeys(addedKeys)
+	{
+	}
+
+	void undo()
+	{
+		switch(m_op)
+		{
+		case VERTEX_INSERT:
+			m_graphView->detachVertex(m_id, m_tupleData);
+			//the undo actions registered after this one, which may refer to the new ids, are undone already
+			if (m_addedKeys & ID_KEY)
+			{
+				m_graphView->releaseVertexKey(m_id);
+			}
+			break;
+		case VERTEX_DELETE:
+			m_graphView->attachVertex(m_id, m_tupleData, m_prop);
+			break;
+		case EDGE_INSERT:
+			m_graphView->unlinkEdge(m_id, m_tupleData);
+			if (m_addedKeys & ID_KEY)
+			{
+				m_graphView->releaseEdgeKey(m_id);
+			}
+			if (m_addedKeys & FROM_KEY)
+			{
+				m_graphView->releaseVertexKey(m_from);
+			}
+			if (m_addedKeys & TO_KEY)
+			{
+				m_graphView->releaseVertexKey(m_to);
+			}
+			break;
+		case EDGE_DELETE:
+			m_graphView->linkEdge(m_id, m_tupleData, m_from, m_to, m_prop);
+			break;
+		}
+	}
+
+	void release()
+	{
+		switch(m_op)
+		{
+		case VERTEX_DELETE:
+			m_graphView->releaseVertexKey(m_id);
+			break;
+		case EDGE_DELETE:
+			m_graphView->releaseEdgeKey(m_id);
+			m_graphView->releaseVertexKey(m_from);
+			m_graphView->releaseVertexKey(m_to);
+			break;
+		default:
+			break;
+		}
+	}
+
+private:
+	GraphView* m_graphView;
+	Operation m_op;
+	int m_id;
+	char* m_tupleData;
+	int m_from;
+	int m_to;
+	int m_prop;
+	int m_addedKeys;
+};
+
+}
+
+#endif
@@ -0,0 +1,228 @@
+#include "LandmarkIndex.h"
+#include "CSRAdjacency.h"
+#include <algorithm>
+#include <climits>
+#include <deque>
+#include <functional>
+#include <limits>
+#include <queue>
+
+namespace voltdb {
+
+//distance to the vertexes not reached, and cost of the edges having no cost
+static const double NO_PATH = std::numeric_limits<double>::infinity();
+
+double LandmarkDistances::lowerBound(int v, int t) const
+{
+	double bound = 0;
+	for (size_t l = 0; l < m_from.size(); l++)
+	{
+		//d(v, t) >= d(L, t) - d(L, v)
+		double fromV = m_from[l][v];
+		double fromT = m_from[l][t];
+		if (fromT < NO_PATH)
+		{
+			if (fromV < NO_PATH)
+			{
+				bound = std::max(bound, fromT - fromV);
+			}
+		}
+		else if (fromV < NO_PATH)
+		{
+			//the landmark reaches v but not t, so v cannot reach t
+			return NO_PATH;
+		}
+		//d(v, t) >= d(v, L) - d(t, L), undirected graphs have d(v, L) = d(L, v)
+		const std::vector<double>& to = m_to.empty() ? m_from[l] : m_to[l];
+		double toV = to[v];
+		double toT = to[t];
+		if (toV < NO_PATH)
+		{
+			if (toT < NO_PATH)
+			{
+				bound = std::max(bound, toV - toT);
+			}
+		}
+		else if (toT < NO_PATH)
+		{
+			//t reaches the landmark but v does not, so v cannot reach t
+			return NO_PATH;
+		}
+	}
+	return bound;
+}
+
+LandmarkIndex::LandmarkIndex()
+	: m_built(false), m_epoch(-1), m_staleEpoch(-1), m_staleQueries(0)
+{
+}
+
+void LandmarkIndex::clear()
+{
+	m_built = false;
+	m_landmarks.clear();
+	m_distances.clear();
+}
+
+void LandmarkIndex::build(const CSRAdjacency& csr, int numOfLandmarks, int64_t epoch)
+{
+	clear();
+	selectLandmarks(csr, numOfLandmarks);
+	m_built = true;
+	m_epoch = epoch;
+}
+
+bool LandmarkIndex::shouldRebuild(int64_t epoch)
+{
+	if (m_staleEpoch != epoch)
+	{
+		m_staleEpoch = epoch;
+		m_staleQueries = 0;
+	}
+	return ++m_staleQueries >= REBUILD_THRESHOLD;
+}
+
+const LandmarkDistances& LandmarkIndex::getDistances(const CSRAdjacency& csr, int weightIndex)
+{
+	std::map<int, LandmarkDistances>::iterator it = m_distances.find(weightIndex);
+	if (it != m_distances.end())
+	{
+		return it->second;
+	}
+	LandmarkDistances& distances = m_distances[weightIndex];
+	int numOfPicked = (int)m_landmarks.size();
+	distances.m_from.resize(numOfPicked);
+	for (int l = 0; l < numOfPicked; l++)
+	{
+		computeDistances(csr, weightIndex, m_landmarks[l], false, distances.m_from[l]);
+	}
+	if (csr.isDirected())
+	{
+		distances.m_to.resize(numOfPicked);
+		for (int l = 0; l < numOfPicked; l++)
+		{
+			computeDistances(csr, weightIndex, m_landmarks[l], true, distances.m_to[l]);
+		}
+	}
+	return distances;
+}
+
+int64_t LandmarkIndex::memoryUsage() const
+{
+	int64_t bytes = m_landmarks.capacity() * sizeof(int);
+	for (std::map<int, LandmarkDistances>::const_iterator it = m_distances.begin(); it != m_distances.end(); ++it)
+	{
+		for (size_t l = 0; l < it->second.m_from.size(); l++)
+		{
+			bytes += it->second.m_from[l].capacity() * sizeof(double);
+		}
+		for (size_t l = 0; l < it->second.m_to.size(); l++)
+		{
+			bytes += it->second.m_to[l].capacity() * sizeof(double);
+		}
+	}
+	return bytes;
+}
+
+//lowers hops to the number of out edges on the shortest path from source
+static void lowerHops(const CSRAdjacency& csr, int source, std::vector<int>& hops)
+{
+	std::vector<int> level(csr.numOfVertexes(), -1);
+	std::deque<int> queue;
+	level[source] = 0;
+	queue.push_back(source);
+	while (!queue.empty())
+	{
+		int v = queue.front();
+		queue.pop_front();
+		hops[v] = std::min(hops[v], level[v]);
+		for (int slot = csr.begin(v); slot < csr.end(v); slot++)
+		{
+			int u = csr.target(slot);
+			if (level[u] < 0)
+			{
+				level[u] = level[v] + 1;
+				queue.push_back(u);
+			}
+		}
+	}
+}
+
+static int farthest(const std::vector<int>& hops)
+{
+	int far = 0;
+	for (int v = 1; v < (int)hops.size(); v++)
+	{
+		if (hops[v] > hops[far])
+		{
+			far = v;
+		}
+	}
+	return far;
+}
+
+void LandmarkIndex::selectLandmarks(const CSRAdjacency& csr, int numOfLandmarks)
+{
+	int n = csr.numOfVertexes();
+	if (n == 0)
+	{
+		return;
+	}
+	//the first landmark is the vertex farthest from an arbitrary vertex
+	std::vector<int> hops(n, INT_MAX);
+	lowerHops(csr, 0, hops);
+	int next = farthest(hops);
+	hops.assign(n, INT_MAX);
+	while ((int)m_landmarks.size() < numOfLandmarks)
+	{
+		m_landmarks.push_back(next);
+		lowerHops(csr, next, hops);
+		next = farthest(hops);
+		if (hops[next] == 0)
+		{
+			//every vertex is a landmark
+			break;
+		}
+	}
+}
+
+void LandmarkIndex::computeDistances(const CSRAdjacency& csr, int weightIndex, int source, bool backward,
+		std::vector<double>& distances)
+{
+	typedef std::pair<double, int> Entry;
+	std::priority_queue<Entry, std::vector<Entry>, std::greater<Entry> > pq;
+	const double* costs = (weightIndex >= 0) ? csr.costs(weightIndex) : NULL;
+	distances.assign(csr.numOfVertexes(), NO_PATH);
+	distances[source] = 0;
+	pq.push(std::make_pair(0.0, source));
+	while (!pq.empty())
+	{
+		double cost = pq.top().first;
+		int v = pq.top().second;
+		pq.pop();
+		if (cost > distances[v])
+		{
+			//stale queue entry
+			continue;
+		}
+		int first = backward ? csr.inBegin(v) : csr.begin(v);
+		int last = backward ? csr.inEnd(v) : csr.end(v);
+		for (int i = first; i < last; i++)
+		{
+			int slot = backward ? csr.inEdgeSlot(i) : i;
+			int u = backward ? csr.inSource(i) : csr.target(i);
+			double edgeCost = costs ? costs[slot] : 1;
+			if (edgeCost >= NO_PATH)
+			{
+				continue;
+			}
+			if (cost + edgeCost < distances[u])
+			{
+				distances[u] = cost + edgeCost;
+				pq.push(std::make_pair(distances[u], u));
+			}
+		}
+	}
+}
+
+}
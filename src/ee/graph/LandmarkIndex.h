@@ -0,0 +1,89 @@
+/*
+ * LandmarkIndex.h
+ *
+ * Landmark (ALT) index of a graph view: the distances from (and, for
+ * directed graph views, to) a few landmark vertexes, giving A* shortest path
+ * searches a lower bound on the distance left to the destination.
+ * By the triangle inequality, for a landmark L and vertexes v and t,
+ *   d(v, t) >= d(L, t) - d(L, v)  and  d(v, t) >= d(v, L) - d(t, L),
+ * and the bound of v is the largest of these over all the landmarks.
+ * The bounds only depend on the graph, so they stay admissible for the
+ * traversals that skip edges (selectivity, predicates).
+ *
+ * The landmarks are picked by the farthest heuristic on the hop distances:
+ * each one is the vertex farthest from the ones picked before, preferring
+ * the vertexes they cannot reach at all. The distances are computed over the
+ * CSR layout per edge weight, the first time a shortest path query uses that
+ * weight. As the reachability index, the index is built for an epoch of the
+ * graph view, and once the graph changes it is only rebuilt after a few
+ * queries found it stale, the queries search bidirectionally meanwhile.
+ */
+
+#ifndef LANDMARKINDEX_H_
+#define LANDMARKINDEX_H_
+
+#include <map>
+#include <vector>
+#include <stdint.h>
+
+namespace voltdb {
+
+class CSRAdjacency;
+
+//distances between the landmarks and the dense vertexes for one edge weight
+class LandmarkDistances
+{
+	friend class LandmarkIndex;
+
+public:
+	//lower bound of the cost of a path from the dense vertex v to the dense vertex t,
+	//infinity if no path can exist
+	double lowerBound(int v, int t) const;
+
+private:
+	//per landmark, distance from the landmark to each dense vertex
+	std::vector<std::vector<double> > m_from;
+	//per landmark, distance from each dense vertex to the landmark, empty for undirected graphs
+	std::vector<std::vector<double> > m_to;
+};
+
+class LandmarkIndex
+{
+public:
+	LandmarkIndex();
+
+	void clear();
+	//picks numOfLandmarks landmarks of csr, the layout of the graph view at epoch
+	void build(const CSRAdjacency& csr, int numOfLandmarks, int64_t epoch);
+	bool isBuiltFor(int64_t epoch) const { return m_built && m_epoch == epoch; }
+	//counts a query finding the index stale at epoch, true when it is worth rebuilding
+	bool shouldRebuild(int64_t epoch);
+	//the distances for the weightIndex edge weight (-1 to count the hops) over csr, the layout it was built for
+	const LandmarkDistances& getDistances(const CSRAdjacency& csr, int weightIndex);
+
+	const std::vector<int>& landmarks() const { return m_landmarks; }
+	//estimated bytes held by the distance arrays
+	int64_t memoryUsage() const;
+
+	//stale queries within an epoch before the index is rebuilt
+	static const int REBUILD_THRESHOLD = 16;
+
+private:
+	void selectLandmarks(const CSRAdjacency& csr, int numOfLandmarks);
+	//single source shortest path costs from (backward: to) the dense vertex source
+	void computeDistances(const CSRAdjacency& csr, int weightIndex, int source, bool backward,
+			std::vector<double>& distances);
+
+	bool m_built;
+	int64_t m_epoch;
+	int64_t m_staleEpoch;
+	int m_staleQueries;
+
+	//dense ids of the landmarks
+	std::vector<int> m_landmarks;
+	std::map<int, LandmarkDistances> m_distances;
+};
+
+}
+
+#endif /* LANDMARKINDEX_H_ */
@@ -14,6 +14,7 @@
 #include "storage/TupleIterator.h"
 #include "storage/temptable.h"
 #include "graph/GraphView.h"
+#include "graph/PathTraversalContext.h"
 #include "logging/LogManager.h"
 
 namespace voltdb {
@@ -27,60 +28,35 @@ class PathIterator : public TupleIterator {
     friend class GraphView;
 
 public:
-	PathIterator(GraphView* gv) { this->graphView = gv; }
+	PathIterator(PathTraversalContext* ctx) { this->ctx = ctx; }
 	bool next(TableTuple &out);
 	//virtual ~PathIterator();
 protected:
-	GraphView* graphView;
+	PathTraversalContext* ctx;
 };
 
 
 inline bool PathIterator::next(TableTuple &out) {
 
-	LogManager::GLog("PathIterator", "next", 40,
-					"calling next() before expanding");
-	//call graph function that might add data to the temp table
-	graphView->expandCurrentPathOperation();
-
-	if(graphView->m_pathTableIterator == NULL)
-	{
-		LogManager::GLog("PathIterator", "next", 46,
-							"m_pathTableIterator is initialized after we found it null.");
-		graphView->m_pathTableIterator = &(graphView->m_pathTable->iteratorDeletingAsWeGo());
-	}
-	//bool hasNext = graphView->m_pathTableIterator->hasNext();
-	//if new tuples were added, update the iterator about the #active tuples
-	if(graphView->m_pathTableIterator->m_activeTuples < (int)graphView->m_pathTable->activeTupleCount())
-	{
-		//std::stringstream paramsToPrint;
-		//paramsToPrint << "hasNext is false, activeTupleCount before = " << graphView->m_pathTableIterator->m_activeTuples;
-
-		graphView->m_pathTableIterator->m_activeTuples = (int)graphView->m_pathTable->activeTupleCount();
-
-		//paramsToPrint << ", activeTupleCount after = " << graphView->m_pathTableIterator->m_activeTuples;
-		//LogManager::GLog("PathIterator", "next", 61, paramsToPrint.str());
-	}
-
-
-	/*
-	bool hasNext = graphView->m_pathTableIterator->hasNext();
-	if(!hasNext)
+	while (true)
 	{
-		graphView->m_pathTableIterator = &(graphView->m_pathTable->iteratorDeletingAsWeGo());
-		hasNext = graphView->m_pathTableIterator->hasNext();
-		if(!isValidTuple && hasNext)
+		//return the next staged path, if any
+		if(ctx->pathTableIterator != NULL && ctx->pathTableIterator->next(out))
 		{
-			LogManager::GLog("PathIterator", "next", 59,
-										"isValidTuple is false and hasNext is true, calling next again.");
-			isValidTuple = graphView->m_pathTableIterator->next(out);
+			ctx->counters.rowsEmitted++;
+			return true;
 		}
+		if(!ctx->executeTraversal)
+		{
+			ctx->flushCounters();
+			return false;
+		}
+		//the staged paths are consumed, recycle the paths table and
+		//resume the traversal to stage the next batch of paths
+		ctx->clearStagedPaths();
+		ctx->graphView->expandCurrentPathOperation(*ctx);
+		ctx->pathTableIterator = &(ctx->pathTable->iterator());
 	}
-
-	if(graphView->dummyPathExapansionState == 6)
-		isValidTuple = false;
-	*/
-	//call next on the iterator of the temp table
-	return graphView->m_pathTableIterator->next(out);
 }
 
 }
@@ -0,0 +1,189 @@
+#include "PathTraversalContext.h"
+#include "GraphView.h"
+#include "common/SQLException.h"
+#include "common/executorcontext.hpp"
+#include "common/tabletuple.h"
+#include "executors/abstractexecutor.h"
+#include "execution/ProgressMonitorProxy.h"
+#include "common/TupleSchema.h"
+#include "storage/tablefactory.h"
+#include "storage/temptable.h"
+
+namespace voltdb {
+
+PathTraversalContext::PathTraversalContext(GraphView* graphView)
+	: graphView(graphView),
+	  fromVertexId(-1), toVertexId(-1), queryType(-1), pathLength(-1), topK(-1),
+	  vSelectivity(-1), eSelectivity(-1), spColumnIndexInEdgesTable(-1),
+	  weightIndex(-1), vertexPredicate(NULL), edgePredicate(NULL), pathColumns(ALL_PATH_COLUMNS),
+	  maxExpansions(0), budgetSpent(0), progress(NULL),
+	  pathTableIterator(NULL), executeTraversal(false),
+	  started(false), loopStart(-1), foundPaths(0), iterations(0), rootStamp(0), spurStamp(0),
+	  batchSource(-1), batchPosition(0), replayPosition(0)
+{
+	Table* pathTableTemplate = graphView->getPathTable();
+	pathTable = TableFactory::buildTempTable(graphView->getPathsTableName(),
+			TupleSchema::createTupleSchema(pathTableTemplate->schema()),
+			pathTableTemplate->getColumnNames(), NULL);
+}
+
+PathTraversalContext::~PathTraversalContext()
+{
+	pathTable->deleteAllTempTupleDeepCopies();
+	delete pathTable;
+}
+
+void PathTraversalContext::clearStagedPaths()
+{
+	pathTable->deleteAllTempTupleDeepCopies();
+	pathPool.purge();
+}
+
+void PathTraversalContext::keepStagedValues(const TableTuple& tuple, int begin, int end)
+{
+	for (int i = begin; i < end; i++)
+	{
+		const TupleSchema::ColumnInfo* columnInfo = tuple.getSchema()->getColumnInfo(i);
+		if (!isVariableLengthType(columnInfo->getVoltType()) || columnInfo->inlined)
+		{
+			continue;
+		}
+		NValue value = tuple.getNValue(i);
+		if (!value.isNull())
+		{
+			tuple.setNValueAllocateForObjectCopies(i, value, ExecutorContext::getTempStringPool());
+		}
+	}
+}
+
+void PathTraversalContext::reset()
+{
+	//a traversal abandoned before its end (e.g., under a LIMIT) is accounted for here
+	flushCounters();
+	clearStagedPaths();
+	pathTableIterator = NULL;
+	executeTraversal = true;
+	started = false;
+	queue.clear();
+	visited.clear();
+	loopStart = -1;
+	levels.clear();
+	distances.clear();
+	backwardLevels.clear();
+	backwardDistances.clear();
+	costs.clear();
+	backwardCosts.clear();
+	denseCosts.clear();
+	backwardDenseCosts.clear();
+	pq = PathPriorityQueue();
+	guidedPq = GuidedPriorityQueue();
+	foundPaths = 0;
+	iterations = 0;
+	kPaths.clear();
+	kCandidates.clear();
+	treeNext.clear();
+	rootStamps.clear();
+	spurStamps.clear();
+	spurParents.clear();
+	rootStamp = 0;
+	spurStamp = 0;
+	predecessors.clear();
+	successors.clear();
+	pathVertexes.clear();
+	//the batch outlives the traversals staging their paths from it
+	batchSource = -1;
+	batchPosition = 0;
+	replaying.reset();
+	replayPosition = 0;
+	recording.reset();
+}
+
+void PathTraversalContext::flushCounters()
+{
+	if (counters.traversals == 0)
+	{
+		//already flushed when the traversal ended
+		return;
+	}
+	counters.maxTraversalMicros = counters.traversalMicros;
+	graphView->addTraversalCounters(queryType, counters);
+	counters = TraversalCounters();
+}
+
+TraversalCacheKey PathTraversalContext::cacheKey() const
+{
+	TraversalCacheKey key;
+	key.queryType = queryType;
+	key.fromVertexId = fromVertexId;
+	key.toVertexId = toVertexId;
+	key.pathLength = pathLength;
+	key.topK = topK;
+	key.vSelectivity = vSelectivity;
+	key.eSelectivity = eSelectivity;
+	key.weightIndex = weightIndex;
+	key.pathColumns = pathColumns;
+	return key;
+}
+
+void PathTraversalContext::clearBatch()
+{
+	batchSources.clear();
+	for (size_t i = 0; i < batchPaths.size(); i++)
+	{
+		batchPaths[i].clear();
+	}
+	batchLengths.clear();
+}
+
+bool PathTraversalContext::addToBatch(int fromVertexId, int toVertexId)
+{
+	std::vector<int>::iterator it = std::find(batchSources.begin(), batchSources.end(), fromVertexId);
+	int batchIndex = (int)(it - batchSources.begin());
+	if (it == batchSources.end())
+	{
+		if (batchIndex == MS_BFS_WIDTH)
+		{
+			return false;
+		}
+		batchSources.push_back(fromVertexId);
+		if ((int)batchPaths.size() <= batchIndex)
+		{
+			batchPaths.resize(batchIndex + 1);
+		}
+	}
+	if (queryType == 3)
+	{
+		batchLengths.insert(std::make_pair(batchKey(batchIndex, toVertexId), -1));
+	}
+	return true;
+}
+
+int PathTraversalContext::batchIndexOf(int fromVertexId, int toVertexId) const
+{
+	std::vector<int>::const_iterator it = std::find(batchSources.begin(), batchSources.end(), fromVertexId);
+	if (it == batchSources.end())
+	{
+		return -1;
+	}
+	int batchIndex = (int)(it - batchSources.begin());
+	if (queryType == 3 && batchLengths.find(batchKey(batchIndex, toVertexId)) == batchLengths.end())
+	{
+		return -1;
+	}
+	return batchIndex;
+}
+
+void PathTraversalContext::reportProgress()
+{
+	//the monitor asks the topend whether to go on every so many units, and throws on a timeout
+	progress->countdownProgress();
+}
+
+void PathTraversalContext::throwBudgetExceeded()
+{
+	throwDynamicSQLException("The traversals of graph view %s were terminated after expanding %lld vertexes, "
+			"the MAXEXPANSIONS budget of the scan",
+			graphView->name().c_str(), (long long)maxExpansions);
+}
+
+}
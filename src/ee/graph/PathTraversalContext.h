@@ -0,0 +1,292 @@
+/*
+ * PathTraversalContext.h
+ *
+ * State of one path traversal over a graph view. Every executor reading
+ * the paths of a graph view owns its own context, so several traversals of
+ * the same graph view in one plan (self-joins, nested loop path joins) do
+ * not share their arguments, frontier or output.
+ *
+ * The context holds the traversal arguments, the resumable state of the
+ * streaming traversals, which stop once they have staged a batch of paths
+ * and continue from here when the path iterator asks for more, and the
+ * paths temp table the batches are staged in. The context is reset rather
+ * than rebuilt between traversals, so an executor running many traversals
+ * (e.g., one per outer tuple) reuses its staging table and containers.
+ *
+ * Every vertex expansion is reported to the progress monitor of the executor
+ * running the traversal, so a long traversal is interrupted at the query
+ * timeout like any long scan, and is checked against the expansion budget
+ * of the scan (the MAXEXPANSIONS hint), which all the traversals the scan
+ * runs in one execution of its fragment draw from, e.g., the traversals of
+ * every outer tuple of a nested loop path join.
+ *
+ * A nested loop path join may batch the traversals of its outer tuples: the
+ * start vertexes of a window of outer tuples are traversed at once by a
+ * multi-source BFS (MS-BFS), each vertex keeping a bit per start vertex, so
+ * a vertex reached by several traversals at the same level is expanded once.
+ * The traversals of the outer tuples then stage their paths from the batch.
+ */
+
+#ifndef PATHTRAVERSALCONTEXT_H_
+#define PATHTRAVERSALCONTEXT_H_
+
+#include <deque>
+#include <queue>
+#include <set>
+#include <vector>
+#include <unordered_map>
+#include <unordered_set>
+#include <functional>
+#include <algorithm>
+#include <stdint.h>
+#include "common/Pool.hpp"
+#include "graph/TraversalCache.h"
+
+namespace voltdb {
+
+class GraphView;
+class ProgressMonitorProxy;
+class TempTable;
+class TableTuple;
+class TableIterator;
+class AbstractExpression;
+
+//work done by path traversals, the counters are plain increments on the
+//traversal state so they are always maintained, tracing or not
+struct TraversalCounters
+{
+	TraversalCounters()
+		: traversals(0), vertexesExpanded(0), edgesRelaxed(0), rowsEmitted(0), traversalMicros(0), maxTraversalMicros(0)
+	{
+	}
+
+	//a vertex is expanded by examining its degree adjacent edges
+	void expandVertex(int degree)
+	{
+		vertexesExpanded++;
+		edgesRelaxed += degree;
+	}
+
+	void add(const TraversalCounters& other)
+	{
+		traversals += other.traversals;
+		vertexesExpanded += other.vertexesExpanded;
+		edgesRelaxed += other.edgesRelaxed;
+		rowsEmitted += other.rowsEmitted;
+		traversalMicros += other.traversalMicros;
+		maxTraversalMicros = std::max(maxTraversalMicros, other.maxTraversalMicros);
+	}
+
+	int64_t traversals;
+	int64_t vertexesExpanded;
+	int64_t edgesRelaxed;
+	int64_t rowsEmitted;
+	//time spent in the traversal routines, not in consuming their paths
+	int64_t traversalMicros;
+	//latency of the slowest traversal
+	int64_t maxTraversalMicros;
+};
+
+//a loopless path of the top k shortest paths traversal, as the CSR edge slots it crosses
+struct KPathCandidate
+{
+	double cost;
+	//index of the first slot that differs from the path it was derived from,
+	//the spur paths of this path only need to deviate from there on
+	int deviation;
+	std::vector<int> slots;
+
+	bool operator<(const KPathCandidate& other) const
+	{
+		if (cost != other.cost)
+			return cost < other.cost;
+		if (slots.size() != other.slots.size())
+			return slots.size() < other.slots.size();
+		return slots < other.slots;
+	}
+};
+
+class PathTraversalContext
+{
+public:
+	//first is the cost, second.first is the vertex, second.second is the path length
+	typedef std::pair<double, std::pair<int, int> > PQEntryWithLength;
+	typedef std::priority_queue<PQEntryWithLength, std::vector<PQEntryWithLength>,
+			std::greater<PQEntryWithLength> > PathPriorityQueue;
+	//first is the cost, second is the path length
+	typedef std::pair<double, int> CostAndLength;
+	//A* searches: first is the cost plus the landmark bound, second.first is the cost,
+	//second.second.first is the dense vertex, second.second.second is the path length
+	typedef std::pair<double, std::pair<double, std::pair<int, int> > > GuidedEntry;
+	typedef std::priority_queue<GuidedEntry, std::vector<GuidedEntry>,
+			std::greater<GuidedEntry> > GuidedPriorityQueue;
+
+	//the columns of the paths, as the bits of pathColumns
+	static const int PATH_START_VERTEX = 1;
+	static const int PATH_END_VERTEX = 2;
+	static const int PATH_LENGTH = 4;
+	static const int PATH_COST = 8;
+	static const int PATH_VERTEXES = 16;
+	static const int ALL_PATH_COLUMNS = 31;
+	//start vertexes of a multi-source BFS batch, one bit each, and the outer tuples of its window
+	static const int MS_BFS_WIDTH = 64;
+	static const int MS_BFS_MAX_ROWS = 16384;
+
+	PathTraversalContext(GraphView* graphView);
+	~PathTraversalContext();
+
+	//prepares the context for a new traversal, keeping the arguments and the expansion budget spent so far
+	void reset();
+	//empties the paths table and the pool of their values, once the staged paths are consumed
+	void clearStagedPaths();
+	//copies the values of the columns [begin, end) of tuple that point into the pool of the staged paths
+	//to the temp string pool of the fragment, for a tuple kept past the batch of its paths
+	static void keepStagedValues(const TableTuple& tuple, int begin, int end);
+	//sets the vertexes the traversals of the context may expand from now on, 0 for no limit,
+	//once for every execution of the plan fragment rather than for every traversal
+	void setExpansionBudget(int64_t budget)
+	{
+		maxExpansions = budget;
+		budgetSpent = 0;
+	}
+	//counts the expansion of a vertex examining its degree adjacent edges, reports it to
+	//the progress monitor, and throws once the traversals exceed the expansion budget
+	void expandVertex(int degree)
+	{
+		counters.expandVertex(degree);
+		if (progress != NULL)
+		{
+			reportProgress();
+		}
+		if (maxExpansions > 0 && ++budgetSpent > maxExpansions)
+		{
+			throwBudgetExceeded();
+		}
+	}
+	//adds the counters of the current traversal to the totals of the graph view for its query type
+	void flushCounters();
+	//arguments identifying the paths of the traversal in the traversal cache
+	TraversalCacheKey cacheKey() const;
+	//empties the multi-source BFS batch, keeping its memory
+	void clearBatch();
+	//adds the traversal from (to, for the reachability queries) the vertexes to the batch,
+	//false if its start vertex is new and the batch is full
+	bool addToBatch(int fromVertexId, int toVertexId);
+	//index of the start vertex of the batched traversal from (to) the vertexes, -1 if not batched
+	int batchIndexOf(int fromVertexId, int toVertexId) const;
+	//key of the length found from the start vertex of the batch to the vertex
+	static int64_t batchKey(int batchIndex, int vertexId)
+	{
+		return ((int64_t)batchIndex << 32) | (uint32_t)vertexId;
+	}
+
+	GraphView* graphView;
+
+	//traversal arguments
+	int fromVertexId, toVertexId, queryType, pathLength, topK, vSelectivity, eSelectivity, spColumnIndexInEdgesTable;
+	//edge weight holding the cost column, -1 to count the hops, resolved when the traversal starts
+	int weightIndex;
+	//predicates on the vertexes (edges) table tuples that every vertex (edge) of a path
+	//must satisfy, owned by the plan node, NULL when the paths are not filtered
+	AbstractExpression* vertexPredicate;
+	AbstractExpression* edgePredicate;
+	//the columns of the paths the plan reads, the others are left unset in the staged paths
+	int pathColumns;
+	bool reads(int pathColumn) const { return (pathColumns & pathColumn) != 0; }
+	//whether the plan reads only the start and end vertexes of the paths
+	bool endpointsOnly() const { return (pathColumns & ~(PATH_START_VERTEX | PATH_END_VERTEX)) == 0; }
+	//vertexes the traversals may expand since the budget was set, 0 for no limit,
+	//and the vertexes they expanded so far
+	int64_t maxExpansions;
+	int64_t budgetSpent;
+	//progress monitor of the executor, set while it reads the paths
+	ProgressMonitorProxy* progress;
+
+	//staging memory for the paths produced by the traversal, and for the PATH and VARCHAR
+	//key values they hold, which the paths table only points to
+	TempTable* pathTable;
+	Pool pathPool;
+	TableIterator* pathTableIterator;
+	//set while the traversal may still produce paths
+	bool executeTraversal;
+
+	bool started;
+	//breadth first traversals: pending (vertex, level) entries, the vertexes are
+	//vertex ids for the map based traversals and dense ids for the CSR based ones
+	std::deque<std::pair<int, int> > queue;
+	std::unordered_set<int> visited;
+	//loop traversals: the vertex id the walks of the queue started from
+	int loopStart;
+	//CSR traversals: level (or cost) of each dense vertex, -1 means not discovered yet
+	std::vector<int> levels;
+	//map based traversals: level (or cost) of each discovered vertex id
+	std::unordered_map<int, int> distances;
+	//bidirectional traversals: the same, searching backward from the end vertex
+	std::vector<int> backwardLevels;
+	std::unordered_map<int, int> backwardDistances;
+	//shortest path traversals: best known cost of each vertex, the lengths of the
+	//CSR traversals are kept in levels (backwardLevels)
+	std::unordered_map<int, CostAndLength> costs;
+	std::unordered_map<int, CostAndLength> backwardCosts;
+	std::vector<double> denseCosts;
+	std::vector<double> backwardDenseCosts;
+	//best first traversals
+	PathPriorityQueue pq;
+	GuidedPriorityQueue guidedPq;
+	int foundPaths;
+	int iterations;
+	//top k loopless shortest paths: the paths found so far, and the best candidates for the next
+	//ones, at most as many as the paths still to find, ordered by cost
+	std::vector<std::vector<int> > kPaths;
+	std::set<KPathCandidate> kCandidates;
+	//reverse shortest path tree to the end vertex, its costs are kept in backwardDenseCosts:
+	//next dense vertex of each dense vertex on its shortest path, -1 if there is none
+	std::vector<int> treeNext;
+	//spur searches: the root vertexes (stamped with rootStamp) they may not cross, and the
+	//parent (dense vertex, slot) of the vertexes they reached (stamped with spurStamp),
+	//whose costs are kept in denseCosts
+	std::vector<int> rootStamps;
+	std::vector<int> spurStamps;
+	std::vector<std::pair<int, int> > spurParents;
+	int rootStamp;
+	int spurStamp;
+	//CSR traversals staging the PATH column: the dense vertex each dense vertex was reached
+	//from by the forward search, and the one it leads to in the backward search, -1 if none,
+	//and the dense vertexes of the next path to stage
+	std::vector<int> predecessors;
+	std::vector<int> successors;
+	std::vector<int> pathVertexes;
+	//multi-source BFS batch: the start vertexes, the (end vertex, length) of the paths found from
+	//each one, and for the reachability queries the length found to each end vertex looked up,
+	//by batchKey, -1 if there is no path
+	std::vector<int> batchSources;
+	std::vector<std::vector<std::pair<int, int> > > batchPaths;
+	std::unordered_map<int64_t, int> batchLengths;
+	//bits of the start vertexes that reached each dense vertex, that expand it at the current
+	//level, that reach it at the next level, and that look it up as their end vertex
+	std::vector<uint64_t> seenSources;
+	std::vector<uint64_t> visitSources;
+	std::vector<uint64_t> nextSources;
+	std::vector<uint64_t> targetSources;
+	//start vertex of the batch the current traversal stages its paths from, -1 if none,
+	//and the next of its paths to stage
+	int batchSource;
+	size_t batchPosition;
+
+	//work of the current traversal, not yet added to the graph view totals
+	TraversalCounters counters;
+
+	//traversal cache: the cached paths being replayed and the next one to stage,
+	//or the paths staged so far by a cacheable traversal, NULL otherwise
+	TraversalCache::Entry replaying;
+	size_t replayPosition;
+	TraversalCache::Entry recording;
+
+private:
+	void reportProgress();
+	void throwBudgetExceeded();
+};
+
+}
+
+#endif /* PATHTRAVERSALCONTEXT_H_ */
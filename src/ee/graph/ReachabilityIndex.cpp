@@ -0,0 +1,290 @@
+#include "ReachabilityIndex.h"
+#include "CSRAdjacency.h"
+#include <algorithm>
+#include <deque>
+#include <utility>
+
+namespace voltdb {
+
+ReachabilityIndex::ReachabilityIndex()
+	: m_built(false), m_epoch(-1), m_staleEpoch(-1), m_staleQueries(0)
+{
+}
+
+void ReachabilityIndex::clear()
+{
+	m_built = false;
+	m_component.clear();
+	m_in.clear();
+	m_out.clear();
+}
+
+bool ReachabilityIndex::shouldRebuild(int64_t epoch)
+{
+	if (m_staleEpoch != epoch)
+	{
+		m_staleEpoch = epoch;
+		m_staleQueries = 0;
+	}
+	return ++m_staleQueries >= REBUILD_THRESHOLD;
+}
+
+//whether the sorted hub ranks of a and b share a hub
+static bool intersects(const std::vector<int>& a, const std::vector<int>& b)
+{
+	size_t i = 0, j = 0;
+	while (i < a.size() && j < b.size())
+	{
+		if (a[i] == b[j])
+		{
+			return true;
+		}
+		if (a[i] < b[j])
+		{
+			i++;
+		}
+		else
+		{
+			j++;
+		}
+	}
+	return false;
+}
+
+bool ReachabilityIndex::reaches(int s, int t) const
+{
+	int cs = m_component[s];
+	int ct = m_component[t];
+	return cs == ct || intersects(m_out[cs], m_in[ct]);
+}
+
+static void writeInts(SerializeOutput& out, const std::vector<int>& values)
+{
+	out.writeInt((int32_t)values.size());
+	for (size_t i = 0; i < values.size(); i++)
+	{
+		out.writeInt(values[i]);
+	}
+}
+
+static void readInts(SerializeInputBE& in, std::vector<int>& values)
+{
+	values.resize(in.readInt());
+	for (size_t i = 0; i < values.size(); i++)
+	{
+		values[i] = in.readInt();
+	}
+}
+
+void ReachabilityIndex::writeLabels(SerializeOutput& out) const
+{
+	writeInts(out, m_component);
+	out.writeInt(numOfComponents());
+	for (int c = 0; c < numOfComponents(); c++)
+	{
+		writeInts(out, m_in[c]);
+		writeInts(out, m_out[c]);
+	}
+}
+
+bool ReachabilityIndex::readLabels(SerializeInputBE& in, const CSRAdjacency& csr, int64_t epoch)
+{
+	clear();
+	readInts(in, m_component);
+	int numOfComponents = in.readInt();
+	m_in.resize(numOfComponents);
+	m_out.resize(numOfComponents);
+	for (int c = 0; c < numOfComponents; c++)
+	{
+		readInts(in, m_in[c]);
+		readInts(in, m_out[c]);
+	}
+	if ((int)m_component.size() != csr.numOfVertexes())
+	{
+		clear();
+		return false;
+	}
+	m_epoch = epoch;
+	m_built = true;
+	return true;
+}
+
+int64_t ReachabilityIndex::memoryUsage() const
+{
+	int64_t bytes = m_component.capacity() * sizeof(int);
+	for (size_t c = 0; c < m_in.size(); c++)
+	{
+		bytes += (m_in[c].capacity() + m_out[c].capacity()) * sizeof(int);
+	}
+	return bytes;
+}
+
+int ReachabilityIndex::findComponents(const CSRAdjacency& csr)
+{
+	//iterative Tarjan, the call stack holds (vertex, next slot to visit)
+	int n = csr.numOfVertexes();
+	std::vector<int> index(n, -1);
+	std::vector<int> lowLink(n, 0);
+	std::vector<bool> onStack(n, false);
+	std::vector<int> stack;
+	std::vector<std::pair<int, int> > callStack;
+	int nextIndex = 0;
+	int numOfComponents = 0;
+	m_component.assign(n, -1);
+	for (int root = 0; root < n; root++)
+	{
+		if (index[root] >= 0)
+		{
+			continue;
+		}
+		callStack.push_back(std::make_pair(root, csr.begin(root)));
+		index[root] = lowLink[root] = nextIndex++;
+		stack.push_back(root);
+		onStack[root] = true;
+		while (!callStack.empty())
+		{
+			int v = callStack.back().first;
+			int& slot = callStack.back().second;
+			if (slot < csr.end(v))
+			{
+				int u = csr.target(slot++);
+				if (index[u] < 0)
+				{
+					index[u] = lowLink[u] = nextIndex++;
+					stack.push_back(u);
+					onStack[u] = true;
+					callStack.push_back(std::make_pair(u, csr.begin(u)));
+				}
+				else if (onStack[u])
+				{
+					lowLink[v] = std::min(lowLink[v], index[u]);
+				}
+				continue;
+			}
+			//all the out edges of v are visited
+			callStack.pop_back();
+			if (!callStack.empty())
+			{
+				int parent = callStack.back().first;
+				lowLink[parent] = std::min(lowLink[parent], lowLink[v]);
+			}
+			if (lowLink[v] == index[v])
+			{
+				int u;
+				do
+				{
+					u = stack.back();
+					stack.pop_back();
+					onStack[u] = false;
+					m_component[u] = numOfComponents;
+				} while (u != v);
+				numOfComponents++;
+			}
+		}
+	}
+	return numOfComponents;
+}
+
+void ReachabilityIndex::build(const CSRAdjacency& csr, int64_t epoch)
+{
+	clear();
+	int numOfComponents = findComponents(csr);
+
+	//edges of the condensed DAG, without duplicates
+	std::vector<std::vector<int> > dagOut(numOfComponents);
+	std::vector<std::vector<int> > dagIn(numOfComponents);
+	for (int v = 0; v < csr.numOfVertexes(); v++)
+	{
+		int cv = m_component[v];
+		for (int slot = csr.begin(v); slot < csr.end(v); slot++)
+		{
+			int cu = m_component[csr.target(slot)];
+			if (cu != cv)
+			{
+				dagOut[cv].push_back(cu);
+			}
+		}
+	}
+	for (int c = 0; c < numOfComponents; c++)
+	{
+		std::sort(dagOut[c].begin(), dagOut[c].end());
+		dagOut[c].erase(std::unique(dagOut[c].begin(), dagOut[c].end()), dagOut[c].end());
+		for (size_t i = 0; i < dagOut[c].size(); i++)
+		{
+			dagIn[dagOut[c][i]].push_back(c);
+		}
+	}
+
+	//hubs in decreasing degree order, the rank of a hub is its position
+	std::vector<std::pair<int64_t, int> > order(numOfComponents);
+	for (int c = 0; c < numOfComponents; c++)
+	{
+		order[c] = std::make_pair(-(int64_t)(dagOut[c].size() + 1) * (int64_t)(dagIn[c].size() + 1), c);
+	}
+	std::sort(order.begin(), order.end());
+
+	m_in.resize(numOfComponents);
+	m_out.resize(numOfComponents);
+	std::vector<int> visited(numOfComponents, -1);
+	std::deque<int> queue;
+	for (int rank = 0; rank < numOfComponents; rank++)
+	{
+		int hub = order[rank].second;
+		m_in[hub].push_back(rank);
+		m_out[hub].push_back(rank);
+
+		//forward: the components the hub reaches get it in their in label
+		visited[hub] = 2 * rank;
+		queue.push_back(hub);
+		while (!queue.empty())
+		{
+			int c = queue.front();
+			queue.pop_front();
+			for (size_t i = 0; i < dagOut[c].size(); i++)
+			{
+				int u = dagOut[c][i];
+				if (visited[u] == 2 * rank)
+				{
+					continue;
+				}
+				visited[u] = 2 * rank;
+				if (intersects(m_out[hub], m_in[u]))
+				{
+					//covered by a hub of a lower rank
+					continue;
+				}
+				m_in[u].push_back(rank);
+				queue.push_back(u);
+			}
+		}
+
+		//backward: the components reaching the hub get it in their out label
+		visited[hub] = 2 * rank + 1;
+		queue.push_back(hub);
+		while (!queue.empty())
+		{
+			int c = queue.front();
+			queue.pop_front();
+			for (size_t i = 0; i < dagIn[c].size(); i++)
+			{
+				int u = dagIn[c][i];
+				if (visited[u] == 2 * rank + 1)
+				{
+					continue;
+				}
+				visited[u] = 2 * rank + 1;
+				if (intersects(m_out[u], m_in[hub]))
+				{
+					continue;
+				}
+				m_out[u].push_back(rank);
+				queue.push_back(u);
+			}
+		}
+	}
+
+	m_epoch = epoch;
+	m_built = true;
+}
+
+}
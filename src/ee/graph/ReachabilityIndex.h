@@ -0,0 +1,79 @@
+/*
+ * ReachabilityIndex.h
+ *
+ * Reachability index of a graph view, answering "is t reachable from s"
+ * without traversing the graph.
+ * The strongly connected components of the graph are collapsed first, two
+ * vertexes of the same component always reach each other, and the components
+ * left form a DAG. The DAG is labelled with pruned 2-hop labels: each component
+ * c keeps a set Lout(c) of hubs it reaches and a set Lin(c) of hubs reaching it,
+ * such that cs reaches ct iff Lout(cs) and Lin(ct) share a hub.
+ * The hubs are taken in decreasing degree order, and the BFS of a hub is
+ * pruned at the components the hubs before it already cover, which keeps the
+ * labels small on the skewed graphs the graph views usually hold.
+ *
+ * The index is built over the CSR layout and stamped with the epoch of the
+ * graph view. A stale index is not used, the queries fall back to the BFS,
+ * and it is rebuilt once enough queries hit it stale in the same epoch, so a
+ * graph view under a steady stream of updates does not rebuild it per query.
+ * The labels of a current index are written into the topology image of the
+ * graph view, and read back rather than rebuilt when a snapshot is restored.
+ */
+
+#ifndef REACHABILITYINDEX_H_
+#define REACHABILITYINDEX_H_
+
+#include <vector>
+#include <stdint.h>
+#include "common/serializeio.h"
+
+namespace voltdb {
+
+class CSRAdjacency;
+
+class ReachabilityIndex
+{
+public:
+	ReachabilityIndex();
+
+	void clear();
+	//labels the vertexes of csr, the layout of the graph view at epoch
+	void build(const CSRAdjacency& csr, int64_t epoch);
+	bool isBuiltFor(int64_t epoch) const { return m_built && m_epoch == epoch; }
+	//counts a query finding the index stale at epoch, true when it is worth rebuilding
+	bool shouldRebuild(int64_t epoch);
+
+	//whether the dense vertex t is reachable from the dense vertex s
+	bool reaches(int s, int t) const;
+
+	//writes the components and the labels, readLabels reads them back as the index of csr at epoch,
+	//and returns false, leaving the index to be rebuilt, if they label another number of vertexes
+	void writeLabels(SerializeOutput& out) const;
+	bool readLabels(SerializeInputBE& in, const CSRAdjacency& csr, int64_t epoch);
+
+	int numOfComponents() const { return (int)m_in.size(); }
+	//estimated bytes held by the components and the labels
+	int64_t memoryUsage() const;
+
+	//stale queries within an epoch before the index is rebuilt
+	static const int REBUILD_THRESHOLD = 16;
+
+private:
+	//fills m_component with the strongly connected components, numbered in reverse topological order
+	int findComponents(const CSRAdjacency& csr);
+
+	bool m_built;
+	int64_t m_epoch;
+	int64_t m_staleEpoch;
+	int m_staleQueries;
+
+	//component of each dense vertex
+	std::vector<int> m_component;
+	//per component, ranks of the hubs reaching it and reached by it, in ascending order
+	std::vector<std::vector<int> > m_in;
+	std::vector<std::vector<int> > m_out;
+};
+
+}
+
+#endif /* REACHABILITYINDEX_H_ */
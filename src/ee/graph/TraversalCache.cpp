@@ -0,0 +1,79 @@
+#include "TraversalCache.h"
+
+namespace voltdb {
+
+TraversalCache::TraversalCache(size_t maxEntries, size_t maxBytes)
+	: m_maxEntries(maxEntries), m_maxBytes(maxBytes), m_bytes(0),
+	  m_hits(0), m_misses(0), m_evictions(0)
+{
+}
+
+TraversalCache::Entry TraversalCache::lookup(const TraversalCacheKey& key, int64_t epoch)
+{
+	std::unordered_map<TraversalCacheKey, LRUList::iterator, TraversalCacheKeyHash>::iterator it = m_index.find(key);
+	if (it == m_index.end())
+	{
+		m_misses++;
+		return Entry();
+	}
+	if (it->second->second->epoch != epoch)
+	{
+		//the graph view changed since the entry was computed, and did not purge the cache
+		erase(it->second);
+		m_misses++;
+		return Entry();
+	}
+	//move the entry to the front of the LRU list
+	m_lru.splice(m_lru.begin(), m_lru, it->second);
+	m_hits++;
+	return it->second->second;
+}
+
+void TraversalCache::insert(const TraversalCacheKey& key, const Entry& entry)
+{
+	if (!isEnabled() || entry->bytes > maxBytesPerEntry())
+	{
+		return;
+	}
+	std::unordered_map<TraversalCacheKey, LRUList::iterator, TraversalCacheKeyHash>::iterator it = m_index.find(key);
+	if (it != m_index.end())
+	{
+		erase(it->second);
+	}
+	m_lru.push_front(std::make_pair(key, entry));
+	m_index[key] = m_lru.begin();
+	m_bytes += entry->bytes;
+	evictOverflow();
+}
+
+void TraversalCache::setMaxBytes(size_t maxBytes)
+{
+	m_maxBytes = maxBytes;
+	evictOverflow();
+}
+
+void TraversalCache::clear()
+{
+	m_lru.clear();
+	m_index.clear();
+	m_bytes = 0;
+}
+
+void TraversalCache::erase(LRUList::iterator it)
+{
+	m_bytes -= it->second->bytes;
+	m_index.erase(it->first);
+	m_lru.erase(it);
+}
+
+void TraversalCache::evictOverflow()
+{
+	//evict the least recently used entries
+	while (m_index.size() > m_maxEntries || m_bytes > m_maxBytes)
+	{
+		erase(--m_lru.end());
+		m_evictions++;
+	}
+}
+
+}
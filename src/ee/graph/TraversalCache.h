@@ -0,0 +1,147 @@
+/*
+ * TraversalCache.h
+ *
+ * LRU cache of the paths produced by complete traversals of a graph view,
+ * so repeated PATHS queries with the same arguments (e.g., top-k shortest
+ * paths or reachability from a popular vertex) replay the paths instead of
+ * traversing the graph again.
+ * An entry is keyed by the traversal arguments and stamped with the epoch
+ * of the graph view when it was computed. The graph view bumps its epoch
+ * on every change of its vertexes or edges and purges the cache then, the
+ * stamp keeps a traversal recorded across the change from being cached.
+ * The cache is bounded both by its number of entries and by the bytes its
+ * paths hold, as a PATH value alone may take up to a megabyte, the least
+ * recently used entries are evicted first. The bytes are set by the graph
+ * view (CACHE option of CREATE GRAPH VIEW), 0 disables the cache.
+ * Entries are shared with the contexts replaying them, so evicting an entry
+ * does not invalidate a replay in progress.
+ */
+
+#ifndef TRAVERSALCACHE_H_
+#define TRAVERSALCACHE_H_
+
+#include <list>
+#include <string>
+#include <vector>
+#include <unordered_map>
+#include <stdint.h>
+#include "boost/shared_ptr.hpp"
+
+namespace voltdb {
+
+//arguments a traversal result depends on, see PathTraversalContext
+struct TraversalCacheKey
+{
+	int queryType;
+	int fromVertexId;
+	int toVertexId;
+	int pathLength;
+	int topK;
+	int vSelectivity;
+	int eSelectivity;
+	int weightIndex;
+	//the paths only hold the columns read by the plan
+	int pathColumns;
+
+	bool operator==(const TraversalCacheKey& other) const
+	{
+		return queryType == other.queryType && fromVertexId == other.fromVertexId &&
+				toVertexId == other.toVertexId && pathLength == other.pathLength &&
+				topK == other.topK && vSelectivity == other.vSelectivity &&
+				eSelectivity == other.eSelectivity && weightIndex == other.weightIndex &&
+				pathColumns == other.pathColumns;
+	}
+};
+
+struct TraversalCacheKeyHash
+{
+	size_t operator()(const TraversalCacheKey& key) const
+	{
+		size_t h = key.queryType;
+		h = h * 31 + key.fromVertexId;
+		h = h * 31 + key.toVertexId;
+		h = h * 31 + key.pathLength;
+		h = h * 31 + key.topK;
+		h = h * 31 + key.vSelectivity;
+		h = h * 31 + key.eSelectivity;
+		h = h * 31 + key.weightIndex;
+		h = h * 31 + key.pathColumns;
+		return h;
+	}
+};
+
+//a row of the paths table
+struct CachedPath
+{
+	int startVertexId;
+	int endVertexId;
+	int length;
+	double cost;
+	bool costIsNull;
+	bool pathIsNull;
+	std::string path;
+};
+
+struct CachedTraversal
+{
+	CachedTraversal(int64_t epoch) : epoch(epoch), bytes(0) {}
+
+	//appends a path, counting the bytes it holds
+	void add(const CachedPath& path)
+	{
+		paths.push_back(path);
+		bytes += sizeof(CachedPath) + path.path.size();
+	}
+
+	int64_t epoch;
+	std::vector<CachedPath> paths;
+	size_t bytes;
+};
+
+class TraversalCache
+{
+public:
+	typedef boost::shared_ptr<CachedTraversal> Entry;
+
+	TraversalCache(size_t maxEntries, size_t maxBytes);
+
+	//the entry cached for key at epoch, NULL on a miss
+	Entry lookup(const TraversalCacheKey& key, int64_t epoch);
+	//adds (or replaces) the entry of key, does nothing if the entry is larger than the cache
+	void insert(const TraversalCacheKey& key, const Entry& entry);
+	void clear();
+	//changes the bytes the cache may hold, evicting the least recently used entries over it
+	void setMaxBytes(size_t maxBytes);
+
+	bool isEnabled() const { return m_maxEntries > 0 && m_maxBytes > 0; }
+	//a traversal producing paths holding more bytes than this is not cached
+	size_t maxBytesPerEntry() const { return m_maxBytes / 4; }
+
+	size_t numOfEntries() const { return m_index.size(); }
+	//bytes held by the cached paths
+	size_t bytes() const { return m_bytes; }
+	int64_t hits() const { return m_hits; }
+	int64_t misses() const { return m_misses; }
+	int64_t evictions() const { return m_evictions; }
+
+private:
+	typedef std::list<std::pair<TraversalCacheKey, Entry> > LRUList;
+
+	void erase(LRUList::iterator it);
+	void evictOverflow();
+
+	size_t m_maxEntries;
+	size_t m_maxBytes;
+	size_t m_bytes;
+	//most recently used entries first
+	LRUList m_lru;
+	std::unordered_map<TraversalCacheKey, LRUList::iterator, TraversalCacheKeyHash> m_index;
+
+	int64_t m_hits;
+	int64_t m_misses;
+	int64_t m_evictions;
+};
+
+}
+
+#endif /* TRAVERSALCACHE_H_ */
@@ -52,6 +52,24 @@ void Vertex::addInEdge(Edge* edge)
 	}
 }
 
+void Vertex::removeOutEdge(int edgeId)
+{
+	vector<int>::iterator it = std::find(this->m_outEdgeIds.begin(), this->m_outEdgeIds.end(), edgeId);
+	if(it != this->m_outEdgeIds.end())
+	{
+		this->m_outEdgeIds.erase(it);
+	}
+}
+
+void Vertex::removeInEdge(int edgeId)
+{
+	vector<int>::iterator it = std::find(this->m_inEdgeIds.begin(), this->m_inEdgeIds.end(), edgeId);
+	if(it != this->m_inEdgeIds.end())
+	{
+		this->m_inEdgeIds.erase(it);
+	}
+}
+
 Edge* Vertex::getInEdge(int index)
 {
 	return this->m_gview->getEdge(this->m_inEdgeIds[index]);
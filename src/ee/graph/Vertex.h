@@ -32,10 +32,13 @@ public:
 	Edge* getInEdge(int index);
 	void addOutEdge(Edge* edge);
 	void addInEdge(Edge* edge);
+	void removeOutEdge(int edgeId);
+	void removeInEdge(int edgeId);
 	string toString();
+	//number of edge ids the adjacency lists can hold without growing
+	int adjacencyCapacity() { return m_outEdgeIds.capacity() + m_inEdgeIds.capacity(); }
 
 	int vProp; //temporary, used for selectivity testing
-	int Level; //used for BFS
 };
 
 }
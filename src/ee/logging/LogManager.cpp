@@ -27,7 +27,7 @@ namespace voltdb {
 
 
 bool LogManager::GDebug = false;
-void LogManager::GLog(string className, string methodName, int lineNo, string message)
+void LogManager::GLog(const string& className, const string& methodName, int lineNo, const string& message)
 {
 	if(LogManager::GDebug)
 	{
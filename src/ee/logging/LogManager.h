@@ -24,8 +24,23 @@
 #include <iostream>
 #include <pthread.h>
 #include <iostream>
+#include <sstream>
 using namespace std;
 
+/**
+ * Traces the graph subsystem. The message is a stream insertion chain,
+ * e.g. GLOG("GraphView", "BFS", 10, "from = " << id), that is only
+ * evaluated when GDebug is set, so hot paths pay a single branch.
+ */
+#define GLOG(className, methodName, lineNo, message)                              \
+    do {                                                                          \
+        if (voltdb::LogManager::GDebug) {                                         \
+            std::ostringstream glogMessage;                                       \
+            glogMessage << message;                                               \
+            voltdb::LogManager::GLog(className, methodName, lineNo, glogMessage.str()); \
+        }                                                                         \
+    } while (0)
+
 namespace voltdb {
 
 /**
@@ -35,7 +50,7 @@ class LogManager {
 public:
 
 	static bool GDebug;
-	static void GLog(string className, string methodName, int lineNo, string message);
+	static void GLog(const string& className, const string& methodName, int lineNo, const string& message);
 	/**
      * Constructor that initializes all the loggers with the specified proxy
      * @param proxy The LogProxy that all the loggers should use
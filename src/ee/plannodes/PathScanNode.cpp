@@ -9,6 +9,9 @@
 #include "graph/GraphView.h"
 #include "execution/VoltDBEngine.h"
 #include "graph/GraphViewCatalogDelegate.h"
+#include "common/ValuePeeker.hpp"
+#include "common/ValueFactory.hpp"
+#include "expressions/abstractexpression.h"
 
 using namespace std;
 
@@ -57,6 +60,33 @@ int PathScanPlanNode::getSPColumnIdInEdgesTable() const
 	return id;
 }
 
+int PathScanPlanNode::evalArgument(AbstractExpression* expression, int constant)
+{
+	if (expression == NULL)
+	{
+		return constant;
+	}
+	NValue value = expression->eval(NULL, NULL);
+	if (value.isNull())
+	{
+		return -1;
+	}
+	return ValuePeeker::peekAsInteger(value);
+}
+
+NValue PathScanPlanNode::evalKey(AbstractExpression* expression, int constant)
+{
+	if (expression != NULL)
+	{
+		return expression->eval(NULL, NULL);
+	}
+	if (constant == -1)
+	{
+		return NValue::getNullValue(VALUE_TYPE_INTEGER);
+	}
+	return ValueFactory::getIntegerValue(constant);
+}
+
 void PathScanPlanNode::loadFromJSONObject(PlannerDomValue obj)
 {
 	m_target_graph_name = obj.valueForKey("TARGET_GRAPH_NAME").asStr();
@@ -67,6 +97,13 @@ void PathScanPlanNode::loadFromJSONObject(PlannerDomValue obj)
 	m_t_topK = obj.valueForKey("PROP3").asInt();
 	m_t_vSelectivity = obj.valueForKey("PROP4").asInt();
 	m_t_eSelectivity = obj.valueForKey("PROP5").asInt();
+	m_startVertexExpression.reset(loadExpressionFromJSONObject("STARTVERTEX_EXPRESSION", obj));
+	m_endVertexExpression.reset(loadExpressionFromJSONObject("ENDVERTEX_EXPRESSION", obj));
+	m_queryTypeExpression.reset(loadExpressionFromJSONObject("PROP1_EXPRESSION", obj));
+	m_pathLengthExpression.reset(loadExpressionFromJSONObject("LENGTH_EXPRESSION", obj));
+	m_topKExpression.reset(loadExpressionFromJSONObject("PROP3_EXPRESSION", obj));
+	m_vSelectivityExpression.reset(loadExpressionFromJSONObject("PROP4_EXPRESSION", obj));
+	m_eSelectivityExpression.reset(loadExpressionFromJSONObject("PROP5_EXPRESSION", obj));
 	m_sp_column_name = "";
 
 	if (obj.hasNonNullKey("HINT"))
@@ -89,6 +126,12 @@ void PathScanPlanNode::loadFromJSONObject(PlannerDomValue obj)
 	{
 		m_predicate.reset(loadExpressionFromJSONObject("PREDICATE", obj));
 	}
+	m_vertexPredicate.reset(loadExpressionFromJSONObject("VERTEX_PREDICATE", obj));
+	m_edgePredicate.reset(loadExpressionFromJSONObject("EDGE_PREDICATE", obj));
+
+	m_pathColumns = obj.hasNonNullKey("PATH_COLUMNS") ? obj.valueForKey("PATH_COLUMNS").asInt()
+			: PathTraversalContext::ALL_PATH_COLUMNS;
+	m_maxExpansions = obj.hasNonNullKey("MAX_EXPANSIONS") ? obj.valueForKey("MAX_EXPANSIONS").asInt64() : 0;
 
 	m_isSubQuery = obj.hasNonNullKey("SUBQUERY_INDICATOR");
 
@@ -11,6 +11,7 @@
 #include "plannodes/abstractplannode.h"
 
 #include "expressions/abstractexpression.h"
+#include "common/NValue.hpp"
 
 namespace voltdb
 {
@@ -31,13 +32,21 @@ public:
 
 	std::string getTargetGraphViewName() const { return m_target_graph_name; } // DEPRECATED?
 	AbstractExpression* getPredicate() const { return m_predicate.get(); }
-	int getStartVertexId() const { return m_t_startVertexId; }
-	int getEndVertexId() const { return m_t_endVertexId; }
-	int getQType() const { return m_t_queryType; }
-	int getPathLength() const { return m_t_pathLength; }
-	int getTopK() const { return m_t_topK; }
-	int getVertexSelectivity() const { return m_t_vSelectivity; }
-	int getEdgeSelectivity() const { return m_t_eSelectivity; }
+	//conjuncts of the predicate on the vertexes (edges) of the paths, evaluated by the
+	//traversal on the vertexes (edges) table tuples rather than on the produced paths
+	AbstractExpression* getVertexPredicate() const { return m_vertexPredicate.get(); }
+	AbstractExpression* getEdgePredicate() const { return m_edgePredicate.get(); }
+	//the traversal arguments, parameterized ones are evaluated on every call,
+	//so these should be read at execution time, after the parameters are bound
+	//the start and end vertexes are keys of the vertexes (a null NValue when not given),
+	//the graph view maps them to its vertex ids
+	NValue getStartVertexKey() const { return evalKey(m_startVertexExpression.get(), m_t_startVertexId); }
+	NValue getEndVertexKey() const { return evalKey(m_endVertexExpression.get(), m_t_endVertexId); }
+	int getQType() const { return evalArgument(m_queryTypeExpression.get(), m_t_queryType); }
+	int getPathLength() const { return evalArgument(m_pathLengthExpression.get(), m_t_pathLength); }
+	int getTopK() const { return evalArgument(m_topKExpression.get(), m_t_topK); }
+	int getVertexSelectivity() const { return evalArgument(m_vSelectivityExpression.get(), m_t_vSelectivity); }
+	int getEdgeSelectivity() const { return evalArgument(m_eSelectivityExpression.get(), m_t_eSelectivity); }
 	std::string getSPColumnName() const { return m_sp_column_name; }
 	int getSPColumnIdInEdgesTable() const;
 
@@ -46,8 +55,16 @@ public:
 
 	bool isEmptyScan() const { return m_isEmptyScan; }
 
+	//the columns of the paths the statement reads, as PathTraversalContext::PATH_* bits
+	int getPathColumns() const { return m_pathColumns; }
+	//vertexes the traversals of one execution of this scan may expand, all together
+	//(the MAXEXPANSIONS hint), 0 for no limit
+	int64_t getMaxExpansions() const { return m_maxExpansions; }
+
 protected:
     void loadFromJSONObject(PlannerDomValue obj);
+    static int evalArgument(AbstractExpression* expression, int constant);
+    static NValue evalKey(AbstractExpression* expression, int constant);
 
     std::string m_target_graph_name;
     std::string m_sp_column_name;
@@ -59,14 +76,27 @@ protected:
 	int m_t_topK= -1; //prop3
 	int m_t_vSelectivity= -1; //prop4
 	int m_t_eSelectivity= -1; //prop5
+	//parameterized traversal arguments, NULL when the argument is a constant
+	boost::scoped_ptr<AbstractExpression> m_startVertexExpression;
+	boost::scoped_ptr<AbstractExpression> m_endVertexExpression;
+	boost::scoped_ptr<AbstractExpression> m_queryTypeExpression;
+	boost::scoped_ptr<AbstractExpression> m_pathLengthExpression;
+	boost::scoped_ptr<AbstractExpression> m_topKExpression;
+	boost::scoped_ptr<AbstractExpression> m_vSelectivityExpression;
+	boost::scoped_ptr<AbstractExpression> m_eSelectivityExpression;
 	//
 	// This is the predicate used to filter out tuples during the scan
 	//
 	boost::scoped_ptr<AbstractExpression> m_predicate;
+	boost::scoped_ptr<AbstractExpression> m_vertexPredicate;
+	boost::scoped_ptr<AbstractExpression> m_edgePredicate;
 	// True if this scan represents a sub query
 	bool m_isSubQuery;
 	// True if this scan has a predicate that always evaluates to FALSE
 	bool m_isEmptyScan;
+	// Bits of the STARTVERTEXID, ENDVERTEXID, LENGTH, COST and PATH columns the statement reads
+	int m_pathColumns;
+	int64_t m_maxExpansions;
 };
 
 }
@@ -20,6 +20,8 @@
 #include "common/ids.h"
 #include "common/tabletuple.h"
 #include "common/TupleSchema.h"
+#include "graph/GraphTraversalStats.h"
+#include "graph/GraphViewStats.h"
 #include "indexes/IndexStats.h"
 #include "storage/TableStats.h"
 #include "storage/temptable.h"
@@ -43,6 +45,10 @@ namespace
             return TableStats::generateEmptyTableStatsTable();
         case STATISTICS_SELECTOR_TYPE_INDEX:
             return IndexStats::generateEmptyIndexStatsTable();
+        case STATISTICS_SELECTOR_TYPE_GRAPHVIEW:
+            return GraphViewStats::generateEmptyGraphViewStatsTable();
+        case STATISTICS_SELECTOR_TYPE_GRAPHTRAVERSAL:
+            return GraphTraversalStats::generateEmptyGraphTraversalStatsTable();
         default:
             throwFatalException("Attempted to get unsupported stats type");
         }
@@ -51,6 +51,7 @@
 #include "DRTupleStreamUndoAction.h"
 #include "MaterializedViewHandler.h"
 #include "MaterializedViewTriggerForWrite.h"
+#include "graph/GraphView.h"
 #include "PersistentTableStats.h"
 #include "PersistentTableUndoInsertAction.h"
 #include "PersistentTableUndoDeleteAction.h"
@@ -412,7 +413,10 @@ void PersistentTable::truncateTable(VoltDBEngine* engine, bool fallible) {
     // buggy code paths from v6.6.  That will just cause merge conflicts
     // with the rework that is currently in progress but will land after
     // v6.6.
-    if ( ! m_viewHandlers.empty()) {
+    // The graph views reference the tuple storage of this table, and they
+    // would be left pointing to the replaced table, so truncate retail
+    // and let the graph views unlink the elements one at a time.
+    if ( ! m_viewHandlers.empty() || ! m_graphViews.empty()) {
         /* // enable to debug
         std::cout << "DEBUG: truncating source of join view table (retail) "
                   << activeTupleCount()
@@ -725,6 +729,11 @@ void PersistentTable::insertTupleCommon(TableTuple &source, TableTuple &target,
     for (int i = 0; i < m_views.size(); i++) {
         m_views[i]->processTupleInsert(target, fallible);
     }
+
+    // handle any graph views
+    BOOST_FOREACH (GraphView* graphView, m_graphViews) {
+        graphView->handleTupleInsert(this, target, fallible);
+    }
 }
 
 /*
@@ -867,6 +876,11 @@ void PersistentTable::updateTupleWithSpecificIndexes(TableTuple &targetTupleToUp
         for (int i = 0; i < m_views.size(); i++) {
             m_views[i]->processTupleDelete(targetTupleToUpdate, fallible);
         }
+        // Unlink the pre-update graph element, it is re-linked below
+        // using the new values stored at the same address.
+        BOOST_FOREACH (GraphView* graphView, m_graphViews) {
+            graphView->handleTupleDelete(this, targetTupleToUpdate, fallible);
+        }
     }
 
     if (m_schema->getUninlinedObjectColumnCount() != 0) {
@@ -945,6 +959,11 @@ void PersistentTable::updateTupleWithSpecificIndexes(TableTuple &targetTupleToUp
     for (int i = 0; i < m_views.size(); i++) {
         m_views[i]->processTupleInsert(targetTupleToUpdate, fallible);
     }
+
+    // handle any graph views
+    BOOST_FOREACH (GraphView* graphView, m_graphViews) {
+        graphView->handleTupleInsert(this, targetTupleToUpdate, fallible);
+    }
 }
 
 /*
@@ -1054,6 +1073,11 @@ void PersistentTable::deleteTuple(TableTuple &target, bool fallible) {
         for (int i = 0; i < m_views.size(); i++) {
             m_views[i]->processTupleDelete(target, fallible);
         }
+
+        // for graph views
+        BOOST_FOREACH (GraphView* graphView, m_graphViews) {
+            graphView->handleTupleDelete(this, target, fallible);
+        }
     }
 
     if (fallible) {
@@ -1309,6 +1333,23 @@ void PersistentTable::dropMaterializedView(MaterializedViewTriggerForWrite* targ
     delete targetView;
 }
 
+/*
+ * Start maintaining a graph view from this table. The graph view is owned by
+ * its GraphViewCatalogDelegate, the table only feeds it.
+ */
+void PersistentTable::addGraphView(GraphView* graphView) {
+    if (find(m_graphViews.begin(), m_graphViews.end(), graphView) == m_graphViews.end()) {
+        m_graphViews.push_back(graphView);
+    }
+}
+
+void PersistentTable::dropGraphView(GraphView* graphView) {
+    std::vector<GraphView*>::iterator toGraphView = find(m_graphViews.begin(), m_graphViews.end(), graphView);
+    if (toGraphView != m_graphViews.end()) {
+        m_graphViews.erase(toGraphView);
+    }
+}
+
 // ------------------------------------------------------------------
 // UTILITY
 // ------------------------------------------------------------------
@@ -1552,6 +1593,9 @@ void PersistentTable::swapTuples(TableTuple &originalTuple,
                                     m_name.c_str(), index->getName().c_str());
             }
         }
+        BOOST_FOREACH(GraphView* graphView, m_graphViews) {
+            graphView->handleTupleMove(this, originalTuple, destinationTuple);
+        }
     }
 }
 
@@ -73,6 +73,8 @@
 class CompactionTest_BasicCompaction;
 class CompactionTest_CompactionWithCopyOnWrite;
 class CopyOnWriteTest;
+class GraphViewMaintenanceTest_Compaction;
+class GraphViewMaintenanceTest_BulkLoad;
 
 namespace catalog {
 class MaterializedViewInfo;
@@ -82,6 +84,7 @@ namespace voltdb {
 class CoveringCellIndexTest_TableCompaction;
 class MaterializedViewTriggerForWrite;
 class MaterializedViewHandler;
+class GraphView;
 class TableIndex;
 
 /**
@@ -205,6 +208,8 @@ class PersistentTable : public Table, public UndoQuantumReleaseInterest,
     friend class ::CopyOnWriteTest;
     friend class ::CompactionTest_BasicCompaction;
     friend class ::CompactionTest_CompactionWithCopyOnWrite;
+    friend class ::GraphViewMaintenanceTest_Compaction;
+    friend class ::GraphViewMaintenanceTest_BulkLoad;
     friend class CoveringCellIndexTest_TableCompaction;
     friend class MaterializedViewHandler;
     friend class ScopedDeltaTableContext;
@@ -369,6 +374,13 @@ public:
 
     std::vector<MaterializedViewTriggerForWrite*>& views() { return m_views; }
 
+    /** Add/drop/list graph views whose topology is maintained from this table */
+    void addGraphView(GraphView* graphView);
+
+    void dropGraphView(GraphView* graphView);
+
+    std::vector<GraphView*>& graphViews() { return m_graphViews; }
+
     TableTuple& copyIntoTempTuple(TableTuple &source) {
         assert (m_tempTuple.m_data);
         m_tempTuple.copy(source);
@@ -674,6 +686,9 @@ private:
     // list of materialized views that are sourced from this table
     std::vector<MaterializedViewTriggerForWrite*> m_views;
 
+    // list of graph views using this table as their vertexes or edges table
+    std::vector<GraphView*> m_graphViews;
+
     // STATS
     PersistentTableStats m_stats;
 
@@ -0,0 +1,56 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.voltdb.VoltTable.ColumnInfo;
+
+/**
+ * Work done by the path traversals of a site, one row per graph view and
+ * query type, filled in from the EE GraphTraversalStats. The times are in
+ * microseconds.
+ */
+public class GraphTraversalStats extends SiteStatsSource {
+    public GraphTraversalStats(long siteId) {
+        super( siteId, true);
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        return null;
+    }
+
+    // Used to fill in an empty table before the EE has provided us
+    // with one. Keep it in sync with the EE schema in GraphTraversalStats.cpp.
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo("PARTITION_ID", VoltType.BIGINT));
+        columns.add(new ColumnInfo("GRAPH_VIEW_NAME", VoltType.STRING));
+        columns.add(new ColumnInfo("QUERY_TYPE", VoltType.INTEGER));
+        columns.add(new ColumnInfo("TRAVERSALS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("VERTEXES_EXPANDED", VoltType.BIGINT));
+        columns.add(new ColumnInfo("EDGES_RELAXED", VoltType.BIGINT));
+        columns.add(new ColumnInfo("ROWS_EMITTED", VoltType.BIGINT));
+        columns.add(new ColumnInfo("TOTAL_TIME", VoltType.BIGINT));
+        columns.add(new ColumnInfo("AVG_TIME", VoltType.BIGINT));
+        columns.add(new ColumnInfo("MAX_TIME", VoltType.BIGINT));
+    }
+}
@@ -0,0 +1,64 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.voltdb.VoltTable.ColumnInfo;
+
+/**
+ * Size, traversal cache usage and bulk load progress of the graph views of
+ * a site, filled in from the EE GraphViewStats.
+ * The memory columns are in KB and BUILD_TIME is in microseconds.
+ */
+public class GraphViewStats extends SiteStatsSource {
+    public GraphViewStats(long siteId) {
+        super( siteId, true);
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        return null;
+    }
+
+    // Used to fill in an empty table before the EE has provided us
+    // with one. Keep it in sync with the EE schema in GraphViewStats.cpp.
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo("PARTITION_ID", VoltType.BIGINT));
+        columns.add(new ColumnInfo("GRAPH_VIEW_NAME", VoltType.STRING));
+        columns.add(new ColumnInfo("VERTEX_COUNT", VoltType.BIGINT));
+        columns.add(new ColumnInfo("EDGE_COUNT", VoltType.BIGINT));
+        columns.add(new ColumnInfo("VERTEX_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("EDGE_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("ADJACENCY_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("CSR_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("LANDMARK_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("REACHABILITY_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("BUILD_TIME", VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE_ENTRIES", VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE_HITS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE_MISSES", VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE_EVICTIONS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("BULK_LOADING", VoltType.BIGINT));
+        columns.add(new ColumnInfo("BULK_LOADED_TUPLES", VoltType.BIGINT));
+    }
+}
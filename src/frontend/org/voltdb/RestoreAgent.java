@@ -140,6 +140,9 @@ SnapshotCompletionInterest, Promotable
     // The snapshot to restore
     private SnapshotInfo m_snapshotToRestore = null;
 
+    // Whether the restore is bracketed by @GraphTopologyRestore for the graph views
+    private volatile boolean m_restoresGraphTopology = false;
+
     // The txnId of the truncation snapshot generated at the end.
     private long m_truncationSnapshot = Long.MIN_VALUE;
     private Map<Integer, Long> m_truncationSnapshotPerPartition = new HashMap<Integer, Long>();
@@ -196,8 +199,20 @@ SnapshotCompletionInterest, Promotable
                             // Restore the hashinator if there's command log to replay and we're running elastic
                             jsObj.put(SnapshotUtil.JSON_HASHINATOR, true);
                         }
-                        Object[] params = new Object[] { jsObj.toString() };
-                        initSnapshotWork(params);
+                        final Object[] params = new Object[] { jsObj.toString() };
+                        if (!VoltDB.instance().getCatalogContext().database.getGraphviews().isEmpty()) {
+                            // the graph views build their topology once the tables are restored
+                            m_restoresGraphTopology = true;
+                            initGraphTopologyRestoreWork("BEGIN", new Runnable() {
+                                @Override
+                                public void run() {
+                                    initSnapshotWork(params);
+                                }
+                            });
+                        }
+                        else {
+                            initSnapshotWork(params);
+                        }
                     }
 
                     // if no snapshot to restore, transition immediately.
@@ -440,6 +455,8 @@ SnapshotCompletionInterest, Promotable
                         }
                         VoltDB.crashGlobalVoltDB("Failed to restore from snapshot: " +
                                 res.getStatusString(), false, null);
+                    } else if (m_restoresGraphTopology) {
+                        initGraphTopologyRestoreWork("END", m_changeStateFunctor);
                     } else {
                         Thread networkHandoff = new Thread() {
                             @Override
@@ -1241,6 +1258,54 @@ SnapshotCompletionInterest, Promotable
                                       System.nanoTime());
     }
 
+    /**
+     * Begin or end the restore of the graph views, then carry on with the restore. The graph views
+     * fall back to building their topology from their tables when their image cannot be loaded, so
+     * a failure leaves them suspended without a topology, and fails the restore as the restore of
+     * the tables does.
+     */
+    private void initGraphTopologyRestoreWork(final String action, final Runnable next) {
+        final String procedureName = "@GraphTopologyRestore";
+        Config restore = SystemProcedureCatalog.listing.get(procedureName);
+        Procedure restoreProc = restore.asCatalogProcedure();
+        StoredProcedureInvocation spi = new StoredProcedureInvocation();
+        spi.procName = procedureName;
+        final String path = SnapshotUtil.getRealPath(m_snapshotToRestore.pathType, m_snapshotToRestore.path);
+        final String nonce = m_snapshotToRestore.nonce;
+        spi.params = new FutureTask<ParameterSet>(new Callable<ParameterSet>() {
+            @Override
+            public ParameterSet call() throws Exception {
+                return ParameterSet.fromArrayWithCopy(path, nonce, action);
+            }
+        });
+        spi.setClientHandle(m_restoreAdapter.registerCallback(new SimpleClientResponseAdapter.Callback() {
+            @Override
+            public void handleResponse(ClientResponse res)
+            {
+                if (res.getStatus() != ClientResponse.SUCCESS) {
+                    VoltDB.crashGlobalVoltDB("Failed to " + action.toLowerCase() +
+                            " the restore of the graph views: " + res.getStatusString(), false, null);
+                    return;
+                }
+                Thread networkHandoff = new Thread() {
+                    @Override
+                    public void run() {
+                        next.run();
+                    }
+                };
+                networkHandoff.start();
+            }
+        }));
+
+        m_initiator.createTransaction(m_restoreAdapter.connectionId(), spi,
+                                      restoreProc.getReadonly(),
+                                      restoreProc.getSinglepartition(),
+                                      restoreProc.getEverysite(),
+                                      0,//Can provide anything for multi-part
+                                      0,
+                                      System.nanoTime());
+    }
+
     /**
      * Change the state of the restore agent based on the current state.
      */
@@ -203,6 +203,12 @@ public interface SiteProcedureConnection {
     public TheHashinator getCurrentHashinator();
     public void updateHashinator(TheHashinator hashinator);
     public long[] validatePartitioning(long tableIds[], int hashinatorType, byte hashinatorConfig[]);
+    public byte[] runGraphAnalytics(String graphView, String algorithm, int maxIterations, String resultTable);
+    public int setGraphBulkLoad(String tableName, boolean begin);
+    public byte[] getGraphTopologyChunk(String graphView, long offset);
+    public void stageGraphTopologyChunk(String graphView, byte[] chunk);
+    public void discardGraphTopologyImage(String graphView);
+    public int setGraphTopologyRestore(boolean begin);
     public void notifyOfSnapshotNonce(String nonce, long snapshotSpHandle);
     public long applyBinaryLog(long txnId, long spHandle, long uniqueId, int remoteClusterId, byte logData[]);
     public void setDRProtocolVersion(int drVersion);
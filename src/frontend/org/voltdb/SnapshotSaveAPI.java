@@ -17,10 +17,12 @@
 
 package org.voltdb;
 
+import java.io.File;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.Callable;
@@ -41,6 +43,7 @@ import org.json_voltpatches.JSONStringer;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
 import org.voltcore.zk.ZKUtil;
+import org.voltdb.catalog.GraphView;
 import org.voltdb.dtxn.SiteTracker;
 import org.voltdb.iv2.TxnEgo;
 import org.voltdb.sysprocs.saverestore.CSVSnapshotWritePlan;
@@ -82,6 +85,9 @@ public class SnapshotSaveAPI
     private static final AtomicReference<VoltTable> m_createResult = new AtomicReference<VoltTable>();
     private static final AtomicBoolean m_createSuccess = new AtomicBoolean(false);
     private static ListenableFuture<DeferredSnapshotSetup> m_deferredSetupFuture = null;
+    // Graph views whose topology image each site writes, also synchronized on m_createLock
+    private static final Map<Long, List<GraphView>> m_graphViewsForHSIds =
+            new HashMap<Long, List<GraphView>>();
 
     //Protected by SnapshotSiteProcessor.m_snapshotCreateLock when accessed from SnapshotSaveAPI.startSnanpshotting
     private static Map<Integer, Long> m_partitionLastSeenTransactionIds =
@@ -210,12 +216,14 @@ public class SnapshotSaveAPI
         try {
             SnapshotSiteProcessor.m_snapshotCreateSetupBarrier.await();
             try {
+                List<GraphView> graphViews = null;
                 synchronized (m_createLock) {
                     SNAP_LOG.debug("Found tasks for HSIds: " +
                             CoreUtils.hsIdCollectionToString(m_taskListsForHSIds.keySet()));
                     SNAP_LOG.debug("Looking for local HSID: " +
                             CoreUtils.hsIdToString(context.getSiteId()));
                     Deque<SnapshotTableTask> taskList = m_taskListsForHSIds.remove(context.getSiteId());
+                    graphViews = m_graphViewsForHSIds.remove(context.getSiteId());
                     // If createSetup failed, then the first site to reach here is going
                     // to send the results table generated by createSetup, and then empty out the table.
                     // All other sites to reach here will send the appropriate empty table.
@@ -280,6 +288,13 @@ public class SnapshotSaveAPI
                         }, CoreUtils.SAMETHREADEXECUTOR);
                     }
                 }
+                // The images are taken at the snapshot transaction, before any site
+                // goes on to the snapshot work and its completion tasks can run
+                if (graphViews != null && m_createSuccess.get()) {
+                    writeGraphTopologies(graphViews,
+                            SnapshotUtil.getRealPath(SnapshotPathType.valueOf(pathType), file_path),
+                            file_nonce, context);
+                }
             } finally {
                 SnapshotSiteProcessor.m_snapshotCreateFinishBarrier.await(120, TimeUnit.SECONDS);
             }
@@ -476,6 +491,32 @@ public class SnapshotSaveAPI
         }
     }
 
+    /**
+     * Write the topology images of the graph views this site saves with the snapshot.
+     * A graph view whose image is not written is built from its tables on restore.
+     */
+    private static void writeGraphTopologies(List<GraphView> graphViews, String file_path,
+            String file_nonce, SystemProcedureExecutionContext context)
+    {
+        for (GraphView graphView : graphViews) {
+            File file = SnapshotUtil.constructFileForGraphTopology(
+                    graphView, file_path, file_nonce, context.getPartitionId());
+            try {
+                Runnable completionTask = SnapshotUtil.writeGraphTopology(
+                        file, context.getSiteProcedureConnection(), graphView.getTypeName());
+                if (completionTask == null) {
+                    // a bulk load in progress left the graph view without a topology
+                    continue;
+                }
+                SnapshotSiteProcessor.m_tasksOnSnapshotCompletion.offer(completionTask);
+            }
+            catch (Exception e) {
+                SNAP_LOG.warn("Failed to save the topology of graph view " + graphView.getTypeName() +
+                        " to " + file, e);
+            }
+        }
+    }
+
     private void createSetupIv2(
             String file_path, final String pathType, final String file_nonce, SnapshotFormat format,
             final long txnId, final Map<Integer, Long> partitionTransactionIds,
@@ -518,10 +559,14 @@ public class SnapshotSaveAPI
                 SNAP_LOG.warn("Found lingering snapshot tasks while setting up a snapshot");
             }
             m_taskListsForHSIds.clear();
+            m_graphViewsForHSIds.clear();
             m_createSuccess.set(true);
             m_createResult.set(result);
 
             m_taskListsForHSIds.putAll(plan.getTaskListsForHSIds());
+            if (plan instanceof NativeSnapshotWritePlan) {
+                m_graphViewsForHSIds.putAll(((NativeSnapshotWritePlan)plan).getGraphViewsForHSIds());
+            }
 
             // HACK HACK HACK.  If the task list is empty, this host has no work to do for
             // this snapshot.  We're going to create an empty list of tasks for one of the sites to do
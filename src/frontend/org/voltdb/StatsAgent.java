@@ -391,6 +391,12 @@ public class StatsAgent extends OpsAgent
         case INDEX:
             stats = collectStats(StatsSelector.INDEX, interval);
             break;
+        case GRAPHVIEW:
+            stats = collectStats(StatsSelector.GRAPHVIEW, interval);
+            break;
+        case GRAPHTRAVERSAL:
+            stats = collectStats(StatsSelector.GRAPHTRAVERSAL, interval);
+            break;
         case PROCEDURE:
         case PROCEDUREINPUT:
         case PROCEDUREOUTPUT:
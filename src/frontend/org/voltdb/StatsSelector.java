@@ -17,8 +17,12 @@
 package org.voltdb;
 
 public enum StatsSelector {
+    // TABLE through GRAPHTRAVERSAL are sent to the EE by ordinal,
+    // keep them in the order of StatisticsSelectorType in ee/common/types.h
     TABLE,            // invoked as @stat table
     INDEX,            // invoked as @stat index
+    GRAPHVIEW,        // invoked as @stat graphview
+    GRAPHTRAVERSAL,   // invoked as @stat graphtraversal
     PROCEDURE,        // invoked as @stat procedure
     STARVATION,
     INITIATOR,        // invoked as @stat initiator
@@ -156,6 +156,10 @@ public class SystemProcedureCatalog {
         builder.put("@LoadSinglepartitionTable",new Config("org.voltdb.sysprocs.LoadSinglepartitionTable", true,  false, false, 0,    VoltType.VARBINARY, false, false, false, false,     true));
         builder.put("@Promote",                 new Config("org.voltdb.sysprocs.Promote",                  false, false, true,  0,    VoltType.INVALID,   false, false, true,  true,      false));
         builder.put("@ValidatePartitioning",    new Config("org.voltdb.sysprocs.ValidatePartitioning",     false, false, false, 0,    VoltType.INVALID,   false, false, true,  true,      false));
+        builder.put("@GraphAnalytics",          new Config("org.voltdb.sysprocs.GraphAnalytics",           false, false, false, 0,    VoltType.INVALID,   false, false, false, false,     true));
+        builder.put("@GraphAnalyticsRound",     new Config("org.voltdb.sysprocs.GraphAnalyticsRound",      false, true,  false, 0,    VoltType.INVALID,   false, false, true,  true,      false));
+        builder.put("@GraphBulkLoad",           new Config("org.voltdb.sysprocs.GraphBulkLoad",            false, false, false, 0,    VoltType.INVALID,   false, false, false, false,     true));
+        builder.put("@GraphTopologyRestore",    new Config("org.voltdb.sysprocs.GraphTopologyRestore",     false, false, false, 0,    VoltType.INVALID,   false, false, true,  false,     false));
         builder.put("@GetHashinatorConfig",     new Config("org.voltdb.sysprocs.GetHashinatorConfig",      false, true,  false, 0,    VoltType.INVALID,   true,  false, true,  true,      false));
         builder.put("@ApplyBinaryLogSP",        new Config("org.voltdb.sysprocs.ApplyBinaryLogSP",         true,  false, false, 0,    VoltType.VARBINARY, true,  false, false, true,      true));
         builder.put("@ApplyBinaryLogMP",        new Config("org.voltdb.sysprocs.ApplyBinaryLogMP",         false, false, false, 0,    VoltType.INVALID,   true,  false, false, true,      true));
@@ -1355,6 +1355,31 @@ public class DDLCompiler {
         }
     }
 
+    /**
+     * A graph view is replicated when both its vertexes and edges tables are
+     * replicated, and partitioned when both are partitioned: every site then
+     * hosts the subgraph built from the rows of its own partition.
+     * A graph view over a partitioned and a replicated table is rejected. Its
+     * sites would link their own vertexes to the edges of every partition (or
+     * the reverse), and traversals would drop the endpoints hosted elsewhere,
+     * as the traversals do not cross partitions.
+     */
+    private void handleGraphPartitions(Database db) throws VoltCompilerException {
+        for (GraphView graph : db.getGraphviews()) {
+            boolean vertexesReplicated = graph.getVtable().getIsreplicated();
+            boolean edgesReplicated = graph.getEtable().getIsreplicated();
+            if (vertexesReplicated != edgesReplicated) {
+                throw m_compiler.new VoltCompilerException(String.format(
+                        "Graph view %s has %s vertexes table %s and %s edges table %s; " +
+                        "the vertexes and edges tables of a graph view must be both partitioned or both replicated.",
+                        graph.getTypeName(),
+                        vertexesReplicated ? "the replicated" : "the partitioned", graph.getVtable().getTypeName(),
+                        edgesReplicated ? "the replicated" : "the partitioned", graph.getEtable().getTypeName()));
+            }
+            graph.setIsreplicated(vertexesReplicated);
+        }
+    }
+
     private TreeSet<String> getExportTableNames() {
         TreeSet<String> exportTableNames = new TreeSet<String>();
         NavigableMap<String, NavigableSet<String>> exportsByTargetName = m_tracker.getExportedTables();
@@ -1390,6 +1415,7 @@ public class DDLCompiler {
 
         fillTrackerFromXML();
         handlePartitions(db);
+        handleGraphPartitions(db);
         m_mvProcessor.startProcessing(db, m_matViewMap, getExportTableNames());
         //m_mvProcessor.startProcessing(db, m_graphViewMap);
     }
@@ -1894,7 +1920,19 @@ public class DDLCompiler {
         }
 
 	}
-    
+
+    /**
+     * Get the source table column of a graph property, or null if the
+     * property is not defined or is not backed by a table column.
+     */
+    private static Column getGraphPropSource(CatalogMap<Column> props, String propName) {
+        Column prop = props.getIgnoreCase(propName);
+        if (prop == null) {
+            return null;
+        }
+        return prop.getMatviewsource();
+    }
+
     private void addGraphToCatalog(Database db, VoltXMLElement node)
             throws VoltCompilerException {
         assert node.name.equals("graph");
@@ -1929,15 +1967,32 @@ public class DDLCompiler {
         boolean isdirected = Boolean.parseBoolean((node.attributes.get("isdirected")));
         
         graph.setIsdirected(isdirected);
+
+        boolean iscsr = Boolean.parseBoolean((node.attributes.get("iscsr")));
+
+        graph.setIscsr(iscsr);
+
+        String landmarks = node.attributes.get("landmarks");
+
+        graph.setLandmarks(landmarks == null ? 0 : Integer.parseInt(landmarks));
+
+        boolean reachabilityindex = Boolean.parseBoolean(node.attributes.get("reachabilityindex"));
+
+        graph.setHasreachabilityindex(reachabilityindex);
+
+        String traversalcachemb = node.attributes.get("traversalcachemb");
+
+        graph.setTraversalcachemb(traversalcachemb == null ?
+                org.hsqldb_voltpatches.GraphView.DEFAULT_TRAVERSAL_CACHE_MB : Integer.parseInt(traversalcachemb));
         
         // add the original DDL to the table (or null if it's not there)
         TableAnnotation annotation = new TableAnnotation();
         graph.setAnnotation(annotation);
         annotation.ddl = node.attributes.get("DDL");
 
-        // all tables start replicated
-        // if a partition is found in the project file later,
-        //  then this is reversed
+        // all graph views start replicated
+        // if their vertexes or edges table is partitioned,
+        //  then this is reversed by handleGraphPartitions
         graph.setIsreplicated(true);
 
         // map of index replacements for later constraint fixup
@@ -1988,7 +2043,14 @@ public class DDLCompiler {
         destColumnArray = CatalogUtil.getSortedCatalogItems(graph.getEdgeprops(), "index");
         processGraphPropMaterializer(db, Etable, Equery, destColumnArray);
         destColumnArray = null;
-        
+
+        // Record the source columns that drive the incremental maintenance
+        // of the graph topology on DML against the vertexes / edges tables
+        graph.setVertexidcolumn(getGraphPropSource(graph.getVertexprops(), "ID"));
+        graph.setEdgeidcolumn(getGraphPropSource(graph.getEdgeprops(), "ID"));
+        graph.setEdgefromcolumn(getGraphPropSource(graph.getEdgeprops(), "FROM"));
+        graph.setEdgetocolumn(getGraphPropSource(graph.getEdgeprops(), "TO"));
+
         graph.setSignature(CatalogUtil.getSignatureForTable(name, columnTypes));
 
         /*
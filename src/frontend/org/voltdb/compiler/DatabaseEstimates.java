@@ -20,6 +20,9 @@ package org.voltdb.compiler;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import org.voltdb.catalog.GraphView;
+import org.voltdb.catalog.Table;
+
 public class DatabaseEstimates {
 
     public static class TableEstimates {
@@ -28,7 +31,20 @@ public class DatabaseEstimates {
         public ArrayList<ScalarValueHints> valueHints = new ArrayList<ScalarValueHints>();
     }
 
+    /**
+     * Size and shape of a graph view: its vertex and edge counts and
+     * the average number of edges a traversal expands from a vertex.
+     */
+    public static class GraphEstimates {
+        public static final long DEFAULT_AVERAGE_FANOUT = 10;
+
+        public long vertexes;
+        public long edges;
+        public long averageFanOut;
+    }
+
     HashMap<String, TableEstimates> tables = new HashMap<String, TableEstimates>();
+    HashMap<String, GraphEstimates> graphs = new HashMap<String, GraphEstimates>();
 
     public TableEstimates getEstimatesForTable(String tableName) {
         if (tables.containsKey(tableName) == false)
@@ -36,4 +52,38 @@ public class DatabaseEstimates {
 
         return tables.get(tableName);
     }
+
+    /**
+     * The counts stored on the graph view in the catalog win, otherwise the
+     * graph is assumed to be as large as its vertexes and edges tables.
+     */
+    public GraphEstimates getEstimatesForGraph(GraphView graph) {
+        GraphEstimates graphEstimates = graphs.get(graph.getTypeName());
+        if (graphEstimates != null)
+            return graphEstimates;
+
+        graphEstimates = new GraphEstimates();
+        graphEstimates.vertexes = graph.getEstimatedvertexescount();
+        if (graphEstimates.vertexes <= 0)
+            graphEstimates.vertexes = getEstimatesForSourceTable(graph.getVtable()).maxTuples;
+        graphEstimates.edges = graph.getEstimatededgescount();
+        if (graphEstimates.edges <= 0)
+            graphEstimates.edges = getEstimatesForSourceTable(graph.getEtable()).maxTuples;
+        if (graph.getEstimatedvertexescount() > 0 && graph.getEstimatededgescount() > 0) {
+            // an undirected edge is expanded from both of its end vertexes
+            long expandedEdges = graph.getIsdirected() ? graphEstimates.edges : 2 * graphEstimates.edges;
+            graphEstimates.averageFanOut = Math.max(1, expandedEdges / graphEstimates.vertexes);
+        }
+        else
+            graphEstimates.averageFanOut = GraphEstimates.DEFAULT_AVERAGE_FANOUT;
+
+        graphs.put(graph.getTypeName(), graphEstimates);
+        return graphEstimates;
+    }
+
+    private TableEstimates getEstimatesForSourceTable(Table table) {
+        if (table == null)
+            return new TableEstimates();
+        return getEstimatesForTable(table.getTypeName());
+    }
 }
@@ -572,6 +572,22 @@ public class TupleValueExpression extends AbstractValueExpression {
         m_needsDifferentiation = false;
     }
 
+    /**
+     * @return the graph element (VERTEXES, EDGES or PATHS) of a graph view
+     * column, or null for a table column
+     */
+    public String getGraphObject() {
+        return m_graphObject;
+    }
+
+    /**
+     * @return the position of the graph element within the path,
+     * -1 if the column refers to all of them
+     */
+    public int getGraphObjectIdx() {
+        return m_graphObjectIdx;
+    }
+
     private String getGraphObjectInfo() {
     	return (m_graphObjectIdx != -1)? "["+Integer.toString(m_graphObjectIdx)+"]": "";//"[0..*]";
     }
@@ -594,6 +594,36 @@ public class MpRoSite implements Runnable, SiteProcedureConnection
         throw new RuntimeException("RO MP Site doesn't do this, shouldn't be here.");
     }
 
+    @Override
+    public byte[] runGraphAnalytics(String graphView, String algorithm, int maxIterations, String resultTable) {
+        throw new RuntimeException("RO MP Site doesn't do this, shouldn't be here.");
+    }
+
+    @Override
+    public int setGraphBulkLoad(String tableName, boolean begin) {
+        throw new RuntimeException("RO MP Site doesn't do this, shouldn't be here.");
+    }
+
+    @Override
+    public byte[] getGraphTopologyChunk(String graphView, long offset) {
+        throw new RuntimeException("RO MP Site doesn't do this, shouldn't be here.");
+    }
+
+    @Override
+    public void stageGraphTopologyChunk(String graphView, byte[] chunk) {
+        throw new RuntimeException("RO MP Site doesn't do this, shouldn't be here.");
+    }
+
+    @Override
+    public void discardGraphTopologyImage(String graphView) {
+        throw new RuntimeException("RO MP Site doesn't do this, shouldn't be here.");
+    }
+
+    @Override
+    public int setGraphTopologyRestore(boolean begin) {
+        throw new RuntimeException("RO MP Site doesn't do this, shouldn't be here.");
+    }
+
     @Override
     public void setBatch(int batchIndex) {
         // don't need to do anything here
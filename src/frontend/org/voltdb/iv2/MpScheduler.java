@@ -68,6 +68,11 @@ public class MpScheduler extends Scheduler
     private final List<Long> m_iv2Masters;
     private final Map<Integer, Long> m_partitionMasters;
     private final List<Long> m_buddyHSIds;
+    // The local sites take turns running the local work of the MP transactions.
+    // The reads of replicated tables (and of the replicated graph views built on
+    // them) are borrowed by the buddy site alone, so concurrent read-only
+    // transactions from the MP read pool, such as long PATHS traversals, run on
+    // different sites rather than queueing behind each other on the first one.
     private int m_nextBuddy = 0;
     //Generator of pre-IV2ish timestamp based unique IDs
     private final UniqueIdGenerator m_uniqueIdGenerator;
@@ -322,7 +327,7 @@ public class MpScheduler extends Scheduler
                     m_buddyHSIds.get(m_nextBuddy), false);
         }
 
-        m_nextBuddy = (m_nextBuddy++) % m_buddyHSIds.size();
+        m_nextBuddy = (m_nextBuddy + 1) % m_buddyHSIds.size();
         m_outstandingTxns.put(task.m_txnState.txnId, task.m_txnState);
         m_pendingTasks.offer(task);
     }
@@ -409,7 +414,7 @@ public class MpScheduler extends Scheduler
                     m_buddyHSIds.get(m_nextBuddy), true);
         }
 
-        m_nextBuddy = (m_nextBuddy++) % m_buddyHSIds.size();
+        m_nextBuddy = (m_nextBuddy + 1) % m_buddyHSIds.size();
         m_outstandingTxns.put(task.m_txnState.txnId, task.m_txnState);
         m_pendingTasks.offer(task);
     }
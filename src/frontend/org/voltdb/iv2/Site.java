@@ -46,6 +46,8 @@ import org.voltdb.DRLogSegmentId;
 import org.voltdb.DependencyPair;
 import org.voltdb.ExtensibleSnapshotDigestData;
 import org.voltdb.HsqlBackend;
+import org.voltdb.GraphTraversalStats;
+import org.voltdb.GraphViewStats;
 import org.voltdb.IndexStats;
 import org.voltdb.LoadedProcedureSet;
 import org.voltdb.MemoryStats;
@@ -79,6 +81,7 @@ import org.voltdb.catalog.Cluster;
 import org.voltdb.catalog.DRCatalogDiffEngine;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Deployment;
+import org.voltdb.catalog.GraphView;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Table;
 import org.voltdb.dtxn.SiteTracker;
@@ -133,6 +136,14 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
     private final static int kStateReplayingRejoin = 2;
     private int m_rejoinState;
     private final TaskLog m_rejoinTaskLog;
+
+    // Actions of the graph topology restore tasks, and the largest chunk of
+    // a topology image handed to the EE at once, as the EE hands them over
+    private final static byte GRAPH_TOPOLOGY_RESTORE_BEGIN = 0;
+    private final static byte GRAPH_TOPOLOGY_RESTORE_APPEND = 1;
+    private final static byte GRAPH_TOPOLOGY_RESTORE_END = 2;
+    private final static byte GRAPH_TOPOLOGY_RESTORE_DISCARD = 3;
+    private final static int GRAPH_TOPOLOGY_CHUNK_SIZE = 1024 * 1024;
     private JoinProducerBase.JoinCompletionAction m_replayCompletionAction;
 
     // Enumerate execution sites by host.
@@ -157,6 +168,8 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
     // Stats
     final TableStats m_tableStats;
     final IndexStats m_indexStats;
+    final GraphViewStats m_graphViewStats;
+    final GraphTraversalStats m_graphTraversalStats;
     final MemoryStats m_memStats;
 
     // Each execution site manages snapshot using a SnapshotSiteProcessor
@@ -599,11 +612,21 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
             agent.registerStatsSource(StatsSelector.INDEX,
                                       m_siteId,
                                       m_indexStats);
+            m_graphViewStats = new GraphViewStats(m_siteId);
+            agent.registerStatsSource(StatsSelector.GRAPHVIEW,
+                                      m_siteId,
+                                      m_graphViewStats);
+            m_graphTraversalStats = new GraphTraversalStats(m_siteId);
+            agent.registerStatsSource(StatsSelector.GRAPHTRAVERSAL,
+                                      m_siteId,
+                                      m_graphTraversalStats);
             m_memStats = memStats;
         } else {
             // MPI doesn't need to track these stats
             m_tableStats = null;
             m_indexStats = null;
+            m_graphViewStats = null;
+            m_graphTraversalStats = null;
             m_memStats = null;
         }
     }
@@ -1248,6 +1271,30 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
                 m_indexStats.resetStatsTable();
             }
 
+            // update graph view and traversal stats
+            CatalogMap<GraphView> graphViews = m_context.database.getGraphviews();
+            int[] graphViewIds = new int[graphViews.size()];
+            i = 0;
+            for (GraphView graphView : graphViews) {
+                graphViewIds[i++] = graphView.getRelativeIndex();
+            }
+            final VoltTable[] s3 =
+                m_ee.getStats(StatsSelector.GRAPHVIEW, graphViewIds, false, time);
+            if ((s3 != null) && (s3.length > 0)) {
+                m_graphViewStats.setStatsTable(s3[0]);
+            }
+            else {
+                m_graphViewStats.resetStatsTable();
+            }
+            final VoltTable[] s4 =
+                m_ee.getStats(StatsSelector.GRAPHTRAVERSAL, graphViewIds, false, time);
+            if ((s4 != null) && (s4.length > 0)) {
+                m_graphTraversalStats.setStatsTable(s4[0]);
+            }
+            else {
+                m_graphTraversalStats.resetStatsTable();
+            }
+
             // update the rolled up memory statistics
             if (m_memStats != null) {
                 m_memStats.eeUpdateMemStats(m_siteId,
@@ -1538,6 +1585,118 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
         return mispartitionedRows;
     }
 
+    /**
+     * Run at most maxIterations more iterations of the algorithm over the graph view and
+     * return whether it is done and the iterations run so far, as serialized by the EE.
+     * With a result table, which the EE checks is empty, run the iterations left instead,
+     * and also return the vertex keys and their results
+     */
+    @Override
+    public byte[] runGraphAnalytics(String graphView, String algorithm, int maxIterations, String resultTable) {
+        byte graphViewBytes[] = graphView.getBytes(Charsets.UTF_8);
+        byte algorithmBytes[] = algorithm.getBytes(Charsets.UTF_8);
+        byte resultTableBytes[] = resultTable == null ? new byte[0] : resultTable.getBytes(Charsets.UTF_8);
+        ByteBuffer paramBuffer = m_ee.getParamBufferForExecuteTask(
+                4 + graphViewBytes.length + 4 + algorithmBytes.length + 4 + 1 + 4 + resultTableBytes.length);
+        paramBuffer.putInt(graphViewBytes.length);
+        paramBuffer.put(graphViewBytes);
+        paramBuffer.putInt(algorithmBytes.length);
+        paramBuffer.put(algorithmBytes);
+        paramBuffer.putInt(maxIterations);
+        paramBuffer.put((byte)(resultTable == null ? 0 : 1));
+        if (resultTable != null) {
+            paramBuffer.putInt(resultTableBytes.length);
+            paramBuffer.put(resultTableBytes);
+        }
+        return m_ee.executeTask(TaskType.GRAPH_ANALYTICS, paramBuffer);
+    }
+
+    /**
+     * Suspend (begin) or resume (end) the maintenance of the graph views over the table,
+     * and return the number of those graph views
+     */
+    @Override
+    public int setGraphBulkLoad(String tableName, boolean begin) {
+        byte tableNameBytes[] = tableName.getBytes(Charsets.UTF_8);
+        ByteBuffer paramBuffer = m_ee.getParamBufferForExecuteTask(4 + tableNameBytes.length + 1);
+        paramBuffer.putInt(tableNameBytes.length);
+        paramBuffer.put(tableNameBytes);
+        paramBuffer.put(begin ? (byte)1 : (byte)0);
+        ByteBuffer resultBuffer = ByteBuffer.wrap(m_ee.executeTask(TaskType.GRAPH_BULK_LOAD, paramBuffer));
+        return resultBuffer.getInt();
+    }
+
+    /**
+     * Return the chunk of the topology image of the graph view starting at offset, at most
+     * a megabyte as the EE hands it over, or an empty chunk past the end of the image.
+     * The EE takes the image when the chunk at offset 0 is requested, an empty image if
+     * the graph view has no topology to save, and holds it until its last chunk is returned,
+     * so the image is never copied whole into the Java heap
+     */
+    @Override
+    public byte[] getGraphTopologyChunk(String graphView, long offset) {
+        byte graphViewBytes[] = graphView.getBytes(Charsets.UTF_8);
+        ByteBuffer paramBuffer = m_ee.getParamBufferForExecuteTask(4 + graphViewBytes.length + 8);
+        paramBuffer.putInt(graphViewBytes.length);
+        paramBuffer.put(graphViewBytes);
+        paramBuffer.putLong(offset);
+        ByteBuffer resultBuffer = ByteBuffer.wrap(m_ee.executeTask(TaskType.GRAPH_TOPOLOGY_IMAGE, paramBuffer));
+        // the size of the whole image
+        resultBuffer.getLong();
+        byte chunk[] = new byte[resultBuffer.remaining()];
+        resultBuffer.get(chunk);
+        return chunk;
+    }
+
+    /**
+     * Append a chunk of the topology image of the graph view to the image staged in the EE,
+     * which loads it when the restore ends
+     */
+    @Override
+    public void stageGraphTopologyChunk(String graphView, byte[] chunk) {
+        byte graphViewBytes[] = graphView.getBytes(Charsets.UTF_8);
+        int offset = 0;
+        while (offset < chunk.length) {
+            int chunkLength = Math.min(GRAPH_TOPOLOGY_CHUNK_SIZE, chunk.length - offset);
+            ByteBuffer paramBuffer = m_ee.getParamBufferForExecuteTask(
+                    1 + 4 + graphViewBytes.length + 4 + chunkLength);
+            paramBuffer.put(GRAPH_TOPOLOGY_RESTORE_APPEND);
+            paramBuffer.putInt(graphViewBytes.length);
+            paramBuffer.put(graphViewBytes);
+            paramBuffer.putInt(chunkLength);
+            paramBuffer.put(chunk, offset, chunkLength);
+            m_ee.executeTask(TaskType.GRAPH_TOPOLOGY_RESTORE, paramBuffer);
+            offset += chunkLength;
+        }
+    }
+
+    /**
+     * Drop the chunks of the topology image of the graph view staged so far, the graph view
+     * is then built from its tables when the restore ends
+     */
+    @Override
+    public void discardGraphTopologyImage(String graphView) {
+        byte graphViewBytes[] = graphView.getBytes(Charsets.UTF_8);
+        ByteBuffer paramBuffer = m_ee.getParamBufferForExecuteTask(1 + 4 + graphViewBytes.length);
+        paramBuffer.put(GRAPH_TOPOLOGY_RESTORE_DISCARD);
+        paramBuffer.putInt(graphViewBytes.length);
+        paramBuffer.put(graphViewBytes);
+        m_ee.executeTask(TaskType.GRAPH_TOPOLOGY_RESTORE, paramBuffer);
+    }
+
+    /**
+     * Suspend (begin) the maintenance of every graph view while the tables are restored,
+     * or build (end) their topology, and return the number of them loaded from their image
+     */
+    @Override
+    public int setGraphTopologyRestore(boolean begin) {
+        ByteBuffer paramBuffer = m_ee.getParamBufferForExecuteTask(1);
+        paramBuffer.put(begin ? GRAPH_TOPOLOGY_RESTORE_BEGIN : GRAPH_TOPOLOGY_RESTORE_END);
+        ByteBuffer resultBuffer = ByteBuffer.wrap(m_ee.executeTask(TaskType.GRAPH_TOPOLOGY_RESTORE, paramBuffer));
+        resultBuffer.getInt();
+        return resultBuffer.getInt();
+    }
+
     @Override
     public void setBatch(int batchIndex) {
         m_ee.setBatch(batchIndex);
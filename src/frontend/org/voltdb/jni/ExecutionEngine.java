@@ -65,7 +65,11 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
         SP_JAVA_GET_DRID_TRACKER(4),
         SET_DRID_TRACKER(5),
         GENERATE_DR_EVENT(6),
-        RESET_DR_APPLIED_TRACKER(7);
+        RESET_DR_APPLIED_TRACKER(7),
+        GRAPH_ANALYTICS(8),
+        GRAPH_BULK_LOAD(9),
+        GRAPH_TOPOLOGY_IMAGE(10),
+        GRAPH_TOPOLOGY_RESTORE(11);
 
         private TaskType(int taskId) {
             this.taskId = taskId;
@@ -735,8 +735,9 @@ public abstract class AbstractParsedStmt {
      * @return the cache entry
      */
     protected StmtTableScan addGraphToStmtCache(GraphView graph, String tableAlias, String object,
-    		                                    String hint, int startvertexid, int endvertexid,
-    		                                    int prop1, int prop2, int prop3, int prop4, int prop5, int length
+    		                                    String hint, AbstractExpression startvertexid, AbstractExpression endvertexid,
+    		                                    AbstractExpression prop1, AbstractExpression prop2, AbstractExpression prop3,
+    		                                    AbstractExpression prop4, AbstractExpression prop5, AbstractExpression length
     		                                    ) {
         // Create an index into the query Catalog cache
         StmtTableScan tableScan = m_tableAliasMap.get(tableAlias);
@@ -1243,6 +1244,39 @@ public abstract class AbstractParsedStmt {
        }
     }
 
+    /**
+    * Build the expression of a traversal argument of a graph scan.
+    * An argument compared to a parameter (user provided, or generated by the
+    * plan cache parameterization) becomes that ParameterValueExpression, so
+    * one plan serves all the argument values. Otherwise the literal becomes
+    * a constant of the argument type. Returns null if the argument was not specified.
+    * @param tableNode
+    * @param argName
+    * @param argType
+    */
+   private AbstractExpression parseGraphScanArgument(VoltXMLElement tableNode, String argName, VoltType argType) {
+       String valueId = tableNode.attributes.get(argName + "valueid");
+       if (valueId != null) {
+           ParameterValueExpression pve = m_paramsById.get(Long.parseLong(valueId));
+           if (pve != null) {
+               return pve;
+           }
+       }
+       String value = tableNode.attributes.get(argName);
+       if (value == null) {
+           return null;
+       }
+       ConstantValueExpression constant = new ConstantValueExpression();
+       constant.setValue(value);
+       if (argType == VoltType.STRING) {
+           constant.refineValueType(argType, value.length());
+       }
+       else {
+           constant.refineValueType(argType, argType.getLengthInBytesForFixedTypes());
+       }
+       return constant;
+   }
+
     /**
     *
     * @param tableNode
@@ -1271,38 +1305,20 @@ public abstract class AbstractParsedStmt {
     	               (tableNode.name == "pathscan")?"PATHS":null;
        
        String hint = tableNode.attributes.get("hint");
-       int startvertexid = -1;
-       int endvertexid = -1;
-       int prop1 = -1;
-       int prop2 = -1;
-       int prop3 = -1;
-       int prop4 = -1;
-       int prop5 = -1;
-       int length = -1;
-       if (tableNode.attributes.get("startvertexid") != null) {
-    	   startvertexid = Integer.parseInt(tableNode.attributes.get("startvertexid"));
-       }
-       if (tableNode.attributes.get("endvertexid") != null) {
-    	   endvertexid = Integer.parseInt(tableNode.attributes.get("endvertexid"));
-       }
-       if (tableNode.attributes.get("prop1") != null) {
-    	   prop1 = Integer.parseInt(tableNode.attributes.get("prop1"));
-       }
-       if (tableNode.attributes.get("prop2") != null) {
-    	   prop2 = Integer.parseInt(tableNode.attributes.get("prop2"));
-       }
-       if (tableNode.attributes.get("prop3") != null) {
-    	   prop3 = Integer.parseInt(tableNode.attributes.get("prop3"));
-       }
-       if (tableNode.attributes.get("prop4") != null) {
-    	   prop4 = Integer.parseInt(tableNode.attributes.get("prop4"));
-       }
-       if (tableNode.attributes.get("prop5") != null) {
-    	   prop5 = Integer.parseInt(tableNode.attributes.get("prop5"));
-       }
-       if (tableNode.attributes.get("length") != null) {
-    	   length = Integer.parseInt(tableNode.attributes.get("length"));
+       // The start and end vertexes are vertex keys, typed as the STARTVERTEXID path property
+       VoltType vertexKeyType = VoltType.INTEGER;
+       Column startVertexColumn = graph.getPathprops().getIgnoreCase("STARTVERTEXID");
+       if (startVertexColumn != null) {
+           vertexKeyType = VoltType.get((byte) startVertexColumn.getType());
        }
+       AbstractExpression startvertexid = parseGraphScanArgument(tableNode, "startvertexid", vertexKeyType);
+       AbstractExpression endvertexid = parseGraphScanArgument(tableNode, "endvertexid", vertexKeyType);
+       AbstractExpression prop1 = parseGraphScanArgument(tableNode, "prop1", VoltType.INTEGER);
+       AbstractExpression prop2 = parseGraphScanArgument(tableNode, "prop2", VoltType.INTEGER);
+       AbstractExpression prop3 = parseGraphScanArgument(tableNode, "prop3", VoltType.INTEGER);
+       AbstractExpression prop4 = parseGraphScanArgument(tableNode, "prop4", VoltType.INTEGER);
+       AbstractExpression prop5 = parseGraphScanArgument(tableNode, "prop5", VoltType.INTEGER);
+       AbstractExpression length = parseGraphScanArgument(tableNode, "length", VoltType.INTEGER);
        graphScan = addGraphToStmtCache(graph, tableAlias, object, hint, startvertexid, endvertexid,
     		                           prop1, prop2, prop3, prop4, prop5, length);
 
@@ -52,6 +52,7 @@ import org.voltdb.planner.parseinfo.BranchNode;
 import org.voltdb.planner.parseinfo.JoinNode;
 import org.voltdb.planner.parseinfo.StmtSubqueryScan;
 import org.voltdb.planner.parseinfo.StmtTableScan;
+import org.voltdb.planner.parseinfo.StmtTargetGraphScan;
 import org.voltdb.plannodes.AbstractJoinPlanNode;
 import org.voltdb.plannodes.AbstractPlanNode;
 import org.voltdb.plannodes.AbstractReceivePlanNode;
@@ -265,6 +266,31 @@ public class PlanAssembler {
         return false;
     }
 
+    /**
+     * Vertexes and edges of a partitioned graph view are scanned at every
+     * partition like the rows of a partitioned table, but a path may leave the
+     * subgraph hosted by one site. Traversals are only allowed on a partitioned
+     * graph view from statements declared single partition, which explicitly work
+     * on the subgraph of their partition, even when the planner could infer a
+     * single partition from a VERTEXES or EDGES partitioning column.
+     * Multi-partition traversals are not supported: they would have to exchange
+     * their frontiers between the partitions over several rounds of fragments,
+     * and are rejected rather than silently returning partition-local paths.
+     */
+    private static void checkPartitionedPathScans(Collection<StmtTableScan> scans) {
+        for (StmtTableScan scan : scans) {
+            if ( ! (scan instanceof StmtTargetGraphScan) || scan.getIsReplicated()) {
+                continue;
+            }
+            if ("PATHS".equals(((StmtTargetGraphScan)scan).getGraphElementName())) {
+                throw new PlanningErrorException(
+                        "PATHS of the partitioned graph view " + scan.getTableName() +
+                        " can only be read by a statement declared single partition;" +
+                        " multi-partition traversals of partitioned graph views are not supported.");
+            }
+        }
+    }
+
     /**
      * Clear any old state and get ready to plan a new plan. The next call to
      * getNextPlan() will return the first candidate plan for these parameters.
@@ -273,6 +299,9 @@ public class PlanAssembler {
     private void setupForNewPlans(AbstractParsedStmt parsedStmt) {
         m_bestAndOnlyPlanWasGenerated = false;
         m_partitioning.analyzeTablePartitioning(parsedStmt.allScans());
+        if ( ! m_partitioning.wasSpecifiedAsSingle()) {
+            checkPartitionedPathScans(parsedStmt.allScans());
+        }
 
         if (parsedStmt instanceof ParsedUnionStmt) {
             m_parsedUnion = (ParsedUnionStmt) parsedStmt;
@@ -30,6 +30,7 @@ import org.voltdb.compiler.ScalarValueHints;
 import org.voltdb.compiler.VoltCompiler;
 import org.voltdb.plannodes.AbstractPlanNode;
 import org.voltdb.plannodes.PlanNodeList;
+import org.voltdb.types.PlanNodeType;
 import org.voltdb.utils.BuildDirectoryUtils;
 
 /**
@@ -162,8 +163,9 @@ public class PlanSelector implements Cloneable {
         // compute statistics about a plan
         planGraph.computeEstimatesRecursively(m_stats, m_cluster, m_db, m_estimates, m_paramHints);
 
-        // compute the cost based on the resources using the current cost model
-        plan.cost = m_costModel.getPlanCost(m_stats);
+        // compute the cost based on the resources using the current cost model,
+        // only for the plans scanning graph views, see scansGraphView
+        plan.cost = scansGraphView(planGraph) ? m_costModel.getPlanCost(m_stats) : 0;
 
         // filename for debug output
         String filename = String.valueOf(m_planId++);
@@ -181,6 +183,22 @@ public class PlanSelector implements Cloneable {
         outputPlan(plan, planGraph, filename);
     }
 
+    /**
+     * Only the plans of the statements scanning graph views are told apart by
+     * their cost, which the graph scans estimate from the size of the graph view.
+     * The plans of the other statements all cost nothing, so the first plan
+     * considered is kept, in the join order of the statement, as it was before
+     * the graph scans were costed.
+     *
+     * @param planGraph the root of a candidate plan
+     * @return true if the plan scans the paths, vertexes or edges of a graph view
+     */
+    private static boolean scansGraphView(AbstractPlanNode planGraph) {
+        return planGraph.hasAnyNodeOfType(PlanNodeType.PATHSCAN) ||
+               planGraph.hasAnyNodeOfType(PlanNodeType.VERTEXSCAN) ||
+               planGraph.hasAnyNodeOfType(PlanNodeType.EDGESCAN);
+    }
+
     public void finalizeOutput() {
         if (m_quietPlanner) {
             return;
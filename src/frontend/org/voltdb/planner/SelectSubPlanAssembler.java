@@ -33,6 +33,7 @@ import org.voltdb.planner.parseinfo.BranchNode;
 import org.voltdb.planner.parseinfo.JoinNode;
 import org.voltdb.planner.parseinfo.StmtSubqueryScan;
 import org.voltdb.planner.parseinfo.StmtTableScan;
+import org.voltdb.planner.parseinfo.StmtTargetGraphScan;
 import org.voltdb.planner.parseinfo.SubqueryLeafNode;
 import org.voltdb.plannodes.AbstractJoinPlanNode;
 import org.voltdb.plannodes.AbstractPlanNode;
@@ -177,6 +178,9 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
         List<List<JoinNode>> joinOrders = PermutationGenerator.generatePurmutations(tableNodes);
         List<JoinNode> newTrees = new ArrayList<JoinNode>();
         for (List<JoinNode> joinOrder: joinOrders) {
+            if ( ! pathScansAreInner(joinOrder)) {
+                continue;
+            }
             newTrees.add(JoinNode.reconstructJoinTreeFromTableNodes(joinOrder, JoinType.INNER));
         }
         //Collect all the join/where conditions to reassign them later
@@ -194,6 +198,28 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
         return treePermutations;
     }
 
+    /**
+     * The nested loop path join takes the start and end vertexes of the paths
+     * from its outer tuples, so a PATHS scan is only joined after all the
+     * tables and the other graph scans, as the inner side of its join.
+     *
+     * @param joinOrder leaf nodes in join order
+     * @return true if no PATHS scan is followed by another kind of scan
+     */
+    private static boolean pathScansAreInner(List<JoinNode> joinOrder) {
+        boolean seenPathScan = false;
+        for (JoinNode node : joinOrder) {
+            StmtTableScan scan = node.getTableScan();
+            boolean isPathScan = (scan instanceof StmtTargetGraphScan) &&
+                    "PATHS".equals(((StmtTargetGraphScan)scan).getGraphElementName());
+            if (seenPathScan && ! isPathScan) {
+                return false;
+            }
+            seenPathScan |= isPathScan;
+        }
+        return true;
+    }
+
     /**
      * Helper method to generate join orders for an OUTER join tree.
      * At the moment, permutations for LEFT Joins are not supported yet
@@ -4,10 +4,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.voltcore.utils.Pair;
+import org.voltdb.catalog.CatalogMap;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.GraphView;
 import org.voltdb.catalog.Index;
 import org.voltdb.catalog.Table;
+import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.expressions.TupleValueExpression;
 import org.voltdb.planner.PlanningErrorException;
 import org.voltdb.planner.parseinfo.StmtTableScan;
@@ -20,20 +22,23 @@ public class StmtTargetGraphScan extends StmtTableScan {
     private final GraphView m_graph;
     private final String m_graphElement;
     private final String m_hint;
-    private final int m_startvertexid;
-    private final int m_endvertexid;
-    private final int m_prop1;
-    private final int m_prop2;
-    private final int m_prop3;
-    private final int m_prop4;
-    private final int m_prop5;
-    private final int m_length;
+    // Traversal arguments, either a ParameterValueExpression bound at
+    // execution time, a ConstantValueExpression, or null if not specified
+    private final AbstractExpression m_startvertexid;
+    private final AbstractExpression m_endvertexid;
+    private final AbstractExpression m_prop1;
+    private final AbstractExpression m_prop2;
+    private final AbstractExpression m_prop3;
+    private final AbstractExpression m_prop4;
+    private final AbstractExpression m_prop5;
+    private final AbstractExpression m_length;
     private List<Index> m_indexes;
     private List<Column> m_columns;
 
     public StmtTargetGraphScan(GraphView graph, String tableAlias, int stmtId, String object,
-    		                   String hint, int startvertexid, int endvertexid,
-    		                   int prop1, int prop2, int prop3, int prop4,int prop5, int length
+    		                   String hint, AbstractExpression startvertexid, AbstractExpression endvertexid,
+    		                   AbstractExpression prop1, AbstractExpression prop2, AbstractExpression prop3,
+    		                   AbstractExpression prop4, AbstractExpression prop5, AbstractExpression length
     		                   ) {
         super(tableAlias, stmtId);
         assert (graph != null);
@@ -48,46 +53,46 @@ public class StmtTargetGraphScan extends StmtTableScan {
         m_prop4 = prop4;
         m_prop5 = prop5;
         m_length = length;
-        //findPartitioningColumns();
+        findPartitioningColumns();
     }
 
     public StmtTargetGraphScan(GraphView graph, String tableAlias) {
-        this(graph, tableAlias, 0, null, null, -1, -1, -1, -1, -1, -1, -1, -1);
+        this(graph, tableAlias, 0, null, null, null, null, null, null, null, null, null, null);
     }
 
     public String getHint() {
 		return m_hint;
 	}
 
-	public int getStartvertexid() {
+	public AbstractExpression getStartvertexid() {
 		return m_startvertexid;
 	}
 
-	public int getEndvertexid() {
+	public AbstractExpression getEndvertexid() {
 		return m_endvertexid;
 	}
 
-	public int getProp1() {
+	public AbstractExpression getProp1() {
 		return m_prop1;
 	}
 	
-	public int getProp2() {
+	public AbstractExpression getProp2() {
 		return m_prop2;
 	}
 	
-	public int getProp3() {
+	public AbstractExpression getProp3() {
 		return m_prop3;
 	}
 	
-	public int getProp4() {
+	public AbstractExpression getProp4() {
 		return m_prop4;
 	}
 	
-	public int getProp5() {
+	public AbstractExpression getProp5() {
 		return m_prop5;
 	}
 	
-	public int getLength() {
+	public AbstractExpression getLength() {
 		return m_length;
 	}
 	
@@ -111,6 +116,64 @@ public class StmtTargetGraphScan extends StmtTableScan {
     }
 
 
+    /**
+     * The VERTEXES and EDGES of a partitioned graph view are hosted with the rows
+     * of the vertexes and edges tables they are built from, so they are partitioned
+     * on the vertex or edge property fed by the partition column of their table.
+     * PATHS have no partitioning column: a path may run through several partitions.
+     */
+    private List<SchemaColumn> findPartitioningColumns() {
+        if (m_partitioningColumns != null) {
+            return m_partitioningColumns;
+        }
+
+        if (getIsReplicated()) {
+            return null;
+        }
+        Table table;
+        CatalogMap<Column> props;
+        if ("VERTEXES".equals(m_graphElement)) {
+            table = m_graph.getVtable();
+            props = m_graph.getVertexprops();
+        }
+        else if ("EDGES".equals(m_graphElement)) {
+            table = m_graph.getEtable();
+            props = m_graph.getEdgeprops();
+        }
+        else {
+            return null;
+        }
+        // A replicated table has no partition column: its rows are at every site,
+        // so the graph elements built from them are not partitioned by any property.
+        Column partitionCol = table.getPartitioncolumn();
+        if (table.getIsreplicated() || partitionCol == null) {
+            return null;
+        }
+        Column prop = null;
+        for (Column candidate : props) {
+            if (candidate.getMatviewsource() == partitionCol) {
+                prop = candidate;
+                break;
+            }
+        }
+        // The partition column does not feed any property of the graph elements.
+        if (prop == null) {
+            return null;
+        }
+
+        String graphName = m_graph.getTypeName();
+        String propName = prop.getTypeName();
+
+        TupleValueExpression tve = new TupleValueExpression(
+                graphName, m_tableAlias, propName, propName, prop.getIndex());
+        tve.setTypeSizeBytes(prop.getType(), prop.getSize(), prop.getInbytes());
+
+        SchemaColumn scol = new SchemaColumn(graphName, m_tableAlias, propName, propName, tve);
+        m_partitioningColumns = new ArrayList<SchemaColumn>();
+        m_partitioningColumns.add(scol);
+        return m_partitioningColumns;
+    }
+
     @Override
     public List<Index> getIndexes() {
         if (m_indexes == null) {
@@ -1,6 +1,12 @@
 package org.voltdb.plannodes;
 
+import org.voltdb.catalog.Cluster;
+import org.voltdb.catalog.Database;
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.DatabaseEstimates.GraphEstimates;
+import org.voltdb.compiler.ScalarValueHints;
 import org.voltdb.planner.parseinfo.StmtTableScan;
+import org.voltdb.planner.parseinfo.StmtTargetGraphScan;
 import org.voltdb.plannodes.SeqScanPlanNode;
 import org.voltdb.types.PlanNodeType;
 
@@ -23,6 +29,19 @@ public class EdgeScanPlanNode extends SeqScanPlanNode {
         return PlanNodeType.EDGESCAN;
     }
     
+    @Override
+    public void computeCostEstimates(long childOutputTupleCountEstimate, Cluster cluster, Database db, DatabaseEstimates estimates, ScalarValueHints[] paramHints) {
+        if ( ! (m_tableScan instanceof StmtTargetGraphScan)) {
+            super.computeCostEstimates(childOutputTupleCountEstimate, cluster, db, estimates, paramHints);
+            return;
+        }
+        // Every edge of the graph view is read
+        GraphEstimates graphEstimates =
+                estimates.getEstimatesForGraph(((StmtTargetGraphScan)m_tableScan).getTargetGraph());
+        m_estimatedProcessedTupleCount = graphEstimates.edges;
+        m_estimatedOutputTupleCount = graphEstimates.edges;
+    }
+
     @Override
     protected String explainPlanForNode(String indent) {
         String tableName = m_targetTableName == null? m_targetTableAlias: m_targetTableName;
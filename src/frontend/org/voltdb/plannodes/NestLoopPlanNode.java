@@ -48,6 +48,15 @@ public class NestLoopPlanNode extends AbstractJoinPlanNode {
         assert(m_children.size() == 2);
         m_estimatedProcessedTupleCount = discountEstimatedProcessedTupleCount(m_children.get(0)) +
                 m_children.get(1).m_estimatedProcessedTupleCount;
+
+        // A path scan joined on its start vertex is traversed once per outer tuple
+        if (m_children.get(1) instanceof PathScanPlanNode &&
+                ((PathScanPlanNode)m_children.get(1)).isJoinedOnStartVertex()) {
+            long outerTupleCount = m_children.get(0).m_estimatedOutputTupleCount;
+            m_estimatedProcessedTupleCount = discountEstimatedProcessedTupleCount(m_children.get(0)) +
+                    outerTupleCount * m_children.get(1).m_estimatedProcessedTupleCount;
+            m_estimatedOutputTupleCount = outerTupleCount * m_children.get(1).m_estimatedOutputTupleCount;
+        }
     }
 
     @Override
@@ -1,15 +1,29 @@
 package org.voltdb.plannodes;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONStringer;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.CatalogMap;
+import org.voltdb.catalog.Cluster;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.Database;
+import org.voltdb.catalog.GraphView;
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.DatabaseEstimates.GraphEstimates;
+import org.voltdb.compiler.ScalarValueHints;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.expressions.ConstantValueExpression;
 import org.voltdb.expressions.ExpressionUtil;
 import org.voltdb.expressions.TupleValueExpression;
 import org.voltdb.planner.parseinfo.StmtTableScan;
 import org.voltdb.planner.parseinfo.StmtTargetGraphScan;
 import org.voltdb.plannodes.SeqScanPlanNode;
 import org.voltdb.plannodes.AbstractPlanNode.Members;
+import org.voltdb.types.ExpressionType;
 import org.voltdb.types.PlanNodeType;
 import org.voltdb.types.SortDirectionType;
 
@@ -24,19 +38,53 @@ public class PathScanPlanNode extends SeqScanPlanNode {
     	PROP3,
     	PROP4,
     	PROP5,
-    	LENGTH,;
+    	LENGTH,
+    	STARTVERTEX_EXPRESSION,
+    	ENDVERTEX_EXPRESSION,
+    	PROP1_EXPRESSION,
+    	PROP2_EXPRESSION,
+    	PROP3_EXPRESSION,
+    	PROP4_EXPRESSION,
+    	PROP5_EXPRESSION,
+    	LENGTH_EXPRESSION,
+    	VERTEX_PREDICATE,
+    	EDGE_PREDICATE,
+    	PATH_COLUMNS,
+    	MAX_EXPANSIONS;
     }
     
+    // The columns of the paths produced by the EE, in order
+    private static final List<String> PATH_COLUMN_NAMES =
+            Arrays.asList("STARTVERTEXID", "ENDVERTEXID", "LENGTH", "COST", "PATH");
+
     String hint;
-    int startvertexid;
-    int endverexid;
-    int prop1;
-    int prop2;
-    int prop3;
-    int prop4;
-    int prop5;
-    int length;
+    // Vertexes the traversals of one execution of the scan may expand, all
+    // together, before the query is terminated (the MAXEXPANSIONS hint),
+    // 0 for no limit
+    long m_maxExpansions = 0;
+    // Traversal arguments: constants are serialized as plain ints,
+    // parameters as expressions evaluated by the EE at execution time
+    AbstractExpression startvertexid;
+    AbstractExpression endverexid;
+    AbstractExpression prop1;
+    AbstractExpression prop2;
+    AbstractExpression prop3;
+    AbstractExpression prop4;
+    AbstractExpression prop5;
+    AbstractExpression length;
+    // Conjuncts of the scan predicate on the attributes of all the vertexes (edges)
+    // of a path, e.g., P.EDGES.WEIGHT < 10. They are resolved against the vertexes
+    // (edges) table and evaluated by the traversal, which never expands a path
+    // through a vertex (edge) rejecting them.
+    AbstractExpression m_vertexPredicate;
+    AbstractExpression m_edgePredicate;
+    GraphView m_graph;
     String graphName = "";
+    // Size of the graph view the traversal costs are estimated from
+    GraphEstimates m_graphEstimates;
+
+    // Depth assumed for traversals whose length is not a constant
+    private static final int DEFAULT_PATH_LENGTH = 3;
 	
     public PathScanPlanNode() {
         super();
@@ -47,7 +95,8 @@ public class PathScanPlanNode extends SeqScanPlanNode {
         
         StmtTargetGraphScan graphScan = (StmtTargetGraphScan)tableScan;
         graphName = graphScan.getTableName();
-        hint = graphScan.getHint();
+        m_graph = graphScan.getTargetGraph();
+        setHints(graphScan.getHint());
         startvertexid = graphScan.getStartvertexid();
         endverexid = graphScan.getEndvertexid();
         prop1 = graphScan.getProp1();
@@ -75,6 +124,8 @@ public class PathScanPlanNode extends SeqScanPlanNode {
     @Override
     public void resolveColumnIndexes()
     {
+        pushPredicatesIntoTraversal();
+
         // predicate expression
         /* part from AbstractScanPlanNode
     	List<TupleValueExpression> predicate_tves =
@@ -149,19 +200,282 @@ public class PathScanPlanNode extends SeqScanPlanNode {
         //System.out.println("PathScanPlanNode 128: "+m_outputSchema);
     }
     
+    /*
+     * A traversal expands about fanOut^i edges at depth i, up to the whole graph.
+     * The paths scanned without a start vertex are traversed from every vertex,
+     * unless the nested loop join above sets the start vertex per outer tuple,
+     * in which case the estimates are for a single traversal.
+     */
+    @Override
+    public void computeCostEstimates(long childOutputTupleCountEstimate, Cluster cluster, Database db, DatabaseEstimates estimates, ScalarValueHints[] paramHints) {
+        if (m_graph == null) {
+            super.computeCostEstimates(childOutputTupleCountEstimate, cluster, db, estimates, paramHints);
+            return;
+        }
+        m_graphEstimates = estimates.getEstimatesForGraph(m_graph);
+        AbstractExpression joinPredicate = getPathJoinPredicate();
+        boolean endVertexBound = endverexid != null || isVertexBoundBy(joinPredicate, "ENDVERTEXID");
+        long starts = (startvertexid != null || isJoinedOnStartVertex()) ? 1 : m_graphEstimates.vertexes;
+        m_estimatedProcessedTupleCount = starts * estimateTraversedEdges(endVertexBound);
+        m_estimatedOutputTupleCount = starts * estimatePathsPerStartVertex(endVertexBound);
+    }
+
+    /**
+     * Is this the inner side of a nested loop join equating the start vertex of
+     * the paths to a column of the outer table?
+     */
+    public boolean isJoinedOnStartVertex() {
+        return isVertexBoundBy(getPathJoinPredicate(), "STARTVERTEXID");
+    }
+
+    private AbstractExpression getPathJoinPredicate() {
+        if (getParentCount() == 0 || ! (getParent(0) instanceof NestLoopPlanNode)) {
+            return null;
+        }
+        NestLoopPlanNode join = (NestLoopPlanNode)getParent(0);
+        if (join.getChildCount() != 2 || join.getChild(1) != this) {
+            return null;
+        }
+        return join.getJoinPredicate();
+    }
+
+    /**
+     * Estimated number of edges expanded by one traversal from a given start vertex.
+     * With a given end vertex the search runs from both ends and meets half way.
+     */
+    private long estimateTraversedEdges(boolean endVertexBound) {
+        int depth = getConstantPathLength();
+        if (endVertexBound) {
+            depth = (depth + 1) / 2;
+        }
+        double traversed = 0;
+        double frontier = 1;
+        for (int i = 0; i < depth; i++) {
+            frontier *= m_graphEstimates.averageFanOut;
+            traversed += frontier;
+        }
+        if (endVertexBound) {
+            traversed *= 2;
+        }
+        return (long)Math.min(traversed, m_graphEstimates.edges);
+    }
+
+    /**
+     * Estimated number of paths produced by one traversal from a given start vertex.
+     */
+    private long estimatePathsPerStartVertex(boolean endVertexBound) {
+        if (endVertexBound) {
+            return 1;
+        }
+        double reached = Math.pow(m_graphEstimates.averageFanOut, getConstantPathLength());
+        return (long)Math.max(1, Math.min(reached, m_graphEstimates.vertexes));
+    }
+
+    private int getConstantPathLength() {
+        if (length instanceof ConstantValueExpression) {
+            int value = Integer.parseInt(((ConstantValueExpression) length).getValue());
+            if (value > 0) {
+                return value;
+            }
+        }
+        return DEFAULT_PATH_LENGTH;
+    }
+
+    /*
+     * Does the join predicate equate the start (end) vertex of the paths to a column
+     * of the outer table, as the nested loop path join sets it per outer tuple?
+     */
+    private boolean isVertexBoundBy(AbstractExpression joinPredicate, String vertexColumn) {
+        for (AbstractExpression conjunct : ExpressionUtil.uncombinePredicate(joinPredicate)) {
+            if (conjunct.getExpressionType() != ExpressionType.COMPARE_EQUAL ||
+                    ! (conjunct.getLeft() instanceof TupleValueExpression) ||
+                    ! (conjunct.getRight() instanceof TupleValueExpression)) {
+                continue;
+            }
+            TupleValueExpression left = (TupleValueExpression)conjunct.getLeft();
+            TupleValueExpression right = (TupleValueExpression)conjunct.getRight();
+            if (isPathColumn(right, vertexColumn)) {
+                TupleValueExpression temp = left;
+                left = right;
+                right = temp;
+            }
+            if (isPathColumn(left, vertexColumn) && ! m_targetTableAlias.equals(right.getTableAlias())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isPathColumn(TupleValueExpression tve, String column) {
+        return m_targetTableAlias.equals(tve.getTableAlias()) && column.equals(tve.getColumnName());
+    }
+
     @Override
     public void toJSONString(JSONStringer stringer) throws JSONException {
         super.toJSONString(stringer);
         
         stringer.key(Members.HINT.name()).value(hint);
-        stringer.key(Members.STARTVERTEX.name()).value(startvertexid);
-        stringer.key(Members.ENDVERTEX.name()).value(endverexid);
-        stringer.key(Members.PROP1.name()).value(prop1);
-        stringer.key(Members.PROP2.name()).value(prop2);
-        stringer.key(Members.PROP3.name()).value(prop3);
-        stringer.key(Members.PROP4.name()).value(prop4);
-        stringer.key(Members.PROP5.name()).value(prop5);
-        stringer.key(Members.LENGTH.name()).value(length);
+        argumentToJSONString(stringer, Members.STARTVERTEX, Members.STARTVERTEX_EXPRESSION, startvertexid);
+        argumentToJSONString(stringer, Members.ENDVERTEX, Members.ENDVERTEX_EXPRESSION, endverexid);
+        argumentToJSONString(stringer, Members.PROP1, Members.PROP1_EXPRESSION, prop1);
+        argumentToJSONString(stringer, Members.PROP2, Members.PROP2_EXPRESSION, prop2);
+        argumentToJSONString(stringer, Members.PROP3, Members.PROP3_EXPRESSION, prop3);
+        argumentToJSONString(stringer, Members.PROP4, Members.PROP4_EXPRESSION, prop4);
+        argumentToJSONString(stringer, Members.PROP5, Members.PROP5_EXPRESSION, prop5);
+        argumentToJSONString(stringer, Members.LENGTH, Members.LENGTH_EXPRESSION, length);
+        if (m_vertexPredicate != null) {
+            stringer.key(Members.VERTEX_PREDICATE.name()).value(m_vertexPredicate);
+        }
+        if (m_edgePredicate != null) {
+            stringer.key(Members.EDGE_PREDICATE.name()).value(m_edgePredicate);
+        }
+        stringer.key(Members.PATH_COLUMNS.name()).value(getPathColumns());
+        if (m_maxExpansions > 0) {
+            stringer.key(Members.MAX_EXPANSIONS.name()).value(m_maxExpansions);
+        }
+    }
+
+    /*
+     * The EE reads the shortest path cost column from the HINT, so the
+     * traversal budget is split off from the comma separated hints.
+     */
+    private void setHints(String hints) {
+        hint = hints;
+        if (hints == null) {
+            return;
+        }
+        List<String> others = new ArrayList<String>();
+        for (String item : hints.split(",")) {
+            if (item.startsWith("MAXEXPANSIONS(") && item.endsWith(")")) {
+                m_maxExpansions = Long.parseLong(item.substring("MAXEXPANSIONS(".length(), item.length() - 1));
+            }
+            else {
+                others.add(item);
+            }
+        }
+        hint = others.isEmpty() ? null : String.join(",", others);
+    }
+
+    /**
+     * The hints of the statement the EE reads, without the traversal budget.
+     */
+    public String getHint() {
+        return hint;
+    }
+
+    /**
+     * The vertexes the traversals of one execution of the scan may expand, 0 for no limit.
+     */
+    public long getMaxExpansions() {
+        return m_maxExpansions;
+    }
+
+    /**
+     * The columns of the paths the statement reads, bit i standing for the i-th
+     * of PATH_COLUMN_NAMES. The EE only materializes these columns, only keeps
+     * the predecessors of the vertexes when the PATH is read, and may answer a
+     * statement reading nothing but the start and end vertexes, e.g., to test
+     * whether a vertex is reachable from another one, from the reachability
+     * index of the graph view.
+     */
+    public int getPathColumns() {
+        int pathColumns = 0;
+        for (SchemaColumn col : m_tableScanSchema.getColumns()) {
+            int index = PATH_COLUMN_NAMES.indexOf(col.getColumnName());
+            if (index >= 0) {
+                pathColumns |= 1 << index;
+            }
+        }
+        return pathColumns;
+    }
+
+    /*
+     * Move the conjuncts of the predicate that only refer to the attributes of
+     * all the vertexes, or of all the edges, of the paths into the traversal.
+     * Their columns are re-resolved to the columns of the underlying vertexes
+     * (edges) table the traversal evaluates them on.
+     */
+    private void pushPredicatesIntoTraversal() {
+        if (m_predicate == null || m_graph == null) {
+            return;
+        }
+        List<AbstractExpression> vertexConjuncts = ExpressionUtil.uncombinePredicate(m_vertexPredicate);
+        List<AbstractExpression> edgeConjuncts = ExpressionUtil.uncombinePredicate(m_edgePredicate);
+        List<AbstractExpression> otherConjuncts = new ArrayList<AbstractExpression>();
+        for (AbstractExpression conjunct : ExpressionUtil.uncombinePredicate(m_predicate)) {
+            if (resolveForTraversal(conjunct, "VERTEXES", m_graph.getVertexprops())) {
+                vertexConjuncts.add(conjunct);
+            }
+            else if (resolveForTraversal(conjunct, "EDGES", m_graph.getEdgeprops())) {
+                edgeConjuncts.add(conjunct);
+            }
+            else {
+                otherConjuncts.add(conjunct);
+            }
+        }
+        m_predicate = ExpressionUtil.combinePredicates(otherConjuncts);
+        m_vertexPredicate = ExpressionUtil.combinePredicates(vertexConjuncts);
+        m_edgePredicate = ExpressionUtil.combinePredicates(edgeConjuncts);
+    }
+
+    /*
+     * A conjunct can be evaluated by the traversal if all its columns are
+     * attributes of all the graphElement objects of a path that are backed by
+     * a column of the underlying table (fanIn and fanOut are not).
+     */
+    private static boolean resolveForTraversal(AbstractExpression conjunct, String graphElement,
+            CatalogMap<Column> props) {
+        if (conjunct.hasSubquerySubexpression()) {
+            return false;
+        }
+        List<TupleValueExpression> tves = ExpressionUtil.getTupleValueExpressions(conjunct);
+        if (tves.isEmpty()) {
+            return false;
+        }
+        for (TupleValueExpression tve : tves) {
+            if ( ! graphElement.equals(tve.getGraphObject()) || tve.getGraphObjectIdx() != -1) {
+                return false;
+            }
+            Column prop = props.getExact(tve.getColumnName());
+            if (prop == null || prop.getMatviewsource() == null) {
+                return false;
+            }
+        }
+        for (TupleValueExpression tve : tves) {
+            tve.setColumnIndex(props.getExact(tve.getColumnName()).getMatviewsource().getIndex());
+        }
+        return true;
+    }
+
+    /*
+     * An INTEGER constant argument (or a missing one, as -1) keeps its plain int
+     * representation, while a parameterized one, or a BIGINT or VARCHAR vertex
+     * key, is sent as an expression so that the EE reads it with its type and
+     * the same plan can be executed with any argument value.
+     */
+    private static void argumentToJSONString(JSONStringer stringer, Members intKey, Members exprKey,
+            AbstractExpression argument) throws JSONException {
+        if (argument instanceof ConstantValueExpression && argument.getValueType() == VoltType.INTEGER) {
+            stringer.key(intKey.name()).value(Integer.parseInt(((ConstantValueExpression) argument).getValue()));
+        }
+        else {
+            stringer.key(intKey.name()).value(-1);
+            if (argument != null) {
+                stringer.key(exprKey.name()).value(argument);
+            }
+        }
+    }
+
+    public AbstractExpression getStartVertexExpression() {
+        return startvertexid;
+    }
+
+    public AbstractExpression getEndVertexExpression() {
+        return endverexid;
+    }
+
+    public AbstractExpression getLengthExpression() {
+        return length;
     }
    
     @Override
@@ -170,7 +484,17 @@ public class PathScanPlanNode extends SeqScanPlanNode {
         if (m_targetTableAlias != null && !m_targetTableAlias.equals(tableName)) {
             tableName += " (" + m_targetTableAlias +")";
         }
-        return "PATHSCAN of \"" + tableName + "\"" + explainPredicate("\n" + indent + " filter by ");
+        String explain = "PATHSCAN of \"" + tableName + "\"";
+        if (m_vertexPredicate != null) {
+            explain += "\n" + indent + " traverse vertexes where " + m_vertexPredicate.explain(getTableNameForExplain());
+        }
+        if (m_edgePredicate != null) {
+            explain += "\n" + indent + " traverse edges where " + m_edgePredicate.explain(getTableNameForExplain());
+        }
+        if (m_maxExpansions > 0) {
+            explain += "\n" + indent + " expand at most " + m_maxExpansions + " vertexes over all traversals";
+        }
+        return explain + explainPredicate("\n" + indent + " filter by ");
     }    
     
     
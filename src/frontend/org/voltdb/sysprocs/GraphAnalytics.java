@@ -0,0 +1,267 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.DependencyPair;
+import org.voltdb.DeprecatedProcedureAPIAccess;
+import org.voltdb.ParameterSet;
+import org.voltdb.ProcInfo;
+import org.voltdb.SystemProcedureExecutionContext;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.GraphView;
+import org.voltdb.catalog.Table;
+import org.voltdb.dtxn.DtxnConstants;
+import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.VoltTableUtil;
+
+import com.google_voltpatches.common.base.Charsets;
+
+/**
+ * A system procedure running a whole graph algorithm over a graph view:
+ * PAGERANK, COMPONENTS (weakly connected components) or TRIANGLES (the triangles
+ * each vertex belongs to), and inserting a row per vertex into the result table:
+ * the vertex key, and the rank, the key of a vertex of its component, or its number
+ * of triangles.
+ *
+ * Every site runs the iterations of the algorithm left over its copy or partition of
+ * the graph view, and inserts the results of its vertexes. The iterations may have been
+ * run ahead by the read-only rounds of @GraphAnalyticsRound, so this transaction only
+ * finishes the algorithm, but the algorithm runs over the same layout in the same order
+ * either way: the results only depend on the tables, whether this call runs on a replica
+ * or a command log replay that saw none of the rounds, or after a rollback or a restore.
+ *
+ * The result table has the vertex key and the result as its two columns, of the type of
+ * the vertex id column and FLOAT (PAGERANK), the type of the vertex id column (COMPONENTS)
+ * or BIGINT (TRIANGLES). It has to be empty, and is replicated if and only if the graph
+ * view is. A partitioned result table is partitioned on the vertex key, as the vertexes
+ * table is partitioned on the vertex id column, so each site inserts the results of its
+ * own vertexes. The edges between partitions are not seen by the algorithm on a
+ * partitioned graph view.
+ */
+@ProcInfo(singlePartition = false)
+public class GraphAnalytics extends VoltSystemProcedure {
+    private static final VoltLogger HOST_LOG = new VoltLogger("HOST");
+
+    private static final int DEP_graphAnalytics = (int)
+            SysProcFragmentId.PF_graphAnalytics | DtxnConstants.MULTIPARTITION_DEPENDENCY;
+
+    private static final int DEP_graphAnalyticsAggregate = (int)
+            SysProcFragmentId.PF_graphAnalyticsAggregate;
+
+    @Override
+    public void init() {
+        registerPlanFragment(SysProcFragmentId.PF_graphAnalytics);
+        registerPlanFragment(SysProcFragmentId.PF_graphAnalyticsAggregate);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public DependencyPair
+    executePlanFragment(Map<Integer, List<VoltTable>> dependencies, long fragmentId, ParameterSet params,
+                        final SystemProcedureExecutionContext context)
+    {
+        if (fragmentId == SysProcFragmentId.PF_graphAnalytics) {
+
+            Object paramsArray[] = params.toArray();
+            String graphViewName = (String)paramsArray[0];
+            String algorithm = (String)paramsArray[1];
+            String resultTableName = (String)paramsArray[2];
+
+            GraphView graphView = context.getDatabase().getGraphviews().getIgnoreCase(graphViewName);
+            Table resultTable = context.getDatabase().getTables().getIgnoreCase(resultTableName);
+            VoltType keyType = VoltType.get((byte)graphView.getVertexidcolumn().getType());
+
+            // the EE fails the fragment if the result table of the site is not empty
+            ByteBuffer buffer = ByteBuffer.wrap(context.getSiteProcedureConnection().runGraphAnalytics(
+                    graphView.getTypeName(), algorithm, 0, resultTable.getTypeName()));
+            buffer.get();
+            int iterations = buffer.getInt();
+            VoltTable vertexResults = CatalogUtil.getVoltTable(resultTable);
+            int numOfVertexes = buffer.getInt();
+            for (int ii = 0; ii < numOfVertexes; ii++) {
+                Object key = readKey(buffer, keyType);
+                Object value;
+                if (algorithm.equals("PAGERANK")) {
+                    value = buffer.getDouble();
+                } else if (algorithm.equals("COMPONENTS")) {
+                    value = readKey(buffer, keyType);
+                } else {
+                    value = buffer.getLong();
+                }
+                vertexResults.addRow(key, value);
+            }
+            DeprecatedProcedureAPIAccess.voltLoadTable(
+                    this,
+                    context.getCluster().getTypeName(),
+                    context.getDatabase().getTypeName(),
+                    resultTable.getTypeName(),
+                    vertexResults, false, false);
+
+            final VoltTable results = constructResultsTable();
+            results.addRow(context.getHostId(), CoreUtils.getSiteIdFromHSId(context.getSiteId()), context.getPartitionId(),
+                    iterations, "DONE", vertexResults.getRowCount());
+            return new DependencyPair(DEP_graphAnalytics, results);
+
+        } else if (fragmentId == SysProcFragmentId.PF_graphAnalyticsAggregate) {
+
+            assert (dependencies.size() > 0);
+            final VoltTable results = VoltTableUtil.unionTables(dependencies.get(DEP_graphAnalytics));
+            return new DependencyPair(DEP_graphAnalyticsAggregate, results);
+
+        }
+        assert (false);
+        return null;
+    }
+
+    /**
+     * Read a vertex key serialized by the EE: an int for the integer keys it uses as
+     * vertex ids, a long for BIGINT keys, and the length and the bytes of VARCHAR keys
+     */
+    private static Object readKey(ByteBuffer buffer, VoltType keyType) {
+        switch (keyType) {
+        case BIGINT:
+            return buffer.getLong();
+        case STRING:
+            byte bytes[] = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return new String(bytes, Charsets.UTF_8);
+        default:
+            return buffer.getInt();
+        }
+    }
+
+    static VoltTable constructResultsTable() {
+        ColumnInfo[] result_columns = new ColumnInfo[6];
+        int ii = 0;
+        result_columns[ii++] = new ColumnInfo(CNAME_HOST_ID, CTYPE_ID);
+        result_columns[ii++] = new ColumnInfo(CNAME_SITE_ID, CTYPE_ID);
+        result_columns[ii++] = new ColumnInfo(CNAME_PARTITION_ID, CTYPE_ID);
+        result_columns[ii++] = new ColumnInfo("ITERATIONS", VoltType.INTEGER);
+        result_columns[ii++] = new ColumnInfo("STATUS", VoltType.STRING);
+        result_columns[ii++] = new ColumnInfo("ROWS_INSERTED", VoltType.BIGINT);
+        return new VoltTable(result_columns);
+    }
+
+    /**
+     * Check the graph view and the algorithm, and return the algorithm in upper case
+     */
+    static String validateAlgorithm(GraphView graphView, String graphViewName, String algorithm) {
+        if (graphView == null) {
+            throw new VoltAbortException("Graph view " + graphViewName + " does not exist");
+        }
+        if (graphView.getVertexidcolumn() == null) {
+            throw new VoltAbortException("Graph view " + graphViewName + " has no vertex id column");
+        }
+        algorithm = algorithm.toUpperCase();
+        if (!algorithm.equals("PAGERANK") && !algorithm.equals("COMPONENTS") && !algorithm.equals("TRIANGLES")) {
+            throw new VoltAbortException("Unknown graph algorithm " + algorithm +
+                    ", expected PAGERANK, COMPONENTS or TRIANGLES");
+        }
+        return algorithm;
+    }
+
+    /**
+     * Check the result table against the graph view and the algorithm, see the class comment
+     */
+    private static void validateResultTable(GraphView graphView, String algorithm, Table resultTable) {
+        List<Column> columns = CatalogUtil.getSortedCatalogItems(resultTable.getColumns(), "index");
+        if (columns.size() != 2) {
+            throw new VoltAbortException("Result table " + resultTable.getTypeName() +
+                    " must have two columns, the vertex key and the result");
+        }
+        VoltType keyType = VoltType.get((byte)graphView.getVertexidcolumn().getType());
+        VoltType valueType;
+        if (algorithm.equals("PAGERANK")) {
+            valueType = VoltType.FLOAT;
+        } else if (algorithm.equals("COMPONENTS")) {
+            valueType = keyType;
+        } else {
+            valueType = VoltType.BIGINT;
+        }
+        VoltType resultKeyType = VoltType.get((byte)columns.get(0).getType());
+        VoltType resultValueType = VoltType.get((byte)columns.get(1).getType());
+        if (resultKeyType != keyType || resultValueType != valueType) {
+            throw new VoltAbortException("Result table " + resultTable.getTypeName() + " must have a " +
+                    keyType.getName() + " vertex key column and a " + valueType.getName() + " " +
+                    algorithm + " column, not " + resultKeyType.getName() + " and " + resultValueType.getName());
+        }
+        if (resultTable.getIsreplicated() != graphView.getIsreplicated()) {
+            throw new VoltAbortException("Result table " + resultTable.getTypeName() + " must be " +
+                    (graphView.getIsreplicated() ? "replicated" : "partitioned") +
+                    " as graph view " + graphView.getTypeName() + " is");
+        }
+        if (!graphView.getIsreplicated()) {
+            Column resultPartitionColumn = resultTable.getPartitioncolumn();
+            if (resultPartitionColumn == null || resultPartitionColumn.getIndex() != 0) {
+                throw new VoltAbortException("Result table " + resultTable.getTypeName() +
+                        " must be partitioned on its first column, the vertex key");
+            }
+            Column vertexPartitionColumn = graphView.getVtable().getPartitioncolumn();
+            if (vertexPartitionColumn == null ||
+                    !vertexPartitionColumn.getTypeName().equals(graphView.getVertexidcolumn().getTypeName())) {
+                throw new VoltAbortException("The vertexes of graph view " + graphView.getTypeName() +
+                        " must be partitioned on the vertex id column to insert the results by vertex key");
+            }
+        }
+    }
+
+    public VoltTable[] run(SystemProcedureExecutionContext ctx, String graphViewName, String algorithm,
+            String resultTableName) throws VoltAbortException
+    {
+        GraphView graphView = ctx.getDatabase().getGraphviews().getIgnoreCase(graphViewName);
+        algorithm = validateAlgorithm(graphView, graphViewName, algorithm);
+        Table resultTable = ctx.getDatabase().getTables().getIgnoreCase(resultTableName);
+        if (resultTable == null) {
+            throw new VoltAbortException("Result table " + resultTableName + " does not exist");
+        }
+        validateResultTable(graphView, algorithm, resultTable);
+
+        final long startTime = System.currentTimeMillis();
+        SynthesizedPlanFragment[] pfs = new SynthesizedPlanFragment[2];
+
+        pfs[0] = new SynthesizedPlanFragment();
+        pfs[0].fragmentId = SysProcFragmentId.PF_graphAnalytics;
+        pfs[0].outputDepId = DEP_graphAnalytics;
+        pfs[0].multipartition = true;
+        pfs[0].parameters = ParameterSet.fromArrayNoCopy(graphView.getTypeName(), algorithm,
+                resultTable.getTypeName());
+
+        pfs[1] = new SynthesizedPlanFragment();
+        pfs[1].fragmentId = SysProcFragmentId.PF_graphAnalyticsAggregate;
+        pfs[1].outputDepId = DEP_graphAnalyticsAggregate;
+        pfs[1].inputDepIds  = new int[] { DEP_graphAnalytics };
+        pfs[1].multipartition = false;
+        pfs[1].parameters = ParameterSet.emptyParameterSet();
+
+        VoltTable retval[] = executeSysProcPlanFragments(pfs, DEP_graphAnalyticsAggregate);
+        final long duration = System.currentTimeMillis() - startTime;
+        HOST_LOG.info(algorithm + " over graph view " + graphView.getTypeName() + " into " +
+                resultTable.getTypeName() + " took " + duration + " milliseconds");
+        return retval;
+    }
+}
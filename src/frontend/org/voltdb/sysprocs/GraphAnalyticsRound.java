@@ -0,0 +1,122 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.DependencyPair;
+import org.voltdb.ParameterSet;
+import org.voltdb.ProcInfo;
+import org.voltdb.SystemProcedureExecutionContext;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable;
+import org.voltdb.catalog.GraphView;
+import org.voltdb.dtxn.DtxnConstants;
+import org.voltdb.utils.VoltTableUtil;
+
+/**
+ * A read-only system procedure running the next round of a graph algorithm ahead of
+ * @GraphAnalytics, which finishes it and inserts the results.
+ *
+ * Every site runs at most maxIterations more iterations of the algorithm over its copy or
+ * partition of the graph view, and keeps the state of the algorithm in the graph view, so
+ * the other transactions get to run between the rounds. The algorithm starts over when the
+ * graph view changed since it started. A site reports RUNNING until it is done, and the
+ * caller calls again until every site reports DONE, before calling @GraphAnalytics.
+ *
+ * The rounds write nothing and are not logged: the state they leave is only a head start,
+ * @GraphAnalytics runs whatever iterations are left, and gets the same results without it.
+ */
+@ProcInfo(singlePartition = false)
+public class GraphAnalyticsRound extends VoltSystemProcedure {
+
+    private static final int DEP_graphAnalyticsRound = (int)
+            SysProcFragmentId.PF_graphAnalyticsRound | DtxnConstants.MULTIPARTITION_DEPENDENCY;
+
+    private static final int DEP_graphAnalyticsRoundAggregate = (int)
+            SysProcFragmentId.PF_graphAnalyticsRoundAggregate;
+
+    @Override
+    public void init() {
+        registerPlanFragment(SysProcFragmentId.PF_graphAnalyticsRound);
+        registerPlanFragment(SysProcFragmentId.PF_graphAnalyticsRoundAggregate);
+    }
+
+    @Override
+    public DependencyPair
+    executePlanFragment(Map<Integer, List<VoltTable>> dependencies, long fragmentId, ParameterSet params,
+                        final SystemProcedureExecutionContext context)
+    {
+        if (fragmentId == SysProcFragmentId.PF_graphAnalyticsRound) {
+
+            Object paramsArray[] = params.toArray();
+            String graphViewName = (String)paramsArray[0];
+            String algorithm = (String)paramsArray[1];
+            int maxIterations = (Integer)paramsArray[2];
+
+            ByteBuffer buffer = ByteBuffer.wrap(context.getSiteProcedureConnection().runGraphAnalytics(
+                    graphViewName, algorithm, maxIterations, null));
+            boolean done = buffer.get() != 0;
+            int iterations = buffer.getInt();
+
+            final VoltTable results = GraphAnalytics.constructResultsTable();
+            results.addRow(context.getHostId(), CoreUtils.getSiteIdFromHSId(context.getSiteId()), context.getPartitionId(),
+                    iterations, done ? "DONE" : "RUNNING", 0);
+            return new DependencyPair(DEP_graphAnalyticsRound, results);
+
+        } else if (fragmentId == SysProcFragmentId.PF_graphAnalyticsRoundAggregate) {
+
+            assert (dependencies.size() > 0);
+            final VoltTable results = VoltTableUtil.unionTables(dependencies.get(DEP_graphAnalyticsRound));
+            return new DependencyPair(DEP_graphAnalyticsRoundAggregate, results);
+
+        }
+        assert (false);
+        return null;
+    }
+
+    public VoltTable[] run(SystemProcedureExecutionContext ctx, String graphViewName, String algorithm,
+            int maxIterations) throws VoltAbortException
+    {
+        GraphView graphView = ctx.getDatabase().getGraphviews().getIgnoreCase(graphViewName);
+        algorithm = GraphAnalytics.validateAlgorithm(graphView, graphViewName, algorithm);
+        if (maxIterations <= 0) {
+            throw new VoltAbortException("The iterations per round must be positive");
+        }
+
+        SynthesizedPlanFragment[] pfs = new SynthesizedPlanFragment[2];
+
+        pfs[0] = new SynthesizedPlanFragment();
+        pfs[0].fragmentId = SysProcFragmentId.PF_graphAnalyticsRound;
+        pfs[0].outputDepId = DEP_graphAnalyticsRound;
+        pfs[0].multipartition = true;
+        pfs[0].parameters = ParameterSet.fromArrayNoCopy(graphView.getTypeName(), algorithm, maxIterations);
+
+        pfs[1] = new SynthesizedPlanFragment();
+        pfs[1].fragmentId = SysProcFragmentId.PF_graphAnalyticsRoundAggregate;
+        pfs[1].outputDepId = DEP_graphAnalyticsRoundAggregate;
+        pfs[1].inputDepIds  = new int[] { DEP_graphAnalyticsRound };
+        pfs[1].multipartition = false;
+        pfs[1].parameters = ParameterSet.emptyParameterSet();
+
+        return executeSysProcPlanFragments(pfs, DEP_graphAnalyticsRoundAggregate);
+    }
+}
@@ -0,0 +1,136 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.util.List;
+import java.util.Map;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.DependencyPair;
+import org.voltdb.ParameterSet;
+import org.voltdb.ProcInfo;
+import org.voltdb.SystemProcedureExecutionContext;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Table;
+import org.voltdb.dtxn.DtxnConstants;
+import org.voltdb.utils.VoltTableUtil;
+
+/**
+ * A system procedure bracketing a bulk load of the vertexes or edges table of
+ * graph views, as the csvloader does with --graphbulkload.
+ *
+ * BEGIN suspends the maintenance of every graph view over the table at every
+ * site and releases their topology, so the loaded tuples are not linked one at
+ * a time; the graph views refuse the traversals meanwhile. END rebuilds their
+ * topology from the vertexes and edges tables in one pass. The number of tuples
+ * loaded so far is reported by @Statistics GRAPHVIEW, and a load that never
+ * ended is recovered by calling END.
+ */
+@ProcInfo(singlePartition = false)
+public class GraphBulkLoad extends VoltSystemProcedure {
+    private static final VoltLogger HOST_LOG = new VoltLogger("HOST");
+
+    private static final int DEP_graphBulkLoad = (int)
+            SysProcFragmentId.PF_graphBulkLoad | DtxnConstants.MULTIPARTITION_DEPENDENCY;
+
+    private static final int DEP_graphBulkLoadAggregate = (int)
+            SysProcFragmentId.PF_graphBulkLoadAggregate;
+
+    @Override
+    public void init() {
+        registerPlanFragment(SysProcFragmentId.PF_graphBulkLoad);
+        registerPlanFragment(SysProcFragmentId.PF_graphBulkLoadAggregate);
+    }
+
+    @Override
+    public DependencyPair
+    executePlanFragment(Map<Integer, List<VoltTable>> dependencies, long fragmentId, ParameterSet params,
+                        final SystemProcedureExecutionContext context)
+    {
+        if (fragmentId == SysProcFragmentId.PF_graphBulkLoad) {
+
+            String tableName = (String)params.toArray()[0];
+            boolean begin = ((Byte)params.toArray()[1]) != 0;
+            int graphViews = context.getSiteProcedureConnection().setGraphBulkLoad(tableName, begin);
+
+            final VoltTable results = constructResultsTable();
+            results.addRow(context.getHostId(), CoreUtils.getSiteIdFromHSId(context.getSiteId()), context.getPartitionId(),
+                    graphViews);
+            return new DependencyPair(DEP_graphBulkLoad, results);
+
+        } else if (fragmentId == SysProcFragmentId.PF_graphBulkLoadAggregate) {
+
+            assert (dependencies.size() > 0);
+            final VoltTable results = VoltTableUtil.unionTables(dependencies.get(DEP_graphBulkLoad));
+            return new DependencyPair(DEP_graphBulkLoadAggregate, results);
+
+        }
+        assert (false);
+        return null;
+    }
+
+    private VoltTable constructResultsTable() {
+        ColumnInfo[] result_columns = new ColumnInfo[4];
+        int ii = 0;
+        result_columns[ii++] = new ColumnInfo(CNAME_HOST_ID, CTYPE_ID);
+        result_columns[ii++] = new ColumnInfo(CNAME_SITE_ID, CTYPE_ID);
+        result_columns[ii++] = new ColumnInfo(CNAME_PARTITION_ID, CTYPE_ID);
+        result_columns[ii++] = new ColumnInfo("GRAPH_VIEWS", VoltType.INTEGER);
+        return new VoltTable(result_columns);
+    }
+
+    public VoltTable[] run(SystemProcedureExecutionContext ctx, String tableName, String action)
+            throws VoltAbortException
+    {
+        Table table = ctx.getDatabase().getTables().getIgnoreCase(tableName);
+        if (table == null) {
+            throw new VoltAbortException("Table " + tableName + " does not exist");
+        }
+        action = action.toUpperCase();
+        if (!action.equals("BEGIN") && !action.equals("END")) {
+            throw new VoltAbortException("Unknown bulk load action " + action + ", expected BEGIN or END");
+        }
+        byte begin = action.equals("BEGIN") ? (byte)1 : (byte)0;
+
+        final long startTime = System.currentTimeMillis();
+        SynthesizedPlanFragment[] pfs = new SynthesizedPlanFragment[2];
+
+        pfs[0] = new SynthesizedPlanFragment();
+        pfs[0].fragmentId = SysProcFragmentId.PF_graphBulkLoad;
+        pfs[0].outputDepId = DEP_graphBulkLoad;
+        pfs[0].multipartition = true;
+        pfs[0].parameters = ParameterSet.fromArrayNoCopy(table.getTypeName(), begin);
+
+        pfs[1] = new SynthesizedPlanFragment();
+        pfs[1].fragmentId = SysProcFragmentId.PF_graphBulkLoadAggregate;
+        pfs[1].outputDepId = DEP_graphBulkLoadAggregate;
+        pfs[1].inputDepIds  = new int[] { DEP_graphBulkLoad };
+        pfs[1].multipartition = false;
+        pfs[1].parameters = ParameterSet.emptyParameterSet();
+
+        VoltTable retval[] = executeSysProcPlanFragments(pfs, DEP_graphBulkLoadAggregate);
+        final long duration = System.currentTimeMillis() - startTime;
+        HOST_LOG.info("Graph bulk load " + action + " on table " + table.getTypeName() +
+                " took " + duration + " milliseconds");
+        return retval;
+    }
+}
@@ -0,0 +1,168 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.DependencyPair;
+import org.voltdb.ParameterSet;
+import org.voltdb.ProcInfo;
+import org.voltdb.SystemProcedureExecutionContext;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.GraphView;
+import org.voltdb.dtxn.DtxnConstants;
+import org.voltdb.sysprocs.saverestore.SnapshotUtil;
+import org.voltdb.utils.VoltTableUtil;
+
+/**
+ * A system procedure bracketing the restore of a snapshot for the graph views,
+ * as the RestoreAgent does when the database recovers.
+ *
+ * BEGIN suspends the maintenance of every graph view at every site, as @GraphBulkLoad
+ * does, so the restored tuples are not linked one at a time. END builds their topology
+ * once the tables are restored: each site loads the topology image its graph views were
+ * saved with, read from the snapshot files in path named by nonce, when the image
+ * matches the tuple counts and the checksums of the restored tables, and builds the
+ * topology from the tables otherwise. The images are only saved by the snapshots
+ * requested with the graph topology.
+ */
+@ProcInfo(singlePartition = false)
+public class GraphTopologyRestore extends VoltSystemProcedure {
+    private static final VoltLogger SNAP_LOG = new VoltLogger("SNAPSHOT");
+
+    private static final int DEP_graphTopologyRestore = (int)
+            SysProcFragmentId.PF_graphTopologyRestore | DtxnConstants.MULTIPARTITION_DEPENDENCY;
+
+    private static final int DEP_graphTopologyRestoreAggregate = (int)
+            SysProcFragmentId.PF_graphTopologyRestoreAggregate;
+
+    @Override
+    public void init() {
+        registerPlanFragment(SysProcFragmentId.PF_graphTopologyRestore);
+        registerPlanFragment(SysProcFragmentId.PF_graphTopologyRestoreAggregate);
+    }
+
+    @Override
+    public DependencyPair
+    executePlanFragment(Map<Integer, List<VoltTable>> dependencies, long fragmentId, ParameterSet params,
+                        final SystemProcedureExecutionContext context)
+    {
+        if (fragmentId == SysProcFragmentId.PF_graphTopologyRestore) {
+
+            Object paramsArray[] = params.toArray();
+            String path = (String)paramsArray[0];
+            String nonce = (String)paramsArray[1];
+            boolean begin = ((Byte)paramsArray[2]) != 0;
+
+            int graphViews = context.getDatabase().getGraphviews().size();
+            int imagesLoaded = 0;
+            if (begin) {
+                context.getSiteProcedureConnection().setGraphTopologyRestore(true);
+            }
+            else {
+                for (GraphView graphView : context.getDatabase().getGraphviews()) {
+                    stageImage(graphView, path, nonce, context);
+                }
+                imagesLoaded = context.getSiteProcedureConnection().setGraphTopologyRestore(false);
+            }
+
+            final VoltTable results = constructResultsTable();
+            results.addRow(context.getHostId(), CoreUtils.getSiteIdFromHSId(context.getSiteId()), context.getPartitionId(),
+                    graphViews, imagesLoaded);
+            return new DependencyPair(DEP_graphTopologyRestore, results);
+
+        } else if (fragmentId == SysProcFragmentId.PF_graphTopologyRestoreAggregate) {
+
+            assert (dependencies.size() > 0);
+            final VoltTable results = VoltTableUtil.unionTables(dependencies.get(DEP_graphTopologyRestore));
+            return new DependencyPair(DEP_graphTopologyRestoreAggregate, results);
+
+        }
+        assert (false);
+        return null;
+    }
+
+    /**
+     * Hand the image of the graph view over to the EE, if the snapshot saved a readable one
+     * for the partition of this site
+     */
+    private static void stageImage(GraphView graphView, String path, String nonce,
+            SystemProcedureExecutionContext context)
+    {
+        File file = SnapshotUtil.constructFileForGraphTopology(graphView, path, nonce, context.getPartitionId());
+        try {
+            SnapshotUtil.stageGraphTopology(file, context.getSiteProcedureConnection(),
+                    graphView.getTypeName(), SNAP_LOG);
+        }
+        catch (IOException e) {
+            SNAP_LOG.warn("Failed to read the topology of graph view " + graphView.getTypeName() +
+                    " from " + file + ", building it from its tables", e);
+        }
+    }
+
+    private VoltTable constructResultsTable() {
+        ColumnInfo[] result_columns = new ColumnInfo[5];
+        int ii = 0;
+        result_columns[ii++] = new ColumnInfo(CNAME_HOST_ID, CTYPE_ID);
+        result_columns[ii++] = new ColumnInfo(CNAME_SITE_ID, CTYPE_ID);
+        result_columns[ii++] = new ColumnInfo(CNAME_PARTITION_ID, CTYPE_ID);
+        result_columns[ii++] = new ColumnInfo("GRAPH_VIEWS", VoltType.INTEGER);
+        result_columns[ii++] = new ColumnInfo("IMAGES_LOADED", VoltType.INTEGER);
+        return new VoltTable(result_columns);
+    }
+
+    public VoltTable[] run(SystemProcedureExecutionContext ctx, String path, String nonce, String action)
+            throws VoltAbortException
+    {
+        action = action.toUpperCase();
+        if (!action.equals("BEGIN") && !action.equals("END")) {
+            throw new VoltAbortException("Unknown graph topology restore action " + action + ", expected BEGIN or END");
+        }
+        byte begin = action.equals("BEGIN") ? (byte)1 : (byte)0;
+
+        final long startTime = System.currentTimeMillis();
+        SynthesizedPlanFragment[] pfs = new SynthesizedPlanFragment[2];
+
+        pfs[0] = new SynthesizedPlanFragment();
+        pfs[0].fragmentId = SysProcFragmentId.PF_graphTopologyRestore;
+        pfs[0].outputDepId = DEP_graphTopologyRestore;
+        pfs[0].multipartition = true;
+        pfs[0].parameters = ParameterSet.fromArrayNoCopy(path, nonce, begin);
+
+        pfs[1] = new SynthesizedPlanFragment();
+        pfs[1].fragmentId = SysProcFragmentId.PF_graphTopologyRestoreAggregate;
+        pfs[1].outputDepId = DEP_graphTopologyRestoreAggregate;
+        pfs[1].inputDepIds  = new int[] { DEP_graphTopologyRestore };
+        pfs[1].multipartition = false;
+        pfs[1].parameters = ParameterSet.emptyParameterSet();
+
+        VoltTable retval[] = executeSysProcPlanFragments(pfs, DEP_graphTopologyRestoreAggregate);
+        final long duration = System.currentTimeMillis() - startTime;
+        SNAP_LOG.info("Graph topology restore " + action + " of snapshot " + nonce +
+                " took " + duration + " milliseconds");
+        return retval;
+    }
+}
@@ -205,4 +205,20 @@ public class SysProcFragmentId
     public static final long PF_updateSettingsBarrierAggregate = 301;
     public static final long PF_updateSettings = 302;
     public static final long PF_updateSettingsAggregate = 303;
+
+    // @GraphAnalytics
+    public static final long PF_graphAnalytics = 310;
+    public static final long PF_graphAnalyticsAggregate = 311;
+
+    // @GraphBulkLoad
+    public static final long PF_graphBulkLoad = 312;
+    public static final long PF_graphBulkLoadAggregate = 313;
+
+    // @GraphTopologyRestore
+    public static final long PF_graphTopologyRestore = 314;
+    public static final long PF_graphTopologyRestoreAggregate = 315;
+
+    // @GraphAnalyticsRound
+    public static final long PF_graphAnalyticsRound = 316;
+    public static final long PF_graphAnalyticsRoundAggregate = 317;
 }
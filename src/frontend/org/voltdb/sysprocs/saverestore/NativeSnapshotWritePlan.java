@@ -22,7 +22,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -41,6 +44,8 @@ import org.voltdb.TheHashinator;
 import org.voltdb.TheHashinator.HashinatorType;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltTable;
+import org.voltdb.catalog.Database;
+import org.voltdb.catalog.GraphView;
 import org.voltdb.catalog.Table;
 import org.voltdb.dtxn.SiteTracker;
 import org.voltdb.export.ExportManager;
@@ -56,9 +61,27 @@ import com.google_voltpatches.common.collect.Maps;
  * responsibility for writing them is spread round-robin across the sites on a
  * node.  Partitioned tables are written to the same target per table by every
  * site on a node.
+ *
+ * The snapshots requested with the graph topology also save the topology image
+ * of every graph view whose vertexes and edges tables they save, so a restore can
+ * load the topology back rather than build it from the tables. The image is taken
+ * by the snapshot transaction, so the other snapshots, the truncation snapshots
+ * included, do without it.
  */
 public class NativeSnapshotWritePlan extends SnapshotWritePlan
 {
+    protected final Map<Long, List<GraphView>> m_graphViewsForHSIds =
+        new HashMap<Long, List<GraphView>>();
+
+    /**
+     * Get the graph views whose topology image each site saves.  Will only be
+     * useful after createSetup() is called.
+     */
+    public Map<Long, List<GraphView>> getGraphViewsForHSIds()
+    {
+        return m_graphViewsForHSIds;
+    }
+
     @Override
     public Callable<Boolean> createSetup(String file_path, String pathType,
                                             String file_nonce,
@@ -154,6 +177,11 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
             isTruncationSnapshot = jsData.has("truncReqId");
         }
 
+        if (jsData != null && jsData.optBoolean(SnapshotUtil.JSON_GRAPH_TOPOLOGY, false)) {
+            placeGraphTopologyTasks(context.getDatabase(), tableArray,
+                    tracker.getSitesForHost(context.getHostId()));
+        }
+
         // All IO work will be deferred and be run on the dedicated snapshot IO thread
         return createDeferredSetup(file_path, pathType, file_nonce, txnId, partitionTransactionIds,
                 context, extraSnapshotData, tracker, hashinatorData, timestamp,
@@ -300,6 +328,41 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
         return sdt;
     }
 
+    /**
+     * Place the topology images of the graph views saved with both of their tables: a
+     * partitioned graph view is saved by every site, and a replicated one, which every
+     * site holds a copy of, by a single site per node, round-robin across the sites.
+     */
+    private void placeGraphTopologyTasks(Database database, Table[] tables, List<Long> hsids)
+    {
+        Set<String> savedTables = new HashSet<String>();
+        for (Table table : tables) {
+            savedTables.add(table.getTypeName());
+        }
+        int siteIndex = 0;
+        for (GraphView graphView : database.getGraphviews()) {
+            if (graphView.getVtable() == null || graphView.getEtable() == null ||
+                    !savedTables.contains(graphView.getVtable().getTypeName()) ||
+                    !savedTables.contains(graphView.getEtable().getTypeName())) {
+                continue;
+            }
+            List<Long> sites = hsids;
+            if (graphView.getIsreplicated()) {
+                sites = Arrays.asList(hsids.get(siteIndex++ % hsids.size()));
+            }
+            for (Long hsid : sites) {
+                List<GraphView> graphViews = m_graphViewsForHSIds.get(hsid);
+                if (graphViews == null) {
+                    graphViews = new ArrayList<GraphView>();
+                    m_graphViewsForHSIds.put(hsid, graphViews);
+                }
+                graphViews.add(graphView);
+            }
+        }
+        SNAP_LOG.debug("Placed graph topology tasks at sites: " +
+                CoreUtils.hsIdCollectionToString(m_graphViewsForHSIds.keySet()));
+    }
+
     static void createFileBasedCompletionTasks(
             String file_path, String pathType, String file_nonce,
             long txnId, Map<Integer, Long> partitionTransactionIds,
@@ -62,6 +62,7 @@ import org.voltdb.ClientInterface;
 import org.voltdb.ClientResponseImpl;
 import org.voltdb.ExtensibleSnapshotDigestData;
 import org.voltdb.SimpleClientResponseAdapter;
+import org.voltdb.SiteProcedureConnection;
 import org.voltdb.SnapshotCompletionInterest;
 import org.voltdb.SnapshotDaemon;
 import org.voltdb.SnapshotDaemon.ForwardClientException;
@@ -78,6 +79,7 @@ import org.voltdb.VoltType;
 import org.voltdb.catalog.CatalogMap;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Database;
+import org.voltdb.catalog.GraphView;
 import org.voltdb.catalog.Table;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.common.Constants;
@@ -92,6 +94,7 @@ public class SnapshotUtil {
 
     public final static String HASH_EXTENSION = ".hash";
     public final static String COMPLETION_EXTENSION = ".finished";
+    public final static String GRAPH_TOPOLOGY_EXTENSION = ".vpg";
 
     public static final String JSON_PATH = "path";
     public static final String JSON_PATH_TYPE = "pathType";
@@ -104,6 +107,7 @@ public class SnapshotUtil {
     public static final String JSON_DATA = "data";
     public static final String JSON_URIPATH = "uripath";
     public static final String JSON_SERVICE = "service";
+    public static final String JSON_GRAPH_TOPOLOGY = "graphtopology";
 
 
     public static final ColumnInfo nodeResultsColumns[] =
@@ -295,6 +299,146 @@ public class SnapshotUtil {
         }
     }
 
+    /**
+     * Write the topology image of a graph view, chunk by chunk as the EE hands it over, each
+     * chunk behind its length and its CRC, and a zero length after the last one, so neither
+     * the EE nor the file limit the image to what a Java array holds.
+     * The image is written by the site holding the graph view at the snapshot
+     * transaction, the returned Runnable syncs the file once the snapshot completes.
+     *
+     * @param file      file of the image, see constructFileForGraphTopology
+     * @param site      site holding the graph view
+     * @param graphView name of the graph view
+     * @return Runnable object for asynchronous write flushing, or null, writing no file,
+     *         if the graph view has no topology to save
+     * @throws IOException
+     */
+    public static Runnable writeGraphTopology(File file, SiteProcedureConnection site, String graphView)
+            throws IOException
+    {
+        // the EE takes the image with the first chunk
+        byte chunk[] = site.getGraphTopologyChunk(graphView, 0);
+        if (chunk.length == 0) {
+            return null;
+        }
+        if (file.exists()) {
+            if (!file.delete()) {
+                throw new IOException("Unable to replace existing graph topology " + file);
+            }
+        }
+
+        boolean success = false;
+        try {
+            final FileOutputStream fos = new FileOutputStream(file);
+            long offset = 0;
+            while (chunk.length > 0) {
+                final PureJavaCrc32 crc = new PureJavaCrc32();
+                crc.update(chunk);
+                ByteBuffer chunkBuffer = ByteBuffer.allocate(chunk.length + 8);
+                chunkBuffer.putInt(chunk.length);
+                chunkBuffer.putInt((int)crc.getValue());
+                chunkBuffer.put(chunk);
+                chunkBuffer.flip();
+                while (chunkBuffer.hasRemaining()) {
+                    fos.getChannel().write(chunkBuffer);
+                }
+                offset += chunk.length;
+                chunk = site.getGraphTopologyChunk(graphView, offset);
+            }
+            ByteBuffer endBuffer = ByteBuffer.allocate(4);
+            endBuffer.putInt(0);
+            endBuffer.flip();
+            while (endBuffer.hasRemaining()) {
+                fos.getChannel().write(endBuffer);
+            }
+            success = true;
+            return new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try {
+                        fos.getChannel().force(true);
+                    }
+                    catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    finally {
+                        try {
+                            fos.close();
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+            };
+        }
+        finally {
+            if (!success) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Stage the topology image of a graph view written by writeGraphTopology in the EE,
+     * chunk by chunk. The chunks staged are discarded if a chunk does not match its CRC
+     * or the file ends before the last one, the graph view is then built from its tables.
+     *
+     * @param file      file of the image, see constructFileForGraphTopology
+     * @param site      site holding the graph view
+     * @param graphView name of the graph view
+     * @param logger    log writer
+     * @return whether the whole image was staged, false if the file does not exist or is corrupt
+     * @throws IOException
+     */
+    public static boolean stageGraphTopology(File file, SiteProcedureConnection site, String graphView,
+            VoltLogger logger) throws IOException
+    {
+        if (!file.exists()) {
+            return false;
+        }
+        boolean success = false;
+        DataInputStream dis = null;
+        try {
+            dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            long remaining = file.length();
+            while (true) {
+                final int length = dis.readInt();
+                if (length == 0) {
+                    break;
+                }
+                final int crc = dis.readInt();
+                remaining -= 8;
+                if (length < 0 || length > remaining) {
+                    logger.warn("Length of a chunk of graph topology " + file + " does not match the file");
+                    return false;
+                }
+                byte chunk[] = new byte[length];
+                dis.readFully(chunk);
+                remaining -= length;
+                PureJavaCrc32 chunkCRC = new PureJavaCrc32();
+                chunkCRC.update(chunk);
+                if (crc != (int)chunkCRC.getValue()) {
+                    logger.warn("CRC of a chunk of graph topology " + file + " did not match its contents");
+                    return false;
+                }
+                site.stageGraphTopologyChunk(graphView, chunk);
+            }
+            success = true;
+            return true;
+        }
+        finally {
+            if (!success) {
+                site.discardGraphTopologyImage(graphView);
+            }
+            if (dis != null) {
+                dis.close();
+            }
+        }
+    }
+
     /**
      * Get the nonce from the filename of the digest file.
      * @param filename The filename of the digest file
@@ -1179,6 +1323,38 @@ public class SnapshotUtil {
             table, fileNonce, format, hostId));
     }
 
+    /**
+     * Generates the filename of the topology image of a graph view. A replicated graph
+     * view is written once per node, a partitioned one once per partition.
+     * @param graphView
+     * @param fileNonce
+     * @param partitionId
+     */
+    public static final String constructFilenameForGraphTopology(GraphView graphView,
+                                                                 String fileNonce,
+                                                                 int partitionId)
+    {
+        StringBuilder filename_builder = new StringBuilder(fileNonce);
+        filename_builder.append("-");
+        filename_builder.append(graphView.getTypeName());
+        if (!graphView.getIsreplicated())
+        {
+            filename_builder.append("-partition_");
+            filename_builder.append(partitionId);
+        }
+        filename_builder.append(GRAPH_TOPOLOGY_EXTENSION);
+        return filename_builder.toString();
+    }
+
+    public static final File constructFileForGraphTopology(GraphView graphView,
+            String filePath,
+            String fileNonce,
+            int partitionId)
+    {
+        return new VoltFile(filePath, SnapshotUtil.constructFilenameForGraphTopology(
+            graphView, fileNonce, partitionId));
+    }
+
     /**
      * Generates the digest filename for the given nonce.
      * @param nonce
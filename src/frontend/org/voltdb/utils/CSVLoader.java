@@ -315,6 +315,9 @@ public class CSVLoader implements BulkLoaderErrorHandler {
 
         @Option(desc = "Use upsert instead of insert", hasArg = false)
         boolean update = DEFAULT_UPSERT_MODE;
+
+        @Option(desc = "Suspend the maintenance of the graph views over the table during the load, and build their topology once it completes", hasArg = false)
+        boolean graphbulkload = false;
         /**
          * Validate command line options.
          */
@@ -356,6 +359,9 @@ public class CSVLoader implements BulkLoaderErrorHandler {
                 update = false;
                 exitWithMessageAndUsage("update is not applicable when stored procedure specified");
             }
+            if (graphbulkload && table.equals("")) {
+                exitWithMessageAndUsage("--graphbulkload requires a table name");
+            }
             if(!timezone.equals("")){
                 boolean isValidTimezone = false;
                 for (String tzId : TimeZone.getAvailableIDs()) {
@@ -460,6 +466,10 @@ public class CSVLoader implements BulkLoaderErrorHandler {
                 dataLoader = new CSVBulkDataLoader((ClientImpl) csvClient, config.table, config.batch, config.update, errHandler);
             }
 
+            if (config.graphbulkload) {
+                setGraphBulkLoad(csvClient, "BEGIN");
+            }
+
             CSVFileReader.initializeReader(cfg, csvClient, listReader);
 
             CSVFileReader csvReader = new CSVFileReader(dataLoader, errHandler);
@@ -474,6 +484,13 @@ public class CSVLoader implements BulkLoaderErrorHandler {
 
             insertTimeEnd = System.currentTimeMillis();
 
+            if (config.graphbulkload) {
+                long buildStart = System.currentTimeMillis();
+                setGraphBulkLoad(csvClient, "END");
+                m_log.info("Building the graph views over " + config.table + " took "
+                        + (System.currentTimeMillis() - buildStart) + " milliseconds.");
+            }
+
             csvClient.close();
 
             errHandler.waitForErrorFlushComplete();
@@ -556,6 +573,23 @@ public class CSVLoader implements BulkLoaderErrorHandler {
         }
     }
 
+    /**
+     * Begin or end the bulk load of the graph views over the table with @GraphBulkLoad.
+     * A load that fails to begin is not started; a load that fails to end leaves the
+     * graph views refusing the traversals until @GraphBulkLoad END is called again.
+     */
+    private static void setGraphBulkLoad(Client client, String action) {
+        try {
+            ClientResponse response = client.callProcedure("@GraphBulkLoad", config.table, action);
+            if (response.getStatus() != ClientResponse.SUCCESS) {
+                throw new Exception(response.getStatusString());
+            }
+        } catch (Exception e) {
+            m_log.error("@GraphBulkLoad " + action + " failed on table " + config.table + ": " + e.getMessage());
+            System.exit(-1);
+        }
+    }
+
     /**
      * Get connection to servers in cluster.
      *
@@ -11,7 +11,7 @@ import org.hsqldb_voltpatches.index.Index;
 import org.hsqldb_voltpatches.lib.HashMappedList;
 import org.hsqldb_voltpatches.lib.OrderedHashSet;
 import org.hsqldb_voltpatches.rights.Grantee;
-import org.hsqldb_voltpatches.types.CharacterType;
+import org.hsqldb_voltpatches.types.BinaryType;
 import org.hsqldb_voltpatches.types.NumberType;
 import org.hsqldb_voltpatches.types.Type;
 
@@ -22,6 +22,10 @@ public class GraphView implements SchemaObject {
 	protected HsqlName GraphName;
     public Database database;
     protected boolean isDirected;
+    protected boolean isCSR;            // compressed sparse row adjacency
+    protected int landmarks;            // landmark vertexes guiding the shortest paths
+    protected boolean hasReachabilityIndex; // reachability labels for the start/end queries
+    protected int traversalCacheMB = DEFAULT_TRAVERSAL_CACHE_MB; // paths cached per site, 0 for none
     protected int type;
 	
     String VSubQuery;
@@ -45,6 +49,8 @@ public class GraphView implements SchemaObject {
     private int pathPropCount;
     
     private final long DefPrecision = 10;
+    // Largest VARBINARY value VoltDB stores, the longest path the PATH column holds
+    private final long MaxPathBytes = 1048576;
     
     //HsqlName[] VertexProperties;
     //HsqlName[] VertexColumns;
@@ -128,8 +134,9 @@ public class GraphView implements SchemaObject {
     	ColumnSchema pathCost = new ColumnSchema(Name, new NumberType(Types.SQL_DOUBLE, DefPrecision, 0), false, false, null);
     	addPathPropNoCheck(pathCost);
     	
+    	// The vertex keys of the path, one after the other as VoltDB serializes them
     	Name = database.nameManager.newColumnHsqlName(schema, "PATH", isDelimitedIdentifier);
-    	col = new ColumnSchema(Name, new CharacterType(Types.SQL_VARCHAR, 1024), false, false, null);
+    	col = new ColumnSchema(Name, BinaryType.getBinaryType(Types.SQL_VARBINARY, MaxPathBytes), false, false, null);
     	addPathPropNoCheck(col);
     	
     	Name = database.nameManager.newColumnHsqlName(schema, "PROP1", isDelimitedIdentifier);
@@ -154,6 +161,23 @@ public class GraphView implements SchemaObject {
     	
     }
     
+    /*
+     * Types the start and end vertexes of the paths as the vertex keys.
+     * TINYINT, SMALLINT and INTEGER keys are served as INTEGER, BIGINT and
+     * VARCHAR keys keep their type, the other types cannot key a vertex.
+     */
+    public void setVertexIdType(Type idType) {
+    	
+    	if (idType.isCharacterType() || idType.typeCode == Types.SQL_BIGINT) {
+    		getPathProp(findPathProp("STARTVERTEXID")).setType(idType);
+    		getPathProp(findPathProp("ENDVERTEXID")).setType(idType);
+    	}
+    	else if (idType.typeCode != Types.TINYINT && idType.typeCode != Types.SQL_SMALLINT
+    			&& idType.typeCode != Types.SQL_INTEGER) {
+    		throw Error.error(ErrorCode.X_42561);
+    	}
+    }
+    
 	@Override
 	public int getType() {
 		// TODO Auto-generated method stub
@@ -213,6 +237,45 @@ public class GraphView implements SchemaObject {
 		statement = sqlString;
 		
 	}
+
+	public boolean isCSR() {
+		return isCSR;
+	}
+
+	public void setCSR(boolean csr) {
+		isCSR = csr;
+	}
+
+	// each landmark keeps a distance per vertex (two for directed graph views)
+	public static final int MAX_LANDMARKS = 16;
+
+	public int getLandmarks() {
+		return landmarks;
+	}
+
+	public void setLandmarks(int count) {
+		landmarks = count;
+	}
+
+	public boolean hasReachabilityIndex() {
+		return hasReachabilityIndex;
+	}
+
+	public void setReachabilityIndex(boolean reachabilityIndex) {
+		hasReachabilityIndex = reachabilityIndex;
+	}
+
+	// the traversal cache of each graph view is bounded separately on each site
+	public static final int DEFAULT_TRAVERSAL_CACHE_MB = 64;
+	public static final int MAX_TRAVERSAL_CACHE_MB = 1024;
+
+	public int getTraversalCacheMB() {
+		return traversalCacheMB;
+	}
+
+	public void setTraversalCacheMB(int megabytes) {
+		traversalCacheMB = megabytes;
+	}
 	
     /**
      * VoltDB added method to get a non-catalog-dependent
@@ -239,6 +302,10 @@ public class GraphView implements SchemaObject {
         graphxml.attributes.put("Equery", ESubQuery);
 
         graphxml.attributes.put("isdirected", String.valueOf(isDirected));
+        graphxml.attributes.put("iscsr", String.valueOf(isCSR));
+        graphxml.attributes.put("landmarks", String.valueOf(landmarks));
+        graphxml.attributes.put("reachabilityindex", String.valueOf(hasReachabilityIndex));
+        graphxml.attributes.put("traversalcachemb", String.valueOf(traversalCacheMB));
         
         graphxml.attributes.put("DDL", statement);
         
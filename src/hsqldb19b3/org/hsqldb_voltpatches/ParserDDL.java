@@ -276,6 +276,40 @@ public class ParserDDL extends ParserRoutine {
         GraphView graph = new GraphView(database, schema, type);
         graph.setSQL(session.parser.getScanner().sqlString);
 
+        // Optional storage options: WITH CSR, LANDMARKS <count>, REACHABILITY, CACHE <megabytes>
+        if (readIfThis(Tokens.WITH)) {
+            do {
+                checkIsSimpleName();
+                if ("CSR".equals(token.tokenString)) {
+                    read();
+                    graph.setCSR(true);
+                }
+                else if ("LANDMARKS".equals(token.tokenString)) {
+                    read();
+                    int landmarks = readInteger();
+                    if (landmarks < 0 || landmarks > GraphView.MAX_LANDMARKS) {
+                        throw Error.error(ErrorCode.X_22003);
+                    }
+                    graph.setLandmarks(landmarks);
+                }
+                else if ("REACHABILITY".equals(token.tokenString)) {
+                    read();
+                    graph.setReachabilityIndex(true);
+                }
+                else if ("CACHE".equals(token.tokenString)) {
+                    read();
+                    int megabytes = readInteger();
+                    if (megabytes < 0 || megabytes > GraphView.MAX_TRAVERSAL_CACHE_MB) {
+                        throw Error.error(ErrorCode.X_22003);
+                    }
+                    graph.setTraversalCacheMB(megabytes);
+                }
+                else {
+                    throw unexpectedToken();
+                }
+            } while (readIfThis(Tokens.COMMA));
+        }
+
         readThis(Tokens.VERTEXES);
         
         //Vertex vertex = new VetrexSchema(graph);
@@ -380,6 +414,8 @@ public class ParserDDL extends ParserRoutine {
         }
         
         graph.addDefVertexProps(schema, isDelimitedIdentifier());
+        // The paths carry the keys of the vertexes, the ID property comes first
+        graph.setVertexIdType(graph.getVertexProp(graph.findVertexProp("ID")).getDataType());
         
         br.append(partsql);
         
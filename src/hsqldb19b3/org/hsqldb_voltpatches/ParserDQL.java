@@ -875,17 +875,36 @@ public class ParserDQL extends ParserBase {
         	
         	StringBuilder sb = new StringBuilder();
         	
-        	sb.append(token.tokenString);
-        	read();
-        	
-        	if (readIfThis(Tokens.OPENBRACKET)) {
-	        	sb.append("("+token.tokenString+")");
-	        	
-	        	//System.out.println("ParserDQL 883 "+token.tokenType);
-	        	
-	        	read();
-	        	readThis(Tokens.CLOSEBRACKET);
-        	}
+        	// comma separated hints, e.g., HINT(SHORTESTPATH(COST), MAXEXPANSIONS(100000))
+        	do {
+        		if (sb.length() > 0) {
+        			sb.append(",");
+        		}
+        		if ("MAXEXPANSIONS".equals(token.tokenString)) {
+        			// budget of vertexes the traversals of the scan may expand
+        			read();
+        			readThis(Tokens.OPENBRACKET);
+        			int budget = readInteger();
+        			if (budget <= 0) {
+        				throw Error.error(ErrorCode.X_22003);
+        			}
+        			readThis(Tokens.CLOSEBRACKET);
+        			sb.append("MAXEXPANSIONS(" + budget + ")");
+        			continue;
+        		}
+        		
+        		sb.append(token.tokenString);
+        		read();
+        		
+        		if (readIfThis(Tokens.OPENBRACKET)) {
+        			sb.append("("+token.tokenString+")");
+        			
+        			//System.out.println("ParserDQL 883 "+token.tokenType);
+        			
+        			read();
+        			readThis(Tokens.CLOSEBRACKET);
+        		}
+        	} while (readIfThis(Tokens.COMMA));
         	
         	select.hint = sb.toString();
         	
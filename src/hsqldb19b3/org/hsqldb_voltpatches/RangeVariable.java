@@ -1509,6 +1509,26 @@ final class RangeVariable {
         return scan;
     }
 
+    /*
+     * Record a traversal argument of a graph scan. Besides the literal,
+     * the id of the value element is kept so that the planner can bind the
+     * argument to a parameter, either user provided (?) or generated by the
+     * parameterization of the ad hoc plan cache.
+     */
+    private static void putScanArgument(VoltXMLElement scan, String name, VoltXMLElement value) {
+        if ( ! value.name.equals("value")) {
+            return;
+        }
+        String literal = value.attributes.get("value");
+        if (literal != null) {
+            scan.attributes.put(name, literal);
+        }
+        String id = value.attributes.get("id");
+        if (id != null) {
+            scan.attributes.put(name + "valueid", id);
+        }
+    }
+
     /*
      * Help function to dig into conditions of the query
      * used by voltGetGraphRangeVariableXML
@@ -1524,42 +1544,42 @@ final class RangeVariable {
 					if (ccc.attributes.containsKey("column") && 
 						ccc.attributes.get("column").equals("STARTVERTEXID")) {
 						VoltXMLElement value = c.children.get(i+1);
-						scan.attributes.put("startvertexid", value.attributes.get("value"));
+						putScanArgument(scan, "startvertexid", value);
 					}
 					else if (ccc.attributes.containsKey("column") && 
 							 ccc.attributes.get("column").equals("ENDVERTEXID")) {
 						VoltXMLElement value = c.children.get(i+1);
-						scan.attributes.put("endvertexid", value.attributes.get("value"));
+						putScanArgument(scan, "endvertexid", value);
 					}
 					else if (ccc.attributes.containsKey("column") && 
 							 ccc.attributes.get("column").equals(c_PROP1)) {
 						VoltXMLElement value = c.children.get(i+1);
-						scan.attributes.put("prop1", value.attributes.get("value"));
+						putScanArgument(scan, "prop1", value);
 					}
 					else if (ccc.attributes.containsKey("column") && 
 							 ccc.attributes.get("column").equals(c_PROP2)) {
 						VoltXMLElement value = c.children.get(i+1);
-						scan.attributes.put("prop2", value.attributes.get("value"));
+						putScanArgument(scan, "prop2", value);
 					}
 					else if (ccc.attributes.containsKey("column") && 
 							 ccc.attributes.get("column").equals(c_PROP3)) {
 						VoltXMLElement value = c.children.get(i+1);
-						scan.attributes.put("prop3", value.attributes.get("value"));
+						putScanArgument(scan, "prop3", value);
 					}
 					else if (ccc.attributes.containsKey("column") && 
 							 ccc.attributes.get("column").equals(c_PROP4)) {
 						VoltXMLElement value = c.children.get(i+1);
-						scan.attributes.put("prop4", value.attributes.get("value"));
+						putScanArgument(scan, "prop4", value);
 					}
 					else if (ccc.attributes.containsKey("column") && 
 							 ccc.attributes.get("column").equals(c_PROP5)) {
 						VoltXMLElement value = c.children.get(i+1);
-						scan.attributes.put("prop5", value.attributes.get("value"));
+						putScanArgument(scan, "prop5", value);
 					}
 					else if (ccc.attributes.containsKey("column") && 
 							 ccc.attributes.get("column").equals(c_LENGTH)) {
 						VoltXMLElement value = c.children.get(i+1);
-						scan.attributes.put("length", value.attributes.get("value"));
+						putScanArgument(scan, "length", value);
 					}
 					i++;
 				}
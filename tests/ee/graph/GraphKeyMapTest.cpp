@@ -0,0 +1,242 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include "harness.h"
+
+#include "common/NValue.hpp"
+#include "common/TupleSchema.h"
+#include "common/types.h"
+#include "common/ValueFactory.hpp"
+#include "execution/VoltDBEngine.h"
+#include "graph/GraphView.h"
+#include "graph/GraphViewFactory.h"
+#include "storage/persistenttable.h"
+#include "storage/tablefactory.h"
+
+#include <cstring>
+#include <string>
+#include <vector>
+
+using namespace voltdb;
+
+/**
+ * Inserts vertexes keyed by VARCHAR and edges keyed by BIGINT into the tables
+ * of a graph view, and checks that the keys mapped to ids are released by the
+ * rollback of the inserts, and are only mapped while a graph element, or an
+ * edge endpoint, refers to them.
+ */
+class GraphKeyMapTest : public Test {
+public:
+    GraphKeyMapTest()
+        : m_undoToken(0)
+    {
+        m_engine = new VoltDBEngine();
+        int partitionCount = 1;
+        m_engine->initialize(1, 1, 0, 0, "", 0, 1024, DEFAULT_TEMP_TABLE_MEMORY, false);
+        m_engine->updateHashinator(HASHINATOR_LEGACY, (char*)&partitionCount, NULL, 0);
+        beginWork();
+
+        ::memset(m_signature, 0, sizeof(m_signature));
+        std::vector<std::string> vertexColumns;
+        vertexColumns.push_back("ID");
+        std::vector<ValueType> vertexTypes;
+        vertexTypes.push_back(VALUE_TYPE_VARCHAR);
+        std::vector<std::string> edgeColumns;
+        edgeColumns.push_back("ID");
+        edgeColumns.push_back("SRC");
+        edgeColumns.push_back("DST");
+        std::vector<ValueType> edgeTypes;
+        edgeTypes.push_back(VALUE_TYPE_BIGINT);
+        edgeTypes.push_back(VALUE_TYPE_VARCHAR);
+        edgeTypes.push_back(VALUE_TYPE_VARCHAR);
+        m_vertexTable = createTable("VERTEXES", vertexColumns, vertexTypes);
+        m_edgeTable = createTable("EDGES", edgeColumns, edgeTypes);
+        m_graphView = createGraphView("NETWORK");
+    }
+
+    ~GraphKeyMapTest() {
+        m_vertexTable->dropGraphView(m_graphView);
+        m_edgeTable->dropGraphView(m_graphView);
+        delete m_graphView;
+        delete m_engine;
+        delete m_vertexTable;
+        delete m_edgeTable;
+    }
+
+protected:
+    PersistentTable* createTable(const std::string& name, const std::vector<std::string>& columnNames,
+                                 const std::vector<ValueType>& types) {
+        std::vector<int32_t> sizes;
+        for (size_t i = 0; i < types.size(); i++) {
+            sizes.push_back(types[i] == VALUE_TYPE_VARCHAR ? 16 : NValue::getTupleStorageSize(types[i]));
+        }
+        std::vector<bool> allowNull(types.size(), false);
+        TupleSchema* schema = TupleSchema::createTupleSchemaForTest(types, sizes, allowNull);
+        return dynamic_cast<PersistentTable*>(TableFactory::getPersistentTable(
+                0, name, schema, columnNames, m_signature, false, -1, false, false));
+    }
+
+    GraphView* createGraphView(const std::string& name) {
+        std::vector<std::string> vertexColumnNames;
+        vertexColumnNames.push_back("ID");
+        std::vector<int> columnIdsInVertexTable;
+        columnIdsInVertexTable.push_back(0);
+        std::vector<std::string> edgeColumnNames;
+        edgeColumnNames.push_back("ID");
+        edgeColumnNames.push_back("FROM");
+        edgeColumnNames.push_back("TO");
+        std::vector<int> columnIdsInEdgeTable;
+        columnIdsInEdgeTable.push_back(0);
+        columnIdsInEdgeTable.push_back(1);
+        columnIdsInEdgeTable.push_back(2);
+        GraphView* graphView = GraphViewFactory::createGraphView(name, true,
+                m_vertexTable, m_edgeTable, NULL, NULL, NULL,
+                vertexColumnNames, edgeColumnNames, columnIdsInVertexTable, columnIdsInEdgeTable,
+                0, m_signature, 0, 0, 1, 2);
+        m_vertexTable->addGraphView(graphView);
+        m_edgeTable->addGraphView(graphView);
+        return graphView;
+    }
+
+    void beginWork() {
+        m_engine->setUndoToken(++m_undoToken);
+        ExecutorContext::getExecutorContext()->setupForPlanFragments(m_engine->getCurrentUndoQuantum(), 0, 0, 0, 0);
+    }
+
+    void commit() {
+        m_engine->releaseUndoToken(m_undoToken);
+        beginWork();
+    }
+
+    void rollback() {
+        m_engine->undoUndoToken(m_undoToken);
+        beginWork();
+    }
+
+    static void setString(TableTuple& tuple, int column, const std::string& value) {
+        NValue string = ValueFactory::getStringValue(value);
+        tuple.setNValue(column, string);
+        string.free();
+    }
+
+    void insertVertex(const std::string& key) {
+        TableTuple& tuple = m_vertexTable->tempTuple();
+        setString(tuple, 0, key);
+        m_vertexTable->insertTuple(tuple);
+    }
+
+    void insertEdge(int64_t key, const std::string& from, const std::string& to) {
+        TableTuple& tuple = m_edgeTable->tempTuple();
+        tuple.setNValue(0, ValueFactory::getBigIntValue(key));
+        setString(tuple, 1, from);
+        setString(tuple, 2, to);
+        m_edgeTable->insertTuple(tuple);
+    }
+
+    //the vertex keyed by key, NULL if the key is not mapped or no vertex has it
+    Vertex* vertexOf(const std::string& key) {
+        NValue string = ValueFactory::getStringValue(key);
+        int id = m_graphView->vertexIdOf(string);
+        string.free();
+        return id == GraphKeyMap::UNKNOWN_ID ? NULL : m_graphView->getVertex(id);
+    }
+
+    bool isMapped(const std::string& key) {
+        NValue string = ValueFactory::getStringValue(key);
+        int id = m_graphView->vertexIdOf(string);
+        string.free();
+        return id != GraphKeyMap::UNKNOWN_ID;
+    }
+
+    void createRing() {
+        const char* keys[] = { "a", "b", "c", "d", "e" };
+        for (int i = 0; i < 5; i++) {
+            insertVertex(keys[i]);
+        }
+        for (int i = 0; i < 5; i++) {
+            insertEdge(1000000000000LL + i, keys[i], keys[(i + 1) % 5]);
+        }
+        commit();
+    }
+
+    VoltDBEngine* m_engine;
+    PersistentTable* m_vertexTable;
+    PersistentTable* m_edgeTable;
+    GraphView* m_graphView;
+    int64_t m_undoToken;
+    char m_signature[20];
+};
+
+TEST_F(GraphKeyMapTest, RolledBackInserts) {
+    createRing();
+    ASSERT_EQ(5, m_graphView->numOfVertexKeys());
+    ASSERT_EQ(5, m_graphView->numOfEdgeKeys());
+
+    // new vertexes, an edge to one of them and an edge between keys no vertex has
+    insertVertex("f");
+    insertVertex("g");
+    insertEdge(2000000000000LL, "e", "f");
+    insertEdge(2000000000001LL, "x", "y");
+    insertEdge(2000000000002LL, "y", "x");
+    ASSERT_EQ(9, m_graphView->numOfVertexKeys());
+    ASSERT_EQ(8, m_graphView->numOfEdgeKeys());
+    rollback();
+    ASSERT_EQ(5, m_graphView->numOfVertexKeys());
+    ASSERT_EQ(5, m_graphView->numOfEdgeKeys());
+    ASSERT_FALSE(isMapped("f"));
+    ASSERT_FALSE(isMapped("x"));
+    ASSERT_EQ(5, m_graphView->numOfVertexes());
+    ASSERT_EQ(5, m_graphView->numOfEdges());
+
+    // the keys of the vertexes and edges already there stay mapped, to the same vertexes
+    Vertex* a = vertexOf("a");
+    ASSERT_TRUE(a != NULL);
+    insertVertex("a");
+    insertEdge(3000000000000LL, "a", "b");
+    rollback();
+    ASSERT_EQ(5, m_graphView->numOfVertexKeys());
+    ASSERT_EQ(5, m_graphView->numOfEdgeKeys());
+    ASSERT_TRUE(vertexOf("a") == a);
+    ASSERT_EQ(1, vertexOf("a")->fanOut());
+    ASSERT_EQ(1, vertexOf("a")->fanIn());
+
+    // the released ids are handed out again, the mapping does not grow over repeated rollbacks
+    for (int i = 0; i < 100; i++) {
+        insertVertex("f");
+        insertEdge(2000000000000LL, "e", "f");
+        rollback();
+    }
+    ASSERT_EQ(5, m_graphView->numOfVertexKeys());
+    ASSERT_EQ(5, m_graphView->numOfEdgeKeys());
+    insertVertex("f");
+    insertEdge(2000000000000LL, "e", "f");
+    commit();
+    ASSERT_EQ(6, m_graphView->numOfVertexKeys());
+    ASSERT_EQ(6, m_graphView->numOfEdgeKeys());
+    ASSERT_EQ(1, vertexOf("f")->fanIn());
+    ASSERT_EQ(2, vertexOf("e")->fanOut());
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
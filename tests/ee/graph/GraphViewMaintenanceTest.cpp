@@ -0,0 +1,623 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include "harness.h"
+
+#include "common/NValue.hpp"
+#include "common/SQLException.h"
+#include "common/TupleSchema.h"
+#include "common/serializeio.h"
+#include "common/types.h"
+#include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
+#include "execution/VoltDBEngine.h"
+#include "graph/CSRAdjacency.h"
+#include "graph/Edge.h"
+#include "graph/GraphView.h"
+#include "graph/GraphViewFactory.h"
+#include "graph/PathIterator.h"
+#include "graph/PathTraversalContext.h"
+#include "graph/Vertex.h"
+#include "storage/persistenttable.h"
+#include "storage/tableiterator.h"
+#include "storage/tablefactory.h"
+
+#include <algorithm>
+#include <cstring>
+#include <map>
+#include <string>
+#include <vector>
+
+using namespace voltdb;
+
+/**
+ * Runs DML, compaction and undo on the vertexes and edges tables of two graph
+ * views, a directed and an undirected one, and checks after every step that
+ * their topology, both the vertex/edge maps and the patched CSR layout, is the
+ * one a build from the tables would give.
+ */
+class GraphViewMaintenanceTest : public Test {
+public:
+    GraphViewMaintenanceTest()
+        : m_undoToken(0)
+    {
+        m_engine = new VoltDBEngine();
+        int partitionCount = 1;
+        m_engine->initialize(1, 1, 0, 0, "", 0, 1024, DEFAULT_TEMP_TABLE_MEMORY, false);
+        m_engine->updateHashinator(HASHINATOR_LEGACY, (char*)&partitionCount, NULL, 0);
+        beginWork();
+
+        ::memset(m_signature, 0, sizeof(m_signature));
+        std::vector<std::string> vertexColumns;
+        vertexColumns.push_back("ID");
+        vertexColumns.push_back("VALUE");
+        std::vector<std::string> edgeColumns;
+        edgeColumns.push_back("ID");
+        edgeColumns.push_back("SRC");
+        edgeColumns.push_back("DST");
+        // small blocks, so a few hundred deletes leave blocks to compact
+        m_vertexTable = createTable("VERTEXES", vertexColumns, 4096);
+        m_edgeTable = createTable("EDGES", edgeColumns, 4096);
+
+        m_directed = createGraphView("DIRECTED", true);
+        m_undirected = createGraphView("UNDIRECTED", false);
+        // build the CSR layouts, which the maintenance patches from then on
+        m_directed->getCSRAdjacency();
+        m_undirected->getCSRAdjacency();
+    }
+
+    ~GraphViewMaintenanceTest() {
+        m_vertexTable->dropGraphView(m_directed);
+        m_edgeTable->dropGraphView(m_directed);
+        m_vertexTable->dropGraphView(m_undirected);
+        m_edgeTable->dropGraphView(m_undirected);
+        delete m_directed;
+        delete m_undirected;
+        delete m_engine;
+        delete m_vertexTable;
+        delete m_edgeTable;
+    }
+
+protected:
+    PersistentTable* createTable(const std::string& name, const std::vector<std::string>& columnNames,
+                                 int allocationTargetSize) {
+        int columnCount = (int)columnNames.size();
+        std::vector<ValueType> types(columnCount, VALUE_TYPE_INTEGER);
+        std::vector<int32_t> sizes(columnCount, NValue::getTupleStorageSize(VALUE_TYPE_INTEGER));
+        std::vector<bool> allowNull(columnCount, false);
+        TupleSchema* schema = TupleSchema::createTupleSchemaForTest(types, sizes, allowNull);
+        return dynamic_cast<PersistentTable*>(TableFactory::getPersistentTable(
+                0, name, schema, columnNames, m_signature, false, -1, false, false, allocationTargetSize));
+    }
+
+    GraphView* createGraphView(const std::string& name, bool isDirected) {
+        std::vector<std::string> vertexColumnNames;
+        vertexColumnNames.push_back("ID");
+        std::vector<int> columnIdsInVertexTable;
+        columnIdsInVertexTable.push_back(0);
+        std::vector<std::string> edgeColumnNames;
+        edgeColumnNames.push_back("ID");
+        edgeColumnNames.push_back("FROM");
+        edgeColumnNames.push_back("TO");
+        std::vector<int> columnIdsInEdgeTable;
+        columnIdsInEdgeTable.push_back(0);
+        columnIdsInEdgeTable.push_back(1);
+        columnIdsInEdgeTable.push_back(2);
+        GraphView* graphView = GraphViewFactory::createGraphView(name, isDirected,
+                m_vertexTable, m_edgeTable, NULL, NULL, NULL,
+                vertexColumnNames, edgeColumnNames, columnIdsInVertexTable, columnIdsInEdgeTable,
+                0, m_signature, 0, 0, 1, 2, true);
+        m_vertexTable->addGraphView(graphView);
+        m_edgeTable->addGraphView(graphView);
+        return graphView;
+    }
+
+    void beginWork() {
+        m_engine->setUndoToken(++m_undoToken);
+        ExecutorContext::getExecutorContext()->setupForPlanFragments(m_engine->getCurrentUndoQuantum(), 0, 0, 0, 0);
+    }
+
+    void commit() {
+        m_engine->releaseUndoToken(m_undoToken);
+        beginWork();
+    }
+
+    void rollback() {
+        m_engine->undoUndoToken(m_undoToken);
+        beginWork();
+    }
+
+    void insertVertex(int id) {
+        TableTuple& tuple = m_vertexTable->tempTuple();
+        tuple.setNValue(0, ValueFactory::getIntegerValue(id));
+        tuple.setNValue(1, ValueFactory::getIntegerValue(0));
+        m_vertexTable->insertTuple(tuple);
+    }
+
+    void insertEdge(int id, int from, int to) {
+        TableTuple& tuple = m_edgeTable->tempTuple();
+        tuple.setNValue(0, ValueFactory::getIntegerValue(id));
+        tuple.setNValue(1, ValueFactory::getIntegerValue(from));
+        tuple.setNValue(2, ValueFactory::getIntegerValue(to));
+        m_edgeTable->insertTuple(tuple);
+    }
+
+    TableTuple findTuple(PersistentTable* table, int id) {
+        TableTuple tuple(table->schema());
+        TableIterator& iter = table->iterator();
+        while (iter.next(tuple)) {
+            if (ValuePeeker::peekAsInteger(tuple.getNValue(0)) == id) {
+                return tuple;
+            }
+        }
+        return TableTuple(table->schema());
+    }
+
+    void updateColumn(PersistentTable* table, int id, int column, int value) {
+        TableTuple target = findTuple(table, id);
+        ASSERT_FALSE(target.isNullTuple());
+        TableTuple& source = table->tempTuple();
+        source.copy(target);
+        source.setNValue(column, ValueFactory::getIntegerValue(value));
+        table->updateTuple(target, source);
+    }
+
+    void deleteRow(PersistentTable* table, int id) {
+        TableTuple target = findTuple(table, id);
+        ASSERT_FALSE(target.isNullTuple());
+        table->deleteTuple(target, true);
+    }
+
+    /**
+     * @return the end vertexes of the paths of the given length from the start
+     * vertex, or false when the graph view refuses to traverse
+     */
+    bool traverse(GraphView* graphView, int fromVertexId, int pathLength, std::vector<int>& endVertexes) {
+        PathTraversalContext ctx(graphView);
+        ctx.queryType = 1;
+        ctx.fromVertexId = fromVertexId;
+        ctx.toVertexId = -1;
+        ctx.pathLength = pathLength;
+        ctx.topK = 1;
+        ctx.vSelectivity = 100;
+        ctx.eSelectivity = 100;
+        ctx.spColumnIndexInEdgesTable = -1;
+        try {
+            PathIterator iterator = graphView->iteratorDeletingAsWeGo(ctx);
+            TableTuple tuple(graphView->getPathTable()->schema());
+            while (iterator.next(tuple)) {
+                endVertexes.push_back(ValuePeeker::peekAsInteger(tuple.getNValue(1)));
+            }
+        }
+        catch (const SQLException& e) {
+            return false;
+        }
+        std::sort(endVertexes.begin(), endVertexes.end());
+        return true;
+    }
+
+    struct EdgeRow {
+        int from;
+        int to;
+        char* tupleData;
+    };
+
+    typedef std::map<int, std::vector<int> > Adjacency;
+
+    /**
+     * Checks that both graph views hold the vertexes and edges of the tables, at
+     * the current address of their tuples, in their adjacency lists and in the
+     * CSR layout patched so far, and then in the CSR layout once compacted.
+     */
+    void verifyTopology() {
+        std::map<int, char*> vertexes;
+        TableTuple tuple(m_vertexTable->schema());
+        TableIterator& vIter = m_vertexTable->iterator();
+        while (vIter.next(tuple)) {
+            vertexes[ValuePeeker::peekAsInteger(tuple.getNValue(0))] = tuple.address();
+        }
+        std::map<int, EdgeRow> edges;
+        TableTuple edgeTuple(m_edgeTable->schema());
+        TableIterator& eIter = m_edgeTable->iterator();
+        while (eIter.next(edgeTuple)) {
+            EdgeRow row;
+            row.from = ValuePeeker::peekAsInteger(edgeTuple.getNValue(1));
+            row.to = ValuePeeker::peekAsInteger(edgeTuple.getNValue(2));
+            row.tupleData = edgeTuple.address();
+            edges[ValuePeeker::peekAsInteger(edgeTuple.getNValue(0))] = row;
+        }
+        GraphView* graphViews[2] = { m_directed, m_undirected };
+        for (int g = 0; g < 2; g++) {
+            // the edge ids, in order, leaving and reaching each vertex, both ways for undirected graph views
+            Adjacency outEdges, inEdges;
+            for (std::map<int, EdgeRow>::const_iterator it = edges.begin(); it != edges.end(); ++it) {
+                outEdges[it->second.from].push_back(it->first);
+                inEdges[it->second.to].push_back(it->first);
+                if ( ! graphViews[g]->isDirected()) {
+                    outEdges[it->second.to].push_back(it->first);
+                    inEdges[it->second.from].push_back(it->first);
+                }
+            }
+            verifyMaps(graphViews[g], vertexes, edges, outEdges, inEdges);
+            verifyCSR(graphViews[g], graphViews[g]->getCSRAdjacency(), vertexes, edges, outEdges, inEdges);
+            verifyCSR(graphViews[g], graphViews[g]->getCompactCSRAdjacency(), vertexes, edges, outEdges, inEdges);
+        }
+    }
+
+    static std::vector<int> sortedIds(std::vector<int> ids) {
+        std::sort(ids.begin(), ids.end());
+        return ids;
+    }
+
+    void verifyMaps(GraphView* graphView, const std::map<int, char*>& vertexes, const std::map<int, EdgeRow>& edges,
+                    Adjacency& outEdges, Adjacency& inEdges) {
+        ASSERT_EQ((int)vertexes.size(), graphView->numOfVertexes());
+        ASSERT_EQ((int)edges.size(), graphView->numOfEdges());
+        for (std::map<int, EdgeRow>::const_iterator it = edges.begin(); it != edges.end(); ++it) {
+            Edge* edge = graphView->getEdge(it->first);
+            ASSERT_TRUE(edge != NULL);
+            ASSERT_EQ(it->second.tupleData, edge->getTupleData());
+            ASSERT_EQ(it->second.from, edge->getStartVertexId());
+            ASSERT_EQ(it->second.to, edge->getEndVertexId());
+        }
+        for (std::map<int, char*>::const_iterator it = vertexes.begin(); it != vertexes.end(); ++it) {
+            Vertex* vertex = graphView->getVertex(it->first);
+            ASSERT_TRUE(vertex != NULL);
+            ASSERT_EQ(it->second, vertex->getTupleData());
+            std::vector<int> listed;
+            for (int i = 0; i < vertex->fanOut(); i++) {
+                listed.push_back(vertex->getOutEdgeId(i));
+            }
+            ASSERT_TRUE(outEdges[it->first] == sortedIds(listed));
+            listed.clear();
+            for (int i = 0; i < vertex->fanIn(); i++) {
+                listed.push_back(vertex->getInEdgeId(i));
+            }
+            ASSERT_TRUE(inEdges[it->first] == sortedIds(listed));
+        }
+    }
+
+    void verifyCSR(GraphView* graphView, CSRAdjacency& csr,
+                   const std::map<int, char*>& vertexes, const std::map<int, EdgeRow>& edges,
+                   Adjacency& outEdges, Adjacency& inEdges) {
+        for (std::map<int, char*>::const_iterator it = vertexes.begin(); it != vertexes.end(); ++it) {
+            int v = csr.denseId(it->first);
+            ASSERT_TRUE(v >= 0);
+            ASSERT_EQ(it->first, csr.vertexId(v));
+            ASSERT_EQ(it->second, csr.vertexTuple(v));
+            // the layout only lists the edges between vertexes of the vertexes table
+            std::vector<int> expected;
+            const std::vector<int>& incident = outEdges[it->first];
+            for (size_t i = 0; i < incident.size(); i++) {
+                const EdgeRow& row = edges.find(incident[i])->second;
+                if (vertexes.count(row.from) > 0 && vertexes.count(row.to) > 0) {
+                    expected.push_back(incident[i]);
+                }
+            }
+            std::vector<int> listed;
+            for (int slot = csr.begin(v); slot < csr.end(v); slot++) {
+                const EdgeRow& row = edges.find(csr.edgeId(slot))->second;
+                ASSERT_EQ(row.tupleData, csr.edgeTuple(slot));
+                ASSERT_EQ(row.from == it->first ? row.to : row.from, csr.vertexId(csr.target(slot)));
+                listed.push_back(csr.edgeId(slot));
+            }
+            ASSERT_TRUE(expected == sortedIds(listed));
+            if ( ! graphView->isDirected()) {
+                continue;
+            }
+            expected.clear();
+            const std::vector<int>& reaching = inEdges[it->first];
+            for (size_t i = 0; i < reaching.size(); i++) {
+                if (vertexes.count(edges.find(reaching[i])->second.from) > 0) {
+                    expected.push_back(reaching[i]);
+                }
+            }
+            listed.clear();
+            for (int inSlot = csr.inBegin(v); inSlot < csr.inEnd(v); inSlot++) {
+                int slot = csr.inEdgeSlot(inSlot);
+                ASSERT_EQ(v, csr.target(slot));
+                ASSERT_EQ(edges.find(csr.edgeId(slot))->second.from, csr.vertexId(csr.inSource(inSlot)));
+                listed.push_back(csr.edgeId(slot));
+            }
+            ASSERT_TRUE(expected == sortedIds(listed));
+        }
+    }
+
+    VoltDBEngine* m_engine;
+    PersistentTable* m_vertexTable;
+    PersistentTable* m_edgeTable;
+    GraphView* m_directed;
+    GraphView* m_undirected;
+    int64_t m_undoToken;
+    char m_signature[20];
+};
+
+TEST_F(GraphViewMaintenanceTest, InsertUpdateDelete) {
+    for (int i = 0; i < 10; i++) {
+        insertVertex(i);
+    }
+    for (int i = 0; i < 10; i++) {
+        insertEdge(100 + i, i, (i + 1) % 10);
+    }
+    commit();
+    // the maintenance patched the layouts rather than rebuilding them
+    ASSERT_TRUE(m_directed->getCSRAdjacency().isPatched());
+    ASSERT_TRUE(m_undirected->getCSRAdjacency().isPatched());
+    verifyTopology();
+
+    // an update of an edge moves it to its new vertexes
+    updateColumn(m_edgeTable, 103, 2, 7);
+    updateColumn(m_edgeTable, 104, 1, 8);
+    // an update of a vertex key moves its tuple to another vertex
+    updateColumn(m_vertexTable, 9, 0, 20);
+    commit();
+    verifyTopology();
+    ASSERT_TRUE(m_directed->getVertex(9) == NULL);
+
+    // a deleted vertex leaves the graph view, its edges stay until they are deleted
+    deleteRow(m_vertexTable, 5);
+    commit();
+    verifyTopology();
+    ASSERT_TRUE(m_directed->getVertex(5) == NULL);
+    ASSERT_TRUE(m_directed->getEdge(104) != NULL);
+
+    // an edge inserted before its vertex is linked to it once the vertex shows up
+    insertEdge(200, 5, 0);
+    insertEdge(201, 30, 0);
+    commit();
+    verifyTopology();
+    insertVertex(5);
+    insertVertex(30);
+    commit();
+    verifyTopology();
+
+    deleteRow(m_edgeTable, 100);
+    deleteRow(m_edgeTable, 201);
+    deleteRow(m_vertexTable, 30);
+    commit();
+    verifyTopology();
+}
+
+TEST_F(GraphViewMaintenanceTest, Undo) {
+    for (int i = 0; i < 10; i++) {
+        insertVertex(i);
+    }
+    for (int i = 0; i < 10; i++) {
+        insertEdge(100 + i, i, (i + 1) % 10);
+    }
+    commit();
+    verifyTopology();
+    int64_t epoch = m_directed->getEpoch();
+
+    // every change of a rolled back transaction is undone, in reverse order
+    insertVertex(10);
+    insertEdge(110, 9, 10);
+    insertEdge(111, 10, 0);
+    updateColumn(m_edgeTable, 102, 2, 8);
+    updateColumn(m_edgeTable, 102, 1, 4);
+    updateColumn(m_vertexTable, 3, 0, 13);
+    deleteRow(m_edgeTable, 105);
+    deleteRow(m_vertexTable, 6);
+    deleteRow(m_edgeTable, 110);
+    verifyTopology();
+    rollback();
+    verifyTopology();
+    ASSERT_EQ(10, m_directed->numOfVertexes());
+    ASSERT_EQ(10, m_directed->numOfEdges());
+    ASSERT_EQ(2, m_directed->getEdge(102)->getStartVertexId());
+    ASSERT_EQ(3, m_directed->getEdge(102)->getEndVertexId());
+    ASSERT_TRUE(m_directed->getVertex(10) == NULL);
+    ASSERT_TRUE(m_directed->getVertex(13) == NULL);
+    // the undo changed the graph view again, the indexes built since are stale
+    ASSERT_TRUE(m_directed->getEpoch() > epoch);
+
+    // the transaction after the rollback starts from the restored topology
+    deleteRow(m_vertexTable, 0);
+    insertEdge(112, 1, 4);
+    commit();
+    verifyTopology();
+}
+
+TEST_F(GraphViewMaintenanceTest, Compaction) {
+    const int vertexCount = 1000;
+    const int edgeCount = 3000;
+    for (int i = 0; i < vertexCount; i++) {
+        insertVertex(i);
+    }
+    for (int i = 0; i < edgeCount; i++) {
+        insertEdge(i, i % vertexCount, (i * 7 + 1) % vertexCount);
+    }
+    commit();
+    verifyTopology();
+
+    // leave the blocks half empty, so the compaction moves the remaining tuples
+    for (int i = 0; i < vertexCount; i += 2) {
+        deleteRow(m_vertexTable, i);
+    }
+    for (int i = 0; i < edgeCount; i += 2) {
+        deleteRow(m_edgeTable, i);
+    }
+    commit();
+    m_vertexTable->doForcedCompaction();
+    m_edgeTable->doForcedCompaction();
+    verifyTopology();
+
+    // the moved tuples are still found by the maintenance
+    for (int i = 1; i < vertexCount; i += 4) {
+        deleteRow(m_vertexTable, i);
+    }
+    for (int i = 1; i < edgeCount; i += 4) {
+        updateColumn(m_edgeTable, i, 2, 3);
+    }
+    verifyTopology();
+    rollback();
+    verifyTopology();
+}
+
+TEST_F(GraphViewMaintenanceTest, BulkLoad) {
+    for (int i = 0; i < 10; i++) {
+        insertVertex(i);
+    }
+    for (int i = 0; i < 10; i++) {
+        insertEdge(100 + i, i, (i + 1) % 10);
+    }
+    commit();
+    verifyTopology();
+
+    // the topology is released and the traversals are refused until the load ends
+    m_directed->beginBulkLoad();
+    m_undirected->beginBulkLoad();
+    ASSERT_TRUE(m_directed->isBulkLoading());
+    ASSERT_EQ(0, m_directed->numOfVertexes());
+    ASSERT_EQ(0, m_directed->numOfEdges());
+    std::vector<int> endVertexes;
+    ASSERT_FALSE(traverse(m_directed, 0, 1, endVertexes));
+    ASSERT_FALSE(traverse(m_undirected, 0, 1, endVertexes));
+
+    // the changes made while loading, rolled back or committed, and the tuples
+    // the compaction moves, are only read by the rebuild
+    const int vertexCount = 500;
+    for (int i = 10; i < vertexCount; i++) {
+        insertVertex(i);
+    }
+    commit();
+    for (int i = 0; i < vertexCount; i++) {
+        insertEdge(1000 + i, i, (i * 7 + 3) % vertexCount);
+    }
+    insertVertex(vertexCount);
+    rollback();
+    for (int i = 0; i < vertexCount; i++) {
+        insertEdge(1000 + i, i, (i * 3 + 1) % vertexCount);
+    }
+    for (int i = 10; i < vertexCount; i += 2) {
+        deleteRow(m_vertexTable, i);
+    }
+    deleteRow(m_edgeTable, 105);
+    updateColumn(m_edgeTable, 1000, 2, 7);
+    commit();
+    m_vertexTable->doForcedCompaction();
+    m_edgeTable->doForcedCompaction();
+    // the inserts into the vertexes and edges tables, rolled back or not, and the
+    // update, which inserts the new version of the tuple
+    ASSERT_EQ((int64_t)((vertexCount - 10) + vertexCount + 1 + vertexCount + 1), m_directed->getBulkLoadedTuples());
+    ASSERT_FALSE(traverse(m_directed, 0, 1, endVertexes));
+
+    // no image was staged, the topology is built from the tables
+    ASSERT_FALSE(m_directed->endBulkLoad());
+    ASSERT_FALSE(m_undirected->endBulkLoad());
+    ASSERT_FALSE(m_directed->isBulkLoading());
+    verifyTopology();
+    ASSERT_TRUE(traverse(m_directed, 0, 1, endVertexes));
+    std::vector<int> expected;
+    expected.push_back(1);
+    expected.push_back(7);
+    ASSERT_TRUE(expected == endVertexes);
+
+    // the maintenance resumes with the load
+    insertEdge(5000, 1, 3);
+    deleteRow(m_edgeTable, 1001);
+    verifyTopology();
+    rollback();
+    verifyTopology();
+    // ending a load that did not begin leaves the topology as it is
+    ASSERT_FALSE(m_directed->endBulkLoad());
+    verifyTopology();
+}
+
+TEST_F(GraphViewMaintenanceTest, TopologyImage) {
+    const int vertexCount = 50;
+    const int edgeCount = 150;
+    for (int i = 0; i < vertexCount; i++) {
+        insertVertex(i);
+    }
+    for (int i = 0; i < edgeCount; i++) {
+        insertEdge(i, i % vertexCount, (i * 7 + 1) % vertexCount);
+    }
+    commit();
+    verifyTopology();
+    CopySerializeOutput directedImage, undirectedImage;
+    ASSERT_TRUE(m_directed->saveTopology(directedImage));
+    ASSERT_TRUE(m_undirected->saveTopology(undirectedImage));
+
+    // a restore empties the tables and inserts the saved rows back,
+    // at other addresses and in another order, while the maintenance is suspended
+    m_directed->beginBulkLoad();
+    m_undirected->beginBulkLoad();
+    CopySerializeOutput noImage;
+    ASSERT_FALSE(m_directed->saveTopology(noImage));
+    for (int i = 0; i < edgeCount; i++) {
+        deleteRow(m_edgeTable, i);
+    }
+    for (int i = 0; i < vertexCount; i++) {
+        deleteRow(m_vertexTable, i);
+    }
+    commit();
+    for (int i = edgeCount - 1; i >= 0; i--) {
+        insertEdge(i, i % vertexCount, (i * 7 + 1) % vertexCount);
+    }
+    for (int i = vertexCount - 1; i >= 0; i--) {
+        insertVertex(i);
+    }
+    commit();
+    m_directed->getTopologyImage().assign(directedImage.data(), directedImage.size());
+    m_undirected->getTopologyImage().assign(undirectedImage.data(), undirectedImage.size());
+    ASSERT_TRUE(m_directed->endBulkLoad());
+    ASSERT_TRUE(m_undirected->endBulkLoad());
+    ASSERT_TRUE(m_directed->getTopologyImage().empty());
+    verifyTopology();
+
+    // the image of tables the restore does not match is dropped, the topology is built instead
+    CopySerializeOutput staleImage;
+    ASSERT_TRUE(m_directed->saveTopology(staleImage));
+    m_directed->beginBulkLoad();
+    m_undirected->beginBulkLoad();
+    updateColumn(m_edgeTable, 10, 2, 3);
+    commit();
+    m_directed->getTopologyImage().assign(staleImage.data(), staleImage.size());
+    ASSERT_FALSE(m_directed->endBulkLoad());
+    ASSERT_FALSE(m_undirected->endBulkLoad());
+    ASSERT_TRUE(m_directed->getTopologyImage().empty());
+    verifyTopology();
+
+    // as is an image of another version
+    CopySerializeOutput otherImage;
+    ASSERT_TRUE(m_directed->saveTopology(otherImage));
+    m_directed->beginBulkLoad();
+    m_undirected->beginBulkLoad();
+    m_directed->getTopologyImage().assign(otherImage.data(), otherImage.size());
+    m_directed->getTopologyImage()[0] ^= 0x7f;
+    ASSERT_FALSE(m_directed->endBulkLoad());
+    ASSERT_FALSE(m_undirected->endBulkLoad());
+    verifyTopology();
+
+    // the loaded topology is maintained as a built one
+    insertEdge(1000, 3, 4);
+    deleteRow(m_vertexTable, 5);
+    verifyTopology();
+    rollback();
+    verifyTopology();
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
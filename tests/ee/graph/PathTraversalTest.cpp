@@ -0,0 +1,531 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include "harness.h"
+
+#include "common/NValue.hpp"
+#include "common/SQLException.h"
+#include "common/TupleSchema.h"
+#include "common/types.h"
+#include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
+#include "common/executorcontext.hpp"
+#include "execution/VoltDBEngine.h"
+#include "graph/GraphView.h"
+#include "graph/GraphViewFactory.h"
+#include "graph/PathIterator.h"
+#include "graph/PathTraversalContext.h"
+#include "storage/persistenttable.h"
+#include "storage/tablefactory.h"
+#include "storage/temptable.h"
+
+#include "boost/scoped_ptr.hpp"
+
+#include <algorithm>
+#include <cstring>
+#include <map>
+#include <sstream>
+#include <string>
+#include <vector>
+
+using namespace voltdb;
+
+/**
+ * Runs path traversals of a graph view through the path iterator, as the path
+ * scan and the nested loop path executors do, alone, interleaved and nested
+ * in one another, and checks their paths against walks of the edges listed
+ * by the test.
+ */
+class PathTraversalTest : public Test {
+public:
+    PathTraversalTest()
+        : m_undoToken(0)
+    {
+        m_engine = new VoltDBEngine();
+        int partitionCount = 1;
+        m_engine->initialize(1, 1, 0, 0, "", 0, 1024, DEFAULT_TEMP_TABLE_MEMORY, false);
+        m_engine->updateHashinator(HASHINATOR_LEGACY, (char*)&partitionCount, NULL, 0);
+        beginWork();
+
+        ::memset(m_signature, 0, sizeof(m_signature));
+        std::vector<std::string> vertexColumns;
+        vertexColumns.push_back("ID");
+        std::vector<std::string> edgeColumns;
+        edgeColumns.push_back("ID");
+        edgeColumns.push_back("SRC");
+        edgeColumns.push_back("DST");
+        m_vertexTable = createTable("VERTEXES", vertexColumns);
+        m_edgeTable = createTable("EDGES", edgeColumns);
+        m_graphView = createGraphView("NETWORK");
+    }
+
+    ~PathTraversalTest() {
+        m_vertexTable->dropGraphView(m_graphView);
+        m_edgeTable->dropGraphView(m_graphView);
+        delete m_graphView;
+        delete m_engine;
+        delete m_vertexTable;
+        delete m_edgeTable;
+    }
+
+protected:
+    PersistentTable* createTable(const std::string& name, const std::vector<std::string>& columnNames) {
+        int columnCount = (int)columnNames.size();
+        std::vector<ValueType> types(columnCount, VALUE_TYPE_INTEGER);
+        std::vector<int32_t> sizes(columnCount, NValue::getTupleStorageSize(VALUE_TYPE_INTEGER));
+        std::vector<bool> allowNull(columnCount, false);
+        TupleSchema* schema = TupleSchema::createTupleSchemaForTest(types, sizes, allowNull);
+        return dynamic_cast<PersistentTable*>(TableFactory::getPersistentTable(
+                0, name, schema, columnNames, m_signature, false, -1, false, false));
+    }
+
+    GraphView* createGraphView(const std::string& name) {
+        std::vector<std::string> vertexColumnNames;
+        vertexColumnNames.push_back("ID");
+        std::vector<int> columnIdsInVertexTable;
+        columnIdsInVertexTable.push_back(0);
+        std::vector<std::string> edgeColumnNames;
+        edgeColumnNames.push_back("ID");
+        edgeColumnNames.push_back("FROM");
+        edgeColumnNames.push_back("TO");
+        std::vector<int> columnIdsInEdgeTable;
+        columnIdsInEdgeTable.push_back(0);
+        columnIdsInEdgeTable.push_back(1);
+        columnIdsInEdgeTable.push_back(2);
+        GraphView* graphView = GraphViewFactory::createGraphView(name, true,
+                m_vertexTable, m_edgeTable, NULL, NULL, NULL,
+                vertexColumnNames, edgeColumnNames, columnIdsInVertexTable, columnIdsInEdgeTable,
+                0, m_signature, 0, 0, 1, 2);
+        m_vertexTable->addGraphView(graphView);
+        m_edgeTable->addGraphView(graphView);
+        return graphView;
+    }
+
+    void beginWork() {
+        m_engine->setUndoToken(++m_undoToken);
+        ExecutorContext::getExecutorContext()->setupForPlanFragments(m_engine->getCurrentUndoQuantum(), 0, 0, 0, 0);
+    }
+
+    void insertVertex(int id) {
+        TableTuple& tuple = m_vertexTable->tempTuple();
+        tuple.setNValue(0, ValueFactory::getIntegerValue(id));
+        m_vertexTable->insertTuple(tuple);
+    }
+
+    void insertEdge(int from, int to) {
+        int id = (int)m_edges.size();
+        TableTuple& tuple = m_edgeTable->tempTuple();
+        tuple.setNValue(0, ValueFactory::getIntegerValue(id));
+        tuple.setNValue(1, ValueFactory::getIntegerValue(from));
+        tuple.setNValue(2, ValueFactory::getIntegerValue(to));
+        m_edgeTable->insertTuple(tuple);
+        m_edges.push_back(std::make_pair(from, to));
+    }
+
+    /**
+     * A ring of vertexCount vertexes, with chords both ways between every
+     * fourth vertex and the one two further, so there are loops of every
+     * length from two on, and vertexes on several loops at once.
+     */
+    void createNetwork(int vertexCount) {
+        for (int i = 0; i < vertexCount; i++) {
+            insertVertex(i);
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            insertEdge(i, (i + 1) % vertexCount);
+        }
+        for (int i = 0; i < vertexCount; i += 4) {
+            insertEdge(i, (i + 2) % vertexCount);
+            insertEdge((i + 2) % vertexCount, i);
+        }
+        m_vertexCount = vertexCount;
+        m_engine->releaseUndoToken(m_undoToken);
+        beginWork();
+    }
+
+    /**
+     * @return the number of walks of length edges from the vertex back to itself
+     */
+    long closedWalks(int start, int length) {
+        std::vector<long> walks(m_vertexCount, 0);
+        walks[start] = 1;
+        for (int step = 0; step < length; step++) {
+            std::vector<long> next(m_vertexCount, 0);
+            for (size_t e = 0; e < m_edges.size(); e++) {
+                next[m_edges[e].second] += walks[m_edges[e].first];
+            }
+            walks.swap(next);
+        }
+        return walks[start];
+    }
+
+    /**
+     * @return the vertexes at exactly depth edges from the vertex
+     */
+    std::vector<int> verticesAt(int start, int depth) {
+        std::vector<int> levels(m_vertexCount, -1);
+        levels[start] = 0;
+        for (int level = 0; level < depth; level++) {
+            for (size_t e = 0; e < m_edges.size(); e++) {
+                if (levels[m_edges[e].first] == level && levels[m_edges[e].second] < 0) {
+                    levels[m_edges[e].second] = level + 1;
+                }
+            }
+        }
+        std::vector<int> found;
+        for (int v = 0; v < m_vertexCount; v++) {
+            if (levels[v] == depth && depth > 0) {
+                found.push_back(v);
+            }
+        }
+        return found;
+    }
+
+    static std::string row(int start, int end, int length) {
+        std::ostringstream out;
+        out << start << ":" << end << ":" << length;
+        return out.str();
+    }
+
+    /**
+     * @return the rows a loops query from the vertex (every vertex, when negative) returns
+     */
+    std::vector<std::string> expectedLoops(int start, int length) {
+        std::vector<std::string> rows;
+        for (int v = 0; v < m_vertexCount; v++) {
+            if (start >= 0 && v != start) {
+                continue;
+            }
+            for (long i = closedWalks(v, length); i > 0; i--) {
+                rows.push_back(row(v, v, length));
+            }
+        }
+        std::sort(rows.begin(), rows.end());
+        return rows;
+    }
+
+    std::vector<std::string> expectedByDepth(int start, int depth) {
+        std::vector<std::string> rows;
+        std::vector<int> found = verticesAt(start, depth);
+        for (size_t i = 0; i < found.size(); i++) {
+            rows.push_back(row(start, found[i], depth));
+        }
+        std::sort(rows.begin(), rows.end());
+        return rows;
+    }
+
+    static void setArguments(PathTraversalContext& ctx, int queryType, int fromVertexId, int pathLength) {
+        ctx.queryType = queryType;
+        ctx.fromVertexId = fromVertexId;
+        ctx.toVertexId = -1;
+        ctx.pathLength = pathLength;
+        ctx.topK = 1;
+        ctx.vSelectivity = 100;
+        ctx.eSelectivity = 100;
+        ctx.spColumnIndexInEdgesTable = -1;
+    }
+
+    /**
+     * A traversal read through its path iterator, one row at a time.
+     */
+    struct Traversal {
+        Traversal(GraphView* graphView, int queryType, int fromVertexId, int pathLength)
+            : ctx(graphView), tuple(graphView->getPathTable()->schema()), done(false)
+        {
+            setArguments(ctx, queryType, fromVertexId, pathLength);
+            iterator.reset(new PathIterator(graphView->iteratorDeletingAsWeGo(ctx)));
+        }
+
+        //reads the next row, false once the traversal is done
+        bool next() {
+            if (done || !iterator->next(tuple)) {
+                done = true;
+                return false;
+            }
+            rows.push_back(row(ValuePeeker::peekAsInteger(tuple.getNValue(0)),
+                               ValuePeeker::peekAsInteger(tuple.getNValue(1)),
+                               ValuePeeker::peekAsInteger(tuple.getNValue(2))));
+            return true;
+        }
+
+        std::vector<std::string> sortedRows() {
+            while (next()) {
+            }
+            std::vector<std::string> sorted(rows);
+            std::sort(sorted.begin(), sorted.end());
+            return sorted;
+        }
+
+        PathTraversalContext ctx;
+        TableTuple tuple;
+        boost::scoped_ptr<PathIterator> iterator;
+        std::vector<std::string> rows;
+        bool done;
+    };
+
+    std::vector<std::string> traverse(int queryType, int fromVertexId, int pathLength) {
+        Traversal traversal(m_graphView, queryType, fromVertexId, pathLength);
+        return traversal.sortedRows();
+    }
+
+    /**
+     * Runs the traversal of the context from every vertex in turn, as a nested
+     * loop path join does for its outer tuples.
+     * @return the most vertexes a single traversal expanded
+     */
+    int64_t traverseFromEveryVertex(PathTraversalContext& ctx) {
+        TableTuple tuple(m_graphView->getPathTable()->schema());
+        int64_t mostExpanded = 0;
+        for (int v = 0; v < m_vertexCount; v++) {
+            int64_t spent = ctx.budgetSpent;
+            ctx.fromVertexId = v;
+            PathIterator iterator = m_graphView->iteratorDeletingAsWeGo(ctx);
+            while (iterator.next(tuple)) {
+            }
+            mostExpanded = std::max(mostExpanded, ctx.budgetSpent - spent);
+        }
+        return mostExpanded;
+    }
+
+    VoltDBEngine* m_engine;
+    PersistentTable* m_vertexTable;
+    PersistentTable* m_edgeTable;
+    GraphView* m_graphView;
+    std::vector<std::pair<int, int> > m_edges;
+    int m_vertexCount;
+    int64_t m_undoToken;
+    char m_signature[20];
+};
+
+TEST_F(PathTraversalTest, Loops) {
+    createNetwork(12);
+    for (int length = 2; length <= 6; length++) {
+        // every vertex as the start of the loops, and each vertex alone
+        ASSERT_TRUE(expectedLoops(-1, length) == traverse(13, -1, length));
+        for (int v = 0; v < m_vertexCount; v++) {
+            ASSERT_TRUE(expectedLoops(v, length) == traverse(14, v, length));
+        }
+    }
+}
+
+TEST_F(PathTraversalTest, LoopsPastOneBatch) {
+    createNetwork(120);
+    std::vector<std::string> expected = expectedLoops(-1, 8);
+    ASSERT_EQ(300, (int)expected.size());
+    // the loops are staged a batch at a time, not all of them before the first row
+    Traversal allLoops(m_graphView, 13, -1, 8);
+    ASSERT_TRUE(allLoops.next());
+    ASSERT_TRUE(allLoops.ctx.pathTable->activeTupleCount() < 100);
+    ASSERT_TRUE(expected == allLoops.sortedRows());
+    // a traversal left before its end, as under a LIMIT, leaves the next one whole
+    {
+        Traversal limited(m_graphView, 13, -1, 8);
+        for (int i = 0; i < 70; i++) {
+            ASSERT_TRUE(limited.next());
+        }
+    }
+    ASSERT_TRUE(expected == traverse(13, -1, 8));
+    ASSERT_TRUE(expectedLoops(0, 8) == traverse(14, 0, 8));
+}
+
+TEST_F(PathTraversalTest, InterleavedTraversals) {
+    createNetwork(12);
+    // traversals of the same graph view read in turns, as the path scans
+    // of one plan are, each keeping its own walks and levels
+    Traversal allLoops(m_graphView, 13, -1, 4);
+    Traversal loops(m_graphView, 14, 3, 5);
+    Traversal byDepth(m_graphView, 1, 0, 3);
+    bool more = true;
+    while (more) {
+        more = allLoops.next();
+        more = loops.next() || more;
+        more = byDepth.next() || more;
+    }
+    ASSERT_TRUE(expectedLoops(-1, 4) == allLoops.sortedRows());
+    ASSERT_TRUE(expectedLoops(3, 5) == loops.sortedRows());
+    ASSERT_TRUE(expectedByDepth(0, 3) == byDepth.sortedRows());
+}
+
+TEST_F(PathTraversalTest, NestedTraversals) {
+    createNetwork(12);
+    // a traversal run to its end for every row of another one, as the
+    // inner traversal of a nested loop path join is for each outer tuple
+    Traversal outer(m_graphView, 13, -1, 3);
+    int outerRows = 0;
+    while (outer.next()) {
+        int start = outerRows++ % m_vertexCount;
+        ASSERT_TRUE(expectedLoops(start, 4) == traverse(14, start, 4));
+        ASSERT_TRUE(expectedByDepth(start, 2) == traverse(1, start, 2));
+    }
+    ASSERT_TRUE(expectedLoops(-1, 3) == outer.sortedRows());
+}
+
+TEST_F(PathTraversalTest, ExpansionBudget) {
+    createNetwork(12);
+    PathTraversalContext ctx(m_graphView);
+    setArguments(ctx, 1, 0, 3);
+    ctx.setExpansionBudget(1000000);
+    int64_t mostExpanded = traverseFromEveryVertex(ctx);
+    int64_t totalExpanded = ctx.budgetSpent;
+    ASSERT_TRUE(mostExpanded < totalExpanded);
+
+    // the traversals of one execution share the budget, every one of them
+    // stays under it but together they run out of it
+    // (a vertex with no edges dates the cached paths, which are traversed again)
+    insertVertex(100);
+    ctx.setExpansionBudget(totalExpanded - 1);
+    bool exceeded = false;
+    try {
+        traverseFromEveryVertex(ctx);
+    }
+    catch (const SQLException& e) {
+        exceeded = true;
+    }
+    ASSERT_TRUE(exceeded);
+
+    // the next execution starts with the whole budget again
+    insertVertex(101);
+    ctx.setExpansionBudget(totalExpanded);
+    traverseFromEveryVertex(ctx);
+    ASSERT_EQ(totalExpanded, ctx.budgetSpent);
+}
+
+TEST_F(PathTraversalTest, TraversalCache) {
+    createNetwork(12);
+    TraversalCache& cache = m_graphView->getTraversalCache();
+    ASSERT_TRUE(expectedByDepth(0, 2) == traverse(1, 0, 2));
+    ASSERT_EQ(1, (int)cache.numOfEntries());
+    ASSERT_TRUE(cache.bytes() > 0);
+    int64_t hits = cache.hits();
+    ASSERT_TRUE(expectedByDepth(0, 2) == traverse(1, 0, 2));
+    ASSERT_EQ(hits + 1, cache.hits());
+
+    // a change of the graph purges the cache, and the paths are traversed again
+    insertEdge(0, 6);
+    ASSERT_EQ(0, (int)cache.numOfEntries());
+    ASSERT_EQ(0, (int)cache.bytes());
+    ASSERT_TRUE(expectedByDepth(0, 2) == traverse(1, 0, 2));
+    ASSERT_EQ(hits + 1, cache.hits());
+    ASSERT_EQ(1, (int)cache.numOfEntries());
+
+    // a graph view without a cache traverses every time
+    cache.setMaxBytes(0);
+    ASSERT_EQ(0, (int)cache.numOfEntries());
+    ASSERT_TRUE(expectedByDepth(0, 2) == traverse(1, 0, 2));
+    ASSERT_TRUE(expectedByDepth(0, 2) == traverse(1, 0, 2));
+    ASSERT_EQ(0, (int)cache.numOfEntries());
+    ASSERT_EQ(hits + 1, cache.hits());
+}
+
+TEST_F(PathTraversalTest, TraversalCounters) {
+    // a chain from 0 to 9, and a fan from 0 to 10-14
+    for (int i = 0; i < 15; i++) {
+        insertVertex(i);
+    }
+    for (int i = 0; i < 9; i++) {
+        insertEdge(i, i + 1);
+    }
+    for (int i = 10; i < 15; i++) {
+        insertEdge(0, i);
+    }
+    m_vertexCount = 15;
+    m_engine->releaseUndoToken(m_undoToken);
+    beginWork();
+
+    // the BFS to depth 3 expands 0, the 6 vertexes it links to, and 2, relaxing
+    // the 6 edges of 0 and the one edge each of 1 and 2
+    ASSERT_EQ(1, (int)traverse(1, 0, 3).size());
+    TraversalCounters counters = m_graphView->getTraversalCounters(1);
+    ASSERT_EQ(1, counters.traversals);
+    ASSERT_EQ(8, counters.vertexesExpanded);
+    ASSERT_EQ(8, counters.edgesRelaxed);
+    ASSERT_EQ(1, counters.rowsEmitted);
+    ASSERT_TRUE(counters.maxTraversalMicros <= counters.traversalMicros);
+    ASSERT_EQ(0, m_graphView->getTraversalCounters(2).traversals);
+
+    // the paths replayed from the traversal cache are emitted, no vertex is expanded again
+    ASSERT_EQ(1, (int)traverse(1, 0, 3).size());
+    counters = m_graphView->getTraversalCounters(1);
+    ASSERT_EQ(2, counters.traversals);
+    ASSERT_EQ(8, counters.vertexesExpanded);
+    ASSERT_EQ(2, counters.rowsEmitted);
+
+    // a traversal left after its first row, as under a LIMIT, is accounted
+    // for once its context is reset
+    PathTraversalContext ctx(m_graphView);
+    setArguments(ctx, 1, 0, 1);
+    {
+        PathIterator iterator = m_graphView->iteratorDeletingAsWeGo(ctx);
+        TableTuple tuple(m_graphView->getPathTable()->schema());
+        ASSERT_TRUE(iterator.next(tuple));
+    }
+    ASSERT_EQ(2, m_graphView->getTraversalCounters(1).traversals);
+    ctx.reset();
+    counters = m_graphView->getTraversalCounters(1);
+    ASSERT_EQ(3, counters.traversals);
+    ASSERT_EQ(9, counters.vertexesExpanded);
+    ASSERT_EQ(14, counters.edgesRelaxed);
+    ASSERT_EQ(3, counters.rowsEmitted);
+}
+
+TEST_F(PathTraversalTest, PathValuesPerBatch) {
+    // a chain of edges fanning out at its end, so the paths to the vertexes
+    // of the fan hold more bytes of PATH values than a chunk of a pool
+    int chain = 100;
+    int fan = 1000;
+    for (int i = 0; i <= chain + fan; i++) {
+        insertVertex(i);
+    }
+    for (int i = 0; i < chain; i++) {
+        insertEdge(i, i + 1);
+    }
+    for (int i = 1; i <= fan; i++) {
+        insertEdge(chain, chain + i);
+    }
+    m_vertexCount = chain + fan + 1;
+    m_engine->releaseUndoToken(m_undoToken);
+    beginWork();
+
+    Pool* tempPool = ExecutorContext::getTempStringPool();
+    int64_t tempMemory = tempPool->getAllocatedMemory();
+    Traversal paths(m_graphView, 1, 0, chain + 1);
+    int64_t pathBytes = 0;
+    int64_t mostPooled = 0;
+    while (paths.next()) {
+        NValue path = paths.tuple.getNValue(4);
+        ASSERT_FALSE(path.isNull());
+        int32_t length;
+        ValuePeeker::peekObject_withoutNull(path, &length);
+        pathBytes += length;
+        mostPooled = std::max(mostPooled, paths.ctx.pathPool.getAllocatedMemory());
+    }
+    ASSERT_EQ(fan, (int)paths.rows.size());
+    ASSERT_EQ((int64_t)fan * (chain + 2) * 4, pathBytes);
+    // the PATH values are released with their batch, no pool grows with the paths read
+    ASSERT_TRUE(mostPooled < pathBytes);
+    ASSERT_EQ(tempMemory, tempPool->getAllocatedMemory());
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
@@ -1,13 +1,29 @@
 package org.voltdb;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
 
+import org.json_voltpatches.JSONObject;
 import org.voltdb.TestAdHocQueries.TestEnv;
 import org.voltdb.VoltDB.Configuration;
 import org.voltdb.client.Client;
 import org.voltdb.client.NoConnectionsException;
 import org.voltdb.client.ProcCallException;
 import org.voltdb.compiler.VoltProjectBuilder;
+import org.voltdb.sysprocs.saverestore.SnapshotUtil;
 import org.voltdb.utils.MiscUtils;
 
 public class TestAdHocQueriesGraph extends //AdHocQueryTester, 
@@ -158,7 +174,1435 @@ public class TestAdHocQueriesGraph extends //AdHocQueryTester,
             teardownSystem();
         }
     }
+
+    // Stations and links of a directed graph, and trips between stations, read by
+    // a graph view of every layout: vertex/edge maps, CSR, CSR guided by landmarks,
+    // and CSR with a reachability index. The tables are replicated, so every
+    // traversal sees the whole graph.
+    private static final String NETWORK_DDL =
+            "CREATE TABLE Stations ( " +
+            "id integer NOT NULL, " +
+            "name varchar(16) NOT NULL, " +
+            "PRIMARY KEY  (id) " +
+            ");\n" +
+            "CREATE TABLE Links ( " +
+            "id integer NOT NULL, " +
+            "src integer NOT NULL, " +
+            "dst integer NOT NULL, " +
+            "weight float NOT NULL, " +
+            "PRIMARY KEY  (id) " +
+            ");\n" +
+            "CREATE TABLE Trips ( " +
+            "id integer NOT NULL, " +
+            "station integer NOT NULL, " +
+            "destination integer NOT NULL, " +
+            "PRIMARY KEY  (id) " +
+            ");\n" +
+            // the results of the graph analytics system procedures, a row per station
+            "CREATE TABLE Ranks ( " +
+            "id integer NOT NULL, " +
+            "rank float NOT NULL " +
+            ");\n" +
+            "CREATE TABLE Components ( " +
+            "id integer NOT NULL, " +
+            "component integer NOT NULL " +
+            ");\n" +
+            "CREATE TABLE Triangles ( " +
+            "id integer NOT NULL, " +
+            "triangles bigint NOT NULL " +
+            ");\n" +
+            networkDDL("MapNet", "") +
+            networkDDL("CsrNet", " WITH CSR") +
+            networkDDL("AltNet", " WITH CSR, LANDMARKS 4") +
+            networkDDL("IdxNet", " WITH CSR, REACHABILITY");
+
+    private static final String[] GRAPH_VIEWS = { "MapNet", "CsrNet", "AltNet", "IdxNet" };
+
+    // Stations of the random networks, numbered from 1
+    private static final int STATIONS = 24;
+
+    private static final double NO_WEIGHT_LIMIT = Double.MAX_VALUE;
+
+    private static final String REACHABILITY_SQL =
+            "SELECT P.LENGTH FROM %s.PATHS P " +
+            "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;";
+
+    private static final String ENDPOINTS_SQL =
+            "SELECT P.STARTVERTEXID, P.ENDVERTEXID FROM %s.PATHS P " +
+            "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;";
+
+    private static final String BY_DEPTH_SQL =
+            "SELECT P.ENDVERTEXID FROM %s.PATHS P " +
+            "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = ?;";
+
+    private static final String SHORTEST_PATH_SQL =
+            "SELECT P.COST FROM %s.PATHS P HINT(SHORTESTPATH(WEIGHT)) " +
+            "WHERE P.PROP1 = 22 AND P.PROP5 = 100 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;";
+
+    private static final String ALL_SHORTEST_PATHS_SQL =
+            "SELECT P.ENDVERTEXID, P.COST FROM %s.PATHS P HINT(SHORTESTPATH(WEIGHT)) " +
+            "WHERE P.PROP1 = 23 AND P.PROP5 = 100 AND P.STARTVERTEXID = ?;";
+
+    // Traversals only crossing the links lighter than 6 into the open stations
+    private static final String TRAVERSAL_PREDICATES =
+            " AND P.EDGES.WEIGHT < 6 AND P.VERTEXES.NAME = 'open';";
+
+    private static final String TOP_K_SQL =
+            "SELECT P.LENGTH, P.COST, P.PATH FROM %s.PATHS P HINT(SHORTESTPATH(WEIGHT)) " +
+            "WHERE P.PROP1 = 21 AND P.PROP3 = ? AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;";
+
+    private static String networkDDL(String name, String options) {
+        return "CREATE DIRECTED GRAPH VIEW " + name + options + " " +
+               "VERTEXES (ID = id, name = name) " +
+               "FROM Stations " +
+               "WHERE 1 = 1 " +
+               "EDGES (ID = id, FROM = src, TO = dst, weight = weight) " +
+               "FROM Links " +
+               "WHERE 1 = 1;\n";
+    }
+
+    /**
+     * The stations and links loaded into the tables, and the traversals the
+     * graph views are checked against, computed the straightforward way.
+     * Only the stations named open qualify for the traversals restricted to them.
+     */
+    private static class Network {
+        final Map<Integer, String> m_stations = new TreeMap<Integer, String>();
+        // link id -> {src, dst}
+        final Map<Integer, int[]> m_links = new TreeMap<Integer, int[]>();
+        final Map<Integer, Double> m_weights = new HashMap<Integer, Double>();
+
+        void addStation(int id, String name) {
+            m_stations.put(id, name);
+        }
+
+        void addLink(int id, int src, int dst, double weight) {
+            m_links.put(id, new int[] { src, dst });
+            m_weights.put(id, weight);
+        }
+
+        void removeLink(int id) {
+            m_links.remove(id);
+            m_weights.remove(id);
+        }
+
+        boolean hasLink(int src, int dst) {
+            for (int[] link : m_links.values()) {
+                if (link[0] == src && link[1] == dst) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean qualifies(int station, boolean openOnly) {
+            String name = m_stations.get(station);
+            return name != null && ( ! openOnly || name.equals("open"));
+        }
+
+        /**
+         * @return the ids of the links leaving the station, lighter than maxWeight,
+         * into the stations that qualify
+         */
+        List<Integer> outLinks(int station, double maxWeight, boolean openOnly) {
+            List<Integer> out = new ArrayList<Integer>();
+            for (Map.Entry<Integer, int[]> link : m_links.entrySet()) {
+                if (link.getValue()[0] == station && m_weights.get(link.getKey()) < maxWeight &&
+                        qualifies(link.getValue()[1], openOnly)) {
+                    out.add(link.getKey());
+                }
+            }
+            return out;
+        }
+
+        /**
+         * @return the number of links of the shortest paths from src to every station it reaches
+         */
+        Map<Integer, Integer> hops(int src, double maxWeight, boolean openOnly) {
+            Map<Integer, Integer> hops = new HashMap<Integer, Integer>();
+            if ( ! qualifies(src, openOnly)) {
+                return hops;
+            }
+            hops.put(src, 0);
+            Deque<Integer> queue = new ArrayDeque<Integer>();
+            queue.add(src);
+            while ( ! queue.isEmpty()) {
+                int station = queue.poll();
+                for (int linkId : outLinks(station, maxWeight, openOnly)) {
+                    int dst = m_links.get(linkId)[1];
+                    if ( ! hops.containsKey(dst)) {
+                        hops.put(dst, hops.get(station) + 1);
+                        queue.add(dst);
+                    }
+                }
+            }
+            return hops;
+        }
+
+        /**
+         * @return the weight of the lightest link from src to dst, null if there is none
+         */
+        Double weight(int src, int dst) {
+            Double weight = null;
+            for (Map.Entry<Integer, int[]> link : m_links.entrySet()) {
+                if (link.getValue()[0] == src && link.getValue()[1] == dst &&
+                        (weight == null || m_weights.get(link.getKey()) < weight)) {
+                    weight = m_weights.get(link.getKey());
+                }
+            }
+            return weight;
+        }
+
+        /**
+         * @return the costs of all the loopless paths from src to dst, in increasing order
+         */
+        List<Double> looplessPathCosts(int src, int dst) {
+            List<Double> costs = new ArrayList<Double>();
+            Set<Integer> onPath = new HashSet<Integer>();
+            onPath.add(src);
+            addLooplessPathCosts(src, dst, 0, onPath, costs);
+            Collections.sort(costs);
+            return costs;
+        }
+
+        private void addLooplessPathCosts(int station, int dst, double cost, Set<Integer> onPath, List<Double> costs) {
+            if (station == dst) {
+                costs.add(cost);
+                return;
+            }
+            for (int linkId : outLinks(station, NO_WEIGHT_LIMIT, false)) {
+                int next = m_links.get(linkId)[1];
+                if (onPath.add(next)) {
+                    addLooplessPathCosts(next, dst, cost + m_weights.get(linkId), onPath, costs);
+                    onPath.remove(next);
+                }
+            }
+        }
+
+        int outDegree(int station) {
+            int degree = 0;
+            for (int[] link : m_links.values()) {
+                if (link[0] == station) {
+                    degree++;
+                }
+            }
+            return degree;
+        }
+
+        /**
+         * @return the PageRank of every station, iterated until the ranks move by
+         * less than the tolerance in total, the rank of the stations without links
+         * out being spread over all the stations
+         */
+        Map<Integer, Double> pageRanks(double damping, double tolerance, int maxIterations) {
+            int count = m_stations.size();
+            Map<Integer, Double> ranks = new HashMap<Integer, Double>();
+            for (int station : m_stations.keySet()) {
+                ranks.put(station, 1.0 / count);
+            }
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                double dangling = 0;
+                for (int station : m_stations.keySet()) {
+                    if (outDegree(station) == 0) {
+                        dangling += ranks.get(station);
+                    }
+                }
+                Map<Integer, Double> next = new HashMap<Integer, Double>();
+                for (int station : m_stations.keySet()) {
+                    next.put(station, (1 - damping + damping * dangling) / count);
+                }
+                for (int[] link : m_links.values()) {
+                    next.put(link[1], next.get(link[1]) + damping * ranks.get(link[0]) / outDegree(link[0]));
+                }
+                double delta = 0;
+                for (int station : m_stations.keySet()) {
+                    delta += Math.abs(next.get(station) - ranks.get(station));
+                }
+                ranks = next;
+                if (delta < tolerance) {
+                    break;
+                }
+            }
+            return ranks;
+        }
+
+        /**
+         * @return the smallest station of the weakly connected component of every station
+         */
+        Map<Integer, Integer> components() {
+            Map<Integer, Integer> components = new HashMap<Integer, Integer>();
+            for (int station : m_stations.keySet()) {
+                components.put(station, station);
+            }
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int[] link : m_links.values()) {
+                    int component = Math.min(components.get(link[0]), components.get(link[1]));
+                    for (int end : link) {
+                        if (components.get(end) != component) {
+                            components.put(end, component);
+                            changed = true;
+                        }
+                    }
+                }
+            }
+            return components;
+        }
+
+        /**
+         * @return the number of triangles of every station, ignoring the direction of the links
+         */
+        Map<Integer, Long> triangles() {
+            Map<Integer, Set<Integer>> neighbors = new HashMap<Integer, Set<Integer>>();
+            for (int station : m_stations.keySet()) {
+                neighbors.put(station, new HashSet<Integer>());
+            }
+            for (int[] link : m_links.values()) {
+                if (link[0] != link[1]) {
+                    neighbors.get(link[0]).add(link[1]);
+                    neighbors.get(link[1]).add(link[0]);
+                }
+            }
+            Map<Integer, Long> triangles = new HashMap<Integer, Long>();
+            for (int station : m_stations.keySet()) {
+                long count = 0;
+                for (int u : neighbors.get(station)) {
+                    for (int w : neighbors.get(station)) {
+                        if (u < w && neighbors.get(u).contains(w)) {
+                            count++;
+                        }
+                    }
+                }
+                triangles.put(station, count);
+            }
+            return triangles;
+        }
+
+        /**
+         * @return the cost of the lightest paths from src to every station it reaches
+         */
+        Map<Integer, Double> costs(int src, double maxWeight, boolean openOnly) {
+            Map<Integer, Double> costs = new HashMap<Integer, Double>();
+            if ( ! qualifies(src, openOnly)) {
+                return costs;
+            }
+            Set<Integer> settled = new HashSet<Integer>();
+            costs.put(src, 0.0);
+            while (true) {
+                Integer station = null;
+                for (Map.Entry<Integer, Double> cost : costs.entrySet()) {
+                    if ( ! settled.contains(cost.getKey()) &&
+                            (station == null || cost.getValue() < costs.get(station))) {
+                        station = cost.getKey();
+                    }
+                }
+                if (station == null) {
+                    return costs;
+                }
+                settled.add(station);
+                for (int linkId : outLinks(station, maxWeight, openOnly)) {
+                    int dst = m_links.get(linkId)[1];
+                    double cost = costs.get(station) + m_weights.get(linkId);
+                    if ( ! costs.containsKey(dst) || cost < costs.get(dst)) {
+                        costs.put(dst, cost);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a network of STATIONS stations, a fifth of them closed, and of
+     * 60 links of integral weights, at most one from a station to another
+     */
+    private static Network randomNetwork(long seed) {
+        Random random = new Random(seed);
+        Network network = new Network();
+        for (int id = 1; id <= STATIONS; id++) {
+            network.addStation(id, (random.nextInt(5) == 0) ? "closed" : "open");
+        }
+        int linkId = 1;
+        while (linkId <= 60) {
+            int src = 1 + random.nextInt(STATIONS);
+            int dst = 1 + random.nextInt(STATIONS);
+            if (src != dst && ! network.hasLink(src, dst)) {
+                network.addLink(linkId++, src, dst, 1 + random.nextInt(9));
+            }
+        }
+        return network;
+    }
+
+    /**
+     * @return a tree of 1 + 2 * branches stations: station 1 links to the
+     * stations 2 to branches + 1, and each of them to the one branches further
+     */
+    private static Network starNetwork(int branches) {
+        Network network = new Network();
+        for (int id = 1; id <= 1 + 2 * branches; id++) {
+            network.addStation(id, "open");
+        }
+        for (int id = 2; id <= branches + 1; id++) {
+            network.addLink(id - 1, 1, id, 1);
+            network.addLink(id - 1 + branches, id, id + branches, 1);
+        }
+        return network;
+    }
+
+    /**
+     * @return a network from station 1 to station 7 with many paths of equal
+     * costs, and links back to the start and out of the end, which the loopless
+     * paths cannot take. Station 8 only links out.
+     */
+    private static Network loopyNetwork() {
+        Network network = new Network();
+        for (int id = 1; id <= 8; id++) {
+            network.addStation(id, "open");
+        }
+        int[][] links = {
+                { 1, 2, 1 }, { 1, 3, 1 }, { 2, 4, 1 }, { 3, 4, 1 }, { 4, 7, 2 },
+                { 2, 5, 2 }, { 3, 5, 2 }, { 5, 7, 1 }, { 4, 5, 1 }, { 5, 4, 1 },
+                { 4, 1, 1 }, { 7, 3, 1 }, { 5, 6, 1 }, { 6, 2, 1 }, { 6, 7, 3 },
+                { 8, 1, 1 } };
+        for (int i = 0; i < links.length; i++) {
+            network.addLink(i + 1, links[i][0], links[i][1], links[i][2]);
+        }
+        return network;
+    }
+
+    private void startNetwork() throws Exception {
+        String pathToCatalog = Configuration.getPathToCatalogForTest("adhocgraph.jar");
+        String pathToDeployment = Configuration.getPathToCatalogForTest("adhocgraph.xml");
+
+        VoltProjectBuilder builder = new VoltProjectBuilder();
+        builder.addLiteralSchema(NETWORK_DDL);
+        boolean success = builder.compile(pathToCatalog, 2, 1, 0);
+        assertTrue("Schema compilation failed", success);
+        MiscUtils.copyFile(builder.getPathToDeployment(), pathToDeployment);
+
+        VoltDB.Configuration config = new VoltDB.Configuration();
+        config.m_pathToCatalog = pathToCatalog;
+        config.m_pathToDeployment = pathToDeployment;
+        startSystem(config);
+    }
+
+    private void load(Network network) throws Exception {
+        for (Map.Entry<Integer, String> station : network.m_stations.entrySet()) {
+            query("INSERT INTO Stations VALUES (?, ?);", station.getKey(), station.getValue());
+        }
+        for (Map.Entry<Integer, int[]> link : network.m_links.entrySet()) {
+            query("INSERT INTO Links VALUES (?, ?, ?, ?);", link.getKey(),
+                  link.getValue()[0], link.getValue()[1], network.m_weights.get(link.getKey()));
+        }
+    }
+
+    private void insertLink(Network network, int id, int src, int dst, double weight) throws Exception {
+        query("INSERT INTO Links VALUES (?, ?, ?, ?);", id, src, dst, weight);
+        network.addLink(id, src, dst, weight);
+    }
+
+    private void deleteLink(Network network, int id) throws Exception {
+        query("DELETE FROM Links WHERE id = ?;", id);
+        network.removeLink(id);
+    }
+
+    private void updateWeight(Network network, int id, double weight) throws Exception {
+        query("UPDATE Links SET weight = ? WHERE id = ?;", weight, id);
+        network.m_weights.put(id, weight);
+    }
+
+    /**
+     * Changes the links of the network: deletes some, reweights others,
+     * and adds light ones, numbered from firstNewLink.
+     */
+    private void changeLinks(Network network, Random random, int firstNewLink) throws Exception {
+        List<Integer> linkIds = new ArrayList<Integer>(network.m_links.keySet());
+        Collections.shuffle(linkIds, random);
+        for (int i = 0; i < 8; i++) {
+            deleteLink(network, linkIds.get(i));
+        }
+        for (int i = 8; i < 12; i++) {
+            updateWeight(network, linkIds.get(i), 1 + random.nextInt(9));
+        }
+        int linkId = firstNewLink;
+        while (linkId < firstNewLink + 8) {
+            int src = 1 + random.nextInt(STATIONS);
+            int dst = 1 + random.nextInt(STATIONS);
+            if (src != dst && network.m_stations.containsKey(src) && network.m_stations.containsKey(dst) &&
+                    ! network.hasLink(src, dst)) {
+                insertLink(network, linkId++, src, dst, 1);
+            }
+        }
+    }
+
+    private VoltTable query(String sql, Object... params) throws Exception {
+        Object[] args = new Object[params.length + 1];
+        args[0] = sql;
+        System.arraycopy(params, 0, args, 1, params.length);
+        return m_client.callProcedure("@AdHoc", args).getResults()[0];
+    }
+
+    /**
+     * Checks the answer of a start/end reachability query, which reports
+     * the number of vertexes of the path as its length.
+     * @param hops - the links of the shortest path, null if there is none
+     */
+    private static void assertPathLength(String message, Integer hops, VoltTable result) {
+        if (hops == null) {
+            assertEquals(message, 0, result.getRowCount());
+            return;
+        }
+        assertEquals(message, 1, result.getRowCount());
+        result.advanceRow();
+        assertEquals(message, hops + 1, result.getLong(0));
+    }
+
+    /**
+     * Checks the answer of a shortest path query.
+     * @param cost - the cost of the lightest path, null if there is none
+     */
+    private static void assertPathCost(String message, Double cost, VoltTable result) {
+        if (cost == null) {
+            assertEquals(message, 0, result.getRowCount());
+            return;
+        }
+        assertEquals(message, 1, result.getRowCount());
+        result.advanceRow();
+        assertEquals(message, cost, result.getDouble(0), 1e-9);
+    }
+
+    /**
+     * @return the vertex keys of a PATH, serialized as big-endian INTEGER values
+     */
+    private static List<Integer> decodePath(byte[] path) {
+        ByteBuffer buffer = ByteBuffer.wrap(path);
+        List<Integer> stations = new ArrayList<Integer>();
+        while (buffer.hasRemaining()) {
+            stations.add(buffer.getInt());
+        }
+        return stations;
+    }
+
+    /**
+     * Checks that a PATH is a loopless path of the network from src to dst.
+     * @return the cost of the path
+     */
+    private static double assertPath(String message, Network network, int src, int dst, List<Integer> path) {
+        message += " " + path;
+        assertEquals(message, src, (int) path.get(0));
+        assertEquals(message, dst, (int) path.get(path.size() - 1));
+        assertEquals(message, path.size(), new HashSet<Integer>(path).size());
+        double cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            Double weight = network.weight(path.get(i - 1), path.get(i));
+            assertNotNull(message, weight);
+            cost += weight;
+        }
+        return cost;
+    }
+
+    /**
+     * @return the stations exactly depth links away
+     */
+    private static List<Integer> stationsAt(Map<Integer, Integer> hops, int depth) {
+        List<Integer> stations = new ArrayList<Integer>();
+        for (Map.Entry<Integer, Integer> station : hops.entrySet()) {
+            if (station.getValue() == depth) {
+                stations.add(station.getKey());
+            }
+        }
+        Collections.sort(stations);
+        return stations;
+    }
+
+    /**
+     * @return the values of an INTEGER column, in order
+     */
+    private static List<Integer> sortedColumn(VoltTable result, int column) {
+        List<Integer> values = new ArrayList<Integer>();
+        result.resetRowPosition();
+        while (result.advanceRow()) {
+            values.add((int) result.getLong(column));
+        }
+        Collections.sort(values);
+        return values;
+    }
+
+    /**
+     * The traversal arguments of the cached ad hoc plans are bound for every
+     * execution: the statements differing only in their literals reuse the
+     * plan of the first one, and a statement with parameters runs with each
+     * set of values it is called with.
+     */
+    public void testPathArgumentsOfCachedPlans() throws Exception {
+        Network network = randomNetwork(3);
+        startNetwork();
+        try {
+            load(network);
+            for (String graph : GRAPH_VIEWS) {
+                for (int src = 1; src <= 6; src++) {
+                    Map<Integer, Integer> hops = network.hops(src, NO_WEIGHT_LIMIT, false);
+                    for (int dst = 1; dst <= STATIONS; dst++) {
+                        if (src == dst) {
+                            continue;
+                        }
+                        String message = graph + " from " + src + " to " + dst;
+                        assertPathLength(message, hops.get(dst), query(String.format(
+                                "SELECT P.LENGTH FROM %s.PATHS P " +
+                                "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = %d AND P.ENDVERTEXID = %d;",
+                                graph, src, dst)));
+                        assertPathLength(message, hops.get(dst),
+                                query(String.format(REACHABILITY_SQL, graph), src, dst));
+                    }
+                }
+            }
+
+            // the length is a parameter too
+            for (String graph : GRAPH_VIEWS) {
+                for (int src = 1; src <= STATIONS; src++) {
+                    Map<Integer, Integer> hops = network.hops(src, NO_WEIGHT_LIMIT, false);
+                    for (int depth = 1; depth <= 3; depth++) {
+                        assertEquals(graph + " from " + src + " at " + depth, stationsAt(hops, depth),
+                                sortedColumn(query(String.format(BY_DEPTH_SQL, graph), src, depth), 0));
+                    }
+                }
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * The by depth traversals report each vertex once, at its shortest
+     * distance, with a length and a cost of the depth, over the vertex maps
+     * as over the CSR layout, whether the plan reads the PATH or not.
+     */
+    public void testByDepthPathsOfEveryLayout() throws Exception {
+        Network network = loopyNetwork();
+        startNetwork();
+        try {
+            load(network);
+            String byDepth = "SELECT P.ENDVERTEXID, P.LENGTH, P.COST FROM %s.PATHS P " +
+                             "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = ?;";
+            String tracedByDepth = byDepth.replace("P.COST FROM", "P.COST, P.PATH FROM");
+            for (int src : network.m_stations.keySet()) {
+                Map<Integer, Integer> hops = network.hops(src, NO_WEIGHT_LIMIT, false);
+                for (int depth = 0; depth <= 4; depth++) {
+                    List<String> expected = new ArrayList<String>();
+                    if (depth > 0) {
+                        for (int station : stationsAt(hops, depth)) {
+                            expected.add(station + ":" + depth + ":" + (double) depth);
+                        }
+                    }
+                    for (String graph : new String[] { "MapNet", "CsrNet" }) {
+                        String message = graph + " from " + src + " at " + depth;
+                        assertEquals(message, expected, depthRows(query(String.format(byDepth, graph), src, depth)));
+                        assertEquals(message + " with the PATH", expected,
+                                     depthRows(query(String.format(tracedByDepth, graph), src, depth)));
+                    }
+                }
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * @return the rows of a by depth query as sorted "end:length:cost" strings
+     */
+    private static List<String> depthRows(VoltTable result) {
+        List<String> rows = new ArrayList<String>();
+        while (result.advanceRow()) {
+            rows.add(result.getLong(0) + ":" + result.getLong(1) + ":" + result.getDouble(2));
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+
+    /**
+     * The by depth traversals stream their paths in batches, a LIMIT stops
+     * them early, and the rows it gets are still distinct paths of the query.
+     */
+    public void testStreamedPathsUnderLimit() throws Exception {
+        // several batches of paths at each depth
+        final int branches = 200;
+        Network network = starNetwork(branches);
+        startNetwork();
+        try {
+            load(network);
+            Map<Integer, Integer> hops = network.hops(1, NO_WEIGHT_LIMIT, false);
+            for (String graph : GRAPH_VIEWS) {
+                for (int depth = 1; depth <= 2; depth++) {
+                    List<Integer> expected = stationsAt(hops, depth);
+                    assertEquals(branches, expected.size());
+                    String message = graph + " at " + depth;
+                    assertEquals(message, expected,
+                            sortedColumn(query(String.format(BY_DEPTH_SQL, graph), 1, depth), 0));
+
+                    for (int limit : new int[] { 1, 10, 150, 2 * branches }) {
+                        VoltTable result = query(String.format(
+                                "SELECT P.ENDVERTEXID FROM %s.PATHS P " +
+                                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = ? LIMIT %d;",
+                                graph, limit), 1, depth);
+                        List<Integer> limited = sortedColumn(result, 0);
+                        assertEquals(message + " limit " + limit, Math.min(limit, branches), limited.size());
+                        assertEquals(message + " limit " + limit, limited.size(), new HashSet<Integer>(limited).size());
+                        assertTrue(message + " limit " + limit, expected.containsAll(limited));
+                    }
+                }
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * The point to point queries search from both ends, over the vertex maps
+     * and over the CSR layout, and find the paths a forward search finds.
+     */
+    public void testBidirectionalSearches() throws Exception {
+        Network network = randomNetwork(7);
+        startNetwork();
+        try {
+            load(network);
+            for (int src = 1; src <= STATIONS; src++) {
+                Map<Integer, Integer> hops = network.hops(src, NO_WEIGHT_LIMIT, false);
+                Map<Integer, Double> costs = network.costs(src, NO_WEIGHT_LIMIT, false);
+                for (int dst = 1; dst <= STATIONS; dst++) {
+                    if (src == dst) {
+                        continue;
+                    }
+                    for (String graph : new String[] { "MapNet", "CsrNet" }) {
+                        String message = graph + " from " + src + " to " + dst;
+                        assertPathLength(message, hops.get(dst),
+                                query(String.format(REACHABILITY_SQL, graph), src, dst));
+                        assertPathCost(message, costs.get(dst),
+                                query(String.format(SHORTEST_PATH_SQL, graph), src, dst));
+                    }
+                }
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * The traversals evaluate the predicates on the attributes of all the
+     * vertexes and edges of the paths while they search, on every layout,
+     * and find the paths of the network restricted to the qualifying ones.
+     */
+    public void testTraversalPredicates() throws Exception {
+        Network network = randomNetwork(9);
+        startNetwork();
+        try {
+            load(network);
+            String reachability = REACHABILITY_SQL.replace(";", TRAVERSAL_PREDICATES);
+            String shortestPath = SHORTEST_PATH_SQL.replace(";", TRAVERSAL_PREDICATES);
+            String byDepth = BY_DEPTH_SQL.replace(";", TRAVERSAL_PREDICATES);
+            for (int src = 1; src <= STATIONS; src++) {
+                Map<Integer, Integer> hops = network.hops(src, 6, true);
+                Map<Integer, Double> costs = network.costs(src, 6, true);
+                for (String graph : GRAPH_VIEWS) {
+                    for (int dst = 1; dst <= STATIONS; dst++) {
+                        if (src == dst) {
+                            continue;
+                        }
+                        String message = graph + " from " + src + " to " + dst;
+                        assertPathLength(message, hops.get(dst),
+                                query(String.format(reachability, graph), src, dst));
+                        assertPathCost(message, costs.get(dst),
+                                query(String.format(shortestPath, graph), src, dst));
+                    }
+                    for (int depth = 1; depth <= 3; depth++) {
+                        assertEquals(graph + " from " + src + " at " + depth, stationsAt(hops, depth),
+                                sortedColumn(query(String.format(byDepth, graph), src, depth), 0));
+                    }
+                }
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * The single source shortest paths report every station reachable from
+     * the start station once, with the weighted cost Dijkstra finds, with
+     * and without the predicates on the stations and links.
+     */
+    public void testShortestPathsToAllStations() throws Exception {
+        Network network = randomNetwork(8);
+        startNetwork();
+        try {
+            load(network);
+            String filtered = ALL_SHORTEST_PATHS_SQL.replace(";", TRAVERSAL_PREDICATES);
+            for (int src = 1; src <= STATIONS; src++) {
+                Map<Integer, Double> costs = network.costs(src, NO_WEIGHT_LIMIT, false);
+                costs.remove(src);
+                Map<Integer, Double> filteredCosts = network.costs(src, 6, true);
+                filteredCosts.remove(src);
+                for (String graph : GRAPH_VIEWS) {
+                    String message = graph + " from " + src;
+                    assertCosts(message, costs, query(String.format(ALL_SHORTEST_PATHS_SQL, graph), src));
+                    assertCosts(message + " filtered", filteredCosts, query(String.format(filtered, graph), src));
+                }
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * Checks the (end station, cost) rows of a query, one per station.
+     */
+    private static void assertCosts(String message, Map<Integer, Double> expected, VoltTable result) {
+        assertEquals(message, expected.size(), result.getRowCount());
+        while (result.advanceRow()) {
+            int dst = (int) result.getLong(0);
+            assertTrue(message + " to " + dst, expected.containsKey(dst));
+            assertEquals(message + " to " + dst, expected.get(dst), result.getDouble(1), 1e-9);
+        }
+    }
+
+    /**
+     * Checks the shortest path between every two stations against Dijkstra.
+     */
+    private void assertShortestPaths(Network network, String... graphs) throws Exception {
+        for (int src : network.m_stations.keySet()) {
+            Map<Integer, Double> costs = network.costs(src, NO_WEIGHT_LIMIT, false);
+            for (int dst : network.m_stations.keySet()) {
+                if (src == dst) {
+                    continue;
+                }
+                for (String graph : graphs) {
+                    assertPathCost(graph + " from " + src + " to " + dst, costs.get(dst),
+                            query(String.format(SHORTEST_PATH_SQL, graph), src, dst));
+                }
+            }
+        }
+    }
+
+    /**
+     * The shortest path queries of the graph view with landmarks are guided by
+     * their lower bounds, which are rebuilt once the links change, and find the
+     * lightest paths the search over the vertex maps finds.
+     */
+    public void testLandmarkGuidedSearches() throws Exception {
+        Network network = randomNetwork(14);
+        Random random = new Random(14);
+        startNetwork();
+        try {
+            load(network);
+            assertShortestPaths(network, "AltNet", "MapNet");
+
+            // the landmark distances are stale until they are rebuilt, and must not
+            // bound the paths of the new light links
+            changeLinks(network, random, 100);
+            assertShortestPaths(network, "AltNet", "MapNet");
+            changeLinks(network, random, 200);
+            assertShortestPaths(network, "AltNet", "MapNet");
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * Checks whether every station reaches every other one, as answered from
+     * the reachability index and as found by the BFS, against the BFS of the network.
+     */
+    private void assertReachability(Network network) throws Exception {
+        for (int src : network.m_stations.keySet()) {
+            Map<Integer, Integer> hops = network.hops(src, NO_WEIGHT_LIMIT, false);
+            for (int dst : network.m_stations.keySet()) {
+                if (src == dst) {
+                    continue;
+                }
+                String message = "from " + src + " to " + dst;
+                VoltTable result = query(String.format(ENDPOINTS_SQL, "IdxNet"), src, dst);
+                assertEquals(message, hops.containsKey(dst) ? 1 : 0, result.getRowCount());
+                if (result.advanceRow()) {
+                    assertEquals(message, src, result.getLong(0));
+                    assertEquals(message, dst, result.getLong(1));
+                }
+                assertPathLength(message, hops.get(dst),
+                        query(String.format(REACHABILITY_SQL, "CsrNet"), src, dst));
+            }
+        }
+    }
+
+    /**
+     * The reachability queries reading only the start and end vertexes are
+     * answered from the reachability index, rebuilt once the graph changes,
+     * and give the answers of the BFS after every change.
+     */
+    public void testReachabilityIndexAfterDML() throws Exception {
+        Network network = randomNetwork(15);
+        Random random = new Random(15);
+        startNetwork();
+        try {
+            load(network);
+            assertReachability(network);
+
+            changeLinks(network, random, 100);
+            assertReachability(network);
+
+            // a new station linked both ways, and a station removed with its links
+            query("INSERT INTO Stations VALUES (?, ?);", STATIONS + 1, "open");
+            network.addStation(STATIONS + 1, "open");
+            insertLink(network, 200, STATIONS + 1, 1, 1);
+            insertLink(network, 201, 2, STATIONS + 1, 1);
+            for (Map.Entry<Integer, int[]> link : new TreeMap<Integer, int[]>(network.m_links).entrySet()) {
+                if (link.getValue()[0] == 3 || link.getValue()[1] == 3) {
+                    deleteLink(network, link.getKey());
+                }
+            }
+            query("DELETE FROM Stations WHERE id = ?;", 3);
+            network.m_stations.remove(3);
+            assertReachability(network);
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * A bulk load of the links suspends the maintenance of the graph views over
+     * them, which refuse to be traversed until the load ends and their topology
+     * is built from the tables, and are maintained again from then on.
+     */
+    public void testGraphBulkLoad() throws Exception {
+        Network network = randomNetwork(16);
+        Random random = new Random(16);
+        startNetwork();
+        try {
+            VoltTable begun = m_client.callProcedure("@GraphBulkLoad", "Links", "BEGIN").getResults()[0];
+            assertEquals(2, begun.getRowCount());
+            while (begun.advanceRow()) {
+                assertEquals(4, begun.getLong("GRAPH_VIEWS"));
+            }
+            load(network);
+            for (String graph : new String[] { "MapNet", "CsrNet" }) {
+                try {
+                    query(String.format(SHORTEST_PATH_SQL, graph), 1, 2);
+                    fail(graph + " should not be traversed while it is bulk loaded");
+                }
+                catch (ProcCallException expected) {
+                    assertTrue(expected.getMessage().contains("is being bulk loaded"));
+                }
+            }
+
+            VoltTable ended = m_client.callProcedure("@GraphBulkLoad", "Links", "END").getResults()[0];
+            while (ended.advanceRow()) {
+                assertEquals(4, ended.getLong("GRAPH_VIEWS"));
+            }
+            assertShortestPaths(network, "MapNet", "CsrNet", "AltNet");
+            assertReachability(network);
+
+            changeLinks(network, random, 100);
+            assertShortestPaths(network, "MapNet", "CsrNet", "AltNet");
+            assertReachability(network);
+
+            try {
+                m_client.callProcedure("@GraphBulkLoad", "Links", "PAUSE");
+                fail("PAUSE is not a bulk load action");
+            }
+            catch (ProcCallException expected) {
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * Runs a step of a restore of the graph topology saved with the snapshot.
+     * @return the number of topology images loaded by every site
+     */
+    private List<Long> restoreTopology(File dir, String nonce, String action) throws Exception {
+        VoltTable result = m_client.callProcedure("@GraphTopologyRestore", dir.getPath(), nonce, action).getResults()[0];
+        List<Long> imagesLoaded = new ArrayList<Long>();
+        while (result.advanceRow()) {
+            assertEquals(4, result.getLong("GRAPH_VIEWS"));
+            imagesLoaded.add(result.getLong("IMAGES_LOADED"));
+        }
+        return imagesLoaded;
+    }
+
+    /**
+     * The topology images saved with a native snapshot are loaded back by the
+     * graph views once their tables are restored as they were saved, reachability
+     * labels included, and the graph views are built from their tables instead
+     * when the tables changed since the snapshot.
+     */
+    public void testGraphTopologySnapshot() throws Exception {
+        Network network = randomNetwork(17);
+        Random random = new Random(17);
+        File dir = new File(System.getProperty("java.io.tmpdir"), "graphtopology");
+        dir.mkdirs();
+        String nonce = "graphs";
+        startNetwork();
+        try {
+            load(network);
+            assertReachability(network);
+            JSONObject request = new JSONObject();
+            request.put(SnapshotUtil.JSON_URIPATH, "file://" + dir.getAbsolutePath());
+            request.put(SnapshotUtil.JSON_NONCE, nonce);
+            request.put(SnapshotUtil.JSON_BLOCK, true);
+            request.put(SnapshotUtil.JSON_GRAPH_TOPOLOGY, true);
+            VoltTable saved = m_client.callProcedure("@SnapshotSave", request.toString()).getResults()[0];
+            while (saved.advanceRow()) {
+                assertEquals(saved.getString("ERR_MSG"), "SUCCESS", saved.getString("RESULT"));
+            }
+            // an image per graph view, all of them replicated
+            int images = 0;
+            for (File file : dir.listFiles()) {
+                if (file.getName().startsWith(nonce + "-") &&
+                        file.getName().endsWith(SnapshotUtil.GRAPH_TOPOLOGY_EXTENSION)) {
+                    images++;
+                }
+            }
+            assertEquals(4, images);
+
+            // the restored tables match the images, every site loads them all
+            assertEquals(Arrays.asList(0L, 0L), restoreTopology(dir, nonce, "BEGIN"));
+            try {
+                query(String.format(ENDPOINTS_SQL, "IdxNet"), 1, 2);
+                fail("IdxNet should not be traversed while it is restored");
+            }
+            catch (ProcCallException expected) {
+            }
+            query("DELETE FROM Links;");
+            query("DELETE FROM Stations;");
+            load(network);
+            assertEquals(Arrays.asList(4L, 4L), restoreTopology(dir, nonce, "END"));
+            assertShortestPaths(network, "MapNet", "CsrNet", "AltNet");
+            assertReachability(network);
+
+            // the tables changed since the snapshot, the images are dropped
+            changeLinks(network, random, 100);
+            restoreTopology(dir, nonce, "BEGIN");
+            assertEquals(Arrays.asList(0L, 0L), restoreTopology(dir, nonce, "END"));
+            assertShortestPaths(network, "MapNet", "CsrNet", "AltNet");
+            assertReachability(network);
+        }
+        finally {
+            teardownSystem();
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * @return the sum of the column over the @Statistics rows of the graph view
+     * (and of the query type, unless negative) of every site
+     */
+    private long sumOfGraphStats(String selector, String graph, int queryType, String column) throws Exception {
+        VoltTable stats = m_client.callProcedure("@Statistics", selector, 0).getResults()[0];
+        long sum = 0;
+        while (stats.advanceRow()) {
+            if (stats.getString("GRAPH_VIEW_NAME").equalsIgnoreCase(graph) &&
+                    (queryType < 0 || stats.getLong("QUERY_TYPE") == queryType)) {
+                sum += stats.getLong(column);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Waits for the sites to refresh the statistics they cache until the column adds up as expected.
+     */
+    private void assertGraphStats(String selector, String graph, int queryType, String column, long expected)
+            throws Exception {
+        long sum = sumOfGraphStats(selector, graph, queryType, column);
+        for (int attempt = 0; sum != expected && attempt < 100; attempt++) {
+            Thread.sleep(100);
+            sum = sumOfGraphStats(selector, graph, queryType, column);
+        }
+        assertEquals(selector + " " + column + " of " + graph, expected, sum);
+    }
+
+    /**
+     * The GRAPHVIEW statistics report the size of every graph view of every
+     * site, and the bulk loads under way, and the GRAPHTRAVERSAL statistics
+     * the work of the traversals of every query type.
+     */
+    public void testGraphStatistics() throws Exception {
+        Network network = randomNetwork(18);
+        int sites = 2;
+        startNetwork();
+        try {
+            load(network);
+            int stations = network.m_stations.size();
+            int links = network.m_links.size();
+            for (String graph : new String[] { "MapNet", "CsrNet", "AltNet", "IdxNet" }) {
+                assertGraphStats("GRAPHVIEW", graph, -1, "VERTEX_COUNT", sites * stations);
+                assertGraphStats("GRAPHVIEW", graph, -1, "EDGE_COUNT", sites * links);
+                assertGraphStats("GRAPHVIEW", graph, -1, "BULK_LOADING", 0);
+            }
+            VoltTable views = m_client.callProcedure("@Statistics", "GRAPHVIEW", 0).getResults()[0];
+            assertEquals(4 * sites, views.getRowCount());
+
+            // the replicated graph views are traversed by one of the sites each time
+            long rows = 0;
+            for (int src : network.m_stations.keySet()) {
+                rows += query(String.format(BY_DEPTH_SQL, "CsrNet"), src, 2).getRowCount();
+            }
+            assertGraphStats("GRAPHTRAVERSAL", "CsrNet", 1, "TRAVERSALS", stations);
+            assertEquals(rows, sumOfGraphStats("GRAPHTRAVERSAL", "CsrNet", 1, "ROWS_EMITTED"));
+            assertTrue(sumOfGraphStats("GRAPHTRAVERSAL", "CsrNet", 1, "VERTEXES_EXPANDED") >= stations);
+            assertTrue(sumOfGraphStats("GRAPHTRAVERSAL", "CsrNet", 1, "EDGES_RELAXED") >= rows);
+            assertEquals(0, sumOfGraphStats("GRAPHTRAVERSAL", "MapNet", 1, "TRAVERSALS"));
+            assertEquals(0, sumOfGraphStats("GRAPHTRAVERSAL", "CsrNet", 2, "TRAVERSALS"));
+            VoltTable traversals = m_client.callProcedure("@Statistics", "GRAPHTRAVERSAL", 0).getResults()[0];
+            while (traversals.advanceRow()) {
+                long count = traversals.getLong("TRAVERSALS");
+                long total = traversals.getLong("TOTAL_TIME");
+                assertTrue(traversals.getLong("MAX_TIME") <= total);
+                assertEquals(count > 0 ? total / count : 0, traversals.getLong("AVG_TIME"));
+            }
+
+            // every traversal looks its paths up in the cache of its site
+            for (int src : network.m_stations.keySet()) {
+                query(String.format(BY_DEPTH_SQL, "CsrNet"), src, 2);
+            }
+            assertGraphStats("GRAPHTRAVERSAL", "CsrNet", 1, "TRAVERSALS", 2 * stations);
+            assertEquals(2 * stations, sumOfGraphStats("GRAPHVIEW", "CsrNet", -1, "CACHE_HITS") +
+                    sumOfGraphStats("GRAPHVIEW", "CsrNet", -1, "CACHE_MISSES"));
+
+            // a bulk load releases the topology, and counts the tuples loaded by every site
+            m_client.callProcedure("@GraphBulkLoad", "Links", "BEGIN");
+            assertGraphStats("GRAPHVIEW", "CsrNet", -1, "BULK_LOADING", sites);
+            assertGraphStats("GRAPHVIEW", "CsrNet", -1, "VERTEX_COUNT", 0);
+            insertLink(network, 100, 1, 2, 1);
+            assertGraphStats("GRAPHVIEW", "CsrNet", -1, "BULK_LOADED_TUPLES", sites);
+            m_client.callProcedure("@GraphBulkLoad", "Links", "END");
+            assertGraphStats("GRAPHVIEW", "CsrNet", -1, "BULK_LOADING", 0);
+            assertGraphStats("GRAPHVIEW", "CsrNet", -1, "VERTEX_COUNT", sites * stations);
+            assertGraphStats("GRAPHVIEW", "CsrNet", -1, "EDGE_COUNT", sites * (links + 1));
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * The top k shortest paths are the k lightest loopless paths, each one
+     * reported once, whatever the ties between their costs.
+     */
+    public void testTopKLooplessPaths() throws Exception {
+        Network network = loopyNetwork();
+        startNetwork();
+        try {
+            load(network);
+            List<Double> expected = network.looplessPathCosts(1, 7);
+            for (String graph : GRAPH_VIEWS) {
+                for (int k : new int[] { 1, 2, 3, 6, expected.size(), expected.size() + 5 }) {
+                    String message = graph + " k = " + k;
+                    VoltTable result = query(String.format(TOP_K_SQL, graph), k, 1, 7);
+                    List<Double> costs = new ArrayList<Double>();
+                    Set<List<Integer>> paths = new HashSet<List<Integer>>();
+                    while (result.advanceRow()) {
+                        List<Integer> path = decodePath(result.getVarbinary(2));
+                        assertTrue(message + " repeats " + path, paths.add(path));
+                        double cost = assertPath(message, network, 1, 7, path);
+                        assertEquals(message + " " + path, path.size() - 1, result.getLong(0));
+                        assertEquals(message + " " + path, cost, result.getDouble(1), 1e-9);
+                        costs.add(result.getDouble(1));
+                    }
+                    // the paths of equal costs may be any of them, not their costs
+                    Collections.sort(costs);
+                    assertEquals(message, expected.subList(0, Math.min(k, expected.size())), costs);
+                }
+                // station 8 is not reachable
+                assertEquals(graph, 0, query(String.format(TOP_K_SQL, graph), 3, 1, 8).getRowCount());
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * The traversals reading the PATH trace it from their predecessors, on
+     * every layout, and the paths are those of the reported lengths and costs.
+     */
+    public void testTracedPaths() throws Exception {
+        Network network = randomNetwork(19);
+        startNetwork();
+        try {
+            load(network);
+            String shortestPath = "SELECT P.LENGTH, P.COST, P.PATH FROM %s.PATHS P HINT(SHORTESTPATH(WEIGHT)) " +
+                                  "WHERE P.PROP1 = 22 AND P.PROP5 = 100 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;";
+            String reachability = "SELECT P.LENGTH, P.PATH FROM %s.PATHS P " +
+                                  "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;";
+            String byDepth = "SELECT P.ENDVERTEXID, P.PATH FROM %s.PATHS P " +
+                             "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = ?;";
+            for (int src = 1; src <= STATIONS; src++) {
+                Map<Integer, Integer> hops = network.hops(src, NO_WEIGHT_LIMIT, false);
+                Map<Integer, Double> costs = network.costs(src, NO_WEIGHT_LIMIT, false);
+                for (String graph : GRAPH_VIEWS) {
+                    for (int dst = 1; dst <= STATIONS; dst++) {
+                        if (src == dst) {
+                            continue;
+                        }
+                        String message = graph + " from " + src + " to " + dst;
+                        VoltTable result = query(String.format(shortestPath, graph), src, dst);
+                        assertEquals(message, costs.containsKey(dst) ? 1 : 0, result.getRowCount());
+                        if (result.advanceRow()) {
+                            List<Integer> path = decodePath(result.getVarbinary(2));
+                            assertEquals(message, costs.get(dst), result.getDouble(1), 1e-9);
+                            assertEquals(message, result.getDouble(1), assertPath(message, network, src, dst, path), 1e-9);
+                            assertEquals(message, path.size() - 1, result.getLong(0));
+                        }
+
+                        result = query(String.format(reachability, graph), src, dst);
+                        assertEquals(message, hops.containsKey(dst) ? 1 : 0, result.getRowCount());
+                        if (result.advanceRow()) {
+                            List<Integer> path = decodePath(result.getVarbinary(1));
+                            assertPath(message, network, src, dst, path);
+                            // the reported length counts the vertexes of the path
+                            assertEquals(message, hops.get(dst) + 1, path.size());
+                            assertEquals(message, path.size(), result.getLong(0));
+                        }
+                    }
+                    // the map based layout runs the CSR traversals to trace the paths
+                    for (int depth = 1; depth <= 3; depth++) {
+                        String message = graph + " from " + src + " at " + depth;
+                        VoltTable result = query(String.format(byDepth, graph), src, depth);
+                        assertEquals(message, stationsAt(hops, depth), sortedColumn(result, 0));
+                        result.resetRowPosition();
+                        while (result.advanceRow()) {
+                            int dst = (int) result.getLong(0);
+                            List<Integer> path = decodePath(result.getVarbinary(1));
+                            assertPath(message, network, src, dst, path);
+                            assertEquals(message + " " + path, depth + 1, path.size());
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * Joins from a table of trips, repeating their start stations, batch the
+     * traversals of the outer tuples into one multi-source search, which must
+     * answer each trip as its own query does.
+     */
+    public void testBatchedTraversalsOfJoins() throws Exception {
+        Network network = randomNetwork(20);
+        Random random = new Random(20);
+        startNetwork();
+        try {
+            load(network);
+            Map<Integer, int[]> trips = new TreeMap<Integer, int[]>();
+            for (int id = 1; id <= 40; id++) {
+                int station = 1 + random.nextInt(10);
+                int destination = 1 + random.nextInt(STATIONS);
+                if (destination == station) {
+                    destination = station % STATIONS + 1;
+                }
+                query("INSERT INTO Trips VALUES (?, ?, ?);", id, station, destination);
+                trips.put(id, new int[] { station, destination });
+            }
+
+            // by depth, from the start station of every trip
+            List<String> expected = new ArrayList<String>();
+            List<String> single = new ArrayList<String>();
+            for (Map.Entry<Integer, int[]> trip : trips.entrySet()) {
+                Map<Integer, Integer> hops = network.hops(trip.getValue()[0], NO_WEIGHT_LIMIT, false);
+                for (int station : stationsAt(hops, 2)) {
+                    expected.add(trip.getKey() + ":" + station);
+                }
+                for (int station : sortedColumn(query(String.format(BY_DEPTH_SQL, "CsrNet"), trip.getValue()[0], 2), 0)) {
+                    single.add(trip.getKey() + ":" + station);
+                }
+            }
+            Collections.sort(expected);
+            Collections.sort(single);
+            assertEquals(expected, single);
+            for (String graph : new String[] { "MapNet", "CsrNet" }) {
+                VoltTable result = query(String.format("SELECT T.ID, P.ENDVERTEXID FROM Trips T, %s.PATHS P " +
+                                         "WHERE P.STARTVERTEXID = T.STATION AND P.PROP1 = 1 AND P.LENGTH = 2;", graph));
+                assertEquals(graph, expected, joinedRows(result));
+            }
+
+            // reachability, from the start station to the destination of every trip
+            for (String graph : new String[] { "MapNet", "CsrNet" }) {
+                expected.clear();
+                single.clear();
+                for (Map.Entry<Integer, int[]> trip : trips.entrySet()) {
+                    Map<Integer, Integer> hops = network.hops(trip.getValue()[0], NO_WEIGHT_LIMIT, false);
+                    Integer length = hops.get(trip.getValue()[1]);
+                    if (length != null) {
+                        expected.add(trip.getKey() + ":" + (length + 1));
+                    }
+                    VoltTable result = query(String.format(REACHABILITY_SQL, graph), trip.getValue()[0], trip.getValue()[1]);
+                    while (result.advanceRow()) {
+                        single.add(trip.getKey() + ":" + result.getLong(0));
+                    }
+                }
+                VoltTable result = query(String.format("SELECT T.ID, P.LENGTH FROM Trips T, %s.PATHS P " +
+                                             "WHERE P.STARTVERTEXID = T.STATION AND P.ENDVERTEXID = T.DESTINATION " +
+                                             "AND P.PROP1 = 3;", graph));
+                Collections.sort(expected);
+                Collections.sort(single);
+                assertEquals(graph, expected, single);
+                assertEquals(graph, expected, joinedRows(result));
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
+    /**
+     * @return the rows of a join as sorted "id:value" strings
+     */
+    private static List<String> joinedRows(VoltTable result) {
+        List<String> rows = new ArrayList<String>();
+        result.resetRowPosition();
+        while (result.advanceRow()) {
+            rows.add(result.getLong(0) + ":" + result.getLong(1));
+        }
+        Collections.sort(rows);
+        return rows;
+    }
     
+    // the constants of the PageRank iterations of the EE
+    private static final double PAGERANK_DAMPING = 0.85;
+    private static final double PAGERANK_TOLERANCE = 1e-6;
+    private static final int PAGERANK_MAX_ITERATIONS = 100;
+
+    /**
+     * Runs @GraphAnalytics into its result table, which it leaves empty again.
+     * @return the result of every station
+     */
+    private Map<Integer, Object> runAnalytics(String graph, String algorithm, String resultTable) throws Exception {
+        VoltTable status = m_client.callProcedure("@GraphAnalytics", graph, algorithm, resultTable).getResults()[0];
+        while (status.advanceRow()) {
+            assertEquals(graph + " " + algorithm, "DONE", status.getString("STATUS"));
+        }
+        Map<Integer, Object> results = new HashMap<Integer, Object>();
+        VoltTable result = query("SELECT * FROM " + resultTable + ";");
+        while (result.advanceRow()) {
+            results.put((int) result.getLong(0), result.get(1, result.getColumnType(1)));
+        }
+        query("DELETE FROM " + resultTable + ";");
+        return results;
+    }
+
+    /**
+     * Runs the read-only @GraphAnalyticsRound rounds until every site is done.
+     * @return the number of rounds
+     */
+    private int runRounds(String graph, String algorithm, int iterationsPerRound) throws Exception {
+        for (int round = 1; round <= 1000; round++) {
+            VoltTable status = m_client.callProcedure("@GraphAnalyticsRound",
+                    graph, algorithm, iterationsPerRound).getResults()[0];
+            boolean done = true;
+            while (status.advanceRow()) {
+                done = done && status.getString("STATUS").equals("DONE");
+            }
+            if (done) {
+                return round;
+            }
+        }
+        fail(graph + " " + algorithm + " rounds never ended");
+        return -1;
+    }
+
+    private void assertAnalytics(String message, Network network, String graph) throws Exception {
+        Map<Integer, Double> ranks = network.pageRanks(PAGERANK_DAMPING, PAGERANK_TOLERANCE, PAGERANK_MAX_ITERATIONS);
+        Map<Integer, Object> results = runAnalytics(graph, "PAGERANK", "Ranks");
+        assertEquals(message, ranks.keySet(), results.keySet());
+        for (int station : ranks.keySet()) {
+            assertEquals(message + " rank of " + station, ranks.get(station), (Double) results.get(station), 1e-6);
+        }
+
+        // the component of a station is named by one of its stations, the same for all of them
+        Map<Integer, Integer> components = network.components();
+        results = runAnalytics(graph, "COMPONENTS", "Components");
+        assertEquals(message, components.keySet(), results.keySet());
+        Map<Integer, Integer> smallestOfComponent = new HashMap<Integer, Integer>();
+        for (Map.Entry<Integer, Object> result : results.entrySet()) {
+            int component = (Integer) result.getValue();
+            assertEquals(message + " component of " + result.getKey(),
+                    components.get(result.getKey()), components.get(component));
+            Integer smallest = smallestOfComponent.get(component);
+            smallestOfComponent.put(component, smallest == null ? result.getKey() : Math.min(smallest, result.getKey()));
+        }
+        for (Map.Entry<Integer, Object> result : results.entrySet()) {
+            int component = (Integer) result.getValue();
+            assertEquals(message + " component of " + result.getKey(),
+                    components.get(result.getKey()), smallestOfComponent.get(component));
+        }
+
+        Map<Integer, Long> triangles = network.triangles();
+        results = runAnalytics(graph, "TRIANGLES", "Triangles");
+        assertEquals(message, triangles.keySet(), results.keySet());
+        for (int station : triangles.keySet()) {
+            assertEquals(message + " triangles of " + station, triangles.get(station), results.get(station));
+        }
+    }
+
+    /**
+     * The graph analytics system procedures compute PageRank, the weakly
+     * connected components and the triangles of every vertex as a plain
+     * computation over the stations and links does, whether the read-only
+     * rounds ran the iterations ahead or not, and start over after DML.
+     */
+    public void testGraphAnalytics() throws Exception {
+        Network network = randomNetwork(11);
+        Random random = new Random(11);
+        startNetwork();
+        try {
+            load(network);
+            // a station of its own, without links
+            query("INSERT INTO Stations VALUES (?, ?);", STATIONS + 1, "open");
+            network.addStation(STATIONS + 1, "open");
+            for (String graph : new String[] { "MapNet", "CsrNet" }) {
+                assertAnalytics(graph, network, graph);
+            }
+
+            // iterations run ahead by the rounds
+            for (String algorithm : new String[] { "PAGERANK", "COMPONENTS", "TRIANGLES" }) {
+                assertTrue(runRounds("CsrNet", algorithm, 1) >= 1);
+            }
+            assertAnalytics("CsrNet after rounds", network, "CsrNet");
+
+            // rounds left midway by a change of the links, which starts them over
+            for (int round = 0; round < 3; round++) {
+                m_client.callProcedure("@GraphAnalyticsRound", "CsrNet", "PAGERANK", 1);
+            }
+            changeLinks(network, random, 100);
+            runRounds("CsrNet", "PAGERANK", 2);
+            assertAnalytics("CsrNet after DML", network, "CsrNet");
+
+            // a result table left with rows fails the procedure
+            query("INSERT INTO Ranks VALUES (?, ?);", 1, 0.5);
+            try {
+                m_client.callProcedure("@GraphAnalytics", "CsrNet", "PAGERANK", "Ranks");
+                fail("PAGERANK into a table with rows should have failed");
+            }
+            catch (ProcCallException expected) {
+            }
+        }
+        finally {
+            teardownSystem();
+        }
+    }
+
     /**
      * @param query
      * @param hashable - used to pick a single partition for running the query
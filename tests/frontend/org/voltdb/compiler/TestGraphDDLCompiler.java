@@ -5,7 +5,11 @@ import java.io.File;
 import org.hsqldb_voltpatches.HSQLInterface;
 import org.hsqldb_voltpatches.VoltXMLElement;
 import org.hsqldb_voltpatches.HSQLInterface.HSQLParseException;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Database;
 import org.voltdb.catalog.DatabaseConfiguration;
+import org.voltdb.catalog.GraphView;
+import org.voltdb.catalog.Table;
 import org.voltdb.utils.CatalogUtil;
 
 import junit.framework.TestCase;
@@ -109,5 +113,475 @@ public class TestGraphDDLCompiler extends TestCase {
         // cleanup after the test
         jarOut.delete();
     }
-	
+
+    public void testGraphMaintenanceColumns() {
+        File jarOut = new File("graphmaintenance.jar");
+        jarOut.deleteOnExit();
+
+        VoltCompiler compiler = new VoltCompiler();
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(
+                "CREATE TABLE Users ( " +
+                "uId integer default '0' NOT NULL, " +
+                "lName varchar(16) default NULL, " +
+                "PRIMARY KEY  (uId) " +
+                ");\n"+
+                "CREATE TABLE Relationships ( " +
+                "relId integer default '0' NOT NULL, " +
+                "uId integer default '0' NOT NULL, " +
+                "uId2 integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (relId) " +
+                ");\n"+
+                "CREATE DIRECTED GRAPH VIEW SocialNetwork "
+                + "VERTEXES (ID = uId, lstName = lName) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                );
+
+        try {
+            assertTrue(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        GraphView graph = db.getGraphviews().getIgnoreCase("SocialNetwork");
+        assertNotNull(graph);
+        assertEquals("UID", graph.getVertexidcolumn().getTypeName());
+        assertEquals("RELID", graph.getEdgeidcolumn().getTypeName());
+        assertEquals("UID", graph.getEdgefromcolumn().getTypeName());
+        assertEquals("UID2", graph.getEdgetocolumn().getTypeName());
+        assertEquals("RELATIONSHIPS", ((Table) graph.getEdgetocolumn().getParent()).getTypeName());
+
+        // cleanup after the test
+        jarOut.delete();
+    }
+
+    public void testCSRGraphView() {
+        File jarOut = new File("graphcsr.jar");
+        jarOut.deleteOnExit();
+
+        VoltCompiler compiler = new VoltCompiler();
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(
+                "CREATE TABLE Users ( " +
+                "uId integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (uId) " +
+                ");\n"+
+                "CREATE TABLE Relationships ( " +
+                "relId integer default '0' NOT NULL, " +
+                "uId integer default '0' NOT NULL, " +
+                "uId2 integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (relId) " +
+                ");\n"+
+                "CREATE DIRECTED GRAPH VIEW CSRNetwork WITH CSR "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                + "CREATE DIRECTED GRAPH VIEW MapNetwork "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                );
+
+        try {
+            assertTrue(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        assertTrue(db.getGraphviews().getIgnoreCase("CSRNetwork").getIscsr());
+        assertFalse(db.getGraphviews().getIgnoreCase("MapNetwork").getIscsr());
+
+        // cleanup after the test
+        jarOut.delete();
+    }
+
+    public void testPartitionedGraphView() {
+        File jarOut = new File("graphpartitioned.jar");
+        jarOut.deleteOnExit();
+
+        VoltCompiler compiler = new VoltCompiler();
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(
+                "CREATE TABLE Users ( " +
+                "uId integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (uId) " +
+                ");\n"+
+                "PARTITION TABLE Users ON COLUMN uId;\n"+
+                "CREATE TABLE Places ( " +
+                "pId integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (pId) " +
+                ");\n"+
+                "CREATE TABLE Relationships ( " +
+                "relId integer default '0' NOT NULL, " +
+                "uId integer default '0' NOT NULL, " +
+                "uId2 integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (relId, uId) " +
+                ");\n"+
+                "PARTITION TABLE Relationships ON COLUMN uId;\n"+
+                "CREATE TABLE Routes ( " +
+                "rId integer default '0' NOT NULL, " +
+                "pId integer default '0' NOT NULL, " +
+                "pId2 integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (rId) " +
+                ");\n"+
+                "CREATE DIRECTED GRAPH VIEW UserNetwork "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                + "CREATE DIRECTED GRAPH VIEW PlaceNetwork "
+                + "VERTEXES (ID = pId) "
+                + "FROM Places "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = rId, FROM = pId, TO = pId2) "
+                + "FROM Routes "
+                + "WHERE 1 = 1;\n"
+                );
+
+        try {
+            assertTrue(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        assertFalse(db.getGraphviews().getIgnoreCase("UserNetwork").getIsreplicated());
+        assertTrue(db.getGraphviews().getIgnoreCase("PlaceNetwork").getIsreplicated());
+
+        // cleanup after the test
+        jarOut.delete();
+    }
+
+    public void testMixedPartitioningGraphView() {
+        // the vertexes of one partition would be linked to the edges of every partition,
+        // or the edges of one partition to the vertexes of every partition
+        String[] partitioned = { "Users", "Relationships" };
+        for (String table : partitioned) {
+            File jarOut = new File("graphmixed.jar");
+            jarOut.deleteOnExit();
+
+            VoltCompiler compiler = new VoltCompiler();
+            File schemaFile = VoltProjectBuilder.writeStringToTempFile(
+                    "CREATE TABLE Users ( " +
+                    "uId integer default '0' NOT NULL, " +
+                    "PRIMARY KEY  (uId) " +
+                    ");\n"+
+                    "CREATE TABLE Relationships ( " +
+                    "relId integer default '0' NOT NULL, " +
+                    "uId integer default '0' NOT NULL, " +
+                    "uId2 integer default '0' NOT NULL, " +
+                    "PRIMARY KEY  (relId, uId) " +
+                    ");\n"+
+                    "PARTITION TABLE " + table + " ON COLUMN uId;\n"+
+                    "CREATE DIRECTED GRAPH VIEW UserNetwork "
+                    + "VERTEXES (ID = uId) "
+                    + "FROM Users "
+                    + "WHERE 1 = 1 "
+                    + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                    + "FROM Relationships "
+                    + "WHERE 1 = 1;\n"
+                    );
+
+            try {
+                assertFalse(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+            } catch (Exception e) {
+                e.printStackTrace();
+                fail(e.getMessage());
+            }
+            boolean reported = false;
+            for (VoltCompiler.Feedback fb : compiler.m_errors) {
+                reported |= fb.getStandardFeedbackLine().contains(
+                        "must be both partitioned or both replicated");
+            }
+            assertTrue(reported);
+
+            // cleanup after the test
+            jarOut.delete();
+        }
+    }
+
+    public void testLandmarksGraphView() {
+        File jarOut = new File("graphlandmarks.jar");
+        jarOut.deleteOnExit();
+
+        VoltCompiler compiler = new VoltCompiler();
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(
+                "CREATE TABLE Users ( " +
+                "uId integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (uId) " +
+                ");\n"+
+                "CREATE TABLE Relationships ( " +
+                "relId integer default '0' NOT NULL, " +
+                "uId integer default '0' NOT NULL, " +
+                "uId2 integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (relId) " +
+                ");\n"+
+                "CREATE DIRECTED GRAPH VIEW GuidedNetwork WITH CSR, LANDMARKS 4 "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                + "CREATE UNDIRECTED GRAPH VIEW PlainNetwork "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                );
+
+        try {
+            assertTrue(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        assertTrue(db.getGraphviews().getIgnoreCase("GuidedNetwork").getIscsr());
+        assertEquals(4, db.getGraphviews().getIgnoreCase("GuidedNetwork").getLandmarks());
+        assertEquals(0, db.getGraphviews().getIgnoreCase("PlainNetwork").getLandmarks());
+
+        // cleanup after the test
+        jarOut.delete();
+    }
+
+    public void testTraversalCacheGraphView() {
+        File jarOut = new File("graphcache.jar");
+        jarOut.deleteOnExit();
+
+        VoltCompiler compiler = new VoltCompiler();
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(
+                "CREATE TABLE Users ( " +
+                "uId integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (uId) " +
+                ");\n"+
+                "CREATE TABLE Relationships ( " +
+                "relId integer default '0' NOT NULL, " +
+                "uId integer default '0' NOT NULL, " +
+                "uId2 integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (relId) " +
+                ");\n"+
+                "CREATE DIRECTED GRAPH VIEW SmallCacheNetwork WITH CSR, CACHE 16 "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                + "CREATE DIRECTED GRAPH VIEW UncachedNetwork WITH CACHE 0 "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                + "CREATE DIRECTED GRAPH VIEW PlainNetwork "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                );
+
+        try {
+            assertTrue(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        assertEquals(16, db.getGraphviews().getIgnoreCase("SmallCacheNetwork").getTraversalcachemb());
+        assertTrue(db.getGraphviews().getIgnoreCase("SmallCacheNetwork").getIscsr());
+        assertEquals(0, db.getGraphviews().getIgnoreCase("UncachedNetwork").getTraversalcachemb());
+        assertEquals(org.hsqldb_voltpatches.GraphView.DEFAULT_TRAVERSAL_CACHE_MB,
+                db.getGraphviews().getIgnoreCase("PlainNetwork").getTraversalcachemb());
+
+        // cleanup after the test
+        jarOut.delete();
+    }
+
+    public void testReachabilityIndexGraphView() {
+        File jarOut = new File("graphreachability.jar");
+        jarOut.deleteOnExit();
+
+        VoltCompiler compiler = new VoltCompiler();
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(
+                "CREATE TABLE Users ( " +
+                "uId integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (uId) " +
+                ");\n"+
+                "CREATE TABLE Relationships ( " +
+                "relId integer default '0' NOT NULL, " +
+                "uId integer default '0' NOT NULL, " +
+                "uId2 integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (relId) " +
+                ");\n"+
+                "CREATE DIRECTED GRAPH VIEW IndexedNetwork WITH REACHABILITY, CSR "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                + "CREATE DIRECTED GRAPH VIEW PlainNetwork "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                );
+
+        try {
+            assertTrue(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        assertTrue(db.getGraphviews().getIgnoreCase("IndexedNetwork").getHasreachabilityindex());
+        assertTrue(db.getGraphviews().getIgnoreCase("IndexedNetwork").getIscsr());
+        assertFalse(db.getGraphviews().getIgnoreCase("PlainNetwork").getHasreachabilityindex());
+
+        // cleanup after the test
+        jarOut.delete();
+    }
+
+    public void testGraphViewOptionsLeaveOthersUnset() {
+        File jarOut = new File("graphoptions.jar");
+        jarOut.deleteOnExit();
+
+        VoltCompiler compiler = new VoltCompiler();
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(
+                "CREATE TABLE Users ( " +
+                "uId integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (uId) " +
+                ");\n"+
+                "CREATE TABLE Relationships ( " +
+                "relId integer default '0' NOT NULL, " +
+                "uId integer default '0' NOT NULL, " +
+                "uId2 integer default '0' NOT NULL, " +
+                "PRIMARY KEY  (relId) " +
+                ");\n"+
+                "CREATE DIRECTED GRAPH VIEW CSRNetwork WITH CSR "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                + "CREATE DIRECTED GRAPH VIEW GuidedNetwork WITH CSR, LANDMARKS 4 "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                + "CREATE DIRECTED GRAPH VIEW IndexedNetwork WITH REACHABILITY, CSR "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                );
+
+        try {
+            assertTrue(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+
+        // each option of a graph view leaves the others unset
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        GraphView csrGraph = db.getGraphviews().getIgnoreCase("CSRNetwork");
+        assertEquals(0, csrGraph.getLandmarks());
+        assertFalse(csrGraph.getHasreachabilityindex());
+        GraphView guidedGraph = db.getGraphviews().getIgnoreCase("GuidedNetwork");
+        assertFalse(guidedGraph.getHasreachabilityindex());
+        GraphView indexedGraph = db.getGraphviews().getIgnoreCase("IndexedNetwork");
+        assertEquals(0, indexedGraph.getLandmarks());
+
+        // cleanup after the test
+        jarOut.delete();
+    }
+
+    public void testVertexKeyTypes() {
+        File jarOut = new File("graphkeys.jar");
+        jarOut.deleteOnExit();
+
+        VoltCompiler compiler = new VoltCompiler();
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(
+                "CREATE TABLE Users ( " +
+                "uId bigint NOT NULL, " +
+                "uName varchar(32) NOT NULL, " +
+                "PRIMARY KEY  (uId) " +
+                ");\n"+
+                "CREATE TABLE Relationships ( " +
+                "relId bigint NOT NULL, " +
+                "uId bigint NOT NULL, " +
+                "uId2 bigint NOT NULL, " +
+                "name1 varchar(32) NOT NULL, " +
+                "name2 varchar(32) NOT NULL, " +
+                "PRIMARY KEY  (relId) " +
+                ");\n"+
+                "CREATE DIRECTED GRAPH VIEW BigIntNetwork "
+                + "VERTEXES (ID = uId) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = uId, TO = uId2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                + "CREATE DIRECTED GRAPH VIEW NamedNetwork "
+                + "VERTEXES (ID = uName) "
+                + "FROM Users "
+                + "WHERE 1 = 1 "
+                + "EDGES (ID = relId, FROM = name1, TO = name2) "
+                + "FROM Relationships "
+                + "WHERE 1 = 1;\n"
+                );
+
+        try {
+            assertTrue(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+
+        // the paths carry the vertex keys with their type
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        GraphView bigIntGraph = db.getGraphviews().getIgnoreCase("BigIntNetwork");
+        assertEquals(VoltType.BIGINT.getValue(), bigIntGraph.getPathprops().getIgnoreCase("STARTVERTEXID").getType());
+        assertEquals(VoltType.BIGINT.getValue(), bigIntGraph.getPathprops().getIgnoreCase("ENDVERTEXID").getType());
+        GraphView namedGraph = db.getGraphviews().getIgnoreCase("NamedNetwork");
+        assertEquals(VoltType.STRING.getValue(), namedGraph.getPathprops().getIgnoreCase("STARTVERTEXID").getType());
+        assertEquals(VoltType.STRING.getValue(), namedGraph.getPathprops().getIgnoreCase("ENDVERTEXID").getType());
+        // the path itself is the serialized vertex keys
+        assertEquals(VoltType.VARBINARY.getValue(), namedGraph.getPathprops().getIgnoreCase("PATH").getType());
+
+        // cleanup after the test
+        jarOut.delete();
+    }
+
 }
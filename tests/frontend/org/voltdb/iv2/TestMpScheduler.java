@@ -0,0 +1,149 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.voltcore.messaging.Mailbox;
+import org.voltdb.ParameterSet;
+import org.voltdb.StoredProcedureInvocation;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+public class TestMpScheduler extends TestCase
+{
+    static final String MockMPName = "MOCKMP";
+    static final long dut_hsid = 11223344l;
+    static final List<Long> buddies = Arrays.asList(101l, 102l, 103l);
+
+    Mailbox mbox;
+    SiteTaskerQueue writeQueue;
+    MpRoSitePool roPool;
+    MpScheduler dut;
+
+    @Override
+    public void setUp()
+    {
+        mbox = mock(Mailbox.class);
+        when(mbox.getHSId()).thenReturn(dut_hsid);
+        writeQueue = mock(SiteTaskerQueue.class);
+        roPool = mock(MpRoSitePool.class);
+        // the pool takes every read, so none of them waits in the backlog
+        when(roPool.canAcceptWork()).thenReturn(true);
+
+        dut = new MpScheduler(MpInitiator.MP_INIT_PID, buddies, writeQueue);
+        dut.setMailbox(mbox);
+        dut.setMpRoSitePool(roPool);
+    }
+
+    private Iv2InitiateTaskMessage createMsg(long txnId, boolean readOnly)
+    {
+        StoredProcedureInvocation spi = mock(StoredProcedureInvocation.class);
+        when(spi.getProcName()).thenReturn(MockMPName);
+        when(spi.getOriginalTxnId()).thenReturn((long)-1);
+        ParameterSet bleh = mock(ParameterSet.class);
+        when(spi.getParams()).thenReturn(bleh);
+        Iv2InitiateTaskMessage task =
+            new Iv2InitiateTaskMessage(dut_hsid, // initHSID
+                                       Long.MIN_VALUE, // coordHSID
+                                       txnId - 1, // truncationHandle
+                                       txnId,     // txnId
+                                       UniqueIdGenerator.makeIdFromComponents(System.currentTimeMillis(), 0,
+                                               MpInitiator.MP_INIT_PID), // uniqueID
+                                       readOnly, // readonly
+                                       false, // single-part
+                                       spi, // invocation
+                                       Long.MAX_VALUE, // client interface handle
+                                       Long.MAX_VALUE, // connectionId
+                                       false); // isForReplay
+        return task;
+    }
+
+    /**
+     * @return the buddy sites of the read-only transactions handed to the pool, in order
+     */
+    private List<Long> borrowedBuddies(int count)
+    {
+        ArgumentCaptor<TransactionTask> captor = ArgumentCaptor.forClass(TransactionTask.class);
+        verify(roPool, times(count)).doWork(anyLong(), captor.capture());
+        List<Long> borrowed = new ArrayList<Long>();
+        for (TransactionTask task : captor.getAllValues()) {
+            borrowed.add(((MpTransactionState)task.getTransactionState()).m_buddyHSId);
+        }
+        return borrowed;
+    }
+
+    // Concurrent read-only transactions borrow the local sites in turn
+    @Test
+    public void testReadsRotateBuddies()
+    {
+        TxnEgo txnEgo = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        for (int i = 0; i < 7; i++) {
+            txnEgo = txnEgo.makeNext();
+            dut.deliver(createMsg(txnEgo.getTxnId(), true));
+        }
+        assertEquals(Arrays.asList(101l, 102l, 103l, 101l, 102l, 103l, 101l), borrowedBuddies(7));
+    }
+
+    // Restarted transactions take the next buddy in the same rotation
+    @Test
+    public void testRepairsRotateBuddies()
+    {
+        TxnEgo txnEgo = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        List<Long> needsRepair = new ArrayList<Long>();
+        for (int i = 0; i < 2; i++) {
+            txnEgo = txnEgo.makeNext();
+            Iv2InitiateTaskMessage msg = createMsg(txnEgo.getTxnId(), true);
+            dut.deliver(msg);
+            dut.handleMessageRepair(needsRepair, msg);
+        }
+        assertEquals(Arrays.asList(101l, 102l, 103l, 101l), borrowedBuddies(4));
+    }
+
+    // A single local site is borrowed by every transaction
+    @Test
+    public void testSingleBuddy()
+    {
+        dut = new MpScheduler(MpInitiator.MP_INIT_PID, Arrays.asList(101l), writeQueue);
+        dut.setMailbox(mbox);
+        dut.setMpRoSitePool(roPool);
+        TxnEgo txnEgo = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        for (int i = 0; i < 3; i++) {
+            txnEgo = txnEgo.makeNext();
+            dut.deliver(createMsg(txnEgo.getTxnId(), true));
+        }
+        assertEquals(Arrays.asList(101l, 101l, 101l), borrowedBuddies(3));
+    }
+}
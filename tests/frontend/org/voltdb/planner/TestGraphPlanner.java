@@ -3,6 +3,7 @@ package org.voltdb.planner;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.util.List;
 
 import org.hsqldb_voltpatches.HSQLInterface;
 import org.hsqldb_voltpatches.VoltXMLElement;
@@ -11,11 +12,17 @@ import org.voltdb.AllTpccSQL;
 import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
 import org.voltdb.catalog.Catalog;
 import org.voltdb.catalog.Database;
+import org.voltdb.catalog.GraphView;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.expressions.ConstantValueExpression;
+import org.voltdb.expressions.ParameterValueExpression;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.AbstractScanPlanNode;
+import org.voltdb.plannodes.PathScanPlanNode;
+import org.voltdb.types.PlanNodeType;
 import org.voltdb.utils.BuildDirectoryUtils;
 
-import junit.framework.TestCase;
-
-public class TestGraphPlanner extends TestCase {
+public class TestGraphPlanner extends PlannerTestCase {
 
     HSQLInterface m_hsql;
     Database m_db;
@@ -24,6 +31,7 @@ public class TestGraphPlanner extends TestCase {
     @Override
     protected void setUp() throws Exception {
         super.setUp();
+        setupSchema(true, TestGraphPlanner.class.getResource("testplans-graph-ddl.sql"), "testplansgraph");
 
         Catalog catalog = TPCCProjectBuilder.getTPCCSchemaCatalog();
         m_db = catalog.getClusters().get("cluster").getDatabases().get("database");
@@ -102,4 +110,268 @@ public class TestGraphPlanner extends TestCase {
     	
     }
     
+    public void testPartitionedGraphScans() {
+        List<AbstractPlanNode> pns;
+
+        // every site scans its own subgraph, the coordinator collects the rows
+        pns = compileToFragments("SELECT V.ID FROM SocialNetwork.VERTEXES V;");
+        assertEquals(2, pns.size());
+        pns = compileToFragments("SELECT E.ID FROM SocialNetwork.EDGES E;");
+        assertEquals(2, pns.size());
+
+        // the vertex id and the edge start vertex are fed by the partition columns
+        pns = compileToFragments("SELECT V.LSTNAME FROM SocialNetwork.VERTEXES V WHERE V.ID = ?;");
+        assertEquals(1, pns.size());
+        pns = compileToFragments("SELECT E.TO FROM SocialNetwork.EDGES E WHERE E.FROM = ?;");
+        assertEquals(1, pns.size());
+
+        // joins with a partitioned table on the partition key run at every partition
+        pns = compileToFragments("SELECT V.LSTNAME, P.CITY FROM SocialNetwork.VERTEXES V, Profiles P " +
+                                 "WHERE V.ID = P.UID;");
+        assertEquals(2, pns.size());
+        pns = compileToFragments("SELECT E.ID, P.CITY FROM SocialNetwork.EDGES E, Profiles P " +
+                                 "WHERE E.FROM = P.UID;");
+        assertEquals(2, pns.size());
+
+        // the edge end vertex is not the partition key
+        failToCompile("SELECT E.ID, P.CITY FROM SocialNetwork.EDGES E, Profiles P WHERE E.TO = P.UID;",
+                      "not plannable");
+    }
+
+    public void testPartitionedGraphPaths() {
+        // a path may leave the subgraph of the partition
+        failToCompile("SELECT P.LENGTH FROM SocialNetwork.PATHS P " +
+                      "WHERE P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;",
+                      "multi-partition traversals of partitioned graph views are not supported");
+        failToCompile("SELECT P.LENGTH FROM SocialNetwork.PATHS P, SocialNetwork.VERTEXES V " +
+                      "WHERE P.STARTVERTEXID = V.ID AND V.ID = ?;",
+                      "multi-partition traversals of partitioned graph views are not supported");
+
+        // single partition statements traverse the subgraph of their partition
+        assertNotNull(compileForSinglePartition("SELECT P.LENGTH FROM SocialNetwork.PATHS P " +
+                                                "WHERE P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;"));
+    }
+
+    /**
+     * @return the only path scan of the plan
+     */
+    private static PathScanPlanNode pathScanOf(AbstractPlanNode root) {
+        List<AbstractPlanNode> scans = root.findAllNodesOfType(PlanNodeType.PATHSCAN);
+        assertEquals(1, scans.size());
+        return (PathScanPlanNode) scans.get(0);
+    }
+
+    private static void assertParameter(int index, AbstractExpression argument) {
+        assertTrue(argument instanceof ParameterValueExpression);
+        assertEquals(index, ((ParameterValueExpression) argument).getParameterIndex().intValue());
+    }
+
+    public void testPathScanArgumentsAsParameters() {
+        PathScanPlanNode scan;
+
+        // the start and end vertexes are bound when the plan is executed
+        scan = pathScanOf(compile("SELECT P.LENGTH FROM Network.PATHS P " +
+                                  "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;"));
+        assertParameter(0, scan.getStartVertexExpression());
+        assertParameter(1, scan.getEndVertexExpression());
+
+        // so is the length, next to a constant start vertex
+        scan = pathScanOf(compile("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                                  "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = 5 AND P.LENGTH = ?;"));
+        assertTrue(scan.getStartVertexExpression() instanceof ConstantValueExpression);
+        assertEquals("5", ((ConstantValueExpression) scan.getStartVertexExpression()).getValue());
+        assertParameter(0, scan.getLengthExpression());
+        assertNull(scan.getEndVertexExpression());
+    }
+
+    public void testLimitInlinedIntoPathScan() {
+        // the scan stops pulling paths from the traversal once it has the rows it needs
+        PathScanPlanNode scan = pathScanOf(compile("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                                                   "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 2 LIMIT 5;"));
+        assertNotNull(scan.getInlinePlanNode(PlanNodeType.LIMIT));
+
+        scan = pathScanOf(compile("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                                  "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 2;"));
+        assertNull(scan.getInlinePlanNode(PlanNodeType.LIMIT));
+    }
+
+    public void testPredicatesPushedIntoTraversal() {
+        String explain = buildExplainPlan(compileToFragments("SELECT P.LENGTH FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ? " +
+                "AND P.EDGES.WEIGHT < 6 AND P.VERTEXES.NAME = 'open' AND P.COST < 10;"));
+        assertTrue(explain, explain.contains("traverse edges where"));
+        assertTrue(explain, explain.contains("traverse vertexes where"));
+        // the cost is only known once a path is found, it filters the paths
+        assertTrue(explain, explain.contains("filter by"));
+        String filter = explain.substring(explain.indexOf("filter by"));
+        assertFalse(explain, filter.contains("WEIGHT"));
+        assertFalse(explain, filter.contains("NAME"));
+
+        explain = buildExplainPlan(compileToFragments("SELECT P.LENGTH FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;"));
+        assertFalse(explain, explain.contains("traverse"));
+    }
+
+    public void testPathColumnsRead() {
+        // bits of STARTVERTEXID, ENDVERTEXID, LENGTH, COST and PATH, in order
+        final int COST = 1 << 3;
+        final int PATH = 1 << 4;
+
+        // reachability answered from the endpoints alone
+        assertEquals(3, pathScanOf(compile("SELECT P.STARTVERTEXID, P.ENDVERTEXID FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;")).getPathColumns());
+
+        int columns = pathScanOf(compile("SELECT P.COST FROM Network.PATHS P HINT(SHORTESTPATH(WEIGHT)) " +
+                "WHERE P.PROP1 = 22 AND P.PROP5 = 100 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;")).getPathColumns();
+        assertEquals(COST, columns & COST);
+        assertEquals(0, columns & PATH);
+
+        columns = pathScanOf(compile("SELECT P.COST, P.PATH FROM Network.PATHS P HINT(SHORTESTPATH(WEIGHT)) " +
+                "WHERE P.PROP1 = 22 AND P.PROP5 = 100 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;")).getPathColumns();
+        assertEquals(COST | PATH, columns & (COST | PATH));
+    }
+
+    public void testPathScanJoinedOnStartVertex() {
+        List<AbstractPlanNode> joins = compile("SELECT T.ID, P.ENDVERTEXID FROM Trips T, Network.PATHS P " +
+                "WHERE P.STARTVERTEXID = T.STATION AND P.PROP1 = 1 AND P.LENGTH = 2;")
+                .findAllNodesOfType(PlanNodeType.NESTLOOP);
+        assertEquals(1, joins.size());
+        assertTrue(joins.get(0).getChild(1) instanceof PathScanPlanNode);
+        assertTrue(((PathScanPlanNode)joins.get(0).getChild(1)).isJoinedOnStartVertex());
+
+        // a start vertex given by a parameter is no join on it
+        assertFalse(pathScanOf(compile("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                "WHERE P.STARTVERTEXID = ? AND P.PROP1 = 1 AND P.LENGTH = 2;")).isJoinedOnStartVertex());
+    }
+
+
+    /**
+     * @return the estimated number of edges the only path scan of the statement expands
+     */
+    private long traversedEdges(String sql) {
+        return pathScanOf(compile(sql)).getEstimatedProcessedTupleCount();
+    }
+
+    public void testPathScanCostEstimates() {
+        // without counts in the catalog the graph is as large as its tables,
+        // and a traversal expands 10 edges per vertex
+        assertEquals(110, traversedEdges("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 2;"));
+        assertEquals(11110, traversedEdges("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 4;"));
+        // a search from both ends meets half way
+        assertEquals(220, traversedEdges("SELECT P.LENGTH FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ? AND P.LENGTH = 4;"));
+        // the paths without a start vertex are traversed from every vertex
+        assertEquals(110L * 1000000, traversedEdges("SELECT P.STARTVERTEXID FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 13 AND P.LENGTH = 2;"));
+        // a path scan joined on its start vertex is costed for one traversal,
+        // the join traverses it once per outer tuple
+        AbstractPlanNode plan = compile("SELECT T.ID, P.ENDVERTEXID FROM Trips T, Network.PATHS P " +
+                "WHERE P.STARTVERTEXID = T.STATION AND P.PROP1 = 1 AND P.LENGTH = 2;");
+        assertEquals(110, pathScanOf(plan).getEstimatedProcessedTupleCount());
+        AbstractPlanNode join = plan.findAllNodesOfType(PlanNodeType.NESTLOOP).get(0);
+        long outerTuples = join.getChild(0).getEstimatedOutputTupleCount();
+        assertTrue(join.getEstimatedProcessedTupleCount() >= outerTuples * 110);
+    }
+
+    public void testGraphEstimatesFromCatalog() {
+        // the counts of the catalog give the fan-out, 200 edges over 100 vertexes
+        GraphView network = getDatabase().getGraphviews().getIgnoreCase("Network");
+        network.setEstimatedvertexescount(100);
+        network.setEstimatededgescount(200);
+        PathScanPlanNode scan = pathScanOf(compile("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 4;"));
+        assertEquals(2 + 4 + 8 + 16, scan.getEstimatedProcessedTupleCount());
+        assertEquals(16, scan.getEstimatedOutputTupleCount());
+
+        // a traversal expands each edge once at most, and reaches each vertex once at most
+        network.setEstimatedvertexescount(10);
+        network.setEstimatededgescount(20);
+        scan = pathScanOf(compile("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 8;"));
+        assertEquals(20, scan.getEstimatedProcessedTupleCount());
+        assertEquals(10, scan.getEstimatedOutputTupleCount());
+
+        // the vertex and edge scans read the whole graph view
+        List<AbstractPlanNode> scans = compile("SELECT V.ID FROM Network.VERTEXES V;")
+                .findAllNodesOfType(PlanNodeType.VERTEXSCAN);
+        assertEquals(10, scans.get(0).getEstimatedProcessedTupleCount());
+        scans = compile("SELECT E.ID FROM Network.EDGES E;").findAllNodesOfType(PlanNodeType.EDGESCAN);
+        assertEquals(20, scans.get(0).getEstimatedProcessedTupleCount());
+    }
+
+    public void testPathScansJoinedInner() {
+        // the nested loop path join takes the start vertexes from its outer tuples,
+        // a path scan is joined last whatever the order of the statement, though
+        // traversing from every vertex first would not cost much more here
+        String[] statements = {
+            "SELECT T.ID, P.ENDVERTEXID FROM Network.PATHS P, Trips T " +
+                    "WHERE P.STARTVERTEXID = T.STATION AND P.PROP1 = 1 AND P.LENGTH = 2;",
+            "SELECT T.ID, V.NAME, P.ENDVERTEXID FROM Network.PATHS P, Network.VERTEXES V, Trips T " +
+                    "WHERE P.STARTVERTEXID = T.STATION AND V.ID = T.DESTINATION AND P.PROP1 = 1 AND P.LENGTH = 2;"
+        };
+        for (String sql : statements) {
+            AbstractPlanNode plan = compile(sql);
+            PathScanPlanNode scan = pathScanOf(plan);
+            assertTrue(sql, scan.isJoinedOnStartVertex());
+            // the path scan is the inner side of the topmost join
+            List<AbstractPlanNode> joins = plan.findAllNodesOfType(PlanNodeType.NESTLOOP);
+            boolean inner = false;
+            for (AbstractPlanNode join : joins) {
+                if (join.getChild(1) == scan) {
+                    inner = true;
+                    assertFalse(sql, join.getChild(0).hasAnyNodeOfType(PlanNodeType.PATHSCAN));
+                }
+            }
+            assertTrue(sql, inner);
+        }
+    }
+
+    public void testOnlyGraphPlansCosted() {
+        // the plans of the graph scans are chosen by their cost
+        assertTrue(compileAdHocPlan("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 2;").cost > 0);
+        assertTrue(compileAdHocPlan("SELECT T.ID, V.NAME FROM Trips T, Network.VERTEXES V " +
+                "WHERE V.ID = T.DESTINATION;").cost > 0);
+        // the others keep the first plan, in the join order of the statement
+        CompiledPlan plan = compileAdHocPlan("SELECT T.ID, S.NAME FROM Stations S, Trips T " +
+                "WHERE S.ID = T.DESTINATION;");
+        assertEquals(0.0, plan.cost);
+        AbstractPlanNode join = plan.rootPlanGraph.findAllNodesOfType(PlanNodeType.NESTLOOP).get(0);
+        assertEquals("STATIONS", ((AbstractScanPlanNode)join.getChild(0)).getTargetTableName());
+    }
+
+    public void testMaxExpansionsHint() {
+        PathScanPlanNode scan = pathScanOf(compile("SELECT P.ENDVERTEXID FROM Network.PATHS P " +
+                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 2;"));
+        assertEquals(0, scan.getMaxExpansions());
+        assertNull(scan.getHint());
+
+        scan = pathScanOf(compile("SELECT P.ENDVERTEXID FROM Network.PATHS P HINT(MAXEXPANSIONS(500)) " +
+                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 2;"));
+        assertEquals(500, scan.getMaxExpansions());
+        assertNull(scan.getHint());
+
+        // the budget is split off from the hints the EE reads, in either order
+        String[] hints = { "SHORTESTPATH(WEIGHT), MAXEXPANSIONS(500)", "MAXEXPANSIONS(500), SHORTESTPATH(WEIGHT)" };
+        for (String hint : hints) {
+            scan = pathScanOf(compile("SELECT P.COST FROM Network.PATHS P HINT(" + hint + ") " +
+                    "WHERE P.PROP1 = 22 AND P.PROP5 = 100 AND P.STARTVERTEXID = ? AND P.ENDVERTEXID = ?;"));
+            assertEquals(hint, 500, scan.getMaxExpansions());
+            assertEquals(hint, "SHORTESTPATH(WEIGHT)", scan.getHint());
+        }
+
+        // the budget covers all the traversals of the scan, one per outer tuple of a join
+        String explain = buildExplainPlan(compileToFragments("SELECT T.ID, P.ENDVERTEXID FROM Trips T, " +
+                "Network.PATHS P HINT(MAXEXPANSIONS(500)) " +
+                "WHERE P.STARTVERTEXID = T.STATION AND P.PROP1 = 1 AND P.LENGTH = 2;"));
+        assertTrue(explain, explain.contains("expand at most 500 vertexes over all traversals"));
+
+        failToCompile("SELECT P.ENDVERTEXID FROM Network.PATHS P HINT(MAXEXPANSIONS(0)) " +
+                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 2;");
+        failToCompile("SELECT P.ENDVERTEXID FROM Network.PATHS P HINT(MAXEXPANSIONS(MANY)) " +
+                "WHERE P.PROP1 = 1 AND P.STARTVERTEXID = ? AND P.LENGTH = 2;");
+    }
+
 }
@@ -25,6 +25,9 @@ package org.voltdb.planner;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.voltdb.CatalogContext;
 import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
@@ -44,7 +47,7 @@ public class TestGraphPlannerTool extends TestCase {
 
     PlannerTool m_pt = null;
 
-    public void testSimple() throws Exception {
+    private void setUpPlannerTool() throws Exception {
         TPCCProjectBuilder builder = new TPCCProjectBuilder();
         builder.addAllDefaults();
         final File jar = new File("tpcc-oop.jar");
@@ -60,6 +63,10 @@ public class TestGraphPlannerTool extends TestCase {
         CatalogContext context = new CatalogContext(0, 0, catalog, settings, bytes, null, new byte[] {}, 0);
 
         m_pt = new PlannerTool(context.cluster, context.database, context.getCatalogHash());
+    }
+
+    public void testSimple() throws Exception {
+        setUpPlannerTool();
 
         AdHocPlannedStatement result = null;
         
@@ -99,4 +106,30 @@ public class TestGraphPlannerTool extends TestCase {
         System.out.println(result);
         */
     }
+
+    public void testCachedPathsPlan() throws Exception {
+        setUpPlannerTool();
+
+        AdHocPlannedStatement first = m_pt.planSqlForTest(
+                "SELECT P.LENGTH FROM SocialNetwork.PATHS P " +
+                "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = 3 AND P.ENDVERTEXID = 7;");
+        AdHocPlannedStatement second = m_pt.planSqlForTest(
+                "SELECT P.LENGTH FROM SocialNetwork.PATHS P " +
+                "WHERE P.PROP1 = 3 AND P.STARTVERTEXID = 4 AND P.ENDVERTEXID = 9;");
+
+        // the traversal arguments are parameters of the cached plan,
+        // bound to the literals of each statement
+        assertSame(first.core, second.core);
+        List<Integer> firstParams = new ArrayList<Integer>();
+        for (Object param : first.extractedParamArray()) {
+            firstParams.add(((Number) param).intValue());
+        }
+        List<Integer> secondParams = new ArrayList<Integer>();
+        for (Object param : second.extractedParamArray()) {
+            secondParams.add(((Number) param).intValue());
+        }
+        assertTrue(firstParams.containsAll(Arrays.asList(3, 7)));
+        assertTrue(secondParams.containsAll(Arrays.asList(4, 9)));
+        assertFalse(secondParams.contains(7));
+    }
 }
@@ -0,0 +1,58 @@
+CREATE TABLE Users (
+uId integer default '0' NOT NULL,
+lName varchar(16) default NULL,
+PRIMARY KEY  (uId)
+);
+PARTITION TABLE Users ON COLUMN uId;
+
+CREATE TABLE Relationships (
+relId integer default '0' NOT NULL,
+uId integer default '0' NOT NULL,
+uId2 integer default '0' NOT NULL,
+PRIMARY KEY  (relId, uId)
+);
+PARTITION TABLE Relationships ON COLUMN uId;
+
+CREATE TABLE Profiles (
+uId integer default '0' NOT NULL,
+city varchar(16) default NULL,
+PRIMARY KEY  (uId)
+);
+PARTITION TABLE Profiles ON COLUMN uId;
+
+CREATE DIRECTED GRAPH VIEW SocialNetwork
+VERTEXES (ID = uId, lstName = lName)
+FROM Users
+WHERE 1 = 1
+EDGES (ID = relId, FROM = uId, TO = uId2)
+FROM Relationships
+WHERE 1 = 1;
+
+CREATE TABLE Stations (
+id integer NOT NULL,
+name varchar(16) NOT NULL,
+PRIMARY KEY  (id)
+);
+
+CREATE TABLE Links (
+id integer NOT NULL,
+src integer NOT NULL,
+dst integer NOT NULL,
+weight float NOT NULL,
+PRIMARY KEY  (id)
+);
+
+CREATE TABLE Trips (
+id integer NOT NULL,
+station integer NOT NULL,
+destination integer NOT NULL,
+PRIMARY KEY  (id)
+);
+
+CREATE DIRECTED GRAPH VIEW Network WITH CSR, REACHABILITY
+VERTEXES (ID = id, name = name)
+FROM Stations
+WHERE 1 = 1
+EDGES (ID = id, FROM = src, TO = dst, weight = weight)
+FROM Links
+WHERE 1 = 1;
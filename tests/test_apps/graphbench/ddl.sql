@@ -0,0 +1,32 @@
+-- The vertexes and edges of the generated graph. The tables are replicated so
+-- the graph view holds the whole graph at every site.
+CREATE TABLE vertexes
+(
+  id integer NOT NULL,
+  community integer NOT NULL,
+  name varchar(32) NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE edges
+(
+  id bigint NOT NULL,
+  src integer NOT NULL,
+  dst integer NOT NULL,
+  weight float NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE DIRECTED GRAPH VIEW network WITH CSR, REACHABILITY
+VERTEXES (ID = id, community = community, name = name)
+FROM vertexes
+WHERE 1 = 1
+EDGES (ID = id, FROM = src, TO = dst, weight = weight)
+FROM edges
+WHERE 1 = 1;
+
+-- stored procedures
+CREATE PROCEDURE FROM CLASS graphbench.procedures.Reachability;
+CREATE PROCEDURE FROM CLASS graphbench.procedures.ShortestPath;
+CREATE PROCEDURE FROM CLASS graphbench.procedures.TopKPaths;
+CREATE PROCEDURE FROM CLASS graphbench.procedures.InsertEdge;
@@ -0,0 +1,634 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+/*
+ * Loads a synthetic power-law graph into the vertexes and edges tables of a
+ * graph view, then runs a mix of reachability, shortest path, top-k shortest
+ * paths and edge insert transactions from synchronous client threads, and
+ * reports the throughput and the latency percentiles of each of them.
+ */
+
+package graphbench;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram_voltpatches.Histogram;
+import org.voltdb.CLIConfig;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientConfig;
+import org.voltdb.client.ClientFactory;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ClientStats;
+import org.voltdb.client.ClientStatsContext;
+
+public class GraphBenchmark {
+
+    // handy, rather than typing this out several times
+    static final String HORIZONTAL_RULE =
+            "----------" + "----------" + "----------" + "----------" +
+            "----------" + "----------" + "----------" + "----------" + "\n";
+
+    static final SimpleDateFormat LOG_DF = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss,SSS");
+
+    // validated command line configuration
+    final GraphConfig config;
+    // Reference to the database connection we will use
+    final Client client;
+    // Timer for periodic stats printing
+    Timer timer;
+    // Flags to tell the worker threads to stop or go
+    final AtomicBoolean warmupComplete = new AtomicBoolean(false);
+    final AtomicBoolean benchmarkComplete = new AtomicBoolean(false);
+    // Statistics manager objects from the client
+    final ClientStatsContext periodicStatsContext;
+    final ClientStatsContext fullStatsContext;
+
+    // generates the edges the insert transactions add, continuing the degree
+    // distribution of the loaded graph
+    GraphGenerator insertGenerator;
+    final AtomicLong nextEdgeId = new AtomicLong(0);
+    // the cumulative weights of the operations of the mix
+    final int[] mixBounds = new int[Operation.values().length];
+    final Map<Operation, OperationStats> operationStats =
+            new EnumMap<Operation, OperationStats>(Operation.class);
+
+    /**
+     * Uses included {@link CLIConfig} class to
+     * declaratively state command line options with defaults
+     * and validation.
+     */
+    static class GraphConfig extends CLIConfig {
+        @Option(desc = "Interval for performance feedback, in seconds.")
+        long displayinterval = 5;
+
+        @Option(desc = "Benchmark duration, in seconds.")
+        int duration = 60;
+
+        @Option(desc = "Warmup duration in seconds.")
+        int warmup = 10;
+
+        @Option(desc = "Comma separated list of the form server[:port] to connect to.")
+        String servers = "localhost";
+
+        @Option(desc = "Graph generator, rmat or ldbc.")
+        String generator = "rmat";
+
+        @Option(desc = "The graph has 2^scale vertexes.")
+        int scale = 16;
+
+        @Option(desc = "Edges per vertex.")
+        int edgefactor = 16;
+
+        @Option(desc = "Seed of the graph generator and of the workload.")
+        long seed = 42;
+
+        @Option(desc = "Whether to load the generated graph before the workload.")
+        boolean load = true;
+
+        @Option(desc = "Rows per load transaction.")
+        int loadbatch = 5000;
+
+        @Option(desc = "Weights of the operations, of the form reach:N,shortest:N,topk:N,insert:N.")
+        String mix = "reach:40,shortest:30,topk:10,insert:20";
+
+        @Option(desc = "Paths returned by the top-k shortest paths queries.")
+        int topk = 3;
+
+        @Option(desc = "Number of concurrent threads synchronously calling procedures.")
+        int threads = 16;
+
+        @Option(desc = "Random vertex pairs whose reachability and shortest path to check against the generated graph after the load, 0 to skip the check.")
+        int verify = 0;
+
+        @Option(desc = "Filename to write raw summary statistics to.")
+        String statsfile = "";
+
+        @Override
+        public void validate() {
+            if (duration <= 0) exitWithMessageAndUsage("duration must be > 0");
+            if (warmup < 0) exitWithMessageAndUsage("warmup must be >= 0");
+            if (displayinterval <= 0) exitWithMessageAndUsage("displayinterval must be > 0");
+            if (!generator.equalsIgnoreCase("rmat") && !generator.equalsIgnoreCase("ldbc")) {
+                exitWithMessageAndUsage("generator must be rmat or ldbc");
+            }
+            if (scale <= 0) exitWithMessageAndUsage("scale must be > 0");
+            if (scale > 30) exitWithMessageAndUsage("scale must be <= 30");
+            if (edgefactor <= 0) exitWithMessageAndUsage("edgefactor must be > 0");
+            if (loadbatch <= 0) exitWithMessageAndUsage("loadbatch must be > 0");
+            if (topk <= 0) exitWithMessageAndUsage("topk must be > 0");
+            if (threads <= 0) exitWithMessageAndUsage("threads must be > 0");
+            if (verify < 0) exitWithMessageAndUsage("verify must be >= 0");
+            if (verify > 0 && !load) exitWithMessageAndUsage("verify needs the graph loaded by this run");
+        }
+    }
+
+    enum Operation {
+        REACH("reach", "Reachability"),
+        SHORTEST("shortest", "ShortestPath"),
+        TOPK("topk", "TopKPaths"),
+        INSERT("insert", "InsertEdge");
+
+        final String mixName;
+        final String procName;
+
+        Operation(String mixName, String procName) {
+            this.mixName = mixName;
+            this.procName = procName;
+        }
+    }
+
+    /**
+     * The outcomes and the latencies, in microseconds, of the calls of an operation
+     * after the warmup.
+     */
+    static class OperationStats {
+        final Histogram latencies = new Histogram(1, TimeUnit.MINUTES.toMicros(1), 3);
+        long successes = 0;
+        long failures = 0;
+        // the reachability and path queries that found no path
+        long empty = 0;
+
+        synchronized void record(long micros, boolean success, boolean found) {
+            latencies.recordValue(Math.min(Math.max(micros, 1), latencies.getHighestTrackableValue()));
+            if (!success) {
+                failures++;
+            }
+            else {
+                successes++;
+                if (!found) {
+                    empty++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor for benchmark instance.
+     * Configures VoltDB client and prints configuration.
+     *
+     * @param config Parsed & validated CLI options.
+     */
+    public GraphBenchmark(GraphConfig config) {
+        this.config = config;
+
+        ClientConfig clientConfig = new ClientConfig("", "");
+        clientConfig.setReconnectOnConnectionLoss(true);
+        client = ClientFactory.createClient(clientConfig);
+
+        periodicStatsContext = client.createStatsContext();
+        fullStatsContext = client.createStatsContext();
+
+        int bound = 0;
+        Map<String, Integer> weights = parseMix(config.mix);
+        for (Operation op : Operation.values()) {
+            Integer weight = weights.get(op.mixName);
+            bound += (weight == null) ? 0 : weight;
+            mixBounds[op.ordinal()] = bound;
+            operationStats.put(op, new OperationStats());
+        }
+        if (bound == 0) {
+            config.exitWithMessageAndUsage("mix must give a positive weight to an operation");
+        }
+
+        System.out.print(HORIZONTAL_RULE);
+        System.out.println(" Command Line Configuration");
+        System.out.println(HORIZONTAL_RULE);
+        System.out.println(config.getConfigDumpString());
+    }
+
+    static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new java.util.HashMap<String, Integer>();
+        for (String item : mix.split(",")) {
+            String[] parts = item.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed mix item " + item);
+            }
+            weights.put(parts[0].trim().toLowerCase(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * Connect to a single server with retry. Limited exponential backoff.
+     * No timeout. This will run until the process is killed if it's not
+     * able to connect.
+     *
+     * @param server hostname:port or just hostname (hostname can be ip).
+     */
+    void connectToOneServerWithRetry(String server) {
+        int sleep = 1000;
+        while (true) {
+            try {
+                client.createConnection(server);
+                break;
+            }
+            catch (Exception e) {
+                System.err.printf("Connection failed - retrying in %d second(s).\n", sleep / 1000);
+                try { Thread.sleep(sleep); } catch (Exception interruted) {}
+                if (sleep < 8000) sleep += sleep;
+            }
+        }
+        System.out.printf("Connected to VoltDB node at: %s.\n", server);
+    }
+
+    /**
+     * Connect to a set of servers in parallel. Each will retry until
+     * connection. This call will block until all have connected.
+     *
+     * @param servers A comma separated list of servers using the hostname:port
+     * syntax (where :port is optional).
+     * @throws InterruptedException if anything bad happens with the threads.
+     */
+    void connect(String servers) throws InterruptedException {
+        System.out.println("Connecting to VoltDB...");
+
+        String[] serverArray = servers.split(",");
+        final CountDownLatch connections = new CountDownLatch(serverArray.length);
+
+        // use a new thread to connect to each server
+        for (final String server : serverArray) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    connectToOneServerWithRetry(server);
+                    connections.countDown();
+                }
+            }).start();
+        }
+        // block until all have connected
+        connections.await();
+    }
+
+    /**
+     * Load the vertexes and the edges of the generated graph in batches of
+     * loadbatch rows.
+     */
+    void load(GraphGenerator generator) throws Exception {
+        System.out.printf("Loading %,d vertexes and %,d edges from the %s generator...\n",
+                generator.numVertexes(), generator.numEdges(), config.generator);
+        long start = System.currentTimeMillis();
+
+        VoltTable vertexes = newVertexesTable();
+        for (int v = 0; v < generator.numVertexes(); v++) {
+            vertexes.addRow(v, generator.community(v), "v" + v);
+            if (vertexes.getRowCount() == config.loadbatch) {
+                loadBatch("VERTEXES", vertexes);
+                vertexes = newVertexesTable();
+            }
+        }
+        loadBatch("VERTEXES", vertexes);
+
+        VoltTable edges = newEdgesTable();
+        int[] edge = new int[2];
+        long id = 0;
+        while (generator.nextEdge(edge)) {
+            edges.addRow(id++, edge[0], edge[1], generator.nextWeight());
+            if (edges.getRowCount() == config.loadbatch) {
+                loadBatch("EDGES", edges);
+                edges = newEdgesTable();
+            }
+        }
+        loadBatch("EDGES", edges);
+        nextEdgeId.set(id);
+
+        System.out.printf("Loaded the graph in %,d ms.\n", System.currentTimeMillis() - start);
+    }
+
+    static VoltTable newVertexesTable() {
+        return new VoltTable(
+                new VoltTable.ColumnInfo("ID", VoltType.INTEGER),
+                new VoltTable.ColumnInfo("COMMUNITY", VoltType.INTEGER),
+                new VoltTable.ColumnInfo("NAME", VoltType.STRING));
+    }
+
+    static VoltTable newEdgesTable() {
+        return new VoltTable(
+                new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("SRC", VoltType.INTEGER),
+                new VoltTable.ColumnInfo("DST", VoltType.INTEGER),
+                new VoltTable.ColumnInfo("WEIGHT", VoltType.FLOAT));
+    }
+
+    void loadBatch(String tableName, VoltTable rows) throws Exception {
+        if (rows.getRowCount() == 0) {
+            return;
+        }
+        ClientResponse response = client.callProcedure("@LoadMultipartitionTable", tableName, (byte) 0, rows);
+        if (response.getStatus() != ClientResponse.SUCCESS) {
+            throw new RuntimeException("Loading " + tableName + " failed: " + response.getStatusString());
+        }
+    }
+
+    /**
+     * Check the loaded graph against a copy generated in the client: the row
+     * counts, then the reachability and the shortest path cost between verify
+     * random pairs of distinct vertexes, answered by a BFS and a Dijkstra over
+     * the copy.
+     */
+    void verify() throws Exception {
+        System.out.printf("Verifying %,d vertex pairs against the generated graph...\n", config.verify);
+        GraphOracle oracle = new GraphOracle(
+                GraphGenerator.create(config.generator, config.seed, config.scale, config.edgefactor));
+        checkCount("VERTEXES", insertGenerator.numVertexes());
+        checkCount("EDGES", oracle.numEdges());
+
+        Random rand = new Random(config.seed);
+        int numVertexes = insertGenerator.numVertexes();
+        int reachable = 0;
+        for (int i = 0; i < config.verify; i++) {
+            int src = rand.nextInt(numVertexes);
+            int dst = rand.nextInt(numVertexes);
+            if (src == dst) {
+                continue;
+            }
+            boolean expected = oracle.reachable(src, dst);
+            VoltTable result = client.callProcedure(Operation.REACH.procName, src, dst).getResults()[0];
+            if ((result.getRowCount() > 0) != expected) {
+                fail(String.format("Reachability from %d to %d should be %b", src, dst, expected));
+            }
+
+            double cost = oracle.shortestCost(src, dst);
+            result = client.callProcedure(Operation.SHORTEST.procName, src, dst).getResults()[0];
+            if (!result.advanceRow()) {
+                if (expected) {
+                    fail(String.format("No shortest path from %d to %d, should cost %f", src, dst, cost));
+                }
+                continue;
+            }
+            if (!expected || Math.abs(result.getDouble("COST") - cost) > 1e-6 * cost) {
+                fail(String.format("The shortest path from %d to %d costs %f, should cost %f",
+                        src, dst, result.getDouble("COST"), cost));
+            }
+            reachable++;
+        }
+        System.out.printf("Verified the answers, %,d of the pairs are connected.\n", reachable);
+    }
+
+    void checkCount(String tableName, long expected) throws Exception {
+        long count = client.callProcedure("@AdHoc", "SELECT COUNT(*) FROM " + tableName + ";")
+                .getResults()[0].asScalarLong();
+        if (count != expected) {
+            fail(String.format("%s has %,d rows, should have %,d", tableName, count, expected));
+        }
+    }
+
+    static void fail(String message) {
+        System.err.println("Verification failed: " + message);
+        System.exit(-1);
+    }
+
+    /**
+     * Create a Timer task to display performance data.
+     * It calls printStatistics() every displayInterval seconds
+     */
+    public void schedulePeriodicStats() {
+        timer = new Timer();
+        TimerTask statsPrinting = new TimerTask() {
+            @Override
+            public void run() { printStatistics(); }
+        };
+        timer.scheduleAtFixedRate(statsPrinting,
+                                  config.displayinterval * 1000,
+                                  config.displayinterval * 1000);
+    }
+
+    /**
+     * Prints a one line update on performance that can be printed
+     * periodically during a benchmark.
+     */
+    public synchronized void printStatistics() {
+        ClientStats stats = periodicStatsContext.fetchAndResetBaseline().getStats();
+
+        System.out.print(LOG_DF.format(new Date(stats.getEndTimestamp())));
+        System.out.printf(" Throughput %d/s, ", stats.getTxnThroughput());
+        System.out.printf("Aborts/Failures %d/%d, ",
+                stats.getInvocationAborts(), stats.getInvocationErrors());
+        System.out.printf("Avg/99.9%% Latency %.2f/%.2fms\n", stats.getAverageLatency(),
+                stats.kPercentileLatencyAsDouble(0.999));
+    }
+
+    /**
+     * Prints the throughput and the latency percentiles of each operation.
+     *
+     * @throws Exception if anything unexpected happens.
+     */
+    public synchronized void printResults() throws Exception {
+        ClientStats stats = fullStatsContext.fetch().getStats();
+
+        System.out.print("\n" + HORIZONTAL_RULE);
+        System.out.println(" Graph Workload Results");
+        System.out.println(HORIZONTAL_RULE);
+        System.out.printf("%-10s %12s %10s %10s %10s %10s %10s %10s %10s\n",
+                "operation", "calls", "failed", "no path", "txns/sec",
+                "avg ms", "p50 ms", "p99 ms", "p99.9 ms");
+        for (Operation op : Operation.values()) {
+            OperationStats opStats = operationStats.get(op);
+            synchronized (opStats) {
+                long calls = opStats.successes + opStats.failures;
+                if (calls == 0) {
+                    continue;
+                }
+                System.out.printf("%-10s %,12d %,10d %,10d %,10d %10.2f %10.2f %10.2f %10.2f\n",
+                        op.mixName, calls, opStats.failures,
+                        (op == Operation.INSERT) ? 0 : opStats.empty,
+                        calls / config.duration,
+                        opStats.latencies.getMean() / 1000.0,
+                        opStats.latencies.getValueAtPercentile(50) / 1000.0,
+                        opStats.latencies.getValueAtPercentile(99) / 1000.0,
+                        opStats.latencies.getValueAtPercentile(99.9) / 1000.0);
+            }
+        }
+
+        System.out.print("\n" + HORIZONTAL_RULE);
+        System.out.println(" Client Workload Statistics");
+        System.out.println(HORIZONTAL_RULE);
+
+        System.out.printf("Average throughput:            %,9d txns/sec\n", stats.getTxnThroughput());
+        System.out.printf("Average latency:               %,9.2f ms\n", stats.getAverageLatency());
+        System.out.printf("50th percentile latency:       %,9.2f ms\n", stats.kPercentileLatencyAsDouble(.5));
+        System.out.printf("95th percentile latency:       %,9.2f ms\n", stats.kPercentileLatencyAsDouble(.95));
+        System.out.printf("99th percentile latency:       %,9.2f ms\n", stats.kPercentileLatencyAsDouble(.99));
+        System.out.printf("99.9th percentile latency:     %,9.2f ms\n", stats.kPercentileLatencyAsDouble(.999));
+        System.out.printf("Reported Internal Avg Latency: %,9.2f ms\n", stats.getAverageInternalLatency());
+
+        System.out.print("\n" + HORIZONTAL_RULE);
+        System.out.println(" Latency Histogram");
+        System.out.println(HORIZONTAL_RULE);
+        System.out.println(stats.latencyHistoReport());
+
+        client.writeSummaryCSV(stats, config.statsfile);
+    }
+
+    /**
+     * While <code>benchmarkComplete</code> is set to false, run the operations
+     * of the mix synchronously and record their latencies once the warmup is over.
+     */
+    class GraphThread implements Runnable {
+        final Random rand;
+
+        GraphThread(int index) {
+            rand = new Random(config.seed + index + 1);
+        }
+
+        Operation nextOperation() {
+            int r = rand.nextInt(mixBounds[mixBounds.length - 1]);
+            for (Operation op : Operation.values()) {
+                if (r < mixBounds[op.ordinal()]) {
+                    return op;
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        ClientResponse call(Operation op) throws Exception {
+            int numVertexes = insertGenerator.numVertexes();
+            switch (op) {
+            case REACH:
+                return client.callProcedure(op.procName, rand.nextInt(numVertexes), rand.nextInt(numVertexes));
+            case SHORTEST:
+                return client.callProcedure(op.procName, rand.nextInt(numVertexes), rand.nextInt(numVertexes));
+            case TOPK:
+                return client.callProcedure(op.procName, config.topk,
+                        rand.nextInt(numVertexes), rand.nextInt(numVertexes));
+            default:
+                int[] edge = new int[2];
+                double weight;
+                synchronized (insertGenerator) {
+                    if (!insertGenerator.nextEdge(edge)) {
+                        edge[0] = rand.nextInt(numVertexes);
+                        edge[1] = rand.nextInt(numVertexes);
+                    }
+                    weight = insertGenerator.nextWeight();
+                }
+                return client.callProcedure(op.procName, nextEdgeId.getAndIncrement(), edge[0], edge[1], weight);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (benchmarkComplete.get() == false) {
+                Operation op = nextOperation();
+                long start = System.nanoTime();
+                boolean success = true;
+                boolean found = true;
+                try {
+                    ClientResponse response = call(op);
+                    found = response.getResults()[0].getRowCount() > 0;
+                }
+                catch (Exception e) {
+                    success = false;
+                }
+                long micros = (System.nanoTime() - start) / 1000;
+                if (warmupComplete.get()) {
+                    operationStats.get(op).record(micros, success, found);
+                }
+            }
+        }
+    }
+
+    /**
+     * Core benchmark code.
+     * Connect. Load the graph. Run the workload. Print results.
+     *
+     * @throws Exception if anything unexpected happens.
+     */
+    public void runBenchmark() throws Exception {
+        System.out.print(HORIZONTAL_RULE);
+        System.out.println(" Setup & Initialization");
+        System.out.println(HORIZONTAL_RULE);
+
+        connect(config.servers);
+
+        GraphGenerator generator = GraphGenerator.create(config.generator, config.seed, config.scale, config.edgefactor);
+        if (config.load) {
+            load(generator);
+        }
+        else {
+            nextEdgeId.set(generator.numEdges());
+        }
+        insertGenerator = GraphGenerator.create(config.generator, config.seed + 1, config.scale, config.edgefactor);
+        if (config.verify > 0) {
+            verify();
+        }
+
+        System.out.print(HORIZONTAL_RULE);
+        System.out.println("Starting Benchmark");
+        System.out.println(HORIZONTAL_RULE);
+
+        Thread[] threads = new Thread[config.threads];
+        for (int i = 0; i < config.threads; i++) {
+            threads[i] = new Thread(new GraphThread(i));
+            threads[i].start();
+        }
+
+        System.out.println("Warming up...");
+        Thread.sleep(1000l * config.warmup);
+        warmupComplete.set(true);
+
+        // reset the stats after warmup
+        fullStatsContext.fetchAndResetBaseline();
+        periodicStatsContext.fetchAndResetBaseline();
+
+        schedulePeriodicStats();
+
+        System.out.println("\nRunning benchmark...");
+        Thread.sleep(1000l * config.duration);
+
+        benchmarkComplete.set(true);
+        timer.cancel();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        printResults();
+
+        client.drain();
+        client.close();
+    }
+
+    /**
+     * Main routine creates a benchmark instance and kicks off the run method.
+     *
+     * @param args Command line arguments.
+     * @throws Exception if anything goes wrong.
+     * @see {@link GraphConfig}
+     */
+    public static void main(String[] args) throws Exception {
+        GraphConfig config = new GraphConfig();
+        config.parse(GraphBenchmark.class.getName(), args);
+
+        GraphBenchmark benchmark = new GraphBenchmark(config);
+        benchmark.runBenchmark();
+    }
+}
@@ -0,0 +1,87 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package graphbench;
+
+import java.util.Random;
+
+/**
+ * A seeded generator of a synthetic graph with a power-law degree distribution.
+ * The same seed and parameters generate the same vertexes and edges, so runs
+ * against the same graph can be compared.
+ */
+public abstract class GraphGenerator {
+
+    final Random rand;
+    final int numVertexes;
+    final long numEdges;
+
+    GraphGenerator(long seed, int numVertexes, long numEdges) {
+        this.rand = new Random(seed);
+        this.numVertexes = numVertexes;
+        this.numEdges = numEdges;
+    }
+
+    /**
+     * @param name rmat or ldbc
+     * @param scale the graph has 2^scale vertexes
+     * @param edgeFactor the graph has edgeFactor edges per vertex
+     */
+    public static GraphGenerator create(String name, long seed, int scale, int edgeFactor) {
+        int numVertexes = 1 << scale;
+        long numEdges = (long) numVertexes * edgeFactor;
+        if (name.equalsIgnoreCase("rmat")) {
+            return new RMATGenerator(seed, scale, numEdges);
+        }
+        if (name.equalsIgnoreCase("ldbc")) {
+            return new LDBCGenerator(seed, numVertexes, numEdges);
+        }
+        throw new IllegalArgumentException("Unknown graph generator " + name);
+    }
+
+    public int numVertexes() {
+        return numVertexes;
+    }
+
+    public long numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * The community of the vertex, used to fill the vertexes table.
+     */
+    public abstract int community(int vertex);
+
+    /**
+     * Fills edge with the source and the destination of the next edge.
+     * @return false once all the edges were generated
+     */
+    public abstract boolean nextEdge(int[] edge);
+
+    /**
+     * A weight in [1, 100) for the next edge.
+     */
+    public double nextWeight() {
+        return 1 + rand.nextDouble() * 99;
+    }
+}
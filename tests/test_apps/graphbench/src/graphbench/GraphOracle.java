@@ -0,0 +1,139 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package graphbench;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * The generated graph held in client memory in compressed sparse rows, to
+ * check the answers of the server with a plain BFS and Dijkstra. It replays a
+ * generator created with the same parameters as the loaded one, drawing the
+ * edges and their weights in the same order as the load does.
+ */
+public class GraphOracle {
+
+    final int numVertexes;
+    final long numEdges;
+    // the out edges of vertex v are at [offsets[v], offsets[v + 1])
+    final int[] offsets;
+    final int[] targets;
+    final double[] weights;
+
+    public GraphOracle(GraphGenerator generator) {
+        numVertexes = generator.numVertexes();
+        int edgeCount = (int) generator.numEdges();
+        int[] sources = new int[edgeCount];
+        int[] destinations = new int[edgeCount];
+        double[] drawnWeights = new double[edgeCount];
+        int[] edge = new int[2];
+        int count = 0;
+        while (generator.nextEdge(edge)) {
+            sources[count] = edge[0];
+            destinations[count] = edge[1];
+            drawnWeights[count] = generator.nextWeight();
+            count++;
+        }
+        numEdges = count;
+
+        offsets = new int[numVertexes + 1];
+        for (int e = 0; e < count; e++) {
+            offsets[sources[e] + 1]++;
+        }
+        for (int v = 0; v < numVertexes; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        targets = new int[count];
+        weights = new double[count];
+        int[] next = Arrays.copyOf(offsets, numVertexes);
+        for (int e = 0; e < count; e++) {
+            int slot = next[sources[e]]++;
+            targets[slot] = destinations[e];
+            weights[slot] = drawnWeights[e];
+        }
+    }
+
+    public long numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Is dst reachable from src by a path of at least one edge?
+     */
+    public boolean reachable(int src, int dst) {
+        boolean[] visited = new boolean[numVertexes];
+        int[] queue = new int[numVertexes];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = src;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                if (w == dst) {
+                    return true;
+                }
+                if (!visited[w]) {
+                    visited[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The weight of the cheapest path from src to dst, or infinity if there is none.
+     */
+    public double shortestCost(int src, int dst) {
+        final double[] cost = new double[numVertexes];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        cost[src] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<double[]>(16, new java.util.Comparator<double[]>() {
+            @Override
+            public int compare(double[] a, double[] b) {
+                return Double.compare(a[0], b[0]);
+            }
+        });
+        queue.add(new double[] { 0, src });
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int v = (int) entry[1];
+            if (entry[0] > cost[v]) {
+                continue;
+            }
+            if (v == dst) {
+                return entry[0];
+            }
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                double c = entry[0] + weights[e];
+                if (c < cost[targets[e]]) {
+                    cost[targets[e]] = c;
+                    queue.add(new double[] { c, targets[e] });
+                }
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,120 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package graphbench;
+
+import java.util.Arrays;
+
+/**
+ * A generator shaped after the LDBC social network: the vertexes are split into
+ * communities of skewed sizes, the out degree of each vertex follows a power
+ * law, most edges stay within the community of their source, and the others
+ * attach preferentially to the vertexes that already have many in edges.
+ */
+public class LDBCGenerator extends GraphGenerator {
+
+    // exponent of the power law of the out degrees
+    static final double DEGREE_EXPONENT = 2.1;
+    // fraction of the edges between vertexes of the same community
+    static final double LOCALITY = 0.8;
+    static final int MIN_COMMUNITY = 16;
+
+    // the first vertex of each community, and the community of each vertex
+    final int[] communityStart;
+    final int[] communityOf;
+    // the destinations of the edges generated so far, sampled for preferential attachment
+    final int[] destinations;
+
+    int vertex = 0;
+    int remainingDegree = 0;
+    long generated = 0;
+
+    LDBCGenerator(long seed, int numVertexes, long numEdges) {
+        super(seed, numVertexes, numEdges);
+        communityOf = new int[numVertexes];
+        int[] starts = new int[numVertexes / MIN_COMMUNITY + 2];
+        int communities = 0;
+        int start = 0;
+        while (start < numVertexes) {
+            // community sizes follow a geometric distribution of mean 8 * MIN_COMMUNITY
+            int size = MIN_COMMUNITY + (int) (-Math.log(1 - rand.nextDouble()) * 7 * MIN_COMMUNITY);
+            size = Math.min(size, numVertexes - start);
+            starts[communities] = start;
+            for (int v = start; v < start + size; v++) {
+                communityOf[v] = communities;
+            }
+            communities++;
+            start += size;
+        }
+        starts[communities] = numVertexes;
+        communityStart = Arrays.copyOf(starts, communities + 1);
+        destinations = new int[(int) Math.min(numEdges, 1 << 24)];
+    }
+
+    @Override
+    public int community(int vertex) {
+        return communityOf[vertex];
+    }
+
+    @Override
+    public boolean nextEdge(int[] edge) {
+        if (generated == numEdges) {
+            return false;
+        }
+        while (remainingDegree == 0) {
+            vertex = (vertex + 1) % numVertexes;
+            remainingDegree = outDegree();
+        }
+        remainingDegree--;
+        int src = vertex;
+        int dst;
+        if (rand.nextDouble() < LOCALITY) {
+            int community = communityOf[src];
+            int first = communityStart[community];
+            dst = first + rand.nextInt(communityStart[community + 1] - first);
+        }
+        else if (generated > 0) {
+            int sampled = (int) Math.min(generated, destinations.length);
+            dst = destinations[rand.nextInt(sampled)];
+        }
+        else {
+            dst = rand.nextInt(numVertexes);
+        }
+        destinations[(int) (generated % destinations.length)] = dst;
+        edge[0] = src;
+        edge[1] = dst;
+        generated++;
+        return true;
+    }
+
+    /*
+     * A power law sample rounded to a degree, by inverting the CDF of a Pareto
+     * distribution whose minimum makes its mean numEdges / numVertexes.
+     */
+    int outDegree() {
+        double mean = (double) numEdges / numVertexes;
+        double minimum = mean * (DEGREE_EXPONENT - 2) / (DEGREE_EXPONENT - 1);
+        double sample = minimum * Math.pow(1 - rand.nextDouble(), -1 / (DEGREE_EXPONENT - 1));
+        return (int) Math.min(Math.round(sample), numVertexes);
+    }
+}
@@ -0,0 +1,109 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2016 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package graphbench;
+
+/**
+ * R-MAT generator (Chakrabarti et al.): each edge picks one quadrant of the
+ * adjacency matrix per bit of the vertex ids with probabilities a, b, c and d,
+ * which skews the degrees towards a power law. The probabilities are perturbed
+ * per level as in the Graph500 generator, and the vertex ids are scrambled so
+ * that the high degree vertexes are not the low ids.
+ */
+public class RMATGenerator extends GraphGenerator {
+
+    static final double A = 0.57;
+    static final double B = 0.19;
+    static final double C = 0.19;
+    static final double NOISE = 0.1;
+
+    final int scale;
+    long generated = 0;
+
+    RMATGenerator(long seed, int scale, long numEdges) {
+        super(seed, 1 << scale, numEdges);
+        this.scale = scale;
+    }
+
+    @Override
+    public int community(int vertex) {
+        // the high bits of the unscrambled id pick the quadrant the vertex is in
+        return unscramble(vertex) >>> Math.max(0, scale - 4);
+    }
+
+    @Override
+    public boolean nextEdge(int[] edge) {
+        if (generated == numEdges) {
+            return false;
+        }
+        int src = 0;
+        int dst = 0;
+        for (int level = 0; level < scale; level++) {
+            double a = A * (1 - NOISE + 2 * NOISE * rand.nextDouble());
+            double b = B * (1 - NOISE + 2 * NOISE * rand.nextDouble());
+            double c = C * (1 - NOISE + 2 * NOISE * rand.nextDouble());
+            double d = (1 - A - B - C) * (1 - NOISE + 2 * NOISE * rand.nextDouble());
+            double r = rand.nextDouble() * (a + b + c + d);
+            src <<= 1;
+            dst <<= 1;
+            if (r < a) {
+                // top left quadrant
+            }
+            else if (r < a + b) {
+                dst |= 1;
+            }
+            else if (r < a + b + c) {
+                src |= 1;
+            }
+            else {
+                src |= 1;
+                dst |= 1;
+            }
+        }
+        edge[0] = scramble(src);
+        edge[1] = scramble(dst);
+        generated++;
+        return true;
+    }
+
+    // multiplying by an odd constant permutes the ids modulo 2^scale
+    static final int SCRAMBLE = 0x9E3779B1;
+    static final int UNSCRAMBLE = inverse(SCRAMBLE);
+
+    int scramble(int id) {
+        return (id * SCRAMBLE) & (numVertexes - 1);
+    }
+
+    int unscramble(int id) {
+        return (id * UNSCRAMBLE) & (numVertexes - 1);
+    }
+
+    // the multiplicative inverse of an odd number modulo 2^32, by Newton's iteration
+    static int inverse(int odd) {
+        int x = odd;
+        for (int i = 0; i < 5; i++) {
+            x *= 2 - odd * x;
+        }
+        return x;
+    }
+}